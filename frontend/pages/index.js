@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react'
+import { useState, useEffect, useRef } from 'react'
 import Head from 'next/head'
 
 export default function Home() {
@@ -12,6 +12,23 @@ export default function Home() {
     fetchPhones()
   }, [])
 
+  // Apply catalog changes to the phones on screen instead of refetching them
+  const reloadRef = useRef()
+  useEffect(() => {
+    const changes = new EventSource('/api/v1/phones/changes')
+    changes.addEventListener('updated', (event) => {
+      const change = JSON.parse(event.data)
+      setPhones(current => current.map(phone => phone.id === change.phoneId ? change.phone : phone))
+    })
+    changes.addEventListener('deleted', (event) => {
+      const change = JSON.parse(event.data)
+      setPhones(current => current.filter(phone => phone.id !== change.phoneId))
+    })
+    // Changes were missed, e.g. after a server restart
+    changes.addEventListener('reset', () => reloadRef.current())
+    return () => changes.close()
+  }, [])
+
   const fetchPhones = async () => {
     try {
       const response = await fetch('/api/v1/phones?page=0&size=20')
@@ -26,6 +43,8 @@ export default function Home() {
     }
   }
 
+  reloadRef.current = fetchPhones
+
   const searchPhones = async () => {
     if (!searchQuery.trim()) {
       fetchPhones()
@@ -35,7 +54,12 @@ export default function Home() {
     try {
       setLoading(true)
       const response = await fetch(`/api/v1/phones/search?query=${encodeURIComponent(searchQuery)}`)
-      const data = await response.json()
+      let data = await response.json()
+      if (data.success && data.data.length === 0) {
+        // Nothing matched as typed, so allow for typos
+        const fuzzyResponse = await fetch(`/api/v1/phones/search?query=${encodeURIComponent(searchQuery)}&fuzzy=true`)
+        data = await fuzzyResponse.json()
+      }
       if (data.success) {
         setPhones(data.data)
       }
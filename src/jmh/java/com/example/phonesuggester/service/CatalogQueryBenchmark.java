@@ -0,0 +1,177 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.config.CacheConfig;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.model.Phone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and allocation of the catalog read paths at several catalog sizes.
+ * <p>
+ * {@code cold} calls the service directly, so every call does the full index lookup; phones are
+ * serialized on first use and then served from the JSON cached next to each row, while
+ * {@code convertToResponse} measures the DTO conversion that serialization starts from. {@code hot} calls it through a Spring caching proxy, so after warmup the cached
+ * methods are served from Caffeine and only {@code findByPriceRange} still reaches the store.
+ * <p>
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec}; the profile adds {@code -prof gc} so
+ * allocation per operation is reported next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CatalogQueryBenchmark {
+
+    private static final String[] BRANDS = {"Apple", "Samsung", "Google", "OnePlus", "Xiaomi", "Motorola", "Sony", "Nokia"};
+    private static final String[] USAGE_TYPES = {"Gaming", "Photography", "Business", "Everyday", "Budget"};
+    private static final String[] WORDS = {"camera", "battery", "display", "flagship", "compact", "fast", "zoom", "night"};
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"cold", "hot"})
+    public String cache;
+
+    private AnnotationConfigApplicationContext context;
+    private InMemoryPhoneService target;
+    private InMemoryPhoneService service;
+    private String[] ids;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("hot".equals(cache)) {
+            context = new AnnotationConfigApplicationContext(BenchmarkCacheConfig.class, InMemoryPhoneService.class);
+            service = context.getBean(InMemoryPhoneService.class);
+        } else {
+            service = new InMemoryPhoneService();
+        }
+        // Loaded in batches like SyntheticCatalogLoader; one write per phone copies the indexes every time
+        Random random = new Random(42);
+        ids = new String[catalogSize];
+        List<Phone> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        for (int i = 0; i < catalogSize; i++) {
+            Phone phone = PhoneMapper.newPhone(phone(i, random));
+            ids[i] = phone.getId();
+            batch.add(phone);
+            if (batch.size() == LOAD_BATCH_SIZE || i == catalogSize - 1) {
+                service.createPhones(batch);
+                batch = new ArrayList<>(LOAD_BATCH_SIZE);
+            }
+        }
+        // The package-private conversion has to run on the instance behind the caching proxy
+        target = AopTestUtils.getUltimateTargetObject(service);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public List<PhoneJson> findAll() {
+        return service.findAll();
+    }
+
+    @Benchmark
+    public Optional<PhoneJson> findById() {
+        return service.findById(nextId());
+    }
+
+    @Benchmark
+    public List<PhoneJson> searchPhones() {
+        return service.searchPhones("camera flag");
+    }
+
+    @Benchmark
+    public List<PhoneJson> findByBrand() {
+        return service.findByBrand("sam");
+    }
+
+    @Benchmark
+    public List<PhoneJson> findByUsageType() {
+        return service.findByUsageType("Gaming");
+    }
+
+    @Benchmark
+    public List<PhoneJson> findByPriceRange() {
+        return service.findByPriceRange(400.0, 450.0);
+    }
+
+    @Benchmark
+    public PhoneResponse convertToResponse() {
+        return target.convertToResponse(lookup++ % catalogSize);
+    }
+
+    private String nextId() {
+        return ids[lookup++ % catalogSize];
+    }
+
+    private static PhoneRequest phone(int i, Random random) {
+        PhoneRequest request = new PhoneRequest();
+        String brand = BRANDS[random.nextInt(BRANDS.length)];
+        request.setName(brand + " Model " + i);
+        request.setBrand(brand);
+        request.setDescription(WORDS[random.nextInt(WORDS.length)] + " phone with " + WORDS[random.nextInt(WORDS.length)]
+                + " and " + WORDS[random.nextInt(WORDS.length)]);
+        request.setPrice(100.0 + random.nextInt(1400));
+        request.setCurrency("USD");
+        request.setUsageTypes(List.of(USAGE_TYPES[random.nextInt(USAGE_TYPES.length)], USAGE_TYPES[random.nextInt(USAGE_TYPES.length)]));
+        request.setImageUrl("https://example.com/phone-" + i + ".jpg");
+        request.setReleaseDate(LocalDateTime.of(2020, 1, 1, 0, 0).plusDays(random.nextInt(1500)));
+        request.setStorageGB(64 << random.nextInt(4));
+        request.setRamGB(4 + 2 * random.nextInt(7));
+        request.setBatteryCapacity(3000 + random.nextInt(3000));
+        request.setScreenSize(5.5 + random.nextInt(15) / 10.0);
+        request.setCameraCount(1 + random.nextInt(4));
+        request.setIs5G(random.nextBoolean());
+        request.setIsWaterResistant(random.nextBoolean());
+        request.setHasWirelessCharging(random.nextBoolean());
+        request.setRating(3.0 + random.nextInt(21) / 10.0);
+        return request;
+    }
+
+    /** Unbounded regions so the hot runs measure cache hits rather than the production eviction bounds. */
+    @Configuration
+    @EnableCaching
+    static class BenchmarkCacheConfig {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.PHONE_BY_ID, CacheConfig.PHONE_LISTS, CacheConfig.PHONE_SEARCH);
+        }
+    }
+}
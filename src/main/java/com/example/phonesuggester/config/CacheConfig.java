@@ -1,17 +1,61 @@
 package com.example.phonesuggester.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Collection;
+import java.util.List;
+
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(PhoneCacheProperties.class)
 public class CacheConfig {
 
+    public static final String PHONE_BY_ID = "phoneById";
+    public static final String PHONE_LISTS = "phoneLists";
+    public static final String PHONE_SEARCH = "phoneSearch";
+
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("phones");
+    public CacheManager cacheManager(PhoneCacheProperties properties, ObjectProvider<RedisCacheTier> redisCacheTier) {
+        RedisCacheTier shared = redisCacheTier.getIfAvailable();
+        if (shared != null) {
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(List.of(
+                    twoTier(PHONE_BY_ID, properties.getById(), shared),
+                    twoTier(PHONE_LISTS, properties.getLists(), shared),
+                    twoTier(PHONE_SEARCH, properties.getSearch(), shared)));
+            return cacheManager;
+        }
+        // Caffeine bounds each region with W-TinyLFU admission; recordStats feeds the actuator cache metrics
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PHONE_BY_ID, build(properties.getById()));
+        cacheManager.registerCustomCache(PHONE_LISTS, build(properties.getLists()));
+        cacheManager.registerCustomCache(PHONE_SEARCH, build(properties.getSearch()));
+        return cacheManager;
+    }
+
+    private TwoTierCache twoTier(String name, PhoneCacheProperties.Region region, RedisCacheTier shared) {
+        return new TwoTierCache(name, build(region), shared, region.getExpireAfterWrite());
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> build(PhoneCacheProperties.Region region) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (region.getMaximumWeight() != null) {
+            builder.maximumWeight(region.getMaximumWeight())
+                    .weigher((key, value) -> value instanceof Collection<?> phones ? Math.max(1, phones.size()) : 1);
+        } else if (region.getMaximumSize() != null) {
+            builder.maximumSize(region.getMaximumSize());
+        }
+        if (region.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(region.getExpireAfterWrite());
+        }
+        return builder.build();
     }
-} 
\ No newline at end of file
+}
@@ -14,5 +14,6 @@ import org.springframework.context.annotation.Configuration;
 })
 public class LocalDevelopmentConfig {
     // This configuration excludes MongoDB and Redis auto-configuration
-    // for local development without these services
+    // for local development without these services; MongoConfig and
+    // RedisCacheConfig bring them back when they are enabled
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.phonesuggester.config;
+
+import com.example.phonesuggester.repository.PhoneRepository;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+/**
+ * Connects to MongoDB under the {@code mongo} profile. Without it the application leaves out Mongo
+ * auto-configuration and the repository package, so it runs without a database; this brings both
+ * back, and {@link com.example.phonesuggester.service.MongoPhoneService} replaces the in-memory catalog.
+ */
+@Configuration
+@Profile("mongo")
+@ImportAutoConfiguration({MongoAutoConfiguration.class, MongoDataAutoConfiguration.class})
+@EnableMongoRepositories(basePackageClasses = PhoneRepository.class)
+public class MongoConfig {
+}
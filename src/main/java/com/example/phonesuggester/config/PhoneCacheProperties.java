@@ -0,0 +1,72 @@
+package com.example.phonesuggester.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.cache")
+public class PhoneCacheProperties {
+
+    private Region byId = new Region(10_000, null, Duration.ofMinutes(10));
+    private Region lists = new Region(null, 200_000L, Duration.ofMinutes(5));
+    private Region search = new Region(null, 100_000L, Duration.ofMinutes(2));
+    private Redis redis = new Redis();
+
+    public Region getById() { return byId; }
+    public void setById(Region byId) { this.byId = byId; }
+
+    public Region getLists() { return lists; }
+    public void setLists(Region lists) { this.lists = lists; }
+
+    public Region getSearch() { return search; }
+    public void setSearch(Region search) { this.search = search; }
+
+    public Redis getRedis() { return redis; }
+    public void setRedis(Redis redis) { this.redis = redis; }
+
+    /**
+     * Bounds for one cache region. Set either a maximum entry count or a maximum weight, where the
+     * weight of a cached list is the number of phones it holds.
+     */
+    public static class Region {
+        private Integer maximumSize;
+        private Long maximumWeight;
+        private Duration expireAfterWrite;
+
+        public Region() {}
+
+        public Region(Integer maximumSize, Long maximumWeight, Duration expireAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Integer getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(Integer maximumSize) { this.maximumSize = maximumSize; }
+
+        public Long getMaximumWeight() { return maximumWeight; }
+        public void setMaximumWeight(Long maximumWeight) { this.maximumWeight = maximumWeight; }
+
+        public Duration getExpireAfterWrite() { return expireAfterWrite; }
+        public void setExpireAfterWrite(Duration expireAfterWrite) { this.expireAfterWrite = expireAfterWrite; }
+    }
+
+    /**
+     * The shared Redis tier behind the in-process regions. Each region keeps its entries in Redis for
+     * its own expire-after-write.
+     */
+    public static class Redis {
+        private boolean enabled;
+        private String keyPrefix = "phone-suggester:cache";
+        private String channel = "phone-suggester:cache-invalidation";
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getKeyPrefix() { return keyPrefix; }
+        public void setKeyPrefix(String keyPrefix) { this.keyPrefix = keyPrefix; }
+
+        public String getChannel() { return channel; }
+        public void setChannel(String channel) { this.channel = channel; }
+    }
+}
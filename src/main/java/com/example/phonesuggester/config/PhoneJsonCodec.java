@@ -0,0 +1,71 @@
+package com.example.phonesuggester.config;
+
+import com.example.phonesuggester.dto.PhoneJson;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary form of the cached catalog reads kept in Redis: a null, one {@link PhoneJson} or a list of
+ * them. The phones' JSON bytes are framed as they are, so nothing is parsed or serialized again.
+ */
+final class PhoneJsonCodec {
+
+    private static final byte NULL = 0;
+    private static final byte PHONE = 1;
+    private static final byte LIST = 2;
+
+    private PhoneJsonCodec() {}
+
+    /** The encoded value, or null when it is of a type that is only cached in-process. */
+    static byte[] encode(Object value) {
+        if (value == null) {
+            return new byte[] {NULL};
+        }
+        if (value instanceof PhoneJson phone) {
+            byte[] json = phone.getBytes();
+            return ByteBuffer.allocate(1 + json.length).put(PHONE).put(json).array();
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(PhoneJson.class::isInstance)) {
+            int size = 1 + Integer.BYTES;
+            for (Object phone : list) {
+                size += Integer.BYTES + ((PhoneJson) phone).getBytes().length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size).put(LIST).putInt(list.size());
+            for (Object phone : list) {
+                byte[] json = ((PhoneJson) phone).getBytes();
+                buffer.putInt(json.length).put(json);
+            }
+            return buffer.array();
+        }
+        return null;
+    }
+
+    static Object decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case PHONE:
+                return new PhoneJson(remaining(buffer, buffer.remaining()));
+            case LIST:
+                int count = buffer.getInt();
+                List<PhoneJson> phones = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    phones.add(new PhoneJson(remaining(buffer, buffer.getInt())));
+                }
+                return Collections.unmodifiableList(phones);
+            default:
+                throw new IllegalArgumentException("Unknown cached value type " + type);
+        }
+    }
+
+    private static byte[] remaining(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
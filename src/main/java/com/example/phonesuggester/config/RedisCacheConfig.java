@@ -0,0 +1,62 @@
+package com.example.phonesuggester.config;
+
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Adds the shared Redis tier behind the in-process caches when {@code app.cache.redis.enabled=true}.
+ * The application leaves out Redis auto-configuration otherwise, so it runs without a Redis server;
+ * this brings the connection back, and {@link CacheConfig} then builds every region as a
+ * {@link TwoTierCache}.
+ * <p>
+ * Instances sharing the tier must share one catalog too, or each would serve the others' entries
+ * for phones it does not have, so startup fails unless the {@code mongo} profile is active.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "true")
+@ImportAutoConfiguration(RedisAutoConfiguration.class)
+public class RedisCacheConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @PostConstruct
+    void requireSharedCatalog() {
+        if (!environment.acceptsProfiles(Profiles.of("mongo"))) {
+            throw new IllegalStateException("app.cache.redis.enabled=true requires the mongo profile, "
+                    + "since instances sharing the cache must share one catalog");
+        }
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    public RedisCacheTier redisCacheTier(RedisConnectionFactory connectionFactory,
+                                         RedisMessageListenerContainer cacheInvalidationListenerContainer,
+                                         PhoneCacheProperties properties) {
+        return new RedisCacheTier(connectionFactory, cacheInvalidationListenerContainer,
+                properties.getRedis().getKeyPrefix(), properties.getRedis().getChannel());
+    }
+
+    /** Keeps the actuator cache metrics of the in-process tier, which a plain Caffeine region reports on its own. */
+    @Bean
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.phonesuggester.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The cache tier shared by all instances. Entries live in Redis under
+ * {@code <key-prefix>:<cache>:<key>}, and a pub/sub channel carries the invalidations each instance
+ * applies to its own in-process tier.
+ * <p>
+ * Every cache also has a generation under {@code <key-prefix>:generation:<cache>}, which each
+ * eviction increments before it deletes. A value loaded from the catalog is stored with
+ * {@link #putIfGeneration} only while the generation is still the one read before loading, so a
+ * load that overlapped a write cannot leave its stale result behind the write's eviction.
+ * <p>
+ * Redis failures never fail a request: a read that fails is a miss and a failed write or eviction
+ * is logged, leaving the entry to expire.
+ */
+public class RedisCacheTier {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheTier.class);
+
+    // Sets KEYS[2] to ARGV[2], expiring after ARGV[3] ms unless that is 0, if KEYS[1] still holds ARGV[1]
+    private static final RedisScript<Long> PUT_IF_GENERATION = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+                return 0
+            end
+            if ARGV[3] == '0' then
+                redis.call('SET', KEYS[2], ARGV[2])
+            else
+                redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            end
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String keyPrefix;
+    private final ChannelTopic channel;
+
+    public RedisCacheTier(RedisConnectionFactory connectionFactory, RedisMessageListenerContainer listenerContainer,
+                          String keyPrefix, String channel) {
+        this.redisTemplate = new RedisTemplate<>();
+        this.redisTemplate.setConnectionFactory(connectionFactory);
+        this.redisTemplate.setKeySerializer(RedisSerializer.string());
+        this.redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        this.redisTemplate.afterPropertiesSet();
+        this.listenerContainer = listenerContainer;
+        this.keyPrefix = keyPrefix + ":";
+        this.channel = new ChannelTopic(channel);
+    }
+
+    public byte[] get(String cacheName, Object key) {
+        try {
+            return redisTemplate.opsForValue().get(redisKey(cacheName, key));
+        } catch (DataAccessException e) {
+            log.warn("Redis read of {} in {} failed, treating it as a miss: {}", key, cacheName, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String cacheName, Object key, byte[] value, Duration ttl) {
+        try {
+            if (ttl != null) {
+                redisTemplate.opsForValue().set(redisKey(cacheName, key), value, ttl);
+            } else {
+                redisTemplate.opsForValue().set(redisKey(cacheName, key), value);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis write of {} in {} failed: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    /** The cache's current generation, or -1 when Redis cannot be read. */
+    public long generation(String cacheName) {
+        try {
+            byte[] generation = redisTemplate.opsForValue().get(generationKey(cacheName));
+            return generation == null ? 0 : Long.parseLong(new String(generation, StandardCharsets.US_ASCII));
+        } catch (DataAccessException | NumberFormatException e) {
+            log.warn("Redis read of the {} generation failed: {}", cacheName, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Stores the value only if no eviction from the cache started since {@link #generation} returned
+     * the given generation.
+     */
+    public void putIfGeneration(String cacheName, Object key, byte[] value, Duration ttl, long generation) {
+        if (generation < 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(PUT_IF_GENERATION, List.of(generationKey(cacheName), redisKey(cacheName, key)),
+                    ascii(Long.toString(generation)), value, ascii(Long.toString(ttl == null ? 0 : ttl.toMillis())));
+        } catch (DataAccessException e) {
+            log.warn("Redis write of {} in {} failed: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    public void evict(String cacheName, Object key) {
+        try {
+            nextGeneration(cacheName);
+            redisTemplate.delete(redisKey(cacheName, key));
+        } catch (DataAccessException e) {
+            log.warn("Redis eviction of {} in {} failed: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    /** Evicts every key of the cache the predicate accepts, found with SCAN rather than KEYS. */
+    public void evictMatching(String cacheName, Predicate<String> affected) {
+        String prefix = keyPrefix + cacheName + ":";
+        try {
+            nextGeneration(cacheName);
+            List<String> stale = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(1000).build();
+            try (Cursor<String> keys = redisTemplate.scan(options)) {
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    if (affected.test(key.substring(prefix.length()))) {
+                        stale.add(key);
+                    }
+                }
+            }
+            if (!stale.isEmpty()) {
+                redisTemplate.delete(stale);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis eviction in {} failed: {}", cacheName, e.getMessage());
+        }
+    }
+
+    public void clear(String cacheName) {
+        evictMatching(cacheName, key -> true);
+    }
+
+    public void publish(byte[] message) {
+        try {
+            redisTemplate.convertAndSend(channel.getTopic(), message);
+        } catch (DataAccessException e) {
+            log.warn("Publishing a cache invalidation failed: {}", e.getMessage());
+        }
+    }
+
+    public void subscribe(Consumer<byte[]> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> listener.accept(message.getBody()), channel);
+    }
+
+    private String redisKey(String cacheName, Object key) {
+        return keyPrefix + cacheName + ":" + key;
+    }
+
+    // Before the keys are deleted, so a load that read the old generation can no longer store its value
+    private void nextGeneration(String cacheName) {
+        redisTemplate.opsForValue().increment(generationKey(cacheName));
+    }
+
+    private String generationKey(String cacheName) {
+        return keyPrefix + "generation:" + cacheName;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.phonesuggester.config;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * A cache region read from an in-process Caffeine tier first and from the shared Redis tier on a
+ * miss, so an entry loaded by any instance is reused by all of them. Writes go to both tiers; a
+ * value this instance loaded reaches Redis only if no eviction from the region overlapped the load.
+ * <p>
+ * {@link #getNativeCache()} is the in-process tier; evicting from it directly leaves Redis alone,
+ * which is how invalidations received from other instances are applied.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final RedisCacheTier shared;
+    private final Duration sharedTtl;
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                        RedisCacheTier shared, Duration sharedTtl) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.sharedTtl = sharedTtl;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value == null) {
+            value = lookupShared(key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine runs the loader once per key on this instance; concurrent callers wait for it
+        return (T) fromStoreValue(local.get(key, k -> {
+            Object value = lookupShared(k);
+            if (value != null) {
+                return value;
+            }
+            // Read before loading, so a write evicting while this loads keeps the result out of Redis
+            long generation = shared.generation(name);
+            try {
+                T loaded = valueLoader.call();
+                byte[] bytes = PhoneJsonCodec.encode(loaded);
+                if (bytes != null) {
+                    shared.putIfGeneration(name, k, bytes, sharedTtl, generation);
+                }
+                return toStoreValue(loaded);
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, toStoreValue(value));
+        putShared(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(name, key);
+        local.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        shared.clear(name);
+        local.invalidateAll();
+    }
+
+    private Object lookupShared(Object key) {
+        byte[] bytes = shared.get(name, key);
+        return bytes != null ? toStoreValue(PhoneJsonCodec.decode(bytes)) : null;
+    }
+
+    private void putShared(Object key, Object value) {
+        byte[] bytes = PhoneJsonCodec.encode(value);
+        if (bytes != null) {
+            shared.put(name, key, bytes, sharedTtl);
+        }
+    }
+}
@@ -2,41 +2,87 @@ package com.example.phonesuggester.controller;
 
 import com.example.phonesuggester.model.Category;
 import com.example.phonesuggester.repository.CategoryRepository;
+import com.example.phonesuggester.service.MongoPhoneService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @RestController
 @RequestMapping("/api/v1/categories")
 @Tag(name = "Category Management", description = "APIs for managing phone categories")
 public class CategoryController {
 
+    // Kept next to the phone catalog's counter, so every instance on the database hands out the same tags
+    private static final String CATEGORIES_VERSION_ID = "categories";
+
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @GetMapping
-    @Operation(summary = "Get all categories", description = "Retrieve all phone categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
+    @Operation(summary = "Get all categories", description = "Retrieve all phone categories; answers 304 when If-None-Match holds the current ETag")
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoriesETag())) {
+            return null;
+        }
         List<Category> categories = categoryRepository.findAll();
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get category by ID", description = "Retrieve a specific category by its ID")
-    public ResponseEntity<Category> getCategoryById(@PathVariable String id) {
-        return categoryRepository.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    @Operation(summary = "Get category by ID", description = "Retrieve a specific category by its ID; answers 304 when If-None-Match holds the category's current ETag")
+    public ResponseEntity<Category> getCategoryById(@PathVariable String id, WebRequest webRequest) {
+        Optional<Category> category = categoryRepository.findById(id);
+        if (category.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(categoryETag(category.get()))) {
+            return null;
+        }
+        return ResponseEntity.ok(category.get());
     }
 
     @PostMapping
     @Operation(summary = "Create a new category", description = "Add a new category to the system")
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
+        category.setUpdatedAt(LocalDateTime.now());
         Category savedCategory = categoryRepository.save(category);
+        // Counted after the write, so a tag read before the count moves can only be older than the data
+        mongoTemplate.upsert(query(where("_id").is(CATEGORIES_VERSION_ID)), new Update().inc("version", 1),
+                MongoPhoneService.VERSIONS_COLLECTION);
         return ResponseEntity.ok(savedCategory);
     }
-} 
\ No newline at end of file
+
+    /** Number of category writes made through this controller, shared by every instance using the database. */
+    public long categoriesVersion() {
+        Document counter = mongoTemplate.findById(CATEGORIES_VERSION_ID, Document.class, MongoPhoneService.VERSIONS_COLLECTION);
+        Number version = counter == null ? null : counter.get("version", Number.class);
+        return version == null ? 0 : version.longValue();
+    }
+
+    private String categoriesETag() {
+        return "\"" + Long.toHexString(categoriesVersion()) + "\"";
+    }
+
+    // Tagged by the category's last write, so writes to other categories leave it alone
+    private static String categoryETag(Category category) {
+        long updatedAt = category.getUpdatedAt() == null ? 0 : category.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "\"" + Long.toHexString(updatedAt) + "\"";
+    }
+}
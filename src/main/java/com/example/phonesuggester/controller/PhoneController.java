@@ -1,8 +1,19 @@
 package com.example.phonesuggester.controller;
 
+import com.example.phonesuggester.dto.AutocompleteSuggestion;
+import com.example.phonesuggester.dto.CursorPage;
+import com.example.phonesuggester.dto.FacetCounts;
+import com.example.phonesuggester.dto.ImportResult;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneQuery;
 import com.example.phonesuggester.dto.PhoneRequest;
 import com.example.phonesuggester.dto.PhoneResponse;
-import com.example.phonesuggester.service.InMemoryPhoneService;
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.dto.SuggestionResponse;
+import com.example.phonesuggester.service.PhoneChangeFeed;
+import com.example.phonesuggester.service.PhoneExportService;
+import com.example.phonesuggester.service.PhoneImportService;
+import com.example.phonesuggester.service.PhoneService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,20 +22,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,18 +50,30 @@ import java.util.Optional;
 @Tag(name = "Phone Management", description = "APIs for managing phone suggestions")
 public class PhoneController {
 
+    private static final String CURSOR_DESCRIPTION = "Keyset cursor: pass an empty value for the first page and the returned nextCursor for the next ones";
+
+    @Autowired
+    private PhoneService phoneService;
+
     @Autowired
-    private InMemoryPhoneService phoneService;
+    private PhoneImportService phoneImportService;
+
+    @Autowired
+    private PhoneExportService phoneExportService;
+
+    @Autowired
+    private PhoneChangeFeed phoneChangeFeed;
 
     @GetMapping
-    @Operation(summary = "Get all phones", description = "Retrieve a paginated list of all phones")
+    @Operation(summary = "Get all phones", description = "Retrieve a paginated list of all phones, by page number or, when a cursor is given, by keyset")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Successfully retrieved phones",
                     content = @Content(schema = @Schema(implementation = PhoneResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request parameters"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<Page<PhoneResponse>>> getAllPhones(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<?>> getAllPhones(
             @Parameter(description = "Page number (0-based)") 
             @RequestParam(defaultValue = "0") @Min(0) int page,
             @Parameter(description = "Page size") 
@@ -53,16 +81,21 @@ public class PhoneController {
             @Parameter(description = "Sort field") 
             @RequestParam(defaultValue = "name") String sortBy,
             @Parameter(description = "Sort direction") 
-            @RequestParam(defaultValue = "ASC") String sortDir) {
-        
-        List<PhoneResponse> allPhones = phoneService.findAll();
-        
-        // Simple pagination implementation
-        int start = page * size;
-        int end = Math.min(start + size, allPhones.size());
-        List<PhoneResponse> pageContent = allPhones.subList(start, end);
+            @RequestParam(defaultValue = "ASC") String sortDir,
+            @Parameter(description = CURSOR_DESCRIPTION) 
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         
-        Page<PhoneResponse> phonePage = new PageImpl<>(pageContent, PageRequest.of(page, size), allPhones.size());
+        Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
+        if (cursor != null) {
+            // Cursor pages are read from the version pinned by the first page, so they carry no tag of the current one
+            CursorPage<PhoneJson> phones = phoneService.findAllPage(sort, cursor, size);
+            return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        Page<PhoneJson> phonePage = phoneService.findAllPaginated(PageRequest.of(page, size, sort));
         
         return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phonePage, "Phones retrieved successfully"));
     }
@@ -71,14 +104,20 @@ public class PhoneController {
     @Operation(summary = "Get phone by ID", description = "Retrieve a specific phone by its ID")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Successfully retrieved phone"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Phone not found"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<PhoneResponse>> getPhoneById(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<PhoneJson>> getPhoneById(
             @Parameter(description = "Phone ID") 
-            @PathVariable @NotBlank String id) {
+            @PathVariable @NotBlank String id,
+            WebRequest webRequest) {
         
-        Optional<PhoneResponse> phone = phoneService.findById(id);
+        String eTag = phoneService.phoneETag(id);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        Optional<PhoneJson> phone = phoneService.findById(id);
         if (phone.isPresent()) {
             return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phone.get(), "Phone retrieved successfully"));
         } else {
@@ -103,6 +142,21 @@ public class PhoneController {
                 .body(com.example.phonesuggester.dto.ApiResponse.success(createdPhone, "Phone created successfully"));
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Bulk import phones", description = "Import phones from newline-delimited JSON, one phone per line. Valid lines are stored in batches; invalid lines are reported with their line numbers")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Import processed, see the result for per-line errors"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<ImportResult>> importPhones(
+            @Parameter(description = "One phone JSON object per line") 
+            InputStream body) {
+        
+        ImportResult result = phoneImportService.importNdjson(body);
+        return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(result,
+                "Imported " + result.getImported() + " phones, " + result.getFailed() + " lines rejected"));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update a phone", description = "Update an existing phone by ID")
     @ApiResponses(value = {
@@ -147,32 +201,89 @@ public class PhoneController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search phones", description = "Search phones by query string")
+    @Operation(summary = "Search phones", description = "Search phones by query string, optionally tolerating typos")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Search completed successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid search parameters"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneResponse>>> searchPhones(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<?>> searchPhones(
             @Parameter(description = "Search query") 
-            @RequestParam @NotBlank String query) {
+            @RequestParam @NotBlank String query,
+            @Parameter(description = CURSOR_DESCRIPTION) 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size in cursor mode") 
+            @RequestParam(defaultValue = "20") @Min(1) int limit,
+            @Parameter(description = "Tolerate typos in name and brand terms, e.g. 'samsng' or 'pixl'; not combined with a cursor") 
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest webRequest) {
         
-        List<PhoneResponse> phones = phoneService.searchPhones(query);
+        if (fuzzy && cursor != null) {
+            throw new IllegalArgumentException("Fuzzy search does not support cursors");
+        }
+        if (cursor != null) {
+            CursorPage<PhoneJson> phones = phoneService.searchPhonesPage(query, cursor, limit);
+            return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Search completed successfully"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        List<PhoneJson> phones = fuzzy ? phoneService.fuzzySearchPhones(query) : phoneService.searchPhones(query);
         return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Search completed successfully"));
     }
 
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete phone names", description = "Ids and names of the best rated phones whose name, a later part of their name, or brand followed by name starts with the prefix")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Completions retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid prefix or limit")
+    })
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<AutocompleteSuggestion>>> autocomplete(
+            @Parameter(description = "What has been typed so far") 
+            @RequestParam @NotBlank String prefix,
+            @Parameter(description = "Number of completions, at most 10") 
+            @RequestParam(defaultValue = "10") @Min(1) @Max(10) int limit,
+            WebRequest webRequest) {
+        
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        List<AutocompleteSuggestion> suggestions = phoneService.autocomplete(prefix, limit);
+        return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(suggestions, "Completions retrieved successfully"));
+    }
+
     @GetMapping("/brand/{brand}")
     @Operation(summary = "Get phones by brand", description = "Retrieve all phones from a specific brand")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Phones retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid brand parameter"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneResponse>>> getPhonesByBrand(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<?>> getPhonesByBrand(
             @Parameter(description = "Brand name") 
-            @PathVariable @NotBlank String brand) {
+            @PathVariable @NotBlank String brand,
+            @Parameter(description = CURSOR_DESCRIPTION) 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size in cursor mode") 
+            @RequestParam(defaultValue = "20") @Min(1) int limit,
+            @Parameter(description = "Sort field in cursor mode") 
+            @RequestParam(defaultValue = "name") String sortBy,
+            @Parameter(description = "Sort direction in cursor mode") 
+            @RequestParam(defaultValue = "ASC") String sortDir,
+            WebRequest webRequest) {
         
-        List<PhoneResponse> phones = phoneService.findByBrand(brand);
+        if (cursor != null) {
+            Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
+            CursorPage<PhoneJson> phones = phoneService.findByBrandPage(brand, sort, cursor, limit);
+            return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        List<PhoneJson> phones = phoneService.findByBrand(brand);
         return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
     }
 
@@ -180,14 +291,32 @@ public class PhoneController {
     @Operation(summary = "Get phones by usage type", description = "Retrieve phones by usage type")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Phones retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid usage type parameter"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneResponse>>> getPhonesByUsageType(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<?>> getPhonesByUsageType(
             @Parameter(description = "Usage type") 
-            @PathVariable @NotBlank String usageType) {
+            @PathVariable @NotBlank String usageType,
+            @Parameter(description = CURSOR_DESCRIPTION) 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size in cursor mode") 
+            @RequestParam(defaultValue = "20") @Min(1) int limit,
+            @Parameter(description = "Sort field in cursor mode") 
+            @RequestParam(defaultValue = "name") String sortBy,
+            @Parameter(description = "Sort direction in cursor mode") 
+            @RequestParam(defaultValue = "ASC") String sortDir,
+            WebRequest webRequest) {
         
-        List<PhoneResponse> phones = phoneService.findByUsageType(usageType);
+        if (cursor != null) {
+            Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
+            CursorPage<PhoneJson> phones = phoneService.findByUsageTypePage(usageType, sort, cursor, limit);
+            return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        List<PhoneJson> phones = phoneService.findByUsageType(usageType);
         return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
     }
 
@@ -195,24 +324,184 @@ public class PhoneController {
     @Operation(summary = "Get phones by price range", description = "Retrieve phones within a price range")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Phones retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid price range parameters"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneResponse>>> getPhonesByPriceRange(
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneJson>>> getPhonesByPriceRange(
             @Parameter(description = "Minimum price") 
             @RequestParam @Min(0) Double minPrice,
             @Parameter(description = "Maximum price") 
-            @RequestParam @Min(0) Double maxPrice) {
+            @RequestParam @Min(0) Double maxPrice,
+            WebRequest webRequest) {
         
         if (minPrice > maxPrice) {
             return ResponseEntity.badRequest()
                     .body(com.example.phonesuggester.dto.ApiResponse.error("Minimum price cannot be greater than maximum price"));
         }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
         
-        List<PhoneResponse> phones = phoneService.findByPriceRange(minPrice, maxPrice);
+        List<PhoneJson> phones = phoneService.findByPriceRange(minPrice, maxPrice);
         return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
     }
 
+    @GetMapping("/query")
+    @Operation(summary = "Query phones", description = "Retrieve phones matching any combination of text, brand, usage type, price and feature filters")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Phones retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid filter parameters"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<List<PhoneJson>>> queryPhones(
+            @Parameter(description = "Free-text query; all terms must match") 
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Brands; a phone matches if it belongs to any of them") 
+            @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Usage types; a phone must support all of them") 
+            @RequestParam(required = false) List<String> usageType,
+            @Parameter(description = "Minimum price") 
+            @RequestParam(required = false) @Min(0) Double minPrice,
+            @Parameter(description = "Maximum price") 
+            @RequestParam(required = false) @Min(0) Double maxPrice,
+            @Parameter(description = "Filter on 5G support") 
+            @RequestParam(required = false) Boolean is5G,
+            @Parameter(description = "Filter on water resistance") 
+            @RequestParam(required = false) Boolean isWaterResistant,
+            @Parameter(description = "Filter on wireless charging") 
+            @RequestParam(required = false) Boolean hasWirelessCharging,
+            WebRequest webRequest) {
+        
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest()
+                    .body(com.example.phonesuggester.dto.ApiResponse.error("Minimum price cannot be greater than maximum price"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        
+        PhoneQuery query = new PhoneQuery(q, brand, usageType, minPrice, maxPrice, is5G, isWaterResistant, hasWirelessCharging);
+        List<PhoneJson> phones = phoneService.queryPhones(query);
+        return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(phones, "Phones retrieved successfully"));
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Count phones per facet", description = "Number of phones per brand, usage type, price range and feature, among all phones or those matching the same filters as /query")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Facet counts retrieved successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "Not modified since the ETag sent in If-None-Match"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid filter parameters"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<FacetCounts>> facetCounts(
+            @Parameter(description = "Free-text query; all terms must match") 
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Brands; a phone matches if it belongs to any of them") 
+            @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Usage types; a phone must support all of them") 
+            @RequestParam(required = false) List<String> usageType,
+            @Parameter(description = "Minimum price") 
+            @RequestParam(required = false) @Min(0) Double minPrice,
+            @Parameter(description = "Maximum price") 
+            @RequestParam(required = false) @Min(0) Double maxPrice,
+            @Parameter(description = "Filter on 5G support") 
+            @RequestParam(required = false) Boolean is5G,
+            @Parameter(description = "Filter on water resistance") 
+            @RequestParam(required = false) Boolean isWaterResistant,
+            @Parameter(description = "Filter on wireless charging") 
+            @RequestParam(required = false) Boolean hasWirelessCharging,
+            WebRequest webRequest) {
+        
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest()
+                    .body(com.example.phonesuggester.dto.ApiResponse.error("Minimum price cannot be greater than maximum price"));
+        }
+        if (webRequest.checkNotModified(phoneService.catalogETag())) {
+            return null;
+        }
+        
+        PhoneQuery query = new PhoneQuery(q, brand, usageType, minPrice, maxPrice, is5G, isWaterResistant, hasWirelessCharging);
+        FacetCounts counts = phoneService.facetCounts(query);
+        return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(counts, "Facet counts retrieved successfully"));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export phones", description = "Stream the whole catalog, or the phones matching the same filters as /query, as NDJSON or CSV")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid format or filter parameters"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> exportPhones(
+            @Parameter(description = "Export format: ndjson or csv") 
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Free-text query; all terms must match") 
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Brands; a phone matches if it belongs to any of them") 
+            @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Usage types; a phone must support all of them") 
+            @RequestParam(required = false) List<String> usageType,
+            @Parameter(description = "Minimum price") 
+            @RequestParam(required = false) @Min(0) Double minPrice,
+            @Parameter(description = "Maximum price") 
+            @RequestParam(required = false) @Min(0) Double maxPrice,
+            @Parameter(description = "Filter on 5G support") 
+            @RequestParam(required = false) Boolean is5G,
+            @Parameter(description = "Filter on water resistance") 
+            @RequestParam(required = false) Boolean isWaterResistant,
+            @Parameter(description = "Filter on wireless charging") 
+            @RequestParam(required = false) Boolean hasWirelessCharging) {
+        
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
+        }
+        PhoneExportService.Format exportFormat = PhoneExportService.Format.fromName(format);
+        PhoneQuery query = new PhoneQuery(q, brand, usageType, minPrice, maxPrice, is5G, isWaterResistant, hasWirelessCharging);
+        StreamingResponseBody body = out -> phoneExportService.export(query, exportFormat, out);
+        String fileName = exportFormat == PhoneExportService.Format.CSV ? "phones.csv" : "phones.ndjson";
+        return ResponseEntity.ok()
+                .contentType(exportFormat == PhoneExportService.Format.CSV
+                        ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream catalog changes", description = "Server-sent created, updated and deleted events whose ids are <epoch>:<sequence> with increasing sequence numbers; "
+            + "resume with since or Last-Event-ID, and reload the catalog on a reset event")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Change stream opened"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid event id")
+    })
+    public SseEmitter streamChanges(
+            @Parameter(description = "Id of the last event already applied; omit to start from now") 
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Sent by EventSource on reconnect; takes precedence over since") 
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            since = lastEventId.trim();
+        }
+        return phoneChangeFeed.subscribe(since == null || since.isBlank() ? null : since.trim());
+    }
+
+    @PostMapping("/suggest")
+    @Operation(summary = "Suggest phones", description = "Rank phones within a budget by weighted preferences for camera, battery, RAM, rating, price and usage types")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Suggestions computed successfully"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid suggestion criteria"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<com.example.phonesuggester.dto.ApiResponse<SuggestionResponse>> suggestPhones(
+            @Parameter(description = "Budget, preferred usage types and spec weights") 
+            @Valid @RequestBody SuggestionRequest suggestionRequest) {
+        
+        SuggestionResponse suggestions = phoneService.suggestPhones(suggestionRequest);
+        return ResponseEntity.ok(com.example.phonesuggester.dto.ApiResponse.success(suggestions, "Suggestions computed successfully"));
+    }
+
     @GetMapping("/external")
     @Operation(summary = "Get external phones", description = "Retrieve phones from external API (DummyJSON)")
     @ApiResponses(value = {
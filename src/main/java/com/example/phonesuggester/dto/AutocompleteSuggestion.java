@@ -0,0 +1,20 @@
+package com.example.phonesuggester.dto;
+
+public class AutocompleteSuggestion {
+    private String id;
+    private String name;
+
+    public AutocompleteSuggestion() {}
+
+    public AutocompleteSuggestion(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+}
@@ -0,0 +1,32 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private long catalogVersion;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> content, String nextCursor, long catalogVersion) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+        this.catalogVersion = catalogVersion;
+    }
+
+    // Getters and Setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public long getCatalogVersion() { return catalogVersion; }
+    public void setCatalogVersion(long catalogVersion) { this.catalogVersion = catalogVersion; }
+}
@@ -0,0 +1,20 @@
+package com.example.phonesuggester.dto;
+
+public class FacetCount {
+    private String value;
+    private int count;
+
+    public FacetCount() {}
+
+    public FacetCount(String value, int count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
@@ -0,0 +1,38 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class FacetCounts {
+    private int total;
+    private List<FacetCount> brands;
+    private List<FacetCount> usageTypes;
+    private List<PriceRangeCount> priceRanges;
+    private List<FacetCount> features;
+
+    public FacetCounts() {}
+
+    public FacetCounts(int total, List<FacetCount> brands, List<FacetCount> usageTypes,
+                       List<PriceRangeCount> priceRanges, List<FacetCount> features) {
+        this.total = total;
+        this.brands = brands;
+        this.usageTypes = usageTypes;
+        this.priceRanges = priceRanges;
+        this.features = features;
+    }
+
+    // Getters and Setters
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public List<FacetCount> getBrands() { return brands; }
+    public void setBrands(List<FacetCount> brands) { this.brands = brands; }
+
+    public List<FacetCount> getUsageTypes() { return usageTypes; }
+    public void setUsageTypes(List<FacetCount> usageTypes) { this.usageTypes = usageTypes; }
+
+    public List<PriceRangeCount> getPriceRanges() { return priceRanges; }
+    public void setPriceRanges(List<PriceRangeCount> priceRanges) { this.priceRanges = priceRanges; }
+
+    public List<FacetCount> getFeatures() { return features; }
+    public void setFeatures(List<FacetCount> features) { this.features = features; }
+}
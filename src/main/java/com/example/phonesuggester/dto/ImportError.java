@@ -0,0 +1,22 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class ImportError {
+    private long line;
+    private List<String> messages;
+
+    public ImportError() {}
+
+    public ImportError(long line, List<String> messages) {
+        this.line = line;
+        this.messages = messages;
+    }
+
+    // Getters and Setters
+    public long getLine() { return line; }
+    public void setLine(long line) { this.line = line; }
+
+    public List<String> getMessages() { return messages; }
+    public void setMessages(List<String> messages) { this.messages = messages; }
+}
@@ -0,0 +1,37 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class ImportResult {
+    private long linesRead;
+    private long imported;
+    private long failed;
+    private List<ImportError> errors;
+    private boolean errorsTruncated;
+
+    public ImportResult() {}
+
+    public ImportResult(long linesRead, long imported, long failed, List<ImportError> errors, boolean errorsTruncated) {
+        this.linesRead = linesRead;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    // Getters and Setters
+    public long getLinesRead() { return linesRead; }
+    public void setLinesRead(long linesRead) { this.linesRead = linesRead; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public List<ImportError> getErrors() { return errors; }
+    public void setErrors(List<ImportError> errors) { this.errors = errors; }
+
+    public boolean isErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+}
@@ -0,0 +1,30 @@
+package com.example.phonesuggester.dto;
+
+public class PhoneChangeEvent {
+    private long sequence;
+    private String type;
+    private String phoneId;
+    private PhoneJson phone;
+
+    public PhoneChangeEvent() {}
+
+    public PhoneChangeEvent(long sequence, String type, String phoneId, PhoneJson phone) {
+        this.sequence = sequence;
+        this.type = type;
+        this.phoneId = phoneId;
+        this.phone = phone;
+    }
+
+    // Getters and Setters
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getPhoneId() { return phoneId; }
+    public void setPhoneId(String phoneId) { this.phoneId = phoneId; }
+
+    public PhoneJson getPhone() { return phone; }
+    public void setPhone(PhoneJson phone) { this.phone = phone; }
+}
@@ -0,0 +1,53 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class PhoneQuery {
+    private String text;
+    private List<String> brands;
+    private List<String> usageTypes;
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean is5G;
+    private Boolean isWaterResistant;
+    private Boolean hasWirelessCharging;
+
+    public PhoneQuery() {}
+
+    public PhoneQuery(String text, List<String> brands, List<String> usageTypes, Double minPrice, Double maxPrice,
+                      Boolean is5G, Boolean isWaterResistant, Boolean hasWirelessCharging) {
+        this.text = text;
+        this.brands = brands;
+        this.usageTypes = usageTypes;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.is5G = is5G;
+        this.isWaterResistant = isWaterResistant;
+        this.hasWirelessCharging = hasWirelessCharging;
+    }
+
+    // Getters and Setters
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public List<String> getBrands() { return brands; }
+    public void setBrands(List<String> brands) { this.brands = brands; }
+
+    public List<String> getUsageTypes() { return usageTypes; }
+    public void setUsageTypes(List<String> usageTypes) { this.usageTypes = usageTypes; }
+
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+
+    public Boolean getIs5G() { return is5G; }
+    public void setIs5G(Boolean is5G) { this.is5G = is5G; }
+
+    public Boolean getIsWaterResistant() { return isWaterResistant; }
+    public void setIsWaterResistant(Boolean isWaterResistant) { this.isWaterResistant = isWaterResistant; }
+
+    public Boolean getHasWirelessCharging() { return hasWirelessCharging; }
+    public void setHasWirelessCharging(Boolean hasWirelessCharging) { this.hasWirelessCharging = hasWirelessCharging; }
+}
@@ -0,0 +1,20 @@
+package com.example.phonesuggester.dto;
+
+public class PhoneSuggestion {
+    private PhoneResponse phone;
+    private double score;
+
+    public PhoneSuggestion() {}
+
+    public PhoneSuggestion(PhoneResponse phone, double score) {
+        this.phone = phone;
+        this.score = score;
+    }
+
+    // Getters and Setters
+    public PhoneResponse getPhone() { return phone; }
+    public void setPhone(PhoneResponse phone) { this.phone = phone; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
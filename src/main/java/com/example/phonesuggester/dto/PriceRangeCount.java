@@ -0,0 +1,26 @@
+package com.example.phonesuggester.dto;
+
+/** Phones priced from minPrice, inclusive, to maxPrice, exclusive; a null bound leaves that side open. */
+public class PriceRangeCount {
+    private Double minPrice;
+    private Double maxPrice;
+    private int count;
+
+    public PriceRangeCount() {}
+
+    public PriceRangeCount(Double minPrice, Double maxPrice, int count) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
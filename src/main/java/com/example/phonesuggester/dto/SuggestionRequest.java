@@ -0,0 +1,62 @@
+package com.example.phonesuggester.dto;
+
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+public class SuggestionRequest {
+    @NotNull(message = "Budget is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Budget must be greater than 0")
+    private Double budget;
+
+    private List<String> usageTypes;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double cameraWeight = 1.0;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double batteryWeight = 1.0;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double ramWeight = 1.0;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double ratingWeight = 1.0;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double priceWeight = 1.0;
+
+    @DecimalMin(value = "0.0", message = "Weights cannot be negative")
+    private Double usageTypeWeight = 1.0;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100, message = "Limit cannot exceed 100")
+    private Integer limit = 10;
+
+    // Getters and Setters
+    public Double getBudget() { return budget; }
+    public void setBudget(Double budget) { this.budget = budget; }
+
+    public List<String> getUsageTypes() { return usageTypes; }
+    public void setUsageTypes(List<String> usageTypes) { this.usageTypes = usageTypes; }
+
+    public Double getCameraWeight() { return cameraWeight; }
+    public void setCameraWeight(Double cameraWeight) { this.cameraWeight = cameraWeight; }
+
+    public Double getBatteryWeight() { return batteryWeight; }
+    public void setBatteryWeight(Double batteryWeight) { this.batteryWeight = batteryWeight; }
+
+    public Double getRamWeight() { return ramWeight; }
+    public void setRamWeight(Double ramWeight) { this.ramWeight = ramWeight; }
+
+    public Double getRatingWeight() { return ratingWeight; }
+    public void setRatingWeight(Double ratingWeight) { this.ratingWeight = ratingWeight; }
+
+    public Double getPriceWeight() { return priceWeight; }
+    public void setPriceWeight(Double priceWeight) { this.priceWeight = priceWeight; }
+
+    public Double getUsageTypeWeight() { return usageTypeWeight; }
+    public void setUsageTypeWeight(Double usageTypeWeight) { this.usageTypeWeight = usageTypeWeight; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
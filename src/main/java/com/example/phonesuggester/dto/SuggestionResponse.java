@@ -0,0 +1,27 @@
+package com.example.phonesuggester.dto;
+
+import java.util.List;
+
+public class SuggestionResponse {
+    private List<PhoneSuggestion> suggestions;
+    private int candidatesScored;
+    private long scoringTimeMicros;
+
+    public SuggestionResponse() {}
+
+    public SuggestionResponse(List<PhoneSuggestion> suggestions, int candidatesScored, long scoringTimeMicros) {
+        this.suggestions = suggestions;
+        this.candidatesScored = candidatesScored;
+        this.scoringTimeMicros = scoringTimeMicros;
+    }
+
+    // Getters and Setters
+    public List<PhoneSuggestion> getSuggestions() { return suggestions; }
+    public void setSuggestions(List<PhoneSuggestion> suggestions) { this.suggestions = suggestions; }
+
+    public int getCandidatesScored() { return candidatesScored; }
+    public void setCandidatesScored(int candidatesScored) { this.candidatesScored = candidatesScored; }
+
+    public long getScoringTimeMicros() { return scoringTimeMicros; }
+    public void setScoringTimeMicros(long scoringTimeMicros) { this.scoringTimeMicros = scoringTimeMicros; }
+}
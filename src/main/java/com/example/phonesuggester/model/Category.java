@@ -5,6 +5,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+
 @Document(collection = "categories")
 public class Category {
     @Id
@@ -17,10 +19,13 @@ public class Category {
     @Size(max = 200)
     private String description;
 
+    private LocalDateTime updatedAt;
+
     public Category() {}
     public Category(String name, String description) {
         this.name = name;
         this.description = description;
+        this.updatedAt = LocalDateTime.now();
     }
 
     // Getters and setters
@@ -30,4 +35,6 @@ public class Category {
     public void setName(String name) { this.name = name; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 } 
\ No newline at end of file
@@ -3,12 +3,20 @@ package com.example.phonesuggester.model;
 import jakarta.validation.constraints.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "phones")
+@CompoundIndexes({
+    // Brand filters listed in price order, and usage-type filters by rating
+    @CompoundIndex(name = "brand_price", def = "{'brand': 1, 'price': 1}"),
+    @CompoundIndex(name = "usageTypes_rating", def = "{'usageTypes': 1, 'rating': -1}")
+})
 public class Phone {
     @Id
     private String id;
@@ -16,20 +24,24 @@ public class Phone {
     @NotBlank(message = "Phone name is required")
     @Size(min = 2, max = 100, message = "Phone name must be between 2 and 100 characters")
     @Indexed
+    @TextIndexed(weight = 3)
     private String name;
     
     @NotBlank(message = "Brand is required")
     @Size(min = 2, max = 50, message = "Brand must be between 2 and 50 characters")
     @Indexed
+    @TextIndexed(weight = 2)
     private String brand;
     
     @NotBlank(message = "Description is required")
     @Size(min = 10, max = 500, message = "Description must be between 10 and 500 characters")
+    @TextIndexed
     private String description;
     
     @NotNull(message = "Price is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
     @DecimalMax(value = "1000000.0", message = "Price cannot exceed 1,000,000")
+    @Indexed
     private Double price;
     
     @NotNull(message = "Currency is required")
@@ -83,6 +95,10 @@ public class Phone {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Lowercased name and brand words, stored by the mongo catalog so word lookups can use an index
+    @Indexed
+    private List<String> terms;
+
     public Phone() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -172,4 +188,7 @@ public class Phone {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public List<String> getTerms() { return terms; }
+    public void setTerms(List<String> terms) { this.terms = terms; }
 }
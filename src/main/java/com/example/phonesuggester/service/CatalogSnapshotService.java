@@ -0,0 +1,123 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.store.MutationLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists the in-memory catalog across restarts when {@code app.snapshot.enabled=true}; MongoDB
+ * persists its own, so this does nothing under the {@code mongo} profile. The
+ * snapshot is loaded before the application starts serving, rewritten periodically whenever the
+ * catalog changed since the last write, and written once more on shutdown.
+ * <p>
+ * With {@code app.wal.enabled=true} every write is also recorded in a {@link MutationLog}, which is
+ * replayed on top of the snapshot at startup so writes since the last snapshot survive a crash.
+ * Each periodic snapshot is a checkpoint: log segments it covers are deleted afterwards.
+ */
+@Component
+@Profile("!mongo")
+@ConditionalOnProperty(prefix = "app.snapshot", name = "enabled", havingValue = "true")
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    @Autowired
+    private InMemoryPhoneService phoneService;
+
+    @Value("${app.snapshot.path:data/catalog.snapshot}")
+    private String path;
+
+    @Value("${app.wal.enabled:false}")
+    private boolean walEnabled;
+
+    @Value("${app.wal.path:data/wal}")
+    private String walPath;
+
+    @Value("${app.wal.durability:FSYNC}")
+    private MutationLog.Durability durability;
+
+    @Value("${app.wal.sync-interval:200ms}")
+    private Duration syncInterval;
+
+    @Value("${app.wal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    private final ReentrantLock saveLock = new ReentrantLock();
+    private volatile long savedVersion = -1;
+    private MutationLog mutationLog;
+
+    @PostConstruct
+    public void load() throws IOException {
+        Path file = Paths.get(path);
+        boolean snapshotExists = Files.exists(file);
+        if (snapshotExists) {
+            long started = System.nanoTime();
+            savedVersion = phoneService.loadSnapshot(file);
+            log.info("Loaded catalog snapshot {} (version {}) in {} ms", file, savedVersion, (System.nanoTime() - started) / 1_000_000);
+        } else {
+            log.info("No catalog snapshot at {}, starting from the built-in catalog", file);
+        }
+        if (walEnabled) {
+            long started = System.nanoTime();
+            mutationLog = MutationLog.open(Paths.get(walPath), segmentSize.toBytes(), durability, syncInterval);
+            long replayed = phoneService.attachMutationLog(mutationLog);
+            log.info("Replayed {} logged writes from {} in {} ms ({} durability)", replayed, walPath,
+                    (System.nanoTime() - started) / 1_000_000, durability);
+            if (!snapshotExists) {
+                // The log only ever continues a snapshot, so give it one to start from
+                save();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.interval:PT5M}", initialDelayString = "${app.snapshot.interval:PT5M}")
+    public void saveIfChanged() {
+        if (phoneService.catalogVersion() != savedVersion) {
+            save();
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() throws IOException {
+        saveIfChanged();
+        if (mutationLog != null) {
+            mutationLog.close();
+        }
+    }
+
+    private void save() {
+        Path file = Paths.get(path);
+        long started = System.nanoTime();
+        // A lock rather than synchronized: a virtual scheduler thread writing the file must not pin its carrier
+        saveLock.lock();
+        try {
+            savedVersion = phoneService.saveSnapshot(file);
+            if (mutationLog != null) {
+                int deleted = mutationLog.truncateThrough(savedVersion);
+                log.debug("Deleted {} mutation log segments covered by version {}", deleted, savedVersion);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write catalog snapshot " + file, e);
+        } finally {
+            saveLock.unlock();
+        }
+        log.info("Wrote catalog snapshot {} (version {}) in {} ms", file, savedVersion, (System.nanoTime() - started) / 1_000_000);
+    }
+}
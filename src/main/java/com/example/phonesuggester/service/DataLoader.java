@@ -72,6 +72,8 @@ public class DataLoader implements CommandLineRunner {
                 int cameras = 1 + rand.nextInt(4);
                 double rating = 2.5 + rand.nextDouble() * 2.5;
                 Phone phone = new Phone(name, brand, description, price, currency, usageTypes, imageUrl, releaseDate, storageGB, ramGB, battery, screen, cameras, rating);
+                // String ids like every other phone, so keyset pages can order by them
+                phone.setId(UUID.randomUUID().toString());
                 phone.setIs5G(rand.nextBoolean());
                 phone.setIsWaterResistant(rand.nextBoolean());
                 phone.setHasWirelessCharging(rand.nextBoolean());
@@ -1,31 +1,181 @@
 package com.example.phonesuggester.service;
 
+import com.example.phonesuggester.config.CacheConfig;
+import com.example.phonesuggester.dto.AutocompleteSuggestion;
+import com.example.phonesuggester.dto.CursorPage;
+import com.example.phonesuggester.dto.FacetCount;
+import com.example.phonesuggester.dto.FacetCounts;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneQuery;
 import com.example.phonesuggester.dto.PhoneRequest;
 import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.dto.PhoneSuggestion;
+import com.example.phonesuggester.dto.PriceRangeCount;
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.dto.SuggestionResponse;
 import com.example.phonesuggester.model.Phone;
-import org.springframework.cache.annotation.CacheEvict;
+import com.example.phonesuggester.store.AutocompleteIndex;
+import com.example.phonesuggester.store.CatalogSnapshot;
+import com.example.phonesuggester.store.FacetIndex;
+import com.example.phonesuggester.store.FuzzyIndex;
+import com.example.phonesuggester.store.MutationLog;
+import com.example.phonesuggester.store.PhoneColumnStore;
+import com.example.phonesuggester.store.PhoneSortField;
+import com.example.phonesuggester.store.RowBitmap;
+import com.example.phonesuggester.store.SortedRowIndex;
+import com.example.phonesuggester.store.StringDictionary;
+import com.example.phonesuggester.store.SuggestionScorer;
+import com.example.phonesuggester.store.TextIndex;
+import com.example.phonesuggester.store.TopKRows;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
+/**
+ * The phone catalog, published as a sequence of immutable versions. Readers take the current
+ * {@link Catalog} and work on it without locking, so every request sees one consistent version
+ * however many writes land meanwhile. Writers are serialized: each write call forks the current
+ * version, applies all of its changes and publishes the result as the next version in one step.
+ * <p>
+ * Versions handed out in a pagination cursor are kept for {@code app.catalog.pin-ttl} after their
+ * last use, so every page of a listing is read from the version its first page came from.
+ */
 @Service
-public class InMemoryPhoneService {
+@Profile("!mongo")
+public class InMemoryPhoneService implements PhoneService {
 
-    private final Map<String, Phone> phones = new ConcurrentHashMap<>();
+    // Orderings common enough to keep pre-sorted; any other field falls back to top-K selection
+    private static final List<PhoneSortField> PRE_SORTED = List.of(PhoneSortField.PRICE, PhoneSortField.NAME,
+            PhoneSortField.RATING, PhoneSortField.RELEASE_DATE, PhoneSortField.CREATED_AT);
+
+    private static final int NO_PRICE_BUCKET = -1;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Recorded changes in commit order, waiting for their writes to become durable
+    private final ReentrantLock feedLock = new ReentrantLock();
+    private final Deque<UnfedChanges> unfed = new ArrayDeque<>();
+    // Changes of the running writer, guarded by the write lock
+    private List<PhoneChange> recorded;
+    private final Map<Long, PinnedCatalog> pinned = new ConcurrentHashMap<>();
     private final Random random = new Random();
+    // Versions start over whenever the process does, so entity tags also name the process
+    private final String instanceTag = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private volatile Catalog current;
+
+    @Autowired(required = false)
+    private PhoneCacheInvalidator cacheInvalidator;
+
+    @Autowired(required = false)
+    private PhoneChangeFeed changeFeed;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
+
+    @Value("${app.catalog.pin-ttl:PT2M}")
+    private Duration pinTtl = Duration.ofMinutes(2);
+
+    @Value("${app.catalog.max-pinned-versions:8}")
+    private int maxPinnedVersions = 8;
+
+    // Upper bounds, exclusive, of every price range but the last
+    @Value("${app.facets.price-boundaries:200,400,700,1000}")
+    private List<Double> priceBoundaries = List.of(200.0, 400.0, 700.0, 1000.0);
+
+    private volatile Timer suggestionTimer;
+    private volatile ObjectWriter phoneWriter;
+
+    private volatile MutationLog mutationLog;
 
     public InMemoryPhoneService() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        store.register(new TextIndex());
+        store.register(new FacetIndex());
+        store.register(new AutocompleteIndex());
+        store.register(new FuzzyIndex());
+        for (PhoneSortField field : PRE_SORTED) {
+            store.register(new SortedRowIndex(field.property(), field::comparator));
+        }
+        current = Catalog.of(store.freeze());
         initializeSampleData();
     }
 
+    /**
+     * One published version of the catalog: a frozen store and the indexes that belong to it.
+     */
+    private record Catalog(PhoneColumnStore store, TextIndex textIndex, FacetIndex facetIndex,
+                           AutocompleteIndex autocompleteIndex, FuzzyIndex fuzzyIndex,
+                           Map<PhoneSortField, SortedRowIndex> sortIndexes) {
+
+        static Catalog of(PhoneColumnStore store) {
+            Map<PhoneSortField, SortedRowIndex> sortIndexes = new EnumMap<>(PhoneSortField.class);
+            for (PhoneSortField field : PRE_SORTED) {
+                sortIndexes.put(field, (SortedRowIndex) store.index("SortedRowIndex:" + field.property()));
+            }
+            return new Catalog(store, (TextIndex) store.index("TextIndex"), (FacetIndex) store.index("FacetIndex"),
+                    (AutocompleteIndex) store.index("AutocompleteIndex"), (FuzzyIndex) store.index("FuzzyIndex"), sortIndexes);
+        }
+
+        SortedRowIndex priceIndex() {
+            return sortIndexes.get(PhoneSortField.PRICE);
+        }
+
+        long version() {
+            return store.version();
+        }
+    }
+
+    private static final class UnfedChanges {
+        final List<PhoneChange> changes;
+        boolean settled;
+        boolean durable;
+
+        UnfedChanges(List<PhoneChange> changes) {
+            this.changes = changes;
+        }
+    }
+
+    private static final class PinnedCatalog {
+        final Catalog catalog;
+        volatile long expiresAt;
+
+        PinnedCatalog(Catalog catalog, long expiresAt) {
+            this.catalog = catalog;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     private void initializeSampleData() {
         // Sample phones data
         List<Phone> samplePhones = Arrays.asList(
@@ -50,9 +200,10 @@ public class InMemoryPhoneService {
                 LocalDate.of(2024, 2, 22), 512, 16, 5000, 6.73, 4, true, true, true, 4.4)
         );
 
-        for (Phone phone : samplePhones) {
-            phones.put(phone.getId(), phone);
-        }
+        write(catalog -> {
+            samplePhones.forEach(catalog.store()::put);
+            return null;
+        });
     }
 
     private Phone createPhone(String name, String brand, String description, Double price, String currency,
@@ -84,167 +235,1039 @@ public class InMemoryPhoneService {
         return phone;
     }
 
-    @Cacheable(value = "phones", key = "#id")
-    public Optional<PhoneResponse> findById(String id) {
-        return Optional.ofNullable(phones.get(id))
-                .map(this::convertToResponse);
+    @Cacheable(value = CacheConfig.PHONE_BY_ID, key = "#id")
+    @Override
+    public Optional<PhoneJson> findById(String id) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        int row = store.rowOf(id);
+        return row < 0 ? Optional.<PhoneJson>empty() : Optional.of(toJson(store, row));
+    }
+
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'all'")
+    @Override
+    public List<PhoneJson> findAll() {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        List<PhoneJson> result = new ArrayList<>(store.size());
+        store.forEachLiveRow(row -> result.add(toJson(store, row)));
+        return result;
+    }
+
+    /**
+     * Returns one page in the requested order. A single-field sort on a pre-sorted field reads the page
+     * straight out of its index; other sorts keep only the first {@code offset + size} rows in a
+     * bounded heap. Unsorted requests are ordered by name.
+     */
+    @Override
+    public Page<PhoneJson> findAllPaginated(Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().isSorted()
+                ? pageable.getSort().toList()
+                : List.of(Sort.Order.asc(PhoneSortField.NAME.property()));
+        List<PhoneSortField> fields = new ArrayList<>(orders.size());
+        for (Sort.Order order : orders) {
+            fields.add(PhoneSortField.fromProperty(order.getProperty()));
+        }
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        int total = store.size();
+        long offset = pageable.getOffset();
+        if (offset >= total) {
+            return new PageImpl<PhoneJson>(new ArrayList<>(), pageable, total);
+        }
+        int from = (int) offset;
+        int to = (int) Math.min(offset + pageable.getPageSize(), total);
+        List<PhoneJson> pageContent = new ArrayList<>(to - from);
+
+        SortedRowIndex index = orders.size() == 1 ? catalog.sortIndexes().get(fields.get(0)) : null;
+        if (index != null) {
+            boolean ascending = orders.get(0).isAscending();
+            for (int position = from; position < to; position++) {
+                pageContent.add(toJson(store, index.rowAt(ascending ? position : total - 1 - position)));
+            }
+        } else {
+            TopKRows topK = new TopKRows(rowComparator(store, orders, fields), to);
+            store.forEachLiveRow(topK);
+            int[] rows = topK.drainSorted();
+            for (int position = from; position < to; position++) {
+                pageContent.add(toJson(store, rows[position]));
+            }
+        }
+        return new PageImpl<>(pageContent, pageable, total);
+    }
+
+    private static SortedRowIndex.RowComparator rowComparator(PhoneColumnStore store, List<Sort.Order> orders, List<PhoneSortField> fields) {
+        SortedRowIndex.RowComparator[] comparators = new SortedRowIndex.RowComparator[orders.size()];
+        for (int i = 0; i < comparators.length; i++) {
+            // Keys only: a field's full comparator breaks ties on the id and would hide the fields after it
+            SortedRowIndex.RowComparator comparator = fields.get(i).keyComparator(store);
+            comparators[i] = orders.get(i).isAscending() ? comparator : (left, right) -> comparator.compare(right, left);
+        }
+        return (left, right) -> {
+            for (SortedRowIndex.RowComparator comparator : comparators) {
+                int result = comparator.compare(left, right);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            // Like MongoDB, ties are broken on the id in the direction of the last order
+            int byId = store.id(left).compareTo(store.id(right));
+            return orders.get(orders.size() - 1).isAscending() ? byId : -byId;
+        };
+    }
+
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'brand:' + #brand")
+    @Override
+    public List<PhoneJson> findByBrand(String brand) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        List<PhoneJson> result = new ArrayList<>();
+        store.forEachRowWithBrandLike(brand, row -> result.add(toJson(store, row)));
+        return result;
     }
 
-    @Cacheable(value = "phones", key = "'all'")
-    public List<PhoneResponse> findAll() {
-        return phones.values()
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'type:' + #usageType")
+    @Override
+    public List<PhoneJson> findByUsageType(String usageType) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        List<PhoneJson> result = new ArrayList<>();
+        store.forEachRowWithUsageTypeLike(usageType, row -> result.add(toJson(store, row)));
+        return result;
     }
 
-    public Page<PhoneResponse> findAllPaginated(Pageable pageable) {
-        List<PhoneResponse> allPhones = findAll();
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), allPhones.size());
-        
-        if (start > allPhones.size()) {
-            return new PageImpl<>(new ArrayList<>(), pageable, allPhones.size());
+    @Override
+    public List<PhoneJson> findByPriceRange(Double minPrice, Double maxPrice) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        int from = catalog.priceIndex().lowerBound(row -> Double.compare(store.price(row), minPrice));
+        int to = catalog.priceIndex().upperBound(row -> Double.compare(store.price(row), maxPrice));
+        List<PhoneJson> result = new ArrayList<>(Math.max(0, to - from));
+        catalog.priceIndex().forEachInRange(from, to, row -> result.add(toJson(store, row)));
+        return result;
+    }
+
+    @Cacheable(value = CacheConfig.PHONE_SEARCH, key = "#query")
+    @Override
+    public List<PhoneJson> searchPhones(String query) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        TextIndex.Hits hits = catalog.textIndex().search(query);
+        List<PhoneJson> result = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            result.add(toJson(store, hits.row(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Answered from the fuzzy index, which narrows the terms to verify down to those sharing enough
+     * bigrams with each query term. Not cached, since the cache evicts searches by exact matching.
+     */
+    @Override
+    public List<PhoneJson> fuzzySearchPhones(String query) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        TextIndex.Hits hits = catalog.fuzzyIndex().search(query);
+        List<PhoneJson> result = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            result.add(toJson(store, hits.row(i)));
         }
-        
-        List<PhoneResponse> pageContent = allPhones.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, allPhones.size());
+        return result;
     }
 
-    @Cacheable(value = "phones", key = "'brand:' + #brand")
-    public List<PhoneResponse> findByBrand(String brand) {
-        return phones.values()
-                .stream()
-                .filter(phone -> phone.getBrand().toLowerCase().contains(brand.toLowerCase()))
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Answered from the autocomplete index of the current version, which keeps the best completions
+     * at every prefix, so the cost does not grow with the catalog.
+     */
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, int limit) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        int[] rows = catalog.autocompleteIndex().complete(prefix, limit);
+        List<AutocompleteSuggestion> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(new AutocompleteSuggestion(store.id(row), store.name(row)));
+        }
+        return result;
     }
 
-    @Cacheable(value = "phones", key = "'type:' + #usageType")
-    public List<PhoneResponse> findByUsageType(String usageType) {
-        return phones.values()
-                .stream()
-                .filter(phone -> phone.getUsageTypes().stream()
-                        .anyMatch(type -> type.toLowerCase().contains(usageType.toLowerCase())))
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Keyset pagination over the whole catalog. Besides its ordering, a cursor carries the catalog
+     * version of the first page, which later pages are read from for as long as it stays pinned.
+     */
+    @Override
+    public CursorPage<PhoneJson> findAllPage(Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, store -> row -> true);
     }
 
-    @Cacheable(value = "phones", key = "'price:' + #minPrice + '-' + #maxPrice")
-    public List<PhoneResponse> findByPriceRange(Double minPrice, Double maxPrice) {
-        return phones.values()
-                .stream()
-                .filter(phone -> phone.getPrice() >= minPrice && phone.getPrice() <= maxPrice)
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Override
+    public CursorPage<PhoneJson> findByBrandPage(String brand, Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, store -> {
+            boolean[] matches = store.brandDictionary().matchingCodes(brand);
+            return row -> {
+                int code = store.brandCode(row);
+                return code >= 0 && code < matches.length && matches[code];
+            };
+        });
     }
 
-    @Cacheable(value = "phones", key = "'search:' + #query")
-    public List<PhoneResponse> searchPhones(String query) {
-        String lowerQuery = query.toLowerCase();
-        return phones.values()
-                .stream()
-                .filter(phone -> phone.getName().toLowerCase().contains(lowerQuery) ||
-                        phone.getBrand().toLowerCase().contains(lowerQuery) ||
-                        phone.getDescription().toLowerCase().contains(lowerQuery))
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    @Override
+    public CursorPage<PhoneJson> findByUsageTypePage(String usageType, Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, store -> {
+            boolean[] matches = store.usageTypeDictionary().matchingCodes(usageType);
+            return row -> {
+                for (int code : store.usageTypeCodes(row)) {
+                    if (code < matches.length && matches[code]) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        });
     }
 
-    @CacheEvict(value = "phones", allEntries = true)
+    /**
+     * Keyset pagination over search results, ordered by relevance and then by id. Only the hits tied
+     * with the cursor's score and the page itself are ordered by id, so a page costs one search plus
+     * O(hits) whatever its depth.
+     */
+    @Override
+    public CursorPage<PhoneJson> searchPhonesPage(String query, String cursor, int limit) {
+        PhoneCursor after = cursor == null || cursor.isBlank() ? null : PhoneCursor.decode(cursor);
+        if (after != null && (!PhoneCursor.RELEVANCE.equals(after.getSort()) || !(after.getKey() instanceof Float))) {
+            throw new IllegalArgumentException("Cursor does not belong to a search");
+        }
+        Catalog catalog = after == null ? current : catalogAt(after.getCatalogVersion());
+        PhoneColumnStore store = catalog.store();
+        TextIndex.Hits hits = catalog.textIndex().search(query);
+        SortedRowIndex.RowComparator byId = (left, right) -> store.id(left).compareTo(store.id(right));
+        List<Integer> pageRows = new ArrayList<>(limit + 1);
+        List<Float> pageScores = new ArrayList<>(limit + 1);
+        int i = 0;
+        if (after != null) {
+            float afterScore = (Float) after.getKey();
+            while (i < hits.size() && Float.compare(hits.score(i), afterScore) > 0) {
+                i++;
+            }
+        }
+        // Hits come score-descending; each run of equal scores is put in id order, keeping only what the page needs
+        while (i < hits.size() && pageRows.size() <= limit) {
+            float score = hits.score(i);
+            boolean cursorRun = after != null && Float.compare(score, (Float) after.getKey()) == 0;
+            TopKRows run = new TopKRows(byId, limit + 1 - pageRows.size());
+            for (; i < hits.size() && Float.compare(hits.score(i), score) == 0; i++) {
+                if (!cursorRun || store.id(hits.row(i)).compareTo(after.getId()) > 0) {
+                    run.accept(hits.row(i));
+                }
+            }
+            for (int row : run.drainSorted()) {
+                pageRows.add(row);
+                pageScores.add(score);
+            }
+        }
+        boolean hasNext = pageRows.size() > limit;
+        int count = Math.min(limit, pageRows.size());
+        List<PhoneJson> content = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            content.add(toJson(store, pageRows.get(j)));
+        }
+        String nextCursor = hasNext
+                ? new PhoneCursor(PhoneCursor.RELEVANCE, false, pageScores.get(count - 1), store.id(pageRows.get(count - 1)), pin(catalog)).encode()
+                : null;
+        return new CursorPage<>(content, nextCursor, catalog.version());
+    }
+
+    /**
+     * Reads the rows after a cursor position in one field's order, keeping those that pass the filter.
+     * A pre-sorted field seeks into its index with one binary search; any other field keeps the first
+     * rows after the cursor in a bounded heap. Either way the cost does not depend on how deep the page is.
+     */
+    private CursorPage<PhoneJson> keysetPage(Sort sort, String cursor, int limit,
+                                                 Function<PhoneColumnStore, IntPredicate> filterFor) {
+        PhoneCursor after = cursor == null || cursor.isBlank() ? null : PhoneCursor.decode(cursor);
+        PhoneSortField field;
+        boolean ascending;
+        if (after != null) {
+            field = PhoneSortField.fromProperty(after.getSort());
+            ascending = after.isAscending();
+        } else {
+            List<Sort.Order> orders = sort.isSorted() ? sort.toList() : List.of(Sort.Order.asc(PhoneSortField.NAME.property()));
+            if (orders.size() != 1) {
+                throw new IllegalArgumentException("Cursor pagination supports a single sort field");
+            }
+            field = PhoneSortField.fromProperty(orders.get(0).getProperty());
+            ascending = orders.get(0).isAscending();
+        }
+        Catalog catalog = after == null ? current : catalogAt(after.getCatalogVersion());
+        PhoneColumnStore store = catalog.store();
+        IntPredicate filter = filterFor.apply(store);
+        SortedRowIndex.RowProbe probe = after == null ? null : field.probe(store, after.getKey(), after.getId());
+        int[] rows = new int[limit + 1];
+        int count = 0;
+        SortedRowIndex index = catalog.sortIndexes().get(field);
+        if (index != null) {
+            if (ascending) {
+                for (int position = probe == null ? 0 : index.upperBound(probe); position < index.size() && count <= limit; position++) {
+                    int row = index.rowAt(position);
+                    if (filter.test(row)) {
+                        rows[count++] = row;
+                    }
+                }
+            } else {
+                for (int position = (probe == null ? index.size() : index.lowerBound(probe)) - 1; position >= 0 && count <= limit; position--) {
+                    int row = index.rowAt(position);
+                    if (filter.test(row)) {
+                        rows[count++] = row;
+                    }
+                }
+            }
+        } else {
+            SortedRowIndex.RowComparator comparator = field.comparator(store);
+            TopKRows topK = new TopKRows(ascending ? comparator : (left, right) -> comparator.compare(right, left), limit + 1);
+            store.forEachLiveRow(row -> {
+                if (filter.test(row) && (probe == null || (ascending ? probe.compareRow(row) > 0 : probe.compareRow(row) < 0))) {
+                    topK.accept(row);
+                }
+            });
+            int[] sorted = topK.drainSorted();
+            count = sorted.length;
+            System.arraycopy(sorted, 0, rows, 0, count);
+        }
+        boolean hasNext = count > limit;
+        int pageSize = Math.min(limit, count);
+        List<PhoneJson> content = new ArrayList<>(pageSize);
+        for (int j = 0; j < pageSize; j++) {
+            content.add(toJson(store, rows[j]));
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            int last = rows[pageSize - 1];
+            nextCursor = new PhoneCursor(field.property(), ascending, field.key(store, last), store.id(last), pin(catalog)).encode();
+        }
+        return new CursorPage<>(content, nextCursor, catalog.version());
+    }
+
+    @Override
+    public List<PhoneJson> queryPhones(PhoneQuery query) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        List<PhoneJson> result = new ArrayList<>();
+        forEachMatchingRow(catalog, query, row -> result.add(toJson(store, row)));
+        return result;
+    }
+
+    /**
+     * Counts from the current version. Without filters every count is read from what writes already
+     * maintain: the facet bitmaps' cardinalities and positions in the price index, so the cost
+     * depends on the number of facet values rather than the catalog size. With filters, the matching
+     * rows are selected as for {@link #queryPhones} and counted in one pass.
+     */
+    @Override
+    public FacetCounts facetCounts(PhoneQuery query) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        FacetIndex facetIndex = catalog.facetIndex();
+        List<Double> boundaries = priceBoundaries();
+        StringDictionary brands = store.brandDictionary();
+        StringDictionary usageTypes = store.usageTypeDictionary();
+        int[] brandCounts = new int[brands.size()];
+        int[] usageTypeCounts = new int[usageTypes.size()];
+        int[] priceCounts = new int[boundaries.size() + 1];
+        int[] featureCounts = new int[3];
+        int total;
+        if (isUnfiltered(query)) {
+            total = store.size();
+            for (int code = 0; code < brandCounts.length; code++) {
+                brandCounts[code] = facetIndex.brand(code).cardinality();
+            }
+            for (int code = 0; code < usageTypeCounts.length; code++) {
+                usageTypeCounts[code] = facetIndex.usageType(code).cardinality();
+            }
+            // The price index sorts missing prices last, so each range ends where a later range or those begin
+            int from = 0;
+            for (int bucket = 0; bucket < priceCounts.length; bucket++) {
+                int next = bucket + 1;
+                int to = catalog.priceIndex().lowerBound(row -> {
+                    int rowBucket = priceBucket(boundaries, store.price(row));
+                    return rowBucket == NO_PRICE_BUCKET || rowBucket >= next ? 1 : -1;
+                });
+                priceCounts[bucket] = to - from;
+                from = to;
+            }
+            featureCounts[0] = facetIndex.fiveG().cardinality();
+            featureCounts[1] = facetIndex.waterResistant().cardinality();
+            featureCounts[2] = facetIndex.wirelessCharging().cardinality();
+        } else {
+            int[] matched = new int[1];
+            // The last row each usage type was counted for, so a type listed twice on a phone counts once
+            int[] usageTypeCountedAt = new int[usageTypeCounts.length];
+            Arrays.fill(usageTypeCountedAt, -1);
+            forEachMatchingRow(catalog, query, row -> {
+                matched[0]++;
+                int brandCode = store.brandCode(row);
+                if (brandCode >= 0) {
+                    brandCounts[brandCode]++;
+                }
+                for (int code : store.usageTypeCodes(row)) {
+                    if (usageTypeCountedAt[code] != row) {
+                        usageTypeCountedAt[code] = row;
+                        usageTypeCounts[code]++;
+                    }
+                }
+                int priceBucket = priceBucket(boundaries, store.price(row));
+                if (priceBucket != NO_PRICE_BUCKET) {
+                    priceCounts[priceBucket]++;
+                }
+                featureCounts[0] += store.is5G(row) ? 1 : 0;
+                featureCounts[1] += store.isWaterResistant(row) ? 1 : 0;
+                featureCounts[2] += store.hasWirelessCharging(row) ? 1 : 0;
+            });
+            total = matched[0];
+        }
+        List<PriceRangeCount> priceRanges = new ArrayList<>(priceCounts.length);
+        for (int bucket = 0; bucket < priceCounts.length; bucket++) {
+            priceRanges.add(new PriceRangeCount(bucket == 0 ? null : boundaries.get(bucket - 1),
+                    bucket == boundaries.size() ? null : boundaries.get(bucket), priceCounts[bucket]));
+        }
+        List<FacetCount> features = List.of(
+                new FacetCount("is5G", featureCounts[0]),
+                new FacetCount("isWaterResistant", featureCounts[1]),
+                new FacetCount("hasWirelessCharging", featureCounts[2]));
+        return new FacetCounts(total, valueCounts(brands, brandCounts), valueCounts(usageTypes, usageTypeCounts), priceRanges, features);
+    }
+
+    private List<Double> priceBoundaries() {
+        return priceBoundaries.stream().distinct().sorted().toList();
+    }
+
+    private static boolean isUnfiltered(PhoneQuery query) {
+        return (query.getText() == null || query.getText().isBlank())
+                && (query.getBrands() == null || query.getBrands().isEmpty())
+                && (query.getUsageTypes() == null || query.getUsageTypes().isEmpty())
+                && query.getMinPrice() == null && query.getMaxPrice() == null
+                && query.getIs5G() == null && query.getIsWaterResistant() == null && query.getHasWirelessCharging() == null;
+    }
+
+    /**
+     * Index of the price range holding the price: the number of boundaries at or below it, so a price
+     * on a boundary starts the next range. A missing price is in no range. Both ways of counting use
+     * this, so filtered and unfiltered counts agree.
+     */
+    private static int priceBucket(List<Double> boundaries, double price) {
+        if (Double.isNaN(price)) {
+            return NO_PRICE_BUCKET;
+        }
+        int bucket = 0;
+        while (bucket < boundaries.size() && price >= boundaries.get(bucket)) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /** The values with a count above zero, most frequent first, then by value. */
+    private static List<FacetCount> valueCounts(StringDictionary dictionary, int[] counts) {
+        List<FacetCount> result = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.add(new FacetCount(dictionary.decode(code), counts[code]));
+            }
+        }
+        result.sort(Comparator.comparingInt(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return result;
+    }
+
+    /**
+     * Combines text, brand, usage-type, price and feature filters in a single pass. The most selective
+     * source drives the scan (text hits, the price slice or the facet bitmap intersection) and every
+     * other filter is a membership test on the candidate row, so no per-filter result lists are built.
+     * A text filter visits rows by relevance, the others in row order.
+     */
+    private static void forEachMatchingRow(Catalog catalog, PhoneQuery query, IntConsumer action) {
+        PhoneColumnStore store = catalog.store();
+        List<RowBitmap> required = new ArrayList<>();
+        List<RowBitmap> excluded = new ArrayList<>();
+        if (!collectFacetFilters(catalog, query, required, excluded)) {
+            return;
+        }
+        boolean hasPriceRange = query.getMinPrice() != null || query.getMaxPrice() != null;
+        double minPrice = query.getMinPrice() != null ? query.getMinPrice() : Double.NEGATIVE_INFINITY;
+        double maxPrice = query.getMaxPrice() != null ? query.getMaxPrice() : Double.POSITIVE_INFINITY;
+        IntPredicate notExcluded = row -> !containedInAny(excluded, row);
+        IntPredicate inPriceRange = row -> !hasPriceRange
+                || (store.price(row) >= minPrice && store.price(row) <= maxPrice);
+        IntPredicate inRequired = row -> containedInAll(required, row);
+
+        if (query.getText() != null && !query.getText().isBlank()) {
+            TextIndex.Hits hits = catalog.textIndex().search(query.getText());
+            for (int i = 0; i < hits.size(); i++) {
+                int row = hits.row(i);
+                if (inRequired.test(row) && inPriceRange.test(row) && notExcluded.test(row)) {
+                    action.accept(row);
+                }
+            }
+            return;
+        }
+
+        int smallestRequired = Integer.MAX_VALUE;
+        for (RowBitmap bitmap : required) {
+            smallestRequired = Math.min(smallestRequired, bitmap.cardinality());
+        }
+        if (hasPriceRange) {
+            int from = catalog.priceIndex().lowerBound(row -> Double.compare(store.price(row), minPrice));
+            int to = catalog.priceIndex().upperBound(row -> Double.compare(store.price(row), maxPrice));
+            if (to - from <= smallestRequired) {
+                catalog.priceIndex().forEachInRange(from, to, row -> {
+                    if (inRequired.test(row) && notExcluded.test(row)) {
+                        action.accept(row);
+                    }
+                });
+                return;
+            }
+        }
+        if (required.isEmpty()) {
+            store.forEachLiveRow(row -> {
+                if (notExcluded.test(row)) {
+                    action.accept(row);
+                }
+            });
+        } else {
+            RowBitmap.forEachIntersection(required, row -> {
+                if (inPriceRange.test(row) && notExcluded.test(row)) {
+                    action.accept(row);
+                }
+            });
+        }
+    }
+
+    /**
+     * Visits the phones matching the query in row order. The whole scan reads the catalog version
+     * current when it started, however long the consumer takes.
+     */
+    @Override
+    public void forEachMatchingPhone(PhoneQuery query, Consumer<PhoneResponse> action) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        List<RowBitmap> required = new ArrayList<>();
+        List<RowBitmap> excluded = new ArrayList<>();
+        if (!collectFacetFilters(catalog, query, required, excluded)) {
+            return;
+        }
+        String text = query.getText() != null && !query.getText().isBlank() ? query.getText() : null;
+        boolean hasPriceRange = query.getMinPrice() != null || query.getMaxPrice() != null;
+        double minPrice = query.getMinPrice() != null ? query.getMinPrice() : Double.NEGATIVE_INFINITY;
+        double maxPrice = query.getMaxPrice() != null ? query.getMaxPrice() : Double.POSITIVE_INFINITY;
+        store.forEachLiveRow(row -> {
+            if (!containedInAll(required, row) || containedInAny(excluded, row)) {
+                return;
+            }
+            if (hasPriceRange && !(store.price(row) >= minPrice && store.price(row) <= maxPrice)) {
+                return;
+            }
+            if (text != null && !TextIndex.matches(text, store.name(row), store.brand(row), store.description(row))) {
+                return;
+            }
+            action.accept(convertToResponse(store, row));
+        });
+    }
+
+    /**
+     * Ranks every phone within budget by the request's weighted preferences and returns the best
+     * {@code limit}. Scoring time is returned with the result and recorded on the
+     * {@code phones.suggest.scoring} timer, which publishes p50/p95/p99.
+     */
+    @Override
+    public SuggestionResponse suggestPhones(SuggestionRequest request) {
+        Catalog catalog = current;
+        PhoneColumnStore store = catalog.store();
+        long start = System.nanoTime();
+        SuggestionScorer.Result result = new SuggestionScorer(store, request).score();
+        long elapsed = System.nanoTime() - start;
+        recordSuggestionTime(elapsed);
+
+        List<PhoneSuggestion> suggestions = new ArrayList<>(result.topK().size());
+        for (int i = 0; i < result.topK().size(); i++) {
+            suggestions.add(new PhoneSuggestion(convertToResponse(store, result.topK().row(i)), result.topK().score(i)));
+        }
+        return new SuggestionResponse(suggestions, result.candidates(), TimeUnit.NANOSECONDS.toMicros(elapsed));
+    }
+
+    private void recordSuggestionTime(long nanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+        if (suggestionTimer == null) {
+            suggestionTimer = Timer.builder("phones.suggest.scoring")
+                    .description("Time spent scoring and ranking phone suggestions")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        suggestionTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
     public PhoneResponse createPhone(PhoneRequest phoneRequest) {
-        Phone phone = convertToEntity(phoneRequest);
-        phone.setId(UUID.randomUUID().toString());
-        phone.setCreatedAt(LocalDateTime.now());
-        phone.setUpdatedAt(LocalDateTime.now());
-        phone.setReviewCount(0);
-        
-        phones.put(phone.getId(), phone);
-        return convertToResponse(phone);
+        Phone phone = PhoneMapper.newPhone(phoneRequest);
+        PhoneChange change = write(catalog -> {
+            catalog.store().put(phone);
+            return record(PhoneChange.created(phone));
+        });
+        commit(change);
+        return PhoneMapper.toResponse(phone);
+    }
+
+    /**
+     * Stores a batch of complete phones as one new catalog version and invalidates the cache once
+     * for the whole batch. Phones without an id get a generated one; a phone whose id already
+     * exists replaces it.
+     */
+    @Override
+    public int createPhones(Collection<Phone> phones) {
+        if (phones.isEmpty()) {
+            return 0;
+        }
+        List<PhoneChange> changes = write(catalog -> {
+            PhoneColumnStore store = catalog.store();
+            List<PhoneChange> batch = new ArrayList<>(phones.size());
+            for (Phone phone : phones) {
+                if (phone.getId() == null) {
+                    phone.setId(UUID.randomUUID().toString());
+                }
+                int row = store.rowOf(phone.getId());
+                Phone before = row < 0 ? null : store.toPhone(row);
+                store.put(phone);
+                batch.add(before == null ? PhoneChange.created(phone) : PhoneChange.updated(before, phone));
+            }
+            return record(batch);
+        });
+        commit(changes);
+        return changes.size();
+    }
+
+    @Override
+    public int importPhones(List<PhoneRequest> phoneRequests) {
+        List<Phone> phones = new ArrayList<>(phoneRequests.size());
+        for (PhoneRequest phoneRequest : phoneRequests) {
+            phones.add(PhoneMapper.newPhone(phoneRequest));
+        }
+        return createPhones(phones);
     }
 
-    @CacheEvict(value = "phones", allEntries = true)
+    @Override
     public Optional<PhoneResponse> updatePhone(String id, PhoneRequest phoneRequest) {
-        Phone existingPhone = phones.get(id);
-        if (existingPhone != null) {
-            updatePhoneFromRequest(existingPhone, phoneRequest);
-            existingPhone.setUpdatedAt(LocalDateTime.now());
-            phones.put(id, existingPhone);
-            return Optional.of(convertToResponse(existingPhone));
+        PhoneChange change = write(catalog -> {
+            PhoneColumnStore store = catalog.store();
+            int row = store.rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            Phone before = store.toPhone(row);
+            Phone updated = store.toPhone(row);
+            PhoneMapper.applyRequest(updated, phoneRequest);
+            updated.setUpdatedAt(LocalDateTime.now());
+            store.put(updated);
+            return record(PhoneChange.updated(before, updated));
+        });
+        if (change == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        commit(change);
+        return Optional.of(PhoneMapper.toResponse(change.getAfter()));
     }
 
-    @CacheEvict(value = "phones", allEntries = true)
+    @Override
     public boolean deletePhone(String id) {
-        return phones.remove(id) != null;
+        PhoneChange change = write(catalog -> {
+            PhoneColumnStore store = catalog.store();
+            int row = store.rowOf(id);
+            if (row < 0) {
+                return null;
+            }
+            Phone before = store.toPhone(row);
+            store.remove(id);
+            return record(PhoneChange.deleted(before));
+        });
+        if (change == null) {
+            return false;
+        }
+        commit(change);
+        return true;
     }
 
-    private Phone convertToEntity(PhoneRequest request) {
-        Phone phone = new Phone();
-        phone.setName(request.getName());
-        phone.setBrand(request.getBrand());
-        phone.setDescription(request.getDescription());
-        phone.setPrice(request.getPrice());
-        phone.setCurrency(request.getCurrency());
-        phone.setUsageTypes(request.getUsageTypes());
-        phone.setImageUrl(request.getImageUrl());
-        phone.setReleaseDate(request.getReleaseDate());
-        phone.setStorageGB(request.getStorageGB());
-        phone.setRamGB(request.getRamGB());
-        phone.setBatteryCapacity(request.getBatteryCapacity());
-        phone.setScreenSize(request.getScreenSize());
-        phone.setCameraCount(request.getCameraCount());
-        phone.setIs5G(request.getIs5G());
-        phone.setIsWaterResistant(request.getIsWaterResistant());
-        phone.setHasWirelessCharging(request.getHasWirelessCharging());
-        phone.setRating(request.getRating());
-        return phone;
+    /** Number of writes applied to the catalog so far; changes whenever the catalog does. */
+    public long catalogVersion() {
+        return current.version();
+    }
+
+    @Override
+    public String catalogETag() {
+        return entityTag(current.version());
+    }
+
+    @Override
+    public String phoneETag(String id) {
+        PhoneColumnStore store = current.store();
+        int row = store.rowOf(id);
+        return row < 0 ? null : entityTag(store.rowVersion(row));
+    }
+
+    private String entityTag(long version) {
+        return "\"" + instanceTag + "-" + Long.toHexString(version) + "\"";
+    }
+
+    /** Writes the catalog and its indexes to a binary snapshot and returns the version it captured. */
+    public long saveSnapshot(Path path) throws IOException {
+        return CatalogSnapshot.write(current.store(), path);
+    }
+
+    /** Replaces the whole catalog with a snapshot written by {@link #saveSnapshot(Path)}. */
+    public long loadSnapshot(Path path) throws IOException {
+        long version = replace(store -> CatalogSnapshot.read(store, path));
+        if (cacheInvalidator != null) {
+            cacheInvalidator.invalidateAll();
+        }
+        return version;
+    }
+
+    /**
+     * Replays the log on top of the current catalog and records every later write in it; from then
+     * on writes return only once the log holds them as durably as it is configured to.
+     * Returns the number of mutations replayed.
+     */
+    public long attachMutationLog(MutationLog log) throws IOException {
+        long replayed = replace(log::recover);
+        mutationLog = log;
+        if (replayed > 0 && cacheInvalidator != null) {
+            cacheInvalidator.invalidateAll();
+        }
+        return replayed;
+    }
+
+    /**
+     * Applies a writer's changes to a fork of the current catalog and publishes the fork as the new
+     * current version. Writers run one at a time; readers keep using the version they started with.
+     * A writer that fails part-way has its fork discarded and the records it logged dropped, so the
+     * catalog, the log and the change feed all stay at the last published version.
+     */
+    private <T> T write(Function<Catalog, T> writer) {
+        writeLock.lock();
+        MutationLog log = mutationLog;
+        try {
+            beginLogged(log);
+            Catalog next = Catalog.of(current.store().fork());
+            recorded = null;
+            T result = writer.apply(next);
+            if (log != null) {
+                log.commit();
+            }
+            next.store().freeze();
+            current = next;
+            if (recorded != null) {
+                queueForFeed(recorded);
+            }
+            return result;
+        } finally {
+            recorded = null;
+            endLogged(log);
+            writeLock.unlock();
+        }
+    }
+
+    /** Like {@link #write(Function)} for loading a whole catalog, which is only published if it loads completely. */
+    private long replace(StoreLoader loader) throws IOException {
+        writeLock.lock();
+        MutationLog log = mutationLog;
+        try {
+            beginLogged(log);
+            PhoneColumnStore store = current.store().fork();
+            long version = loader.load(store);
+            if (log != null) {
+                log.commit();
+            }
+            current = Catalog.of(store.freeze());
+            return version;
+        } finally {
+            endLogged(log);
+            writeLock.unlock();
+        }
+    }
+
+    /** Holds back an unpublished fork's log records until it is committed. */
+    private static void beginLogged(MutationLog log) {
+        if (log != null) {
+            log.begin();
+        }
+    }
+
+    /** Drops the records of a fork that was not committed; does nothing after a commit. */
+    private static void endLogged(MutationLog log) {
+        if (log != null) {
+            log.rollback();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StoreLoader {
+        long load(PhoneColumnStore store) throws IOException;
+    }
+
+    /** Keeps the catalog readable by version for the pin's time to live, evicting the stalest pins over the limit. */
+    private long pin(Catalog catalog) {
+        long expiresAt = System.nanoTime() + pinTtl.toNanos();
+        pinned.compute(catalog.version(), (version, pin) -> {
+            if (pin == null) {
+                return new PinnedCatalog(catalog, expiresAt);
+            }
+            pin.expiresAt = expiresAt;
+            return pin;
+        });
+        if (pinned.size() > maxPinnedVersions) {
+            long now = System.nanoTime();
+            pinned.values().removeIf(pin -> pin.expiresAt - now < 0);
+            while (pinned.size() > maxPinnedVersions) {
+                pinned.values().stream()
+                        .min(Comparator.comparingLong(pin -> pin.expiresAt))
+                        .ifPresent(stalest -> pinned.remove(stalest.catalog.version(), stalest));
+            }
+        }
+        return catalog.version();
+    }
+
+    /**
+     * The catalog at a pinned version, renewing the pin, or the current catalog when that version
+     * is no longer pinned. Keyset cursors stay valid either way; they just see newer data.
+     */
+    private Catalog catalogAt(long version) {
+        Catalog latest = current;
+        if (version == latest.version()) {
+            return latest;
+        }
+        PinnedCatalog pin = pinned.get(version);
+        long now = System.nanoTime();
+        if (pin == null || pin.expiresAt - now < 0) {
+            return latest;
+        }
+        pin.expiresAt = now + pinTtl.toNanos();
+        return pin.catalog;
+    }
+
+    private void awaitDurable() {
+        MutationLog log = mutationLog;
+        if (log != null) {
+            log.awaitDurable();
+        }
+    }
+
+    /**
+     * Notes a writer's changes; called inside {@link #write(Function)}, which queues them for the
+     * change feed only once the write is published.
+     */
+    private PhoneChange record(PhoneChange change) {
+        record(List.of(change));
+        return change;
+    }
+
+    private List<PhoneChange> record(List<PhoneChange> changes) {
+        recorded = changes;
+        return changes;
+    }
+
+    /** Queues a published write's changes for the feed; called under the write lock, so the queue is in commit order. */
+    private void queueForFeed(List<PhoneChange> changes) {
+        if (changeFeed == null) {
+            return;
+        }
+        feedLock.lock();
+        try {
+            unfed.add(new UnfedChanges(changes));
+        } finally {
+            feedLock.unlock();
+        }
+    }
+
+    /** Waits until the recorded changes are durable, then feeds and publishes them. */
+    private void commit(PhoneChange change) {
+        commit(List.of(change));
+    }
+
+    private void commit(List<PhoneChange> changes) {
+        boolean durable = false;
+        try {
+            awaitDurable();
+            durable = true;
+        } finally {
+            feed(changes, durable);
+        }
+        publish(changes);
+    }
+
+    /**
+     * Appends queued changes to the change feed once they and every write committed before them are
+     * durable, so clients see only durable changes, in commit order, however the writers' waits
+     * finish. Changes that never became durable are dropped rather than holding up later ones.
+     */
+    private void feed(List<PhoneChange> changes, boolean durable) {
+        if (changeFeed == null) {
+            return;
+        }
+        feedLock.lock();
+        try {
+            for (UnfedChanges queued : unfed) {
+                // Changes are created per write, so the first one identifies the write's entry
+                if (queued.changes.get(0) == changes.get(0)) {
+                    queued.settled = true;
+                    queued.durable = durable;
+                    break;
+                }
+            }
+            while (!unfed.isEmpty() && unfed.peek().settled) {
+                UnfedChanges head = unfed.poll();
+                if (head.durable) {
+                    changeFeed.append(head.changes);
+                }
+            }
+        } finally {
+            feedLock.unlock();
+        }
+    }
+
+    private void publish(PhoneChange change) {
+        publish(List.of(change));
+    }
+
+    private void publish(List<PhoneChange> changes) {
+        if (cacheInvalidator != null) {
+            cacheInvalidator.invalidate(changes);
+        }
+    }
+
+    /**
+     * Translates the facet part of a query into bitmaps that rows must be in or must not be in.
+     * Returns false when a requested brand or usage type matches nothing, so the query is empty.
+     */
+    private static boolean collectFacetFilters(Catalog catalog, PhoneQuery query, List<RowBitmap> required, List<RowBitmap> excluded) {
+        PhoneColumnStore store = catalog.store();
+        FacetIndex facetIndex = catalog.facetIndex();
+        if (query.getBrands() != null && !query.getBrands().isEmpty()) {
+            List<RowBitmap> brandBitmaps = new ArrayList<>();
+            for (String brand : query.getBrands()) {
+                boolean[] matches = store.brandDictionary().matchingCodes(brand);
+                for (int code = 0; code < matches.length; code++) {
+                    if (matches[code]) {
+                        brandBitmaps.add(facetIndex.brand(code));
+                    }
+                }
+            }
+            if (brandBitmaps.isEmpty()) {
+                return false;
+            }
+            required.add(brandBitmaps.size() == 1 ? brandBitmaps.get(0) : RowBitmap.union(brandBitmaps));
+        }
+        if (query.getUsageTypes() != null) {
+            for (String usageType : query.getUsageTypes()) {
+                List<RowBitmap> typeBitmaps = new ArrayList<>();
+                boolean[] matches = store.usageTypeDictionary().matchingCodes(usageType);
+                for (int code = 0; code < matches.length; code++) {
+                    if (matches[code]) {
+                        typeBitmaps.add(facetIndex.usageType(code));
+                    }
+                }
+                if (typeBitmaps.isEmpty()) {
+                    return false;
+                }
+                required.add(typeBitmaps.size() == 1 ? typeBitmaps.get(0) : RowBitmap.union(typeBitmaps));
+            }
+        }
+        addFlagFilter(query.getIs5G(), facetIndex.fiveG(), required, excluded);
+        addFlagFilter(query.getIsWaterResistant(), facetIndex.waterResistant(), required, excluded);
+        addFlagFilter(query.getHasWirelessCharging(), facetIndex.wirelessCharging(), required, excluded);
+        return true;
+    }
+
+    private static boolean containedInAll(List<RowBitmap> bitmaps, int row) {
+        for (RowBitmap bitmap : bitmaps) {
+            if (!bitmap.contains(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containedInAny(List<RowBitmap> bitmaps, int row) {
+        for (RowBitmap bitmap : bitmaps) {
+            if (bitmap.contains(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addFlagFilter(Boolean wanted, RowBitmap bitmap, List<RowBitmap> required, List<RowBitmap> excluded) {
+        if (wanted != null) {
+            (wanted ? required : excluded).add(bitmap);
+        }
+    }
+
+    PhoneResponse convertToResponse(int row) {
+        return convertToResponse(current.store(), row);
+    }
+
+    /**
+     * The row as JSON, serialized on first use and cached next to the row until it is written again.
+     * Every version sharing the row's storage shares the cached bytes.
+     */
+    PhoneJson toJson(PhoneColumnStore store, int row) {
+        byte[] json = store.payload(row);
+        if (json == null) {
+            try {
+                json = phoneWriter().writeValueAsBytes(convertToResponse(store, row));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize phone " + store.id(row), e);
+            }
+            store.cachePayload(row, json);
+        }
+        return new PhoneJson(json);
+    }
+
+    private ObjectWriter phoneWriter() {
+        ObjectWriter writer = phoneWriter;
+        if (writer == null) {
+            // Without Spring (benchmarks), match the application's Jackson settings
+            ObjectMapper mapper = objectMapper != null ? objectMapper : JsonMapper.builder()
+                    .findAndAddModules()
+                    .serializationInclusion(JsonInclude.Include.NON_NULL)
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            writer = mapper.writerFor(PhoneResponse.class);
+            phoneWriter = writer;
+        }
+        return writer;
     }
 
-    private void updatePhoneFromRequest(Phone phone, PhoneRequest request) {
-        phone.setName(request.getName());
-        phone.setBrand(request.getBrand());
-        phone.setDescription(request.getDescription());
-        phone.setPrice(request.getPrice());
-        phone.setCurrency(request.getCurrency());
-        phone.setUsageTypes(request.getUsageTypes());
-        phone.setImageUrl(request.getImageUrl());
-        phone.setReleaseDate(request.getReleaseDate());
-        phone.setStorageGB(request.getStorageGB());
-        phone.setRamGB(request.getRamGB());
-        phone.setBatteryCapacity(request.getBatteryCapacity());
-        phone.setScreenSize(request.getScreenSize());
-        phone.setCameraCount(request.getCameraCount());
-        phone.setIs5G(request.getIs5G());
-        phone.setIsWaterResistant(request.getIsWaterResistant());
-        phone.setHasWirelessCharging(request.getHasWirelessCharging());
-        phone.setRating(request.getRating());
-    }
-
-    private PhoneResponse convertToResponse(Phone phone) {
+    static PhoneResponse convertToResponse(PhoneColumnStore store, int row) {
         return new PhoneResponse(
-                phone.getId(),
-                phone.getName(),
-                phone.getBrand(),
-                phone.getDescription(),
-                phone.getPrice(),
-                phone.getCurrency(),
-                phone.getUsageTypes(),
-                phone.getImageUrl(),
-                phone.getReleaseDate(),
-                phone.getStorageGB(),
-                phone.getRamGB(),
-                phone.getBatteryCapacity(),
-                phone.getScreenSize(),
-                phone.getCameraCount(),
-                phone.getIs5G(),
-                phone.getIsWaterResistant(),
-                phone.getHasWirelessCharging(),
-                phone.getRating(),
-                phone.getReviewCount(),
-                phone.getCreatedAt(),
-                phone.getUpdatedAt()
+                store.id(row),
+                store.name(row),
+                store.brand(row),
+                store.description(row),
+                PhoneColumnStore.boxed(store.price(row)),
+                store.currency(row),
+                store.usageTypes(row),
+                store.imageUrl(row),
+                PhoneColumnStore.toDateTime(store.releaseDate(row)),
+                PhoneColumnStore.boxed(store.storageGB(row)),
+                PhoneColumnStore.boxed(store.ramGB(row)),
+                PhoneColumnStore.boxed(store.batteryCapacity(row)),
+                PhoneColumnStore.boxed(store.screenSize(row)),
+                PhoneColumnStore.boxed(store.cameraCount(row)),
+                store.is5G(row),
+                store.isWaterResistant(row),
+                store.hasWirelessCharging(row),
+                PhoneColumnStore.boxed(store.rating(row)),
+                PhoneColumnStore.boxed(store.reviewCount(row)),
+                PhoneColumnStore.toDateTime(store.createdAt(row)),
+                PhoneColumnStore.toDateTime(store.updatedAt(row))
         );
     }
 } 
\ No newline at end of file
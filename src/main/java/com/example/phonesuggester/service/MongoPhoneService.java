@@ -0,0 +1,802 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.config.CacheConfig;
+import com.example.phonesuggester.dto.AutocompleteSuggestion;
+import com.example.phonesuggester.dto.CursorPage;
+import com.example.phonesuggester.dto.FacetCount;
+import com.example.phonesuggester.dto.FacetCounts;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.dto.PhoneSuggestion;
+import com.example.phonesuggester.dto.PriceRangeCount;
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.dto.SuggestionResponse;
+import com.example.phonesuggester.model.Phone;
+import com.example.phonesuggester.store.AutocompleteIndex;
+import com.example.phonesuggester.store.FuzzyIndex;
+import com.example.phonesuggester.store.PhoneColumnStore;
+import com.example.phonesuggester.store.PhoneSortField;
+import com.example.phonesuggester.store.SuggestionScorer;
+import com.example.phonesuggester.store.TextIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bson.Document;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The phone catalog stored in MongoDB, used instead of {@link InMemoryPhoneService} under the
+ * {@code mongo} profile. Filtering, sorting, pagination and projections all run in the database,
+ * backed by the indexes declared on {@link Phone}: brand+price and usageTypes+rating for filtered
+ * listings in price and rating order, price for ranges and budgets, and a text index for search.
+ * Pages are read by keyset, seeking past the cursor's sort key and id, so deep pages cost as much
+ * as the first.
+ * <p>
+ * Search goes through the text index, so it matches whole words after stemming and ranks by
+ * MongoDB's text score, where the in-memory catalog matches term prefixes. Text sorts compare
+ * binary rather than case-insensitively. Catalog entity tags come from a write counter kept in
+ * MongoDB, so every instance serving the same database hands out the same tags.
+ */
+@Service
+@Profile("mongo")
+public class MongoPhoneService implements PhoneService {
+
+    public static final String VERSIONS_COLLECTION = "catalogVersions";
+    private static final String CATALOG_VERSION_ID = "phones";
+    private static final String SCORE = "score";
+    // What TextIndex.tokenize splits on, and where a word starts
+    private static final String NON_TOKEN = "[^\\p{L}\\p{N}]";
+    private static final String WORD_START = "(^|" + NON_TOKEN + ")";
+    // Everything SuggestionScorer reads; candidates are loaded with these fields only
+    private static final String[] SCORING_FIELDS = {"price", "cameraCount", "batteryCapacity", "ramGB", "rating", "usageTypes"};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private PhoneCacheInvalidator cacheInvalidator;
+
+    @Autowired(required = false)
+    private PhoneChangeFeed changeFeed;
+
+    @Autowired
+    private MongoPhoneTerms phoneTerms;
+
+    // Upper bounds, exclusive, of every price range but the last
+    @Value("${app.facets.price-boundaries:200,400,700,1000}")
+    private List<Double> priceBoundaries = List.of(200.0, 400.0, 700.0, 1000.0);
+
+    @Value("${app.export.chunk-rows:2000}")
+    private int cursorBatchSize;
+
+    private volatile ObjectWriter phoneWriter;
+
+    @Override
+    @Cacheable(value = CacheConfig.PHONE_BY_ID, key = "#id")
+    public Optional<PhoneJson> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Phone.class)).map(this::toJson);
+    }
+
+    @Override
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'all'")
+    public List<PhoneJson> findAll() {
+        return toJson(mongoTemplate.findAll(Phone.class));
+    }
+
+    /**
+     * Returns one page in the requested order, skipping to it in the database. The total comes from
+     * the collection's metadata count and is only read when the page does not reveal it.
+     */
+    @Override
+    public Page<PhoneJson> findAllPaginated(Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by(PhoneSortField.NAME.property());
+        Query query = new Query().with(withIdOrder(sort)).skip(pageable.getOffset()).limit(pageable.getPageSize());
+        List<PhoneJson> content = toJson(mongoTemplate.find(query, Phone.class));
+        return PageableExecutionUtils.getPage(content, pageable, () -> mongoTemplate.estimatedCount(Phone.class));
+    }
+
+    @Override
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'brand:' + #brand")
+    public List<PhoneJson> findByBrand(String brand) {
+        return toJson(mongoTemplate.find(query(brandLike(brand)), Phone.class));
+    }
+
+    @Override
+    @Cacheable(value = CacheConfig.PHONE_LISTS, key = "'type:' + #usageType")
+    public List<PhoneJson> findByUsageType(String usageType) {
+        return toJson(mongoTemplate.find(query(usageTypeLike(usageType)), Phone.class));
+    }
+
+    @Override
+    public List<PhoneJson> findByPriceRange(Double minPrice, Double maxPrice) {
+        Query query = query(priceBetween(minPrice, maxPrice)).with(withIdOrder(Sort.by(PhoneSortField.PRICE.property())));
+        return toJson(mongoTemplate.find(query, Phone.class));
+    }
+
+    @Override
+    @Cacheable(value = CacheConfig.PHONE_SEARCH, key = "#query")
+    public List<PhoneJson> searchPhones(String query) {
+        TextCriteria text = allTerms(query);
+        if (text == null) {
+            return new ArrayList<PhoneJson>();
+        }
+        return toJson(mongoTemplate.find(TextQuery.queryText(text).sortByScore(), Phone.class));
+    }
+
+    /**
+     * The query terms are corrected against the name and brand terms in {@link MongoPhoneTerms},
+     * which finds the candidates by shared bigrams and checks them with the same edit distance as
+     * the in-memory index. Phones are then matched on their indexed {@code terms}, one of each query
+     * term's corrections per term, and ordered by rating, since MongoDB has no score for them.
+     */
+    @Override
+    public List<PhoneJson> fuzzySearchPhones(String query) {
+        List<String> queryTerms = TextIndex.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Criteria> allTerms = new ArrayList<>();
+        for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+            List<String> corrections = phoneTerms.corrections(queryTerm, FuzzyIndex.maxEdits(queryTerm));
+            if (corrections.isEmpty()) {
+                return new ArrayList<>();
+            }
+            allTerms.add(where("terms").in(corrections));
+        }
+        Query fuzzy = query(new Criteria().andOperator(allTerms))
+                .with(Sort.by(Sort.Order.desc("rating"), Sort.Order.desc("reviewCount"), Sort.Order.asc("id")));
+        return toJson(mongoTemplate.find(fuzzy, Phone.class));
+    }
+
+    /**
+     * Regular expressions anchored at a word start of the name, or at the start of the brand with the
+     * rest of the prefix at the start of the name. Every completion has each whole prefix token among
+     * its indexed {@code terms} and a term starting with the last one, so those conditions come first
+     * and the index narrows the phones the expressions are checked on. The query reads only the id
+     * and name.
+     */
+    @Override
+    public List<AutocompleteSuggestion> autocomplete(String prefix, int limit) {
+        List<String> tokens = TextIndex.tokenize(prefix);
+        int size = Math.min(Math.max(limit, 0), AutocompleteIndex.TOP_K);
+        if (tokens.isEmpty() || size == 0) {
+            return new ArrayList<>();
+        }
+        List<Criteria> completions = new ArrayList<>();
+        completions.add(where("name").regex(Pattern.compile(WORD_START + tokenSequence(tokens), Pattern.CASE_INSENSITIVE)));
+        completions.add(where("brand").regex(Pattern.compile("^" + NON_TOKEN + "*" + tokenSequence(tokens), Pattern.CASE_INSENSITIVE)));
+        for (int split = 1; split < tokens.size(); split++) {
+            completions.add(new Criteria().andOperator(
+                    where("brand").regex(Pattern.compile("^" + NON_TOKEN + "*" + tokenSequence(tokens.subList(0, split)) + NON_TOKEN + "*$", Pattern.CASE_INSENSITIVE)),
+                    where("name").regex(Pattern.compile("^" + NON_TOKEN + "*" + tokenSequence(tokens.subList(split, tokens.size())), Pattern.CASE_INSENSITIVE))));
+        }
+        List<Criteria> matching = new ArrayList<>();
+        // Tokens are lowercase letters and digits only, so the prefix needs no escaping and stays an index range
+        matching.add(where("terms").regex("^" + tokens.get(tokens.size() - 1)));
+        if (tokens.size() > 1) {
+            matching.add(where("terms").all(new LinkedHashSet<>(tokens.subList(0, tokens.size() - 1))));
+        }
+        matching.add(new Criteria().orOperator(completions));
+        Query query = query(new Criteria().andOperator(matching))
+                .with(Sort.by(Sort.Order.desc("rating"), Sort.Order.desc("reviewCount"), Sort.Order.asc("id")))
+                .limit(size);
+        query.fields().include("id", "name");
+        List<AutocompleteSuggestion> result = new ArrayList<>();
+        for (Phone phone : mongoTemplate.find(query, Phone.class)) {
+            result.add(new AutocompleteSuggestion(phone.getId(), phone.getName()));
+        }
+        return result;
+    }
+
+    /** The tokens in order with only separators between them; the last one may be cut short. */
+    private static String tokenSequence(List<String> tokens) {
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                pattern.append(NON_TOKEN).append('+');
+            }
+            pattern.append(Pattern.quote(tokens.get(i)));
+        }
+        return pattern.toString();
+    }
+
+    @Override
+    public CursorPage<PhoneJson> findAllPage(Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, null);
+    }
+
+    @Override
+    public CursorPage<PhoneJson> findByBrandPage(String brand, Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, brandLike(brand));
+    }
+
+    @Override
+    public CursorPage<PhoneJson> findByUsageTypePage(String usageType, Sort sort, String cursor, int limit) {
+        return keysetPage(sort, cursor, limit, usageTypeLike(usageType));
+    }
+
+    /**
+     * Keyset pagination over search results. The text score is added to each match in an aggregation,
+     * so the seek past the cursor's score and id runs in the database like any other filter.
+     */
+    @Override
+    public CursorPage<PhoneJson> searchPhonesPage(String query, String cursor, int limit) {
+        PhoneCursor after = cursor == null || cursor.isBlank() ? null : PhoneCursor.decode(cursor);
+        if (after != null && (!PhoneCursor.RELEVANCE.equals(after.getSort()) || !(after.getKey() instanceof Double))) {
+            throw new IllegalArgumentException("Cursor does not belong to a search");
+        }
+        long version = catalogVersion();
+        TextCriteria text = allTerms(query);
+        if (text == null) {
+            return new CursorPage<>(new ArrayList<>(), null, version);
+        }
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(text));
+        stages.add(context -> new Document("$addFields", new Document(SCORE, new Document("$meta", "textScore"))));
+        if (after != null) {
+            double afterScore = (Double) after.getKey();
+            stages.add(Aggregation.match(new Criteria().orOperator(
+                    where(SCORE).lt(afterScore),
+                    new Criteria().andOperator(where(SCORE).is(afterScore), where("id").gt(after.getId())))));
+        }
+        stages.add(context -> new Document("$sort", new Document(SCORE, -1).append("_id", 1)));
+        stages.add(Aggregation.limit(limit + 1));
+        List<Document> hits = mongoTemplate.aggregate(Aggregation.newAggregation(Phone.class, stages), Document.class)
+                .getMappedResults();
+
+        boolean hasNext = hits.size() > limit;
+        int count = Math.min(limit, hits.size());
+        List<PhoneJson> content = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            content.add(toJson(mongoTemplate.getConverter().read(Phone.class, hits.get(i))));
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Document last = hits.get(count - 1);
+            nextCursor = new PhoneCursor(PhoneCursor.RELEVANCE, false, last.get(SCORE, Number.class).doubleValue(),
+                    last.get("_id").toString(), version).encode();
+        }
+        return new CursorPage<>(content, nextCursor, version);
+    }
+
+    /**
+     * Reads the phones after a cursor position in one field's order, with the filter and the seek past
+     * the cursor in a single query that the database answers from the field's index where there is one.
+     */
+    private CursorPage<PhoneJson> keysetPage(Sort sort, String cursor, int limit, Criteria filter) {
+        PhoneCursor after = cursor == null || cursor.isBlank() ? null : PhoneCursor.decode(cursor);
+        PhoneSortField field;
+        boolean ascending;
+        if (after != null) {
+            field = PhoneSortField.fromProperty(after.getSort());
+            ascending = after.isAscending();
+        } else {
+            List<Sort.Order> orders = sort.isSorted() ? sort.toList() : List.of(Sort.Order.asc(PhoneSortField.NAME.property()));
+            if (orders.size() != 1) {
+                throw new IllegalArgumentException("Cursor pagination supports a single sort field");
+            }
+            field = PhoneSortField.fromProperty(orders.get(0).getProperty());
+            ascending = orders.get(0).isAscending();
+        }
+        long version = catalogVersion();
+        List<Criteria> criteria = new ArrayList<>(2);
+        if (filter != null) {
+            criteria.add(filter);
+        }
+        if (after != null) {
+            criteria.add(afterPosition(field, ascending, fromCursorKey(after.getKey()), after.getId()));
+        }
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = (criteria.isEmpty() ? new Query() : query(new Criteria().andOperator(criteria)))
+                .with(withIdOrder(Sort.by(direction, field.property())))
+                .limit(limit + 1);
+        List<Phone> phones = mongoTemplate.find(query, Phone.class);
+
+        boolean hasNext = phones.size() > limit;
+        int pageSize = Math.min(limit, phones.size());
+        List<PhoneJson> content = toJson(phones.subList(0, pageSize));
+        String nextCursor = null;
+        if (hasNext) {
+            Phone last = phones.get(pageSize - 1);
+            nextCursor = new PhoneCursor(field.property(), ascending, cursorKey(field, last), last.getId(), version).encode();
+        }
+        return new CursorPage<>(content, nextCursor, version);
+    }
+
+    /**
+     * Everything strictly after the phone with the given sort key and id, in the order of
+     * {@link #withIdOrder(Sort)}. Missing values sort before all others, as they do in MongoDB.
+     */
+    private static Criteria afterPosition(PhoneSortField field, boolean ascending, Object key, String id) {
+        Criteria afterId = ascending ? where("id").gt(id) : where("id").lt(id);
+        if (field == PhoneSortField.ID) {
+            return afterId;
+        }
+        String property = field.property();
+        Criteria sameKey = new Criteria().andOperator(where(property).is(key), afterId);
+        Criteria beyondKey;
+        if (key == null) {
+            if (!ascending) {
+                return sameKey;
+            }
+            beyondKey = where(property).ne(null);
+        } else if (ascending) {
+            beyondKey = where(property).gt(key);
+        } else {
+            beyondKey = new Criteria().orOperator(where(property).lt(key), where(property).is(null));
+        }
+        return new Criteria().orOperator(beyondKey, sameKey);
+    }
+
+    /** The field's value as a cursor key; timestamps travel as epoch milliseconds, MongoDB's precision. */
+    private static Object cursorKey(PhoneSortField field, Phone phone) {
+        if (field == PhoneSortField.ID) {
+            return null;
+        }
+        Object value = new BeanWrapperImpl(phone).getPropertyValue(field.property());
+        return value instanceof LocalDateTime dateTime ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : value;
+    }
+
+    private static Object fromCursorKey(Object key) {
+        return key instanceof Long epochMillis
+                ? LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000), Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC)
+                : key;
+    }
+
+    /** The sort with the phone id appended, in the direction of its last order, so it is total and stable. */
+    private static Sort withIdOrder(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        Sort.Direction last = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            PhoneSortField field = PhoneSortField.fromProperty(order.getProperty());
+            orders.add(new Sort.Order(order.getDirection(), field.property()));
+            if (field == PhoneSortField.ID) {
+                return Sort.by(orders);
+            }
+            last = order.getDirection();
+        }
+        orders.add(new Sort.Order(last, PhoneSortField.ID.property()));
+        return Sort.by(orders);
+    }
+
+    @Override
+    public List<PhoneJson> queryPhones(PhoneQuery query) {
+        return toJson(mongoTemplate.find(matching(query), Phone.class));
+    }
+
+    /**
+     * One aggregation: the query's filters as a {@code $match}, then a {@code $facet} stage grouping
+     * the matches by brand, by usage type, into {@code $bucket} price ranges and summing the feature
+     * flags. MongoDB keeps no counts, so this reads every matching document.
+     */
+    @Override
+    public FacetCounts facetCounts(PhoneQuery query) {
+        List<Double> boundaries = priceBoundaries.stream().distinct().sorted().toList();
+        List<Object> bucketBoundaries = new ArrayList<>();
+        bucketBoundaries.add(Double.NEGATIVE_INFINITY);
+        bucketBoundaries.addAll(boundaries);
+        bucketBoundaries.add(Double.POSITIVE_INFINITY);
+        Document facets = new Document()
+                .append("total", List.of(new Document("$count", "count")))
+                .append("brands", List.of(new Document("$sortByCount", "$brand")))
+                .append("usageTypes", List.of(new Document("$unwind", "$usageTypes"), new Document("$sortByCount", "$usageTypes")))
+                .append("priceRanges", List.of(new Document("$bucket", new Document("groupBy", "$price")
+                        .append("boundaries", bucketBoundaries)
+                        .append("default", "none"))))
+                .append("features", List.of(new Document("$group", new Document("_id", null)
+                        .append("is5G", flagCount("is5G"))
+                        .append("isWaterResistant", flagCount("isWaterResistant"))
+                        .append("hasWirelessCharging", flagCount("hasWirelessCharging")))));
+        List<AggregationOperation> stages = new ArrayList<>();
+        Document filter = matching(query).getQueryObject();
+        if (!filter.isEmpty()) {
+            stages.add(context -> new Document("$match", filter));
+        }
+        stages.add(context -> new Document("$facet", facets));
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(Phone.class, stages), Document.class)
+                .getUniqueMappedResult();
+
+        List<Document> total = result.getList("total", Document.class);
+        Map<Object, Integer> priceCounts = new HashMap<>();
+        for (Document bucket : result.getList("priceRanges", Document.class)) {
+            priceCounts.put(bucket.get("_id"), bucket.getInteger("count"));
+        }
+        List<PriceRangeCount> priceRanges = new ArrayList<>(boundaries.size() + 1);
+        for (int bucket = 0; bucket <= boundaries.size(); bucket++) {
+            priceRanges.add(new PriceRangeCount(bucket == 0 ? null : boundaries.get(bucket - 1),
+                    bucket == boundaries.size() ? null : boundaries.get(bucket),
+                    priceCounts.getOrDefault(bucketBoundaries.get(bucket), 0)));
+        }
+        List<Document> featureGroups = result.getList("features", Document.class);
+        Document featureCounts = featureGroups.isEmpty() ? new Document() : featureGroups.get(0);
+        List<FacetCount> features = List.of(
+                new FacetCount("is5G", featureCounts.getInteger("is5G", 0)),
+                new FacetCount("isWaterResistant", featureCounts.getInteger("isWaterResistant", 0)),
+                new FacetCount("hasWirelessCharging", featureCounts.getInteger("hasWirelessCharging", 0)));
+        return new FacetCounts(total.isEmpty() ? 0 : total.get(0).getInteger("count"),
+                valueCounts(result.getList("brands", Document.class)),
+                valueCounts(result.getList("usageTypes", Document.class)), priceRanges, features);
+    }
+
+    /** Sum of 1 for each document with the flag set; a missing flag counts as false. */
+    private static Document flagCount(String property) {
+        return new Document("$sum", new Document("$cond", List.of(new Document("$eq", List.of("$" + property, true)), 1, 0)));
+    }
+
+    /** {@code $sortByCount} groups as facet counts, most frequent first, then by value. */
+    private static List<FacetCount> valueCounts(List<Document> groups) {
+        List<FacetCount> result = new ArrayList<>(groups.size());
+        for (Document group : groups) {
+            if (group.get("_id") != null) {
+                result.add(new FacetCount(group.get("_id").toString(), group.getInteger("count")));
+            }
+        }
+        result.sort(Comparator.comparingInt(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return result;
+    }
+
+    /** Streams the matching documents through one cursor, fetching {@code app.export.chunk-rows} per batch. */
+    @Override
+    public void forEachMatchingPhone(PhoneQuery query, Consumer<PhoneResponse> action) {
+        try (Stream<Phone> phones = mongoTemplate.stream(matching(query).cursorBatchSize(cursorBatchSize), Phone.class)) {
+            phones.forEach(phone -> action.accept(PhoneMapper.toResponse(phone)));
+        }
+    }
+
+    /** All of a query's filters as one database query; a text filter also orders the matches by relevance. */
+    private Query matching(PhoneQuery query) {
+        TextCriteria text = query.getText() != null && !query.getText().isBlank() ? allTerms(query.getText()) : null;
+        List<Criteria> criteria = new ArrayList<>();
+        if (query.getBrands() != null && !query.getBrands().isEmpty()) {
+            criteria.add(valueContaining("brand", query.getBrands()));
+        }
+        if (query.getUsageTypes() != null) {
+            for (String usageType : query.getUsageTypes()) {
+                criteria.add(usageTypeLike(usageType));
+            }
+        }
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            criteria.add(priceBetween(query.getMinPrice(), query.getMaxPrice()));
+        }
+        addFlagFilter(criteria, "is5G", query.getIs5G());
+        addFlagFilter(criteria, "isWaterResistant", query.getIsWaterResistant());
+        addFlagFilter(criteria, "hasWirelessCharging", query.getHasWirelessCharging());
+
+        Query result = text != null ? TextQuery.queryText(text).sortByScore() : new Query();
+        if (!criteria.isEmpty()) {
+            result.addCriteria(new Criteria().andOperator(criteria));
+        }
+        return result;
+    }
+
+    private static void addFlagFilter(List<Criteria> criteria, String property, Boolean wanted) {
+        if (wanted != null) {
+            // A missing flag counts as false, as it does in the in-memory catalog
+            criteria.add(wanted ? where(property).is(true) : where(property).ne(true));
+        }
+    }
+
+    /**
+     * Scores the phones within budget with the same {@link SuggestionScorer} as the in-memory catalog.
+     * The catalog maxima the specs are normalized against come from one aggregation, the candidates
+     * are read with only the scored fields, and just the top {@code limit} are then read in full.
+     */
+    @Override
+    public SuggestionResponse suggestPhones(SuggestionRequest request) {
+        Document maxima = mongoTemplate.aggregate(Aggregation.newAggregation(Phone.class, Aggregation.group()
+                        .max("cameraCount").as("cameraCount")
+                        .max("batteryCapacity").as("batteryCapacity")
+                        .max("ramGB").as("ramGB")), Document.class)
+                .getUniqueMappedResult();
+        Query candidatesQuery = query(where("price").lte(request.getBudget())).cursorBatchSize(cursorBatchSize);
+        candidatesQuery.fields().include(SCORING_FIELDS);
+        PhoneColumnStore candidates = new PhoneColumnStore();
+        try (Stream<Phone> phones = mongoTemplate.stream(candidatesQuery, Phone.class)) {
+            phones.forEach(candidates::put);
+        }
+        candidates.freeze();
+
+        long start = System.nanoTime();
+        SuggestionScorer.Result result = new SuggestionScorer(candidates, request)
+                .withCatalogMaxima(maximum(maxima, "cameraCount"), maximum(maxima, "batteryCapacity"), maximum(maxima, "ramGB"))
+                .score();
+        long elapsed = System.nanoTime() - start;
+
+        List<String> ids = new ArrayList<>(result.topK().size());
+        for (int i = 0; i < result.topK().size(); i++) {
+            ids.add(candidates.id(result.topK().row(i)));
+        }
+        Map<String, Phone> winners = new HashMap<>();
+        for (Phone phone : mongoTemplate.find(query(where("id").in(ids)), Phone.class)) {
+            winners.put(phone.getId(), phone);
+        }
+        List<PhoneSuggestion> suggestions = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Phone phone = winners.get(ids.get(i));
+            if (phone != null) {
+                suggestions.add(new PhoneSuggestion(PhoneMapper.toResponse(phone), result.topK().score(i)));
+            }
+        }
+        return new SuggestionResponse(suggestions, result.candidates(), TimeUnit.NANOSECONDS.toMicros(elapsed));
+    }
+
+    private static double maximum(Document maxima, String field) {
+        Number value = maxima == null ? null : maxima.get(field, Number.class);
+        return value == null ? 1 : value.doubleValue();
+    }
+
+    @Override
+    public PhoneResponse createPhone(PhoneRequest phoneRequest) {
+        Phone phone = PhoneMapper.newPhone(phoneRequest);
+        phone.setTerms(MongoPhoneTerms.phoneTerms(phone.getName(), phone.getBrand()));
+        mongoTemplate.insert(phone);
+        bumpCatalogVersion();
+        publish(List.of(PhoneChange.created(phone)));
+        return PhoneMapper.toResponse(phone);
+    }
+
+    /**
+     * Writes the batch as one unordered bulk write: phones without an id are inserted, the others
+     * replace the document with their id or are inserted when there is none.
+     */
+    @Override
+    public int createPhones(Collection<Phone> phones) {
+        if (phones.isEmpty()) {
+            return 0;
+        }
+        List<String> givenIds = new ArrayList<>(phones.size());
+        for (Phone phone : phones) {
+            if (phone.getId() != null) {
+                givenIds.add(phone.getId());
+            }
+        }
+        Map<String, Phone> existing = new HashMap<>();
+        if (!givenIds.isEmpty()) {
+            for (Phone phone : mongoTemplate.find(query(where("id").in(givenIds)), Phone.class)) {
+                existing.put(phone.getId(), phone);
+            }
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Phone.class);
+        List<PhoneChange> changes = new ArrayList<>(phones.size());
+        for (Phone phone : phones) {
+            phone.setTerms(MongoPhoneTerms.phoneTerms(phone.getName(), phone.getBrand()));
+            if (phone.getId() == null) {
+                phone.setId(UUID.randomUUID().toString());
+                bulk.insert(phone);
+            } else {
+                bulk.replaceOne(query(where("id").is(phone.getId())), phone, FindAndReplaceOptions.options().upsert());
+            }
+            Phone before = existing.get(phone.getId());
+            changes.add(before == null ? PhoneChange.created(phone) : PhoneChange.updated(before, phone));
+        }
+        bulk.execute();
+        bumpCatalogVersion();
+        publish(changes);
+        return changes.size();
+    }
+
+    @Override
+    public int importPhones(List<PhoneRequest> phoneRequests) {
+        List<Phone> phones = new ArrayList<>(phoneRequests.size());
+        for (PhoneRequest phoneRequest : phoneRequests) {
+            phones.add(PhoneMapper.newPhone(phoneRequest));
+        }
+        return createPhones(phones);
+    }
+
+    /** Sets the request's fields in one atomic update, which also returns the phone as it was. */
+    @Override
+    public Optional<PhoneResponse> updatePhone(String id, PhoneRequest phoneRequest) {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        List<String> terms = MongoPhoneTerms.phoneTerms(phoneRequest.getName(), phoneRequest.getBrand());
+        Update update = new Update()
+                .set("name", phoneRequest.getName())
+                .set("brand", phoneRequest.getBrand())
+                .set("description", phoneRequest.getDescription())
+                .set("price", phoneRequest.getPrice())
+                .set("currency", phoneRequest.getCurrency())
+                .set("usageTypes", phoneRequest.getUsageTypes())
+                .set("imageUrl", phoneRequest.getImageUrl())
+                .set("releaseDate", phoneRequest.getReleaseDate())
+                .set("storageGB", phoneRequest.getStorageGB())
+                .set("ramGB", phoneRequest.getRamGB())
+                .set("batteryCapacity", phoneRequest.getBatteryCapacity())
+                .set("screenSize", phoneRequest.getScreenSize())
+                .set("cameraCount", phoneRequest.getCameraCount())
+                .set("is5G", phoneRequest.getIs5G())
+                .set("isWaterResistant", phoneRequest.getIsWaterResistant())
+                .set("hasWirelessCharging", phoneRequest.getHasWirelessCharging())
+                .set("rating", phoneRequest.getRating())
+                .set("updatedAt", updatedAt)
+                .set("terms", terms);
+        Phone before = mongoTemplate.findAndModify(query(where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(false), Phone.class);
+        if (before == null) {
+            return Optional.empty();
+        }
+        Phone after = copy(before);
+        PhoneMapper.applyRequest(after, phoneRequest);
+        after.setUpdatedAt(updatedAt);
+        after.setTerms(terms);
+        bumpCatalogVersion();
+        publish(List.of(PhoneChange.updated(before, after)));
+        return Optional.of(PhoneMapper.toResponse(after));
+    }
+
+    @Override
+    public boolean deletePhone(String id) {
+        Phone before = mongoTemplate.findAndRemove(query(where("id").is(id)), Phone.class);
+        if (before == null) {
+            return false;
+        }
+        bumpCatalogVersion();
+        publish(List.of(PhoneChange.deleted(before)));
+        return true;
+    }
+
+    /** Number of writes made through this service to the database, shared by every instance using it. */
+    public long catalogVersion() {
+        Document counter = mongoTemplate.findById(CATALOG_VERSION_ID, Document.class, VERSIONS_COLLECTION);
+        Number version = counter == null ? null : counter.get("version", Number.class);
+        return version == null ? 0 : version.longValue();
+    }
+
+    @Override
+    public String catalogETag() {
+        return "\"" + Long.toHexString(catalogVersion()) + "\"";
+    }
+
+    /** Tagged by the phone's last update time, read without the rest of the document. */
+    @Override
+    public String phoneETag(String id) {
+        Query query = query(where("id").is(id));
+        query.fields().include("updatedAt");
+        Phone phone = mongoTemplate.findOne(query, Phone.class);
+        if (phone == null) {
+            return null;
+        }
+        long updatedAt = phone.getUpdatedAt() == null ? 0 : phone.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "\"" + Long.toHexString(updatedAt) + "\"";
+    }
+
+    // Counted after the write, so a tag read before the count moves can only be older than the data
+    private void bumpCatalogVersion() {
+        mongoTemplate.upsert(query(where("_id").is(CATALOG_VERSION_ID)), new Update().inc("version", 1), VERSIONS_COLLECTION);
+    }
+
+    private void publish(List<PhoneChange> changes) {
+        phoneTerms.apply(changes);
+        if (changeFeed != null) {
+            // Writes through this instance only, in the order their calls returned
+            changeFeed.append(changes);
+        }
+        if (cacheInvalidator != null) {
+            cacheInvalidator.invalidate(changes);
+        }
+    }
+
+    private Phone copy(Phone phone) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(phone, document);
+        return mongoTemplate.getConverter().read(Phone.class, document);
+    }
+
+    private Criteria brandLike(String brand) {
+        return valueContaining("brand", List.of(brand));
+    }
+
+    private Criteria usageTypeLike(String usageType) {
+        return valueContaining("usageTypes", List.of(usageType));
+    }
+
+    /**
+     * Phones whose field holds a value containing any of the fragments, case-insensitively, like the
+     * in-memory catalog's dictionary lookups. The fragments are matched against the field's distinct
+     * values, which MongoDB reads from the field's index, and phones are then selected by equality on
+     * the values that matched. The brand+price and usageTypes+rating indexes serve that equality; an
+     * unanchored regular expression on the phones could not use them.
+     */
+    private Criteria valueContaining(String field, Collection<String> fragments) {
+        List<String> lowerFragments = fragments.stream().map(String::toLowerCase).toList();
+        List<String> values = new ArrayList<>();
+        for (String value : mongoTemplate.findDistinct(new Query(), field, Phone.class, String.class)) {
+            String lowerValue = value.toLowerCase();
+            if (lowerFragments.stream().anyMatch(lowerValue::contains)) {
+                values.add(value);
+            }
+        }
+        return where(field).in(values);
+    }
+
+    private static Criteria priceBetween(Double minPrice, Double maxPrice) {
+        Criteria price = where("price");
+        if (minPrice != null) {
+            price.gte(minPrice);
+        }
+        if (maxPrice != null) {
+            price.lte(maxPrice);
+        }
+        return price;
+    }
+
+    /**
+     * A text search requiring every term of the query, or null when it has none. Each term is
+     * a quoted phrase because MongoDB otherwise returns documents matching any one of them.
+     */
+    private static TextCriteria allTerms(String query) {
+        List<String> terms = TextIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        TextCriteria criteria = TextCriteria.forDefaultLanguage();
+        for (String term : terms) {
+            criteria.matchingPhrase(term);
+        }
+        return criteria;
+    }
+
+    private List<PhoneJson> toJson(List<Phone> phones) {
+        List<PhoneJson> result = new ArrayList<>(phones.size());
+        for (Phone phone : phones) {
+            result.add(toJson(phone));
+        }
+        return result;
+    }
+
+    private PhoneJson toJson(Phone phone) {
+        ObjectWriter writer = phoneWriter;
+        if (writer == null) {
+            writer = objectMapper.writerFor(PhoneResponse.class);
+            phoneWriter = writer;
+        }
+        try {
+            return new PhoneJson(writer.writeValueAsBytes(PhoneMapper.toResponse(phone)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize phone " + phone.getId(), e);
+        }
+    }
+}
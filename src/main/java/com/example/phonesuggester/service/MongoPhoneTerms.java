@@ -0,0 +1,209 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.model.Phone;
+import com.example.phonesuggester.store.FuzzyIndex;
+import com.example.phonesuggester.store.TextIndex;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The vocabulary of phone names and brands for typo-tolerant search, kept in the
+ * {@value #COLLECTION} collection so every instance sees the same one. Each term is a document
+ * with the number of phones using it and its {@link FuzzyIndex#bigrams bigrams}, which are indexed,
+ * so corrections of a query term are looked up by the bigrams they share with it, as in
+ * {@link FuzzyIndex}, rather than by scanning every term.
+ * <p>
+ * Writes through {@link MongoPhoneService} adjust the counts. Phones written to the database
+ * any other way, such as by {@link DataLoader}, are counted by a rebuild at startup when the
+ * collection is empty. Each phone also stores its own terms in its indexed {@code terms} field, so
+ * the phones using a correction are found through that index; phones stored without them get
+ * them at startup.
+ */
+@Component
+@Profile("mongo")
+public class MongoPhoneTerms {
+
+    static final String COLLECTION = "phoneTerms";
+    private static final int BACKFILL_BATCH = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(MongoPhoneTerms.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    void createIndex() {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index().on("bigrams", Sort.Direction.ASC));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildIfEmpty() {
+        if (mongoTemplate.estimatedCount(COLLECTION) == 0 && mongoTemplate.estimatedCount(Phone.class) > 0) {
+            rebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void storeMissingPhoneTerms() {
+        Query missing = query(where("terms").exists(false));
+        missing.fields().include("id", "name", "brand");
+        List<Phone> batch = new ArrayList<>();
+        int stored = 0;
+        try (Stream<Phone> phones = mongoTemplate.stream(missing, Phone.class)) {
+            for (Phone phone : (Iterable<Phone>) phones::iterator) {
+                batch.add(phone);
+                if (batch.size() == BACKFILL_BATCH) {
+                    stored += storeTerms(batch);
+                }
+            }
+        }
+        stored += storeTerms(batch);
+        if (stored > 0) {
+            log.info("Stored the search terms of {} phones written without them", stored);
+        }
+    }
+
+    private int storeTerms(List<Phone> phones) {
+        if (phones.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Phone.class);
+        for (Phone phone : phones) {
+            bulk.updateOne(query(where("id").is(phone.getId())), new Update().set("terms", phoneTerms(phone.getName(), phone.getBrand())));
+        }
+        bulk.execute();
+        int stored = phones.size();
+        phones.clear();
+        return stored;
+    }
+
+    /** Recounts every term from the phones; counts are set rather than added, so concurrent rebuilds agree. */
+    public void rebuild() {
+        Map<String, Integer> counts = new HashMap<>();
+        Query names = new Query();
+        names.fields().include("name", "brand");
+        try (Stream<Phone> phones = mongoTemplate.stream(names, Phone.class)) {
+            phones.forEach(phone -> {
+                for (String term : terms(phone)) {
+                    counts.merge(term, 1, Integer::sum);
+                }
+            });
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        counts.forEach((term, count) -> bulk.upsert(query(where("_id").is(term)), termUpdate(term).set("phones", count)));
+        bulk.execute();
+        log.info("Counted {} search terms of the phone catalog", counts.size());
+    }
+
+    /** Adjusts the counts of the terms the changes added to or removed from phones. */
+    public void apply(Collection<PhoneChange> changes) {
+        Map<String, Integer> deltas = new HashMap<>();
+        for (PhoneChange change : changes) {
+            Set<String> before = terms(change.getBefore());
+            Set<String> after = terms(change.getAfter());
+            for (String term : before) {
+                if (!after.contains(term)) {
+                    deltas.merge(term, -1, Integer::sum);
+                }
+            }
+            for (String term : after) {
+                if (!before.contains(term)) {
+                    deltas.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        List<String> decreased = new ArrayList<>();
+        deltas.forEach((term, delta) -> {
+            bulk.upsert(query(where("_id").is(term)), termUpdate(term).inc("phones", delta));
+            if (delta < 0) {
+                decreased.add(term);
+            }
+        });
+        bulk.execute();
+        if (!decreased.isEmpty()) {
+            // An increment racing this removal either lands first and keeps the term, or recreates it
+            mongoTemplate.remove(query(where("_id").in(decreased).and("phones").lte(0)), COLLECTION);
+        }
+    }
+
+    /**
+     * Terms with a prefix within {@code maxEdits} edits of the query term. Only terms sharing all but
+     * 2 * maxEdits of its bigrams can be, so the database returns just those, found through the
+     * bigram index, and each is then checked with {@link FuzzyIndex#prefixDistance}.
+     */
+    public List<String> corrections(String queryTerm, int maxEdits) {
+        List<String> bigrams = new ArrayList<>(FuzzyIndex.bigrams(queryTerm));
+        int required = bigrams.size() - 2 * maxEdits;
+        Document shared = new Document("$size", new Document("$setIntersection", List.of("$bigrams", bigrams)));
+        Document filter = new Document("bigrams", new Document("$in", bigrams))
+                .append("phones", new Document("$gt", 0))
+                .append("length", new Document("$gte", queryTerm.length() - maxEdits))
+                .append("$expr", new Document("$gte", List.of(shared, required)));
+        Query candidates = new BasicQuery(filter);
+        candidates.fields().include("_id");
+        List<String> corrections = new ArrayList<>();
+        for (Document candidate : mongoTemplate.find(candidates, Document.class, COLLECTION)) {
+            String term = candidate.getString("_id");
+            if (FuzzyIndex.prefixDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                corrections.add(term);
+            }
+        }
+        return corrections;
+    }
+
+    private static Update termUpdate(String term) {
+        return new Update()
+                .setOnInsert("bigrams", List.copyOf(FuzzyIndex.bigrams(term)))
+                .setOnInsert("length", term.length());
+    }
+
+    /** What a phone with this name and brand stores in its {@code terms} field. */
+    public static List<String> phoneTerms(String name, String brand) {
+        Set<String> terms = new LinkedHashSet<>(TextIndex.tokenize(name));
+        terms.addAll(TextIndex.tokenize(brand));
+        return new ArrayList<>(terms);
+    }
+
+    private static Set<String> terms(Phone phone) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (phone != null) {
+            terms.addAll(TextIndex.tokenize(phone.getName()));
+            terms.addAll(TextIndex.tokenize(phone.getBrand()));
+        }
+        return terms;
+    }
+}
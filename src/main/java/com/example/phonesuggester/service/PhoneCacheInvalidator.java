@@ -0,0 +1,248 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.config.CacheConfig;
+import com.example.phonesuggester.config.RedisCacheTier;
+import com.example.phonesuggester.model.Phone;
+import com.example.phonesuggester.store.TextIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Evicts only the cache entries a catalog write can affect. A cached entry is dropped when the
+ * changed phone matches it either before or after the write: its own by-id entry, the full list,
+ * brand and usage-type lists it belongs to and searches whose terms match its text.
+ * <p>
+ * With the shared Redis tier, the instance that made the write evicts from Redis and then publishes
+ * the changed phones, and every other instance evicts the same entries from its in-process tier.
+ */
+@Component
+public class PhoneCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(PhoneCacheInvalidator.class);
+
+    private static final String BRAND_KEY_PREFIX = "brand:";
+    private static final String TYPE_KEY_PREFIX = "type:";
+    private static final List<String> CACHE_NAMES = List.of(CacheConfig.PHONE_BY_ID, CacheConfig.PHONE_LISTS, CacheConfig.PHONE_SEARCH);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired(required = false)
+    private RedisCacheTier sharedTier;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Tells this instance's own messages apart when they come back from the channel
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @PostConstruct
+    void subscribe() {
+        if (sharedTier != null) {
+            sharedTier.subscribe(this::onMessage);
+        }
+    }
+
+    public void invalidate(PhoneChange change) {
+        invalidate(List.of(change));
+    }
+
+    public void invalidate(Collection<PhoneChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Phone> phones = new ArrayList<>();
+        for (PhoneChange change : changes) {
+            if (change.getBefore() != null) {
+                phones.add(cacheKeys(change.getBefore()));
+            }
+            if (change.getAfter() != null) {
+                phones.add(cacheKeys(change.getAfter()));
+            }
+        }
+        if (sharedTier != null) {
+            // Redis first, so a local miss right after this cannot bring back a stale shared entry
+            for (Phone phone : phones) {
+                sharedTier.evict(CacheConfig.PHONE_BY_ID, phone.getId());
+            }
+            sharedTier.evictMatching(CacheConfig.PHONE_LISTS, key -> anyAffected(phones, phone -> listContains(key, phone)));
+            sharedTier.evictMatching(CacheConfig.PHONE_SEARCH, key -> anyAffected(phones, phone -> searchMatches(key, phone)));
+        }
+        evictLocal(phones);
+        publish(new Invalidation(instanceId, false, phones));
+    }
+
+    /** Drops every cached catalog read, e.g. after the whole catalog was replaced. */
+    public void invalidateAll() {
+        if (sharedTier != null) {
+            CACHE_NAMES.forEach(sharedTier::clear);
+        }
+        clearLocal();
+        publish(new Invalidation(instanceId, true, List.of()));
+    }
+
+    private void evictLocal(Collection<Phone> phones) {
+        Cache byId = cacheManager.getCache(CacheConfig.PHONE_BY_ID);
+        if (byId != null) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = localCache(byId);
+            for (Phone phone : phones) {
+                if (nativeCache != null) {
+                    nativeCache.invalidate(phone.getId());
+                } else {
+                    byId.evict(phone.getId());
+                }
+            }
+        }
+        evictMatching(cacheManager.getCache(CacheConfig.PHONE_LISTS), key -> anyAffected(phones, phone -> listContains(key, phone)));
+        evictMatching(cacheManager.getCache(CacheConfig.PHONE_SEARCH), key -> anyAffected(phones, phone -> searchMatches(key, phone)));
+    }
+
+    private void clearLocal() {
+        for (String name : CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = localCache(cache);
+                if (nativeCache != null) {
+                    nativeCache.invalidateAll();
+                } else {
+                    cache.clear();
+                }
+            }
+        }
+    }
+
+    private void evictMatching(Cache cache, Predicate<String> affected) {
+        if (cache == null) {
+            return;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = localCache(cache);
+        if (nativeCache == null) {
+            cache.clear();
+            return;
+        }
+        List<Object> stale = new ArrayList<>();
+        for (Object key : nativeCache.asMap().keySet()) {
+            if (affected.test(String.valueOf(key))) {
+                stale.add(key);
+            }
+        }
+        stale.forEach(nativeCache::invalidate);
+    }
+
+    /** The in-process tier of the cache, whether it is a plain Caffeine region or the front of a two-tier one. */
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache(Cache cache) {
+        return cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+                ? (com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache
+                : null;
+    }
+
+    private void publish(Invalidation invalidation) {
+        if (sharedTier == null) {
+            return;
+        }
+        try {
+            sharedTier.publish(objectMapper.writeValueAsBytes(invalidation));
+        } catch (IOException e) {
+            log.warn("Could not encode a cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(byte[] body) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(body, Invalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring an unreadable cache invalidation: {}", e.getMessage());
+            return;
+        }
+        if (instanceId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        if (invalidation.isAll()) {
+            clearLocal();
+        } else if (invalidation.getPhones() != null) {
+            evictLocal(invalidation.getPhones());
+        }
+    }
+
+    /** The fields cache keys are matched on, which is all an invalidation message carries per phone. */
+    private static Phone cacheKeys(Phone phone) {
+        Phone keys = new Phone();
+        keys.setId(phone.getId());
+        keys.setName(phone.getName());
+        keys.setBrand(phone.getBrand());
+        keys.setDescription(phone.getDescription());
+        keys.setUsageTypes(phone.getUsageTypes());
+        keys.setCreatedAt(null);
+        keys.setUpdatedAt(null);
+        return keys;
+    }
+
+    private static boolean anyAffected(Collection<Phone> phones, Predicate<Phone> matches) {
+        for (Phone phone : phones) {
+            if (matches.test(phone)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean listContains(String key, Phone phone) {
+        if (key.startsWith(BRAND_KEY_PREFIX)) {
+            return containsIgnoreCase(phone.getBrand(), key.substring(BRAND_KEY_PREFIX.length()));
+        }
+        if (key.startsWith(TYPE_KEY_PREFIX)) {
+            String usageType = key.substring(TYPE_KEY_PREFIX.length());
+            return phone.getUsageTypes() != null
+                    && phone.getUsageTypes().stream().anyMatch(type -> containsIgnoreCase(type, usageType));
+        }
+        // 'all' and any key this class does not know how to scope
+        return true;
+    }
+
+    private static boolean searchMatches(String query, Phone phone) {
+        return TextIndex.matches(query, phone.getName(), phone.getBrand(), phone.getDescription());
+    }
+
+    private static boolean containsIgnoreCase(String value, String fragment) {
+        return value != null && value.toLowerCase().contains(fragment.toLowerCase());
+    }
+
+    /** What one instance publishes after a write: the phones as they were before and after it, or everything. */
+    public static class Invalidation {
+        private String origin;
+        private boolean all;
+        private List<Phone> phones;
+
+        public Invalidation() {}
+
+        public Invalidation(String origin, boolean all, List<Phone> phones) {
+            this.origin = origin;
+            this.all = all;
+            this.phones = phones;
+        }
+
+        public String getOrigin() { return origin; }
+        public void setOrigin(String origin) { this.origin = origin; }
+
+        public boolean isAll() { return all; }
+        public void setAll(boolean all) { this.all = all; }
+
+        public List<Phone> getPhones() { return phones; }
+        public void setPhones(List<Phone> phones) { this.phones = phones; }
+    }
+}
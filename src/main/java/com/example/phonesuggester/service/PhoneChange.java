@@ -0,0 +1,44 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.model.Phone;
+
+/**
+ * A single catalog mutation, carrying the phone as it was before and after the write.
+ * {@code before} is null for a create and {@code after} is null for a delete.
+ */
+public class PhoneChange {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Phone before;
+    private final Phone after;
+
+    private PhoneChange(Type type, Phone before, Phone after) {
+        this.type = type;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static PhoneChange created(Phone after) {
+        return new PhoneChange(Type.CREATED, null, after);
+    }
+
+    public static PhoneChange updated(Phone before, Phone after) {
+        return new PhoneChange(Type.UPDATED, before, after);
+    }
+
+    public static PhoneChange deleted(Phone before) {
+        return new PhoneChange(Type.DELETED, before, null);
+    }
+
+    public Type getType() { return type; }
+
+    public Phone getBefore() { return before; }
+
+    public Phone getAfter() { return after; }
+
+    public String getPhoneId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneChangeEvent;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The catalog's change feed. Every create, update and delete gets the next sequence number and is
+ * sent to each subscriber as a server-sent event whose id is {@code <epoch>:<sequence>}, so a client
+ * can apply the changes to what it already holds instead of reloading the catalog. The epoch is
+ * random per process, like the instance part of the ETags, since sequences start over with it.
+ * <p>
+ * The latest {@code app.changes.retained-events} changes are kept, and a client resuming from an
+ * event id among them receives everything after it. A client that starts without an event id first
+ * gets a {@code subscribed} event with the current sequence. One whose id is from another epoch or
+ * no longer retained, or that falls that far behind, gets a {@code reset} event and should reload
+ * before applying further changes.
+ * <p>
+ * Every subscriber has its own sender on a virtual thread that reads the retained changes from
+ * where it is and writes them to its client, so a slow client holds up only its own stream. A
+ * change is serialized once, by the first sender that needs it. A sender that falls more than the
+ * retained changes behind sends a {@code reset} and continues from the latest change, so no client
+ * holds more than that. Idle streams get a comment every {@code app.changes.heartbeat} so dead
+ * connections are noticed.
+ */
+@Service
+public class PhoneChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(PhoneChangeFeed.class);
+
+    // Changes a sender takes from the retained ones per round
+    private static final int SEND_BATCH = 256;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    // Guarded by lock
+    private final Thread.Builder senders = Thread.ofVirtual().name("phone-change-feed-", 1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.changes.retained-events:10000}")
+    private int retainedEvents = 10_000;
+
+    @Value("${app.changes.heartbeat:PT15S}")
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    // Guarded by lock; the change with sequence s is at retained[(s - 1) % length]
+    private Retained[] retained;
+    private long lastSequence;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        retained = new Retained[Math.max(1, retainedEvents)];
+        running = true;
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.sender.interrupt();
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Appends changes in the order they were applied. Callers must append writes in the order they
+     * committed, so sequence order is commit order.
+     */
+    public void append(Collection<PhoneChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (PhoneChange change : changes) {
+                lastSequence++;
+                retained[(int) ((lastSequence - 1) % retained.length)] = new Retained(lastSequence, change);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Sequence of the latest change, 0 before the first. */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Id of the event with the given sequence. */
+    public String eventId(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    /**
+     * Opens a stream of the changes after the event with id {@code lastEventId}, or of the changes
+     * from now on when it is null. The emitter times out with {@code spring.mvc.async.request-timeout};
+     * clients reconnect with the id of the last event they received.
+     *
+     * @throws IllegalArgumentException if the id is not of the form {@code <epoch>:<sequence>}
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter());
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        Long since = null;
+        boolean otherEpoch = false;
+        if (lastEventId != null) {
+            int separator = lastEventId.lastIndexOf(':');
+            try {
+                since = separator < 0 ? null : Long.parseLong(lastEventId.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                since = null;
+            }
+            if (since == null) {
+                throw new IllegalArgumentException("Invalid event id: " + lastEventId);
+            }
+            otherEpoch = !lastEventId.substring(0, separator).equals(epoch);
+        }
+        lock.lock();
+        try {
+            Subscriber subscriber;
+            if (since == null) {
+                subscriber = new Subscriber(emitter, lastSequence + 1, "subscribed");
+            } else if (otherEpoch || since < 0 || since > lastSequence || since + 1 < oldestRetained()) {
+                subscriber = new Subscriber(emitter, lastSequence + 1, "reset");
+            } else {
+                subscriber = new Subscriber(emitter, since + 1, null);
+            }
+            subscriber.sender = senders.unstarted(() -> deliver(subscriber));
+            emitter.onCompletion(() -> close(subscriber));
+            emitter.onTimeout(() -> close(subscriber));
+            emitter.onError(e -> close(subscriber));
+            subscribers.add(subscriber);
+            subscriber.sender.start();
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.sender.interrupt();
+    }
+
+    private long oldestRetained() {
+        return Math.max(1, lastSequence - retained.length + 1);
+    }
+
+    /** The subscriber's sender: writes the greeting and the changes after it until the client goes away. */
+    private void deliver(Subscriber subscriber) {
+        List<Retained> batch = new ArrayList<>(SEND_BATCH);
+        try {
+            while (running) {
+                String greeting;
+                long current;
+                boolean idle = false;
+                batch.clear();
+                lock.lock();
+                try {
+                    if (subscriber.greeting == null && subscriber.next > lastSequence) {
+                        idle = !changed.await(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    if (subscriber.next < oldestRetained()) {
+                        // Fell behind by more than is retained, so the client has to reload
+                        subscriber.greeting = "reset";
+                        subscriber.next = lastSequence + 1;
+                    }
+                    greeting = subscriber.greeting;
+                    current = subscriber.next - 1;
+                    subscriber.greeting = null;
+                    for (long sequence = subscriber.next; sequence <= lastSequence && batch.size() < SEND_BATCH; sequence++) {
+                        batch.add(retained[(int) ((sequence - 1) % retained.length)]);
+                    }
+                    subscriber.next += batch.size();
+                } finally {
+                    lock.unlock();
+                }
+                if (greeting != null) {
+                    send(subscriber, new PhoneChangeEvent(current, greeting, null, null));
+                }
+                for (Retained change : batch) {
+                    send(subscriber, change.event());
+                }
+                if (idle && greeting == null && batch.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (InterruptedException e) {
+            // The client went away or the feed is stopping
+        } catch (IOException | RuntimeException e) {
+            // The client went away or the emitter already completed
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void send(Subscriber subscriber, PhoneChangeEvent event) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+                .id(eventId(event.getSequence()))
+                .name(event.getType())
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private PhoneChangeEvent toEvent(long sequence, PhoneChange change) {
+        PhoneJson phone = null;
+        if (change.getAfter() != null) {
+            try {
+                phone = new PhoneJson(objectMapper.writeValueAsBytes(PhoneMapper.toResponse(change.getAfter())));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize change {} of phone {}: {}", sequence, change.getPhoneId(), e.getMessage());
+            }
+        }
+        return new PhoneChangeEvent(sequence, change.getType().name().toLowerCase(Locale.ROOT), change.getPhoneId(), phone);
+    }
+
+    /** A retained change and its event, serialized by the first sender that needs it. */
+    private final class Retained {
+        private final long sequence;
+        private final PhoneChange change;
+        private volatile PhoneChangeEvent event;
+
+        Retained(long sequence, PhoneChange change) {
+            this.sequence = sequence;
+            this.change = change;
+        }
+
+        PhoneChangeEvent event() {
+            PhoneChangeEvent serialized = event;
+            if (serialized == null) {
+                // Senders racing here serialize the same change; either result will do
+                serialized = toEvent(sequence, change);
+                event = serialized;
+            }
+            return serialized;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile Thread sender;
+        // Guarded by lock
+        private long next;
+        private String greeting;
+
+        Subscriber(SseEmitter emitter, long next, String greeting) {
+            this.emitter = emitter;
+            this.next = next;
+            this.greeting = greeting;
+        }
+    }
+}
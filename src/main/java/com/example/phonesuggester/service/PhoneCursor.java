@@ -0,0 +1,145 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.store.PhoneSortField;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Position after the last phone of a page: the ordering it was read in, the sort key of that phone,
+ * its id and the catalog version the page was read from. Clients receive it as an opaque URL-safe
+ * token and send it back to get the next page, which is read from the same catalog version while
+ * that version is still pinned and starts strictly after this position either way.
+ */
+public final class PhoneCursor {
+
+    /** Sort name used for search results, ordered by relevance score and then id. */
+    public static final String RELEVANCE = "relevance";
+
+    private static final int VERSION = 2;
+    private static final long NO_CATALOG_VERSION = -1;
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte FLOAT = 6;
+
+    private final String sort;
+    private final boolean ascending;
+    private final Object key;
+    private final String id;
+    private final long catalogVersion;
+
+    public PhoneCursor(String sort, boolean ascending, Object key, String id, long catalogVersion) {
+        this.sort = sort;
+        this.ascending = ascending;
+        this.key = key;
+        this.id = id;
+        this.catalogVersion = catalogVersion;
+    }
+
+    public String getSort() { return sort; }
+
+    public boolean isAscending() { return ascending; }
+
+    public Object getKey() { return key; }
+
+    public String getId() { return id; }
+
+    public long getCatalogVersion() { return catalogVersion; }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(sort);
+            out.writeBoolean(ascending);
+            writeKey(out);
+            out.writeUTF(id);
+            out.writeLong(catalogVersion);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed, or its sort key is not of the
+     *         type its sort uses, so a tampered token is rejected rather than failing the query
+     */
+    public static PhoneCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            int version = in.readByte();
+            if (version != VERSION && version != 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String sort = in.readUTF();
+            boolean ascending = in.readBoolean();
+            Object key = readKey(in);
+            if (!validKey(sort, key)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String id = in.readUTF();
+            // Cursors issued before versions were pinned continue on the current catalog
+            return new PhoneCursor(sort, ascending, key, id, version == 1 ? NO_CATALOG_VERSION : in.readLong());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Relevance keys are scores; other keys may be null where the phone has no value. */
+    private static boolean validKey(String sort, Object key) {
+        if (RELEVANCE.equals(sort)) {
+            return key instanceof Float || key instanceof Double;
+        }
+        return key == null || PhoneSortField.fromProperty(sort).keyType().isInstance(key);
+    }
+
+    private void writeKey(DataOutputStream out) throws IOException {
+        if (key == null) {
+            out.writeByte(NULL);
+        } else if (key instanceof String value) {
+            out.writeByte(STRING);
+            out.writeUTF(value);
+        } else if (key instanceof Double value) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(value);
+        } else if (key instanceof Integer value) {
+            out.writeByte(INTEGER);
+            out.writeInt(value);
+        } else if (key instanceof Long value) {
+            out.writeByte(LONG);
+            out.writeLong(value);
+        } else if (key instanceof Boolean value) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(value);
+        } else if (key instanceof Float value) {
+            out.writeByte(FLOAT);
+            out.writeFloat(value);
+        } else {
+            throw new IllegalStateException("Unsupported cursor key type: " + key.getClass());
+        }
+    }
+
+    private static Object readKey(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case NULL -> null;
+            case STRING -> in.readUTF();
+            case DOUBLE -> in.readDouble();
+            case INTEGER -> in.readInt();
+            case LONG -> in.readLong();
+            case BOOLEAN -> in.readBoolean();
+            case FLOAT -> in.readFloat();
+            default -> throw new IllegalArgumentException("Invalid cursor");
+        };
+    }
+}
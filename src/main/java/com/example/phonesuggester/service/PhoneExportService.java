@@ -0,0 +1,142 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the catalog, or the part matching a {@link PhoneQuery}, to an output stream as NDJSON or CSV.
+ * Rows are serialized into a reusable buffer and the buffer is flushed to the client every
+ * {@code app.export.chunk-rows} rows, so heap use does not grow with the export. The in-memory
+ * catalog is read from the version current when the export started, so the file is a consistent
+ * snapshot; MongoDB streams the matching documents through one cursor.
+ */
+@Service
+public class PhoneExportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,name,brand,description,price,currency,usageTypes,imageUrl,releaseDate,"
+            + "storageGB,ramGB,batteryCapacity,screenSize,cameraCount,is5G,isWaterResistant,hasWirelessCharging,"
+            + "rating,reviewCount,createdAt,updatedAt\n";
+
+    @Autowired
+    private PhoneService phoneService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.chunk-rows:2000}")
+    private int chunkRows;
+
+    public void export(PhoneQuery query, Format format, OutputStream out) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        ObjectWriter writer = objectMapper.writerFor(PhoneResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == Format.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        int[] buffered = {0};
+        phoneService.forEachMatchingPhone(query, phone -> {
+            try {
+                if (format == Format.CSV) {
+                    buffer.write(csvLine(phone).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    writer.writeValue(buffer, phone);
+                    buffer.write('\n');
+                }
+                if (++buffered[0] == chunkRows) {
+                    buffer.writeTo(out);
+                    buffer.reset();
+                    buffered[0] = 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    private static String csvLine(PhoneResponse phone) {
+        StringBuilder line = new StringBuilder(256);
+        appendAll(line, phone.getId(), phone.getName(), phone.getBrand(), phone.getDescription(), phone.getPrice(),
+                phone.getCurrency(), joinUsageTypes(phone.getUsageTypes()), phone.getImageUrl(), phone.getReleaseDate(),
+                phone.getStorageGB(), phone.getRamGB(), phone.getBatteryCapacity(), phone.getScreenSize(),
+                phone.getCameraCount(), phone.getIs5G(), phone.getIsWaterResistant(), phone.getHasWirelessCharging(),
+                phone.getRating(), phone.getReviewCount(), phone.getCreatedAt(), phone.getUpdatedAt());
+        return line.append('\n').toString();
+    }
+
+    private static void appendAll(StringBuilder line, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] instanceof String text) {
+                appendCsvValue(line, defuseFormula(text));
+            } else if (values[i] != null) {
+                appendCsvValue(line, values[i].toString());
+            }
+        }
+    }
+
+    /**
+     * Prefixes text a spreadsheet would evaluate as a formula with a quote, so a name such as
+     * {@code =HYPERLINK(...)} opens as text. Numbers, dates and booleans are never prefixed.
+     */
+    static String defuseFormula(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        return switch (value.charAt(0)) {
+            case '=', '+', '-', '@', '\t', '\r' -> "'" + value;
+            default -> value;
+        };
+    }
+
+    private static void appendCsvValue(StringBuilder line, String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static String joinUsageTypes(List<String> usageTypes) {
+        return usageTypes == null ? null : String.join("|", usageTypes);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.ImportError;
+import com.example.phonesuggester.dto.ImportResult;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports phones from newline-delimited JSON, one {@link PhoneRequest} per line. The body is read a
+ * line at a time and valid phones are stored in batches, so memory stays bounded by the batch size
+ * and the error cap regardless of how large the upload is. Invalid lines are reported and skipped.
+ */
+@Service
+public class PhoneImportService {
+
+    @Autowired
+    private PhoneService phoneService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ImportResult importNdjson(InputStream body) {
+        ObjectReader reader = objectMapper.readerFor(PhoneRequest.class);
+        List<PhoneRequest> batch = new ArrayList<>(batchSize);
+        List<ImportError> errors = new ArrayList<>();
+        long lineNumber = 0;
+        long imported = 0;
+        long failed = 0;
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> problems = new ArrayList<>();
+                PhoneRequest request = parse(reader, line, problems);
+                if (request != null) {
+                    for (ConstraintViolation<PhoneRequest> violation : validator.validate(request)) {
+                        problems.add(violation.getPropertyPath() + ": " + violation.getMessage());
+                    }
+                }
+                if (!problems.isEmpty()) {
+                    failed++;
+                    if (errors.size() < maxReportedErrors) {
+                        errors.add(new ImportError(lineNumber, problems));
+                    }
+                    continue;
+                }
+                batch.add(request);
+                if (batch.size() == batchSize) {
+                    imported += phoneService.importPhones(batch);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Everything that validated before a read failure is still stored
+            if (!batch.isEmpty()) {
+                phoneService.importPhones(batch);
+            }
+            throw new UncheckedIOException("Failed to read import body at line " + (lineNumber + 1), e);
+        }
+        // Not reached when storing a batch failed, so a batch is never stored twice
+        if (!batch.isEmpty()) {
+            imported += phoneService.importPhones(batch);
+        }
+        return new ImportResult(lineNumber, imported, failed, errors, failed > errors.size());
+    }
+
+    private static PhoneRequest parse(ObjectReader reader, String line, List<String> problems) {
+        try {
+            PhoneRequest request = reader.readValue(line);
+            if (request == null) {
+                problems.add("Expected a JSON object");
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            problems.add("Malformed JSON: " + e.getOriginalMessage());
+            return null;
+        }
+    }
+}
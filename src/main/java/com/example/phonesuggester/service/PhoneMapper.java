@@ -0,0 +1,75 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.model.Phone;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Conversions between phone requests, entities and responses shared by the catalog backends.
+ */
+final class PhoneMapper {
+
+    private PhoneMapper() {
+    }
+
+    /** A new phone from a create request, with a generated id, fresh timestamps and no reviews. */
+    static Phone newPhone(PhoneRequest request) {
+        Phone phone = new Phone();
+        applyRequest(phone, request);
+        phone.setId(UUID.randomUUID().toString());
+        phone.setCreatedAt(LocalDateTime.now());
+        phone.setUpdatedAt(LocalDateTime.now());
+        phone.setReviewCount(0);
+        return phone;
+    }
+
+    /** Copies every field a request can set onto the phone. */
+    static void applyRequest(Phone phone, PhoneRequest request) {
+        phone.setName(request.getName());
+        phone.setBrand(request.getBrand());
+        phone.setDescription(request.getDescription());
+        phone.setPrice(request.getPrice());
+        phone.setCurrency(request.getCurrency());
+        phone.setUsageTypes(request.getUsageTypes());
+        phone.setImageUrl(request.getImageUrl());
+        phone.setReleaseDate(request.getReleaseDate());
+        phone.setStorageGB(request.getStorageGB());
+        phone.setRamGB(request.getRamGB());
+        phone.setBatteryCapacity(request.getBatteryCapacity());
+        phone.setScreenSize(request.getScreenSize());
+        phone.setCameraCount(request.getCameraCount());
+        phone.setIs5G(request.getIs5G());
+        phone.setIsWaterResistant(request.getIsWaterResistant());
+        phone.setHasWirelessCharging(request.getHasWirelessCharging());
+        phone.setRating(request.getRating());
+    }
+
+    static PhoneResponse toResponse(Phone phone) {
+        return new PhoneResponse(
+                phone.getId(),
+                phone.getName(),
+                phone.getBrand(),
+                phone.getDescription(),
+                phone.getPrice(),
+                phone.getCurrency(),
+                phone.getUsageTypes(),
+                phone.getImageUrl(),
+                phone.getReleaseDate(),
+                phone.getStorageGB(),
+                phone.getRamGB(),
+                phone.getBatteryCapacity(),
+                phone.getScreenSize(),
+                phone.getCameraCount(),
+                phone.getIs5G(),
+                phone.getIsWaterResistant(),
+                phone.getHasWirelessCharging(),
+                phone.getRating(),
+                phone.getReviewCount(),
+                phone.getCreatedAt(),
+                phone.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.AutocompleteSuggestion;
+import com.example.phonesuggester.dto.CursorPage;
+import com.example.phonesuggester.dto.FacetCounts;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.dto.SuggestionResponse;
+import com.example.phonesuggester.model.Phone;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * The phone catalog behind the API. {@link InMemoryPhoneService} serves it from the in-memory
+ * column store and is the default; {@link MongoPhoneService} serves it from MongoDB when the
+ * {@code mongo} profile is active.
+ * <p>
+ * Brand and usage-type filters match case-insensitive fragments. Sorts accept the properties of
+ * {@link com.example.phonesuggester.store.PhoneSortField} and break ties on the phone id.
+ */
+public interface PhoneService {
+
+    Optional<PhoneJson> findById(String id);
+
+    List<PhoneJson> findAll();
+
+    Page<PhoneJson> findAllPaginated(Pageable pageable);
+
+    List<PhoneJson> findByBrand(String brand);
+
+    List<PhoneJson> findByUsageType(String usageType);
+
+    /** Phones priced within the range, inclusive, cheapest first. */
+    List<PhoneJson> findByPriceRange(Double minPrice, Double maxPrice);
+
+    /** Phones matching every term of the query, most relevant first. */
+    List<PhoneJson> searchPhones(String query);
+
+    /**
+     * Phones whose name or brand matches every term of the query up to a typo or two, as in
+     * "samsng" or "pixl", most relevant first. Terms of up to 2 characters must match exactly,
+     * up to 5 may be 1 edit off and longer ones 2, counting from the start of a word.
+     */
+    List<PhoneJson> fuzzySearchPhones(String query);
+
+    /**
+     * Completions of a search box prefix: phones whose name, a later part of their name, or brand
+     * followed by name starts with it, best rated first, then most reviewed. At most 10.
+     */
+    List<AutocompleteSuggestion> autocomplete(String prefix, int limit);
+
+    /**
+     * Keyset pagination over the whole catalog. Pass a null cursor for the first page and the returned
+     * {@code nextCursor} for the following ones; a cursor carries its own ordering, which then takes
+     * precedence over {@code sort}.
+     */
+    CursorPage<PhoneJson> findAllPage(Sort sort, String cursor, int limit);
+
+    CursorPage<PhoneJson> findByBrandPage(String brand, Sort sort, String cursor, int limit);
+
+    CursorPage<PhoneJson> findByUsageTypePage(String usageType, Sort sort, String cursor, int limit);
+
+    /** Keyset pagination over search results, ordered by relevance and then by id. */
+    CursorPage<PhoneJson> searchPhonesPage(String query, String cursor, int limit);
+
+    List<PhoneJson> queryPhones(PhoneQuery query);
+
+    /**
+     * Number of phones per brand, usage type, price range ({@code app.facets.price-boundaries}) and
+     * feature among those matching the query, whose filters are applied as in
+     * {@link #queryPhones(PhoneQuery)}. Brands and usage types without phones are left out.
+     */
+    FacetCounts facetCounts(PhoneQuery query);
+
+    /**
+     * Passes every phone matching the query to the action, reading one consistent view of the
+     * catalog where the backend has one. Nothing is collected, so the catalog can be of any size.
+     */
+    void forEachMatchingPhone(PhoneQuery query, Consumer<PhoneResponse> action);
+
+    SuggestionResponse suggestPhones(SuggestionRequest request);
+
+    PhoneResponse createPhone(PhoneRequest phoneRequest);
+
+    /**
+     * Stores a batch of complete phones. Phones without an id get a generated one; a phone whose id
+     * already exists replaces it.
+     */
+    int createPhones(Collection<Phone> phones);
+
+    /** Creates one new phone per request, as {@link #createPhone(PhoneRequest)} would, but as a single batch. */
+    int importPhones(List<PhoneRequest> phoneRequests);
+
+    Optional<PhoneResponse> updatePhone(String id, PhoneRequest phoneRequest);
+
+    boolean deletePhone(String id);
+
+    /**
+     * Strong entity tag of everything read from the current catalog, such as a listing or search.
+     * It changes with every write, so a client holding it has seen the latest results.
+     */
+    String catalogETag();
+
+    /** Strong entity tag of one phone, changed only by writes to that phone; null when it does not exist. */
+    String phoneETag(String id);
+}
@@ -0,0 +1,205 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.model.Phone;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic source of realistic-looking phones for load and capacity testing. The same seed
+ * always yields the same sequence, and phones are produced one at a time so a catalog of any size
+ * can be streamed into a store without materializing it.
+ * <p>
+ * Brands and description words follow Zipf distributions, so a few brands and terms dominate the
+ * way they do in a real catalog. Prices are log-normal around a per-brand median, and usage types
+ * lean towards gaming and photography for expensive phones and budget use for cheap ones.
+ */
+public class SyntheticCatalogGenerator {
+
+    private static final LocalDateTime CATALOG_EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final Brand[] BRANDS = {
+            new Brand("Samsung", 650, "Galaxy S", "Galaxy A", "Galaxy M", "Galaxy Z Fold"),
+            new Brand("Apple", 1050, "iPhone", "iPhone SE"),
+            new Brand("Xiaomi", 380, "Redmi Note", "Redmi", "Xiaomi", "Poco X"),
+            new Brand("Vivo", 340, "Y", "V", "X"),
+            new Brand("Oppo", 360, "A", "Reno", "Find X"),
+            new Brand("Realme", 260, "C", "Narzo", "GT"),
+            new Brand("Motorola", 300, "Moto G", "Edge", "Razr"),
+            new Brand("OnePlus", 620, "Nord", "OnePlus"),
+            new Brand("Google", 780, "Pixel", "Pixel Fold"),
+            new Brand("Tecno", 180, "Spark", "Camon", "Phantom"),
+            new Brand("Infinix", 170, "Hot", "Note", "Zero"),
+            new Brand("Honor", 420, "X", "Magic"),
+            new Brand("Nothing", 480, "Phone", "CMF Phone"),
+            new Brand("Sony", 900, "Xperia 1", "Xperia 10"),
+            new Brand("Asus", 850, "ROG Phone", "Zenfone"),
+            new Brand("Nokia", 210, "G", "C", "X"),
+            new Brand("Lava", 140, "Agni", "Blaze"),
+            new Brand("Fairphone", 600, "Fairphone")
+    };
+
+    private static final String[] VARIANTS = {"", "", "", " Pro", " Plus", " Ultra", " Lite", " 5G", " Max"};
+
+    private static final String[] USAGE_TYPES = {"Everyday", "Photography", "Gaming", "Business", "Budget", "Battery", "Compact", "Rugged"};
+
+    private static final String[] FEATURES = {
+            "camera", "battery", "display", "performance", "charging", "design", "zoom", "screen", "processor",
+            "storage", "speakers", "night", "portrait", "video", "refresh", "brightness", "stabilization",
+            "software", "updates", "durability", "gaming", "cooling", "ultrawide", "selfie", "haptics",
+            "bezels", "glass", "aluminium", "titanium", "macro", "telephoto", "sensor", "efficiency"
+    };
+
+    private static final String[] QUALIFIERS = {
+            "excellent", "fast", "bright", "long-lasting", "smooth", "premium", "reliable", "sharp", "vivid",
+            "powerful", "lightweight", "solid", "impressive", "balanced", "clean", "responsive", "capable"
+    };
+
+    private static final String[] TEMPLATES = {
+            "%s %s with %s %s and %s %s.",
+            "Phone with %s %s, built around its %s %s and %s %s.",
+            "%s %s, %s %s and a %s %s for everyday use.",
+            "Known for its %s %s and %s %s, plus %s %s."
+    };
+
+    private static final int[] STORAGE_OPTIONS = {32, 64, 128, 256, 512, 1024};
+    private static final int[] RAM_OPTIONS = {2, 3, 4, 6, 8, 12, 16, 24};
+
+    private final Random random;
+    private final ZipfSampler brandSampler = new ZipfSampler(BRANDS.length, 1.1);
+    private final ZipfSampler featureSampler = new ZipfSampler(FEATURES.length, 1.0);
+    private final ZipfSampler qualifierSampler = new ZipfSampler(QUALIFIERS.length, 0.8);
+    private long generated;
+
+    public SyntheticCatalogGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * A lazy, sequential stream of the next {@code count} phones of this generator's sequence.
+     */
+    public Stream<Phone> phones(long count) {
+        return Stream.generate(this::next).limit(count);
+    }
+
+    public Phone next() {
+        long sequence = generated++;
+        Brand brand = BRANDS[brandSampler.sample(random)];
+        String series = brand.series[random.nextInt(brand.series.length)];
+        double price = price(brand);
+        double tier = Math.min(1.0, price / 1200.0);
+
+        Phone phone = new Phone();
+        phone.setId(new UUID(random.nextLong(), random.nextLong()).toString());
+        phone.setBrand(brand.name);
+        phone.setName(name(brand, series));
+        phone.setDescription(description());
+        phone.setPrice(price);
+        phone.setCurrency("USD");
+        phone.setUsageTypes(usageTypes(tier));
+        phone.setImageUrl("https://example.com/phones/" + brand.name.toLowerCase() + "-" + sequence + ".jpg");
+        phone.setReleaseDate(CATALOG_EPOCH.minusDays(random.nextInt(5 * 365)));
+        phone.setStorageGB(pick(STORAGE_OPTIONS, tier));
+        phone.setRamGB(pick(RAM_OPTIONS, tier));
+        phone.setBatteryCapacity(Math.max(2000, 4000 + 100 * (int) Math.round(random.nextGaussian() * 5 + (1 - tier) * 10)));
+        phone.setScreenSize(Math.round((6.1 + random.nextGaussian() * 0.35 + tier * 0.3) * 100) / 100.0);
+        phone.setCameraCount(1 + Math.min(4, (int) (tier * 4 + random.nextDouble() * 1.5)));
+        phone.setIs5G(random.nextDouble() < 0.35 + 0.6 * tier);
+        phone.setIsWaterResistant(random.nextDouble() < 0.15 + 0.75 * tier);
+        phone.setHasWirelessCharging(random.nextDouble() < 0.05 + 0.8 * tier * tier);
+        phone.setRating(clamp(Math.round((3.6 + tier * 0.6 + random.nextGaussian() * 0.4) * 10) / 10.0, 1.0, 5.0));
+        // Review counts are heavy-tailed: most phones have a few dozen, a handful have tens of thousands
+        phone.setReviewCount((int) Math.min(200_000, Math.exp(3.5 + random.nextGaussian() * 1.8)));
+        phone.setCreatedAt(phone.getReleaseDate().plusDays(random.nextInt(30)));
+        phone.setUpdatedAt(phone.getCreatedAt());
+        return phone;
+    }
+
+    private double price(Brand brand) {
+        double price = brand.medianPrice * Math.exp(random.nextGaussian() * 0.45);
+        return Math.max(49.0, Math.round(price)) - 0.01;
+    }
+
+    private String name(Brand brand, String series) {
+        String prefix = series.startsWith(brand.name) ? "" : brand.name + " ";
+        return prefix + series + " " + (1 + random.nextInt(99)) + VARIANTS[random.nextInt(VARIANTS.length)];
+    }
+
+    private String description() {
+        String template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+        String[] words = new String[6];
+        for (int i = 0; i < words.length; i += 2) {
+            words[i] = QUALIFIERS[qualifierSampler.sample(random)];
+            words[i + 1] = FEATURES[featureSampler.sample(random)];
+        }
+        String description = String.format(template, (Object[]) words);
+        return Character.toUpperCase(description.charAt(0)) + description.substring(1);
+    }
+
+    private List<String> usageTypes(double tier) {
+        // Everyday is common everywhere; the rest shift with the price tier
+        double[] weights = {
+                3.0, 0.5 + 2.5 * tier, 0.4 + 2.0 * tier, 0.5 + 1.2 * tier,
+                2.5 * (1 - tier), 1.0, 0.6, 0.3
+        };
+        int count = 1 + random.nextInt(3);
+        Set<String> types = new LinkedHashSet<>();
+        while (types.size() < count) {
+            types.add(USAGE_TYPES[weightedIndex(weights)]);
+        }
+        return new ArrayList<>(types);
+    }
+
+    private int pick(int[] options, double tier) {
+        int index = (int) Math.round(tier * (options.length - 1) + random.nextGaussian() * 0.8);
+        return options[Math.max(0, Math.min(options.length - 1, index))];
+    }
+
+    private int weightedIndex(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private record Brand(String name, double medianPrice, String... series) {
+    }
+
+    /** Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent. */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
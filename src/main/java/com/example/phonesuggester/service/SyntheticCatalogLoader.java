@@ -0,0 +1,55 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.model.Phone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the catalog with generated phones at startup when {@code app.catalog.synthetic.enabled=true}.
+ * Phones are streamed from {@link SyntheticCatalogGenerator} in batches, so only one batch is held
+ * outside the catalog at a time; under the {@code mongo} profile each batch is one bulk write.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.synthetic", name = "enabled", havingValue = "true")
+public class SyntheticCatalogLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticCatalogLoader.class);
+
+    @Autowired
+    private PhoneService phoneService;
+
+    @Value("${app.catalog.synthetic.size:100000}")
+    private long size;
+
+    @Value("${app.catalog.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${app.catalog.synthetic.batch-size:10000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator(seed);
+        List<Phone> batch = new ArrayList<>(batchSize);
+        long loaded = 0;
+        while (loaded < size) {
+            batch.add(generator.next());
+            loaded++;
+            if (batch.size() == batchSize || loaded == size) {
+                phoneService.createPhones(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        log.info("Loaded {} synthetic phones (seed {}) in {} ms", loaded, seed, (System.nanoTime() - started) / 1_000_000);
+    }
+}
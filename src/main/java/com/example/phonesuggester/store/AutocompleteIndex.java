@@ -0,0 +1,351 @@
+package com.example.phonesuggester.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Radix tree over the completions of every phone: its name, the name from each later word on
+ * ("s24 ultra" for "Galaxy S24 Ultra") and the brand followed by the name. Every node keeps the
+ * best {@value #TOP_K} rows below it, by rating, then review count, then phone id, so a lookup
+ * only walks the prefix and returns that node's list.
+ * <p>
+ * Keys are the {@link TextIndex#tokenize tokens} of the text joined by single spaces, so case and
+ * punctuation do not matter. A {@link #fork()} shares every node with the original; a write copies
+ * the nodes on the paths of the keys it touches.
+ */
+public class AutocompleteIndex implements RowIndex {
+
+    public static final int TOP_K = 10;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_ROWS = new int[0];
+
+    private Node root;
+    private Set<Node> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Whether the current delete found the row; owned nodes change in place, so identity cannot tell
+    private boolean removed;
+
+    public AutocompleteIndex() {
+        root = owned(new Node(""));
+    }
+
+    private AutocompleteIndex(Node root) {
+        this.root = root;
+    }
+
+    @Override
+    public AutocompleteIndex fork() {
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        return new AutocompleteIndex(root);
+    }
+
+    @Override
+    public void add(PhoneColumnStore store, int row) {
+        for (String key : keys(store, row)) {
+            root = insert(store, root, key, 0, row);
+        }
+    }
+
+    @Override
+    public void remove(PhoneColumnStore store, int row) {
+        for (String key : keys(store, row)) {
+            removed = false;
+            root = delete(store, root, key, 0, row);
+        }
+    }
+
+    @Override
+    public void clear() {
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        root = owned(new Node(""));
+    }
+
+    /** The best rows with a completion starting with the prefix, best first; at most {@value #TOP_K}. */
+    public int[] complete(String prefix, int limit) {
+        String key = keyOf(prefix);
+        if (key.isEmpty()) {
+            return NO_ROWS;
+        }
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = childIndex(node, key.charAt(depth));
+            if (index < 0) {
+                return NO_ROWS;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, depth);
+            if (depth + common < key.length() && common < child.label.length()) {
+                return NO_ROWS;
+            }
+            node = child;
+            depth += common;
+        }
+        return Arrays.copyOf(node.top, Math.min(Math.max(limit, 0), node.top.length));
+    }
+
+    /** Lower-cased tokens joined by single spaces, the form keys and prefixes are compared in. */
+    public static String keyOf(String text) {
+        return String.join(" ", TextIndex.tokenize(text));
+    }
+
+    private static Set<String> keys(PhoneColumnStore store, int row) {
+        List<String> name = TextIndex.tokenize(store.name(row));
+        List<String> brand = TextIndex.tokenize(store.brand(row));
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < name.size(); i++) {
+            keys.add(String.join(" ", name.subList(i, name.size())));
+        }
+        if (!brand.isEmpty()) {
+            // A name that already starts with the brand is completed from the brand by its own key
+            boolean brandFirst = name.size() >= brand.size() && name.subList(0, brand.size()).equals(brand);
+            List<String> brandAndName = new ArrayList<>(brand);
+            if (!brandFirst) {
+                brandAndName.addAll(name);
+            }
+            keys.add(String.join(" ", brandAndName));
+        }
+        return keys;
+    }
+
+    /** Adds the row under the key below a node whose label ends at {@code depth}; returns the node to keep. */
+    private Node insert(PhoneColumnStore store, Node node, String key, int depth, int row) {
+        Node updated = writable(node);
+        if (depth == key.length()) {
+            int position = Arrays.binarySearch(updated.rows, row);
+            if (position < 0) {
+                updated.rows = insertAt(updated.rows, -position - 1, row);
+            }
+        } else {
+            int index = childIndex(updated, key.charAt(depth));
+            if (index < 0) {
+                Node leaf = owned(new Node(key.substring(depth)));
+                leaf.rows = new int[] {row};
+                leaf.top = new int[] {row};
+                updated.children = insertAt(updated.children, -index - 1, leaf);
+            } else {
+                Node child = updated.children[index];
+                int common = commonPrefix(child.label, key, depth);
+                if (common < child.label.length()) {
+                    // The key leaves the edge part-way, so split it where they part
+                    String label = child.label;
+                    Node lower = writable(child);
+                    lower.label = label.substring(common);
+                    Node split = owned(new Node(label.substring(0, common)));
+                    split.children = new Node[] {lower};
+                    split.top = lower.top;
+                    child = split;
+                }
+                updated.children[index] = insert(store, child, key, depth + common, row);
+            }
+        }
+        updated.top = offer(store, updated.top, row);
+        return updated;
+    }
+
+    /** Removes the row from under the key; returns the node to keep in its place, or null to drop it. */
+    private Node delete(PhoneColumnStore store, Node node, String key, int depth, int row) {
+        Node updated;
+        if (depth == key.length()) {
+            int position = Arrays.binarySearch(node.rows, row);
+            if (position < 0) {
+                return node;
+            }
+            removed = true;
+            updated = writable(node);
+            updated.rows = removeAt(updated.rows, position);
+        } else {
+            int index = childIndex(node, key.charAt(depth));
+            if (index < 0 || !key.startsWith(node.children[index].label, depth)) {
+                return node;
+            }
+            Node child = node.children[index];
+            Node remaining = delete(store, child, key, depth + child.label.length(), row);
+            if (!removed) {
+                return node;
+            }
+            updated = writable(node);
+            if (remaining == null) {
+                updated.children = removeAt(updated.children, index);
+            } else {
+                updated.children[index] = remaining;
+            }
+        }
+        if (!updated.label.isEmpty() && updated.rows.length == 0) {
+            if (updated.children.length == 0) {
+                return null;
+            }
+            if (updated.children.length == 1) {
+                // Nothing ends here any more, so the edge folds into its only child, which has the same rows below it
+                Node only = writable(updated.children[0]);
+                only.label = updated.label + only.label;
+                return only;
+            }
+        }
+        if (indexOf(updated.top, row) >= 0) {
+            updated.top = rank(store, updated);
+        }
+        return updated;
+    }
+
+    /** Top rows of a node recomputed from the rows ending at it and the top rows of its children. */
+    private static int[] rank(PhoneColumnStore store, Node node) {
+        int[] top = NO_ROWS;
+        for (int row : node.rows) {
+            top = offer(store, top, row);
+        }
+        for (Node child : node.children) {
+            for (int row : child.top) {
+                top = offer(store, top, row);
+            }
+        }
+        return top;
+    }
+
+    /** The list with the row ranked into it, or the list itself when the row is already in it or ranks below a full list. */
+    private static int[] offer(PhoneColumnStore store, int[] top, int row) {
+        if (indexOf(top, row) >= 0) {
+            return top;
+        }
+        int position = top.length;
+        while (position > 0 && compare(store, row, top[position - 1]) < 0) {
+            position--;
+        }
+        if (position >= TOP_K) {
+            return top;
+        }
+        int size = Math.min(top.length + 1, TOP_K);
+        int[] ranked = new int[size];
+        System.arraycopy(top, 0, ranked, 0, position);
+        ranked[position] = row;
+        System.arraycopy(top, position, ranked, position + 1, size - position - 1);
+        return ranked;
+    }
+
+    /** Negative when the left row ranks first: higher rating, then more reviews, then the smaller phone id. */
+    private static int compare(PhoneColumnStore store, int left, int right) {
+        int byRating = Double.compare(rating(store, right), rating(store, left));
+        if (byRating != 0) {
+            return byRating;
+        }
+        int byReviews = Integer.compare(store.reviewCount(right), store.reviewCount(left));
+        if (byReviews != 0) {
+            return byReviews;
+        }
+        return store.id(left).compareTo(store.id(right));
+    }
+
+    private static double rating(PhoneColumnStore store, int row) {
+        double rating = store.rating(row);
+        return Double.isNaN(rating) ? Double.NEGATIVE_INFINITY : rating;
+    }
+
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = node.children[middle].label.charAt(0);
+            if (label < first) {
+                low = middle + 1;
+            } else if (label > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static int commonPrefix(String label, String key, int depth) {
+        int length = Math.min(label.length(), key.length() - depth);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(depth + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static int indexOf(int[] rows, int row) {
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == row) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] insertAt(int[] values, int position, int value) {
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    private static int[] removeAt(int[] values, int position) {
+        if (values.length == 1) {
+            return NO_ROWS;
+        }
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, position);
+        System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+        return result;
+    }
+
+    private static Node[] insertAt(Node[] nodes, int position, Node node) {
+        Node[] result = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, result, 0, position);
+        result[position] = node;
+        System.arraycopy(nodes, position, result, position + 1, nodes.length - position);
+        return result;
+    }
+
+    private static Node[] removeAt(Node[] nodes, int position) {
+        if (nodes.length == 1) {
+            return NO_CHILDREN;
+        }
+        Node[] result = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, result, 0, position);
+        System.arraycopy(nodes, position + 1, result, position, nodes.length - position - 1);
+        return result;
+    }
+
+    /** The node itself when this version created it, otherwise a copy of it that this version owns. */
+    private Node writable(Node node) {
+        return owned.contains(node) ? node : owned(node.copy());
+    }
+
+    private Node owned(Node node) {
+        owned.add(node);
+        return node;
+    }
+
+    private static final class Node {
+        // The edge leading here from the parent; only the root's is empty
+        String label;
+        // Sorted by the first character of their labels, which differ
+        Node[] children = NO_CHILDREN;
+        // Rows with a key ending at this node, ascending
+        int[] rows = NO_ROWS;
+        // Best rows of the whole subtree, best first
+        int[] top = NO_ROWS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node copy() {
+            Node copy = new Node(label);
+            copy.children = children.clone();
+            copy.rows = rows;
+            copy.top = top;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary image of a {@link PhoneColumnStore} and its persistable indexes, loaded through a memory
+ * map so a restart copies columns straight into arrays instead of parsing and re-indexing phones.
+ * <p>
+ * Layout: magic, format version, the store's columns, then one section per index holding its
+ * {@link RowIndex#snapshotName() name}, payload length (-1 when it is not persisted) and payload.
+ * Indexes without a matching section are rebuilt from the restored rows, so adding an index does
+ * not invalidate older snapshots. Bump {@link #FORMAT_VERSION} whenever the layout or an index's
+ * ordering changes.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x50484e53; // "PHNS"
+    private static final int FORMAT_VERSION = 1;
+    private static final long NOT_PERSISTED = -1;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes a published, read-only version of the store to a temporary file that is synced and
+     * then atomically moved over {@code path}, so a crash mid-write never leaves a partial snapshot
+     * behind. Returns the store version captured in the snapshot.
+     */
+    public static long write(PhoneColumnStore store, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                SnapshotWriter out = new SnapshotWriter(channel);
+                writeStore(store, out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return store.version();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Replaces the contents of an unpublished store, typically a fresh fork, with the snapshot at
+     * {@code path}. Returns the restored store version. The header is checked before the store is
+     * touched; a failure after that leaves the store half-restored, so it must not be published.
+     */
+    public static long read(PhoneColumnStore store, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            SnapshotReader in = new SnapshotReader(channel);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            int formatVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + formatVersion + " in " + path);
+            }
+            readStore(store, in);
+            return store.version();
+        }
+    }
+
+    private static void writeStore(PhoneColumnStore store, SnapshotWriter out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        store.writeColumns(out);
+        List<RowIndex> indexes = store.indexes();
+        out.writeInt(indexes.size());
+        for (RowIndex index : indexes) {
+            out.writeString(index.snapshotName());
+            long lengthPosition = out.position();
+            out.writeLong(NOT_PERSISTED);
+            long start = out.position();
+            if (index.writeSnapshot(out)) {
+                long end = out.position();
+                out.patchLong(lengthPosition, end - start);
+            }
+        }
+    }
+
+    private static void readStore(PhoneColumnStore store, SnapshotReader in) throws IOException {
+        store.readColumns(in);
+        Map<String, RowIndex> pending = new HashMap<>();
+        for (RowIndex index : store.indexes()) {
+            pending.put(index.snapshotName(), index);
+        }
+        int sections = in.readInt();
+        for (int i = 0; i < sections; i++) {
+            String name = in.readString();
+            long length = in.readLong();
+            if (length == NOT_PERSISTED) {
+                continue;
+            }
+            RowIndex index = pending.remove(name);
+            if (index == null) {
+                in.skip(length);
+                continue;
+            }
+            long end = in.position() + length;
+            index.readSnapshot(in);
+            if (in.position() != end) {
+                throw new IOException("Corrupt snapshot section for index " + name);
+            }
+        }
+        List<RowIndex> rebuilt = new ArrayList<>(pending.values());
+        for (RowIndex index : rebuilt) {
+            index.clear();
+        }
+        store.forEachLiveRow(row -> {
+            for (RowIndex index : rebuilt) {
+                index.add(store, row);
+            }
+        });
+    }
+}
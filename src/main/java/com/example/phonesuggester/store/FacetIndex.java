@@ -0,0 +1,177 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One {@link RowBitmap} per brand, per usage type and per feature flag, so any combination of
+ * facet filters can be answered by intersecting bitmaps instead of scanning rows.
+ * Brand and usage-type bitmaps are addressed by their {@link StringDictionary} codes.
+ * <p>
+ * A {@link #fork()} shares every bitmap with the original; a bitmap is forked the first time the
+ * new version changes it.
+ */
+public class FacetIndex implements RowIndex {
+
+    private static final RowBitmap EMPTY = new RowBitmap();
+
+    private final List<RowBitmap> brands;
+    private final List<RowBitmap> usageTypes;
+    private RowBitmap fiveG;
+    private RowBitmap waterResistant;
+    private RowBitmap wirelessCharging;
+    private Set<RowBitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public FacetIndex() {
+        brands = new ArrayList<>();
+        usageTypes = new ArrayList<>();
+        fiveG = owned(new RowBitmap());
+        waterResistant = owned(new RowBitmap());
+        wirelessCharging = owned(new RowBitmap());
+    }
+
+    private FacetIndex(FacetIndex source) {
+        brands = new ArrayList<>(source.brands);
+        usageTypes = new ArrayList<>(source.usageTypes);
+        fiveG = source.fiveG;
+        waterResistant = source.waterResistant;
+        wirelessCharging = source.wirelessCharging;
+    }
+
+    @Override
+    public FacetIndex fork() {
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        return new FacetIndex(this);
+    }
+
+    @Override
+    public void add(PhoneColumnStore store, int row) {
+        int brandCode = store.brandCode(row);
+        if (brandCode >= 0) {
+            writableBitmap(brands, brandCode).add(row);
+        }
+        for (int usageTypeCode : store.usageTypeCodes(row)) {
+            writableBitmap(usageTypes, usageTypeCode).add(row);
+        }
+        if (store.is5G(row)) {
+            fiveG = writable(fiveG);
+            fiveG.add(row);
+        }
+        if (store.isWaterResistant(row)) {
+            waterResistant = writable(waterResistant);
+            waterResistant.add(row);
+        }
+        if (store.hasWirelessCharging(row)) {
+            wirelessCharging = writable(wirelessCharging);
+            wirelessCharging.add(row);
+        }
+    }
+
+    @Override
+    public void remove(PhoneColumnStore store, int row) {
+        int brandCode = store.brandCode(row);
+        if (brandCode >= 0) {
+            writableBitmap(brands, brandCode).remove(row);
+        }
+        for (int usageTypeCode : store.usageTypeCodes(row)) {
+            writableBitmap(usageTypes, usageTypeCode).remove(row);
+        }
+        if (fiveG.contains(row)) {
+            fiveG = writable(fiveG);
+            fiveG.remove(row);
+        }
+        if (waterResistant.contains(row)) {
+            waterResistant = writable(waterResistant);
+            waterResistant.remove(row);
+        }
+        if (wirelessCharging.contains(row)) {
+            wirelessCharging = writable(wirelessCharging);
+            wirelessCharging.remove(row);
+        }
+    }
+
+    @Override
+    public void clear() {
+        brands.clear();
+        usageTypes.clear();
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        fiveG = owned(new RowBitmap());
+        waterResistant = owned(new RowBitmap());
+        wirelessCharging = owned(new RowBitmap());
+    }
+
+    @Override
+    public boolean writeSnapshot(SnapshotWriter out) throws IOException {
+        for (List<RowBitmap> bitmaps : List.of(brands, usageTypes)) {
+            out.writeInt(bitmaps.size());
+            for (RowBitmap bitmap : bitmaps) {
+                bitmap.writeSnapshot(out);
+            }
+        }
+        fiveG.writeSnapshot(out);
+        waterResistant.writeSnapshot(out);
+        wirelessCharging.writeSnapshot(out);
+        return true;
+    }
+
+    @Override
+    public void readSnapshot(SnapshotReader in) throws IOException {
+        clear();
+        for (List<RowBitmap> bitmaps : List.of(brands, usageTypes)) {
+            int count = in.readInt();
+            for (int code = 0; code < count; code++) {
+                writableBitmap(bitmaps, code).readSnapshot(in);
+            }
+        }
+        fiveG.readSnapshot(in);
+        waterResistant.readSnapshot(in);
+        wirelessCharging.readSnapshot(in);
+    }
+
+    public RowBitmap brand(int code) {
+        return bitmap(brands, code);
+    }
+
+    public RowBitmap usageType(int code) {
+        return bitmap(usageTypes, code);
+    }
+
+    public RowBitmap fiveG() {
+        return fiveG;
+    }
+
+    public RowBitmap waterResistant() {
+        return waterResistant;
+    }
+
+    public RowBitmap wirelessCharging() {
+        return wirelessCharging;
+    }
+
+    private static RowBitmap bitmap(List<RowBitmap> bitmaps, int code) {
+        return code < bitmaps.size() ? bitmaps.get(code) : EMPTY;
+    }
+
+    private RowBitmap writableBitmap(List<RowBitmap> bitmaps, int code) {
+        while (bitmaps.size() <= code) {
+            bitmaps.add(owned(new RowBitmap()));
+        }
+        RowBitmap bitmap = writable(bitmaps.get(code));
+        bitmaps.set(code, bitmap);
+        return bitmap;
+    }
+
+    /** The bitmap itself when this version created it, otherwise a fork of it that this version owns. */
+    private RowBitmap writable(RowBitmap bitmap) {
+        return owned.contains(bitmap) ? bitmap : owned(bitmap.fork());
+    }
+
+    private RowBitmap owned(RowBitmap bitmap) {
+        owned.add(bitmap);
+        return bitmap;
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.phonesuggester.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant index over phone names and brands. Every distinct term keeps a postings list like
+ * {@link TextIndex}, and every character bigram of a term, the first one padded with
+ * {@value #PAD}, lists the terms containing it.
+ * <p>
+ * A query term is looked up by its bigrams: a term within {@link #maxEdits(String) k} edits of it, or
+ * of one of its prefixes, still shares all but 2k of the query term's bigrams, so only terms
+ * sharing that many are candidates. Each candidate is then checked with a Levenshtein distance
+ * computation that gives up once every alignment is more than k edits off. Like
+ * {@link TextIndex#search(String)}, every query term must match.
+ * <p>
+ * A {@link #fork()} shares partitions and postings with the original; a write copies only the
+ * partitions and postings of the terms it touches.
+ */
+public class FuzzyIndex implements RowIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private static final char PAD = '$';
+    private static final String[] NO_TERMS = new String[0];
+
+    // Terms by their first two characters, bigrams by their first one
+    private Partitions<RowList> terms = new Partitions<>(2);
+    private Partitions<String[]> bigrams = new Partitions<>(1);
+    private Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int documentCount;
+
+    @Override
+    public FuzzyIndex fork() {
+        FuzzyIndex fork = new FuzzyIndex();
+        fork.terms = terms.fork();
+        fork.bigrams = bigrams.fork();
+        fork.documentCount = documentCount;
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        return fork;
+    }
+
+    @Override
+    public void add(PhoneColumnStore store, int row) {
+        termWeights(store, row).forEach((term, weight) -> {
+            RowList postings = terms.get(term);
+            if (postings == null) {
+                postings = new RowList(true);
+                owned.add(postings);
+                terms.writable(term, owned).put(term, postings);
+                for (String bigram : bigrams(term)) {
+                    String[] containing = bigrams.get(bigram);
+                    containing = containing == null ? NO_TERMS : containing;
+                    bigrams.writable(bigram, owned).put(bigram, insert(containing, term));
+                }
+            } else if (!owned.contains(postings)) {
+                postings = postings.fork();
+                owned.add(postings);
+                terms.writable(term, owned).put(term, postings);
+            }
+            int position = postings.positionOf(row);
+            if (position >= 0) {
+                postings.setWeight(position, weight);
+            } else {
+                postings.insert(-position - 1, row, weight);
+            }
+        });
+        documentCount++;
+    }
+
+    @Override
+    public void remove(PhoneColumnStore store, int row) {
+        for (String term : termWeights(store, row).keySet()) {
+            RowList postings = terms.get(term);
+            if (postings == null || postings.positionOf(row) < 0) {
+                continue;
+            }
+            if (postings.size() == 1) {
+                terms.remove(term, owned);
+                for (String bigram : bigrams(term)) {
+                    String[] containing = remove(bigrams.get(bigram), term);
+                    if (containing.length == 0) {
+                        bigrams.remove(bigram, owned);
+                    } else {
+                        bigrams.writable(bigram, owned).put(bigram, containing);
+                    }
+                }
+            } else {
+                if (!owned.contains(postings)) {
+                    postings = postings.fork();
+                    owned.add(postings);
+                    terms.writable(term, owned).put(term, postings);
+                }
+                postings.remove(postings.positionOf(row));
+            }
+        }
+        documentCount--;
+    }
+
+    @Override
+    public void clear() {
+        terms = new Partitions<>(2);
+        bigrams = new Partitions<>(1);
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        documentCount = 0;
+    }
+
+    /**
+     * Returns the rows whose name or brand has, for every term of the query, a term or term prefix
+     * within {@link #maxEdits(String)} edits of it, best match first. Exact matches score highest and
+     * every edit lowers the score.
+     */
+    public TextIndex.Hits search(String query) {
+        List<String> queryTerms = TextIndex.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return TextIndex.Hits.EMPTY;
+        }
+        List<TextIndex.Hits> perTerm = new ArrayList<>(queryTerms.size());
+        for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+            TextIndex.Hits hits = expand(queryTerm);
+            if (hits.size() == 0) {
+                return TextIndex.Hits.EMPTY;
+            }
+            perTerm.add(hits);
+        }
+        return TextIndex.intersectAll(perTerm);
+    }
+
+    /**
+     * Edits tolerated in a query term: none up to 2 characters, 1 up to 5, then 2. Fewer when the
+     * term repeats bigrams so much that the bigram filter could not tell the candidates apart.
+     */
+    public static int maxEdits(String queryTerm) {
+        int maxEdits = queryTerm.length() <= 2 ? 0 : queryTerm.length() <= 5 ? 1 : 2;
+        int distinctBigrams = bigrams(queryTerm).size();
+        while (maxEdits > 0 && distinctBigrams - 2 * maxEdits < 1) {
+            maxEdits--;
+        }
+        return maxEdits;
+    }
+
+    /**
+     * Edit distance from the query term to the closest prefix of the term, the whole term included,
+     * or {@code maxEdits + 1} when every prefix is further off than that.
+     */
+    public static int prefixDistance(String queryTerm, String term, int maxEdits) {
+        int[] last = lastRow(queryTerm, term, maxEdits);
+        if (last == null) {
+            return maxEdits + 1;
+        }
+        int best = maxEdits + 1;
+        for (int distance : last) {
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+
+    private TextIndex.Hits expand(String queryTerm) {
+        Set<String> queryBigrams = bigrams(queryTerm);
+        int maxEdits = maxEdits(queryTerm);
+        int required = queryBigrams.size() - 2 * maxEdits;
+        Map<String, Integer> shared = new HashMap<>();
+        for (String bigram : queryBigrams) {
+            String[] containing = bigrams.get(bigram);
+            if (containing != null) {
+                for (String term : containing) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        List<RowList> postings = new ArrayList<>();
+        List<Float> factors = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String term = candidate.getKey();
+            if (candidate.getValue() < required || term.length() < queryTerm.length() - maxEdits) {
+                continue;
+            }
+            int[] last = lastRow(queryTerm, term, maxEdits);
+            if (last == null) {
+                continue;
+            }
+            int whole = last[term.length()];
+            int prefix = maxEdits + 1;
+            for (int distance : last) {
+                prefix = Math.min(prefix, distance);
+            }
+            if (prefix > maxEdits) {
+                continue;
+            }
+            RowList termPostings = terms.get(term);
+            float factor = whole <= prefix ? 1f / (1 + whole) : PREFIX_MATCH_FACTOR / (1 + prefix);
+            postings.add(termPostings);
+            factors.add(idf(termPostings) * factor);
+        }
+        if (postings.isEmpty()) {
+            return TextIndex.Hits.EMPTY;
+        }
+        float[] factorArray = new float[factors.size()];
+        for (int i = 0; i < factorArray.length; i++) {
+            factorArray[i] = factors.get(i);
+        }
+        return TextIndex.union(postings, factorArray);
+    }
+
+    /**
+     * Last row of the Levenshtein matrix between the query term and the term: the distance from the
+     * query term to every prefix of the term. Null as soon as a row has no entry within maxEdits,
+     * since the rows after it cannot have one either.
+     */
+    private static int[] lastRow(String queryTerm, String term, int maxEdits) {
+        int[] previous = new int[term.length() + 1];
+        int[] current = new int[term.length() + 1];
+        for (int j = 0; j <= term.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= queryTerm.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char queryChar = queryTerm.charAt(i - 1);
+            for (int j = 1; j <= term.length(); j++) {
+                int substitution = previous[j - 1] + (queryChar == term.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxEdits) {
+                return null;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous;
+    }
+
+    /** The distinct bigrams of the term padded at the start only, so prefixes of a term share its bigrams. */
+    public static Set<String> bigrams(String term) {
+        Set<String> bigrams = new LinkedHashSet<>();
+        String padded = PAD + term;
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            bigrams.add(padded.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    private static Map<String, Float> termWeights(PhoneColumnStore store, int row) {
+        Map<String, Float> weights = new HashMap<>();
+        for (String token : TextIndex.tokenize(store.name(row))) {
+            weights.merge(token, NAME_WEIGHT, Float::sum);
+        }
+        for (String token : TextIndex.tokenize(store.brand(row))) {
+            weights.merge(token, BRAND_WEIGHT, Float::sum);
+        }
+        return weights;
+    }
+
+    private float idf(RowList postings) {
+        return (float) Math.log(1.0 + (double) documentCount / postings.size());
+    }
+
+    private static String[] insert(String[] sorted, String term) {
+        int position = Arrays.binarySearch(sorted, term);
+        if (position >= 0) {
+            return sorted;
+        }
+        position = -position - 1;
+        String[] result = new String[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, position);
+        result[position] = term;
+        System.arraycopy(sorted, position, result, position + 1, sorted.length - position);
+        return result;
+    }
+
+    private static String[] remove(String[] sorted, String term) {
+        int position = sorted == null ? -1 : Arrays.binarySearch(sorted, term);
+        if (position < 0) {
+            return sorted == null ? NO_TERMS : sorted;
+        }
+        String[] result = new String[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, position);
+        System.arraycopy(sorted, position + 1, result, position, sorted.length - position - 1);
+        return result;
+    }
+
+    /**
+     * A map split into partitions by the first characters of its keys. A fork shares the partitions
+     * with the original; a write copies the partition it touches unless this version owns it.
+     */
+    private static final class Partitions<V> {
+        private final int prefix;
+        private HashMap<String, HashMap<String, V>> partitions = new HashMap<>();
+        private boolean shared;
+
+        Partitions(int prefix) {
+            this.prefix = prefix;
+        }
+
+        Partitions<V> fork() {
+            Partitions<V> fork = new Partitions<>(prefix);
+            fork.partitions = partitions;
+            fork.shared = true;
+            shared = true;
+            return fork;
+        }
+
+        V get(String key) {
+            HashMap<String, V> partition = partitions.get(partitionKey(key));
+            return partition == null ? null : partition.get(key);
+        }
+
+        HashMap<String, V> writable(String key, Set<Object> owned) {
+            if (shared) {
+                partitions = new HashMap<>(partitions);
+                shared = false;
+            }
+            HashMap<String, V> partition = partitions.get(partitionKey(key));
+            if (partition == null || !owned.contains(partition)) {
+                partition = partition == null ? new HashMap<>() : new HashMap<>(partition);
+                partitions.put(partitionKey(key), partition);
+                owned.add(partition);
+            }
+            return partition;
+        }
+
+        void remove(String key, Set<Object> owned) {
+            HashMap<String, V> partition = writable(key, owned);
+            partition.remove(key);
+            if (partition.isEmpty()) {
+                partitions.remove(partitionKey(key));
+            }
+        }
+
+        private String partitionKey(String key) {
+            return key.length() > prefix ? key.substring(0, prefix) : key;
+        }
+    }
+}
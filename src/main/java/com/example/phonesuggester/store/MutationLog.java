@@ -0,0 +1,588 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of {@link PhoneColumnStore} mutations. Each put or remove is
+ * recorded before it is applied, tagged with the store version it produces, so after a crash the
+ * log is replayed on top of the latest {@link CatalogSnapshot} starting right after the version
+ * the snapshot captured.
+ * <p>
+ * Records are buffered in memory and written by a single flusher thread, which syncs everything
+ * buffered since its last round with one {@code fsync}: writers waiting in {@link #awaitDurable()}
+ * share that sync (group commit). How long a writer waits is set by {@link Durability}.
+ * <p>
+ * The log is split into segment files named after the first version they hold. Once a snapshot
+ * covers a segment, {@link #truncateThrough(long)} deletes it.
+ * <p>
+ * Records appended between {@link #begin()} and {@link #commit()} are held back and buffered
+ * together at the commit, or dropped by {@link #rollback()}, so a store version that is never
+ * published leaves nothing in the log.
+ * <p>
+ * Waiting is done on a {@link ReentrantLock} condition rather than an object monitor, so a
+ * virtual thread waiting for a sync unmounts from its carrier instead of pinning it.
+ */
+public class MutationLog {
+
+    public enum Durability {
+        /** Writers do not wait; the buffer is written and synced every sync interval. */
+        ASYNC,
+        /** Writers wait until their records reach the OS, so they survive a process crash. */
+        WRITE,
+        /** Writers wait until their records are synced to disk. */
+        FSYNC
+    }
+
+    private static final String SUFFIX = ".wal";
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Durability durability;
+    private final long syncIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private long pendingFirstVersion = -1;
+    // Records of the open transaction, or null when there is none
+    private ByteArrayOutputStream held;
+    private long heldFirstVersion = -1;
+    private long heldVersion;
+    private long appendedVersion;
+    private long writtenVersion;
+    private long syncedVersion;
+    private IOException failure;
+    private boolean closed;
+
+    private FileChannel segment;
+    private Thread flusher;
+
+    private MutationLog(Path directory, long segmentBytes, Durability durability, Duration syncInterval) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.durability = durability;
+        this.syncIntervalNanos = syncInterval.toNanos();
+    }
+
+    public static MutationLog open(Path directory, long segmentBytes, Durability durability, Duration syncInterval) throws IOException {
+        Files.createDirectories(directory);
+        return new MutationLog(directory, segmentBytes, durability, syncInterval);
+    }
+
+    public Durability durability() {
+        return durability;
+    }
+
+    /**
+     * Applies every logged mutation newer than the store's version to an unpublished store, then
+     * attaches the log to it so later writes, including those of its forks, are recorded, and
+     * starts the flusher. A torn record at the end of the last segment, left by a crash mid-write,
+     * is cut off. Returns the number of mutations replayed.
+     */
+    public long recover(PhoneColumnStore store) throws IOException {
+        long replayed = replay(store);
+        start(store.version());
+        store.attachLog(this);
+        return replayed;
+    }
+
+    /** Buffers a put; called by the store before the row is written. */
+    void appendPut(long version, Phone phone) {
+        lock.lock();
+        try {
+            beginRecord(version, PUT);
+            writePhone(phone);
+            endRecord(version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Buffers a remove; called by the store before the row is cleared. */
+    void appendRemove(long version, String id) {
+        lock.lock();
+        try {
+            beginRecord(version, REMOVE);
+            recordOut.writeUTF(id);
+            endRecord(version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Holds back the records appended from now on until {@link #commit()} or {@link #rollback()}.
+     * Only one transaction is open at a time; the caller serializes them, as it does its writes.
+     */
+    public void begin() {
+        lock.lock();
+        try {
+            if (held != null) {
+                throw new IllegalStateException("A mutation log transaction is already open");
+            }
+            held = new ByteArrayOutputStream();
+            heldFirstVersion = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Buffers the open transaction's records for the flusher, failing if the log is not writable. */
+    public void commit() {
+        lock.lock();
+        try {
+            ByteArrayOutputStream records = held;
+            held = null;
+            if (records == null || records.size() == 0) {
+                return;
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Mutation log is not writable", failure);
+            }
+            if (closed) {
+                throw new UncheckedIOException(new IOException("Mutation log is closed"));
+            }
+            pending.writeBytes(records.toByteArray());
+            if (pendingFirstVersion < 0) {
+                pendingFirstVersion = heldFirstVersion;
+            }
+            appendedVersion = heldVersion;
+            if (durability != Durability.ASYNC) {
+                progress.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops the open transaction's records. */
+    public void rollback() {
+        lock.lock();
+        try {
+            held = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every record appended so far is as durable as the configured {@link Durability}
+     * requires. Call it after releasing the write lock, so concurrent writers share one sync.
+     */
+    public void awaitDurable() {
+        if (durability == Durability.ASYNC) {
+            return;
+        }
+        lock.lock();
+        try {
+            long target = appendedVersion;
+            while ((durability == Durability.FSYNC ? syncedVersion : writtenVersion) < target) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Mutation log is not writable", failure);
+                }
+                try {
+                    progress.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the mutation log"));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Deletes segments holding only versions up to {@code version}, i.e. already in a snapshot. */
+    public int truncateThrough(long version) throws IOException {
+        List<Segment> segments = segments();
+        int deleted = 0;
+        // The last segment is the one being appended to and is never deleted
+        for (int i = 0; i + 1 < segments.size() && segments.get(i + 1).firstVersion() <= version + 1; i++) {
+            Files.deleteIfExists(segments.get(i).path());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /** Writes and syncs everything buffered, then stops the flusher and closes the active segment. */
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private long replay(PhoneColumnStore store) throws IOException {
+        List<Segment> segments = segments();
+        long replayed = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            Path path = segments.get(i).path();
+            long validBytes = 0;
+            try (InputStream file = Files.newInputStream(path);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+                while (true) {
+                    byte[] body = readRecord(in);
+                    if (body == null) {
+                        break;
+                    }
+                    replayed += apply(store, body);
+                    validBytes += 8 + body.length;
+                }
+            } catch (EOFException | CorruptRecordException e) {
+                if (!last) {
+                    throw new IOException("Mutation log segment " + path + " is corrupt", e);
+                }
+                // Torn tail of the segment that was being written when the process stopped
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+            }
+        }
+        return replayed;
+    }
+
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        int checksum = in.readInt();
+        if (length <= 9) {
+            throw new CorruptRecordException();
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            throw new CorruptRecordException();
+        }
+        return body;
+    }
+
+    private static int apply(PhoneColumnStore store, byte[] body) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(body, 0, 9);
+        long version = header.getLong();
+        if (version <= store.version()) {
+            return 0;
+        }
+        if (version != store.version() + 1) {
+            throw new IOException("Mutation log skips from version " + store.version() + " to " + version
+                    + "; it does not continue the loaded snapshot");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, 9, body.length - 9));
+        switch (header.get()) {
+            case PUT -> store.put(readPhone(in));
+            case REMOVE -> store.remove(in.readUTF());
+            default -> throw new IOException("Unknown mutation log record type");
+        }
+        if (store.version() != version) {
+            throw new IOException("Mutation log record " + version + " does not apply to the catalog");
+        }
+        return 1;
+    }
+
+    private void start(long version) throws IOException {
+        appendedVersion = writtenVersion = syncedVersion = version;
+        openSegment(version + 1);
+        flusher = new Thread(this::flushLoop, "mutation-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void beginRecord(long version, byte type) throws IOException {
+        if (failure != null) {
+            throw new IOException("Mutation log is not writable", failure);
+        }
+        if (closed) {
+            throw new IOException("Mutation log is closed");
+        }
+        record.reset();
+        recordOut.writeLong(version);
+        recordOut.writeByte(type);
+    }
+
+    private void endRecord(long version) {
+        crc.reset();
+        crc.update(record.toByteArray());
+        ByteArrayOutputStream target = held != null ? held : pending;
+        writeInt(target, record.size());
+        writeInt(target, (int) crc.getValue());
+        target.writeBytes(record.toByteArray());
+        if (held != null) {
+            if (heldFirstVersion < 0) {
+                heldFirstVersion = version;
+            }
+            heldVersion = version;
+            return;
+        }
+        if (pendingFirstVersion < 0) {
+            pendingFirstVersion = version;
+        }
+        appendedVersion = version;
+        if (durability != Durability.ASYNC) {
+            progress.signalAll();
+        }
+    }
+
+    private void flushLoop() {
+        long nextSync = System.nanoTime() + syncIntervalNanos;
+        boolean unsynced = false;
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchFirst;
+            long batchLast;
+            boolean stopping;
+            lock.lock();
+            try {
+                while (!closed && (durability == Durability.ASYNC || pending.size() == 0) && System.nanoTime() < nextSync) {
+                    try {
+                        progress.awaitNanos(nextSync - System.nanoTime());
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                batch = pending;
+                batchFirst = pendingFirstVersion;
+                batchLast = appendedVersion;
+                pending = new ByteArrayOutputStream(Math.max(1 << 16, batch.size()));
+                pendingFirstVersion = -1;
+                stopping = closed;
+            } finally {
+                lock.unlock();
+            }
+            boolean sync = durability == Durability.FSYNC || stopping || System.nanoTime() >= nextSync;
+            try {
+                if (batch.size() > 0) {
+                    if (segment.size() >= segmentBytes) {
+                        segment.force(false);
+                        segment.close();
+                        openSegment(batchFirst);
+                    }
+                    batch.writeTo(Channels.newOutputStream(segment));
+                    unsynced = true;
+                }
+                if (sync && unsynced) {
+                    segment.force(false);
+                    unsynced = false;
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            if (sync) {
+                nextSync = System.nanoTime() + syncIntervalNanos;
+            }
+            lock.lock();
+            try {
+                writtenVersion = batchLast;
+                if (!unsynced) {
+                    syncedVersion = batchLast;
+                }
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (stopping) {
+                return;
+            }
+        }
+    }
+
+    private void openSegment(long firstVersion) throws IOException {
+        segment = FileChannel.open(directory.resolve(String.format("%020d%s", firstVersion, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private List<Segment> segments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).forEach(path -> {
+                String name = path.getFileName().toString();
+                segments.add(new Segment(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), path));
+            });
+        }
+        segments.sort((left, right) -> Long.compare(left.firstVersion(), right.firstVersion()));
+        return segments;
+    }
+
+    private void writePhone(Phone phone) throws IOException {
+        writeString(phone.getId());
+        writeString(phone.getName());
+        writeString(phone.getBrand());
+        writeString(phone.getDescription());
+        writeDouble(phone.getPrice());
+        writeString(phone.getCurrency());
+        List<String> usageTypes = phone.getUsageTypes();
+        recordOut.writeInt(usageTypes == null ? -1 : usageTypes.size());
+        if (usageTypes != null) {
+            for (String usageType : usageTypes) {
+                writeString(usageType);
+            }
+        }
+        writeString(phone.getImageUrl());
+        recordOut.writeLong(PhoneColumnStore.toEpochNanos(phone.getReleaseDate()));
+        writeInt(phone.getStorageGB());
+        writeInt(phone.getRamGB());
+        writeInt(phone.getBatteryCapacity());
+        writeDouble(phone.getScreenSize());
+        writeInt(phone.getCameraCount());
+        writeBoolean(phone.getIs5G());
+        writeBoolean(phone.getIsWaterResistant());
+        writeBoolean(phone.getHasWirelessCharging());
+        writeDouble(phone.getRating());
+        writeInt(phone.getReviewCount());
+        recordOut.writeLong(PhoneColumnStore.toEpochNanos(phone.getCreatedAt()));
+        recordOut.writeLong(PhoneColumnStore.toEpochNanos(phone.getUpdatedAt()));
+    }
+
+    private static Phone readPhone(DataInputStream in) throws IOException {
+        Phone phone = new Phone();
+        phone.setId(readString(in));
+        phone.setName(readString(in));
+        phone.setBrand(readString(in));
+        phone.setDescription(readString(in));
+        phone.setPrice(readDouble(in));
+        phone.setCurrency(readString(in));
+        int usageTypeCount = in.readInt();
+        if (usageTypeCount >= 0) {
+            List<String> usageTypes = new ArrayList<>(usageTypeCount);
+            for (int i = 0; i < usageTypeCount; i++) {
+                usageTypes.add(readString(in));
+            }
+            phone.setUsageTypes(usageTypes);
+        }
+        phone.setImageUrl(readString(in));
+        phone.setReleaseDate(PhoneColumnStore.toDateTime(in.readLong()));
+        phone.setStorageGB(readInt(in));
+        phone.setRamGB(readInt(in));
+        phone.setBatteryCapacity(readInt(in));
+        phone.setScreenSize(readDouble(in));
+        phone.setCameraCount(readInt(in));
+        phone.setIs5G(readBoolean(in));
+        phone.setIsWaterResistant(readBoolean(in));
+        phone.setHasWirelessCharging(readBoolean(in));
+        phone.setRating(readDouble(in));
+        phone.setReviewCount(readInt(in));
+        phone.setCreatedAt(PhoneColumnStore.toDateTime(in.readLong()));
+        phone.setUpdatedAt(PhoneColumnStore.toDateTime(in.readLong()));
+        return phone;
+    }
+
+    private void writeString(String value) throws IOException {
+        recordOut.writeBoolean(value != null);
+        if (value != null) {
+            recordOut.writeUTF(value);
+        }
+    }
+
+    private void writeDouble(Double value) throws IOException {
+        recordOut.writeBoolean(value != null);
+        if (value != null) {
+            recordOut.writeDouble(value);
+        }
+    }
+
+    private void writeInt(Integer value) throws IOException {
+        recordOut.writeBoolean(value != null);
+        if (value != null) {
+            recordOut.writeInt(value);
+        }
+    }
+
+    private void writeBoolean(Boolean value) throws IOException {
+        recordOut.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static Integer readInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+
+    private record Segment(long firstVersion, Path path) {
+    }
+
+    private static final class CorruptRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
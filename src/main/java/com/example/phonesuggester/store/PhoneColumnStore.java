@@ -0,0 +1,707 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Columnar storage for the phone catalog. Every phone occupies a row id and its attributes live
+ * in parallel primitive arrays, so filters scan contiguous memory without unboxing.
+ * <p>
+ * Missing values are encoded as {@code NaN} for doubles, {@link #NULL_INT} for ints and
+ * {@link #NULL_TIME} for timestamps.
+ * <p>
+ * A store is one version of the catalog. Writers {@link #fork()} the current version, apply their
+ * changes to the fork and publish it; the forked version is frozen and can be read by any number
+ * of threads without locking while the next one is built. Columns are split into chunks of
+ * {@value #CHUNK_SIZE} rows and a fork shares every chunk with its parent until it first writes to
+ * one, so a version costs the chunks its writes touched rather than a copy of the catalog.
+ * <p>
+ * Next to its columns every row has a payload slot where readers may cache an encoded form of the
+ * row, such as its JSON. The slot is cleared whenever the row is written, so a cached payload always
+ * belongs to the row content it sits next to, in every version sharing the chunk.
+ */
+public final class PhoneColumnStore {
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_WORDS = CHUNK_SIZE / 64;
+    private static final int[] NO_CODES = new int[0];
+    private static final VarHandle PAYLOAD = MethodHandles.arrayElementVarHandle(byte[][].class);
+
+    private static final List<Function<Chunk, String[]>> STRING_COLUMNS =
+            List.of(c -> c.ids, c -> c.names, c -> c.descriptions, c -> c.imageUrls);
+    private static final List<Function<Chunk, int[]>> INT_COLUMNS = List.of(c -> c.brandCodes, c -> c.currencyCodes,
+            c -> c.storageGBs, c -> c.ramGBs, c -> c.batteryCapacities, c -> c.cameraCounts, c -> c.reviewCounts);
+    private static final List<Function<Chunk, double[]>> DOUBLE_COLUMNS =
+            List.of(c -> c.prices, c -> c.screenSizes, c -> c.ratings);
+    private static final List<Function<Chunk, long[]>> LONG_COLUMNS =
+            List.of(c -> c.releaseDates, c -> c.createdAts, c -> c.updatedAts);
+    private static final List<Function<Chunk, long[]>> BIT_COLUMNS =
+            List.of(c -> c.live, c -> c.fiveG, c -> c.waterResistant, c -> c.wirelessCharging);
+
+    private final List<RowIndex> indexes = new ArrayList<>();
+    private final RowIdTable rowsById;
+    private final StringDictionary brands;
+    private final StringDictionary usageTypes;
+    private final StringDictionary currencies;
+
+    private Chunk[] chunks = new Chunk[1];
+    private boolean[] owned = new boolean[1];
+    private int chunkCount;
+    private int[] freeRows = new int[16];
+    private boolean freeRowsShared;
+    private int freeCount;
+    private int rowLimit;
+    private int size;
+    private long version;
+    private MutationLog log;
+    private boolean frozen;
+
+    public PhoneColumnStore() {
+        rowsById = new RowIdTable(this::id);
+        brands = new StringDictionary();
+        usageTypes = new StringDictionary();
+        currencies = new StringDictionary();
+    }
+
+    private PhoneColumnStore(PhoneColumnStore parent) {
+        rowsById = parent.rowsById.fork(this::id);
+        brands = parent.brands.fork();
+        usageTypes = parent.usageTypes.fork();
+        currencies = parent.currencies.fork();
+        for (RowIndex index : parent.indexes) {
+            indexes.add(index.fork());
+        }
+        chunks = parent.chunks.clone();
+        owned = new boolean[chunks.length];
+        chunkCount = parent.chunkCount;
+        freeRows = parent.freeRows;
+        freeRowsShared = true;
+        freeCount = parent.freeCount;
+        rowLimit = parent.rowLimit;
+        size = parent.size;
+        version = parent.version;
+        log = parent.log;
+    }
+
+    /**
+     * Freezes this version and returns a writable copy of it, indexes included, that shares
+     * storage with it until written to.
+     */
+    public PhoneColumnStore fork() {
+        frozen = true;
+        return new PhoneColumnStore(this);
+    }
+
+    /** Makes this version read-only; later puts and removes fail. Call before publishing it. */
+    public PhoneColumnStore freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public <I extends RowIndex> I register(I index) {
+        checkWritable();
+        forEachLiveRow(row -> index.add(this, row));
+        indexes.add(index);
+        return index;
+    }
+
+    /** This version's index with the given {@link RowIndex#snapshotName() name}, or null. */
+    public RowIndex index(String snapshotName) {
+        for (RowIndex index : indexes) {
+            if (index.snapshotName().equals(snapshotName)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Number of writes applied to the store, carried over by forks and snapshots. */
+    public long version() {
+        return version;
+    }
+
+    /** Records every later put and remove, in this store and its forks, in the log before it is applied. */
+    void attachLog(MutationLog log) {
+        this.log = log;
+    }
+
+    /** Exclusive upper bound of row ids that have ever been assigned. */
+    public int rowLimit() {
+        return rowLimit;
+    }
+
+    public boolean isLive(int row) {
+        return row < rowLimit && bit(chunk(row).live, row);
+    }
+
+    public int rowOf(String id) {
+        return rowsById.get(id);
+    }
+
+    /**
+     * Inserts the phone, or overwrites its row when a phone with the same id is already stored.
+     */
+    public int put(Phone phone) {
+        checkWritable();
+        if (log != null) {
+            log.appendPut(version + 1, phone);
+        }
+        int row = rowOf(phone.getId());
+        if (row < 0) {
+            row = allocateRow();
+            Chunk chunk = writableChunk(row);
+            chunk.ids[row & CHUNK_MASK] = phone.getId();
+            rowsById.put(phone.getId(), row);
+            setBit(chunk.live, row, true);
+            size++;
+        } else {
+            for (RowIndex index : indexes) {
+                index.remove(this, row);
+            }
+        }
+        writeRow(row, phone);
+        for (RowIndex index : indexes) {
+            index.add(this, row);
+        }
+        version++;
+        return row;
+    }
+
+    public boolean remove(String id) {
+        checkWritable();
+        if (rowOf(id) < 0) {
+            return false;
+        }
+        if (log != null) {
+            log.appendRemove(version + 1, id);
+        }
+        int row = rowsById.remove(id);
+        for (RowIndex index : indexes) {
+            index.remove(this, row);
+        }
+        clearRow(row);
+        if (freeRowsShared || freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount == freeRows.length ? freeCount * 2 : freeRows.length);
+            freeRowsShared = false;
+        }
+        freeRows[freeCount++] = row;
+        size--;
+        version++;
+        return true;
+    }
+
+    public void forEachLiveRow(IntConsumer action) {
+        for (int c = 0; c < chunkCount; c++) {
+            long[] live = chunks[c].live;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                for (long word = live[w]; word != 0; word &= word - 1) {
+                    action.accept((c << CHUNK_BITS) | (w << 6) | Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+    }
+
+    public void forEachRowWithBrandLike(String brandFragment, IntConsumer action) {
+        boolean[] matchingBrands = brands.matchingCodes(brandFragment);
+        forEachLiveRow(row -> {
+            int code = brandCode(row);
+            if (code >= 0 && matchingBrands[code]) {
+                action.accept(row);
+            }
+        });
+    }
+
+    public void forEachRowWithUsageTypeLike(String usageTypeFragment, IntConsumer action) {
+        boolean[] matchingTypes = usageTypes.matchingCodes(usageTypeFragment);
+        forEachLiveRow(row -> {
+            for (int code : usageTypeCodes(row)) {
+                if (matchingTypes[code]) {
+                    action.accept(row);
+                    break;
+                }
+            }
+        });
+    }
+
+    public String id(int row) { return chunk(row).ids[row & CHUNK_MASK]; }
+
+    public String name(int row) { return chunk(row).names[row & CHUNK_MASK]; }
+
+    public String brand(int row) { return brands.decode(brandCode(row)); }
+
+    public int brandCode(int row) { return chunk(row).brandCodes[row & CHUNK_MASK]; }
+
+    public String description(int row) { return chunk(row).descriptions[row & CHUNK_MASK]; }
+
+    public String currency(int row) { return currencies.decode(chunk(row).currencyCodes[row & CHUNK_MASK]); }
+
+    public String imageUrl(int row) { return chunk(row).imageUrls[row & CHUNK_MASK]; }
+
+    public int[] usageTypeCodes(int row) { return chunk(row).usageTypeCodes[row & CHUNK_MASK]; }
+
+    public List<String> usageTypes(int row) {
+        int[] codes = usageTypeCodes(row);
+        List<String> types = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            types.add(usageTypes.decode(code));
+        }
+        return types;
+    }
+
+    public double price(int row) { return chunk(row).prices[row & CHUNK_MASK]; }
+
+    public double screenSize(int row) { return chunk(row).screenSizes[row & CHUNK_MASK]; }
+
+    public double rating(int row) { return chunk(row).ratings[row & CHUNK_MASK]; }
+
+    public int storageGB(int row) { return chunk(row).storageGBs[row & CHUNK_MASK]; }
+
+    public int ramGB(int row) { return chunk(row).ramGBs[row & CHUNK_MASK]; }
+
+    public int batteryCapacity(int row) { return chunk(row).batteryCapacities[row & CHUNK_MASK]; }
+
+    public int cameraCount(int row) { return chunk(row).cameraCounts[row & CHUNK_MASK]; }
+
+    public int reviewCount(int row) { return chunk(row).reviewCounts[row & CHUNK_MASK]; }
+
+    public long releaseDate(int row) { return chunk(row).releaseDates[row & CHUNK_MASK]; }
+
+    public long createdAt(int row) { return chunk(row).createdAts[row & CHUNK_MASK]; }
+
+    public long updatedAt(int row) { return chunk(row).updatedAts[row & CHUNK_MASK]; }
+
+    public boolean is5G(int row) { return bit(chunk(row).fiveG, row); }
+
+    public boolean isWaterResistant(int row) { return bit(chunk(row).waterResistant, row); }
+
+    public boolean hasWirelessCharging(int row) { return bit(chunk(row).wirelessCharging, row); }
+
+    /**
+     * The catalog {@link #version()} that last wrote the row, so it changes whenever the row does.
+     * Rows loaded from a snapshot carry the snapshot's version.
+     */
+    public long rowVersion(int row) { return chunk(row).rowVersions[row & CHUNK_MASK]; }
+
+    /** The payload a reader cached for the row with {@link #cachePayload}, or null. */
+    public byte[] payload(int row) {
+        return (byte[]) PAYLOAD.getAcquire(chunk(row).payloads, row & CHUNK_MASK);
+    }
+
+    /**
+     * Caches an encoding of the row's current content. Allowed on frozen versions, since it does
+     * not change what the row holds; the array must not be modified afterwards.
+     */
+    public void cachePayload(int row, byte[] payload) {
+        PAYLOAD.setRelease(chunk(row).payloads, row & CHUNK_MASK, payload);
+    }
+
+    public StringDictionary brandDictionary() { return brands; }
+
+    public StringDictionary usageTypeDictionary() { return usageTypes; }
+
+    List<RowIndex> indexes() {
+        return indexes;
+    }
+
+    /**
+     * Writes every column for rows {@code [0, rowLimit)}, chunk after chunk, in the same layout as
+     * one flat array per column. Fixed-width columns go out as raw arrays; only the free-text
+     * columns are written value by value.
+     */
+    void writeColumns(SnapshotWriter out) throws IOException {
+        out.writeLong(version);
+        out.writeInt(rowLimit);
+        out.writeInt(size);
+        out.writeInt(freeCount);
+        out.writeInts(freeRows, 0, freeCount);
+        brands.writeSnapshot(out);
+        usageTypes.writeSnapshot(out);
+        currencies.writeSnapshot(out);
+        for (Function<Chunk, long[]> column : BIT_COLUMNS) {
+            writeBits(out, column);
+        }
+        for (Function<Chunk, String[]> column : STRING_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                out.writeStrings(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, int[]> column : INT_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                out.writeInts(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, double[]> column : DOUBLE_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                out.writeDoubles(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, long[]> column : LONG_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                out.writeLongs(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        int[] counts = new int[rowLimit];
+        int total = 0;
+        for (int row = 0; row < rowLimit; row++) {
+            int[] codes = usageTypeCodes(row);
+            counts[row] = codes == null ? 0 : codes.length;
+            total += counts[row];
+        }
+        out.writeInts(counts, 0, rowLimit);
+        out.writeInt(total);
+        for (int row = 0; row < rowLimit; row++) {
+            out.writeInts(usageTypeCodes(row), 0, counts[row]);
+        }
+        rowsById.writeSnapshot(out);
+    }
+
+    /**
+     * Replaces every column with the state written by {@link #writeColumns}. Indexes are left
+     * untouched; the caller restores or rebuilds them. Only valid on a store that is not published.
+     */
+    void readColumns(SnapshotReader in) throws IOException {
+        checkWritable();
+        version = in.readLong();
+        rowLimit = in.readInt();
+        size = in.readInt();
+        freeCount = in.readInt();
+        freeRows = new int[Math.max(16, freeCount)];
+        freeRowsShared = false;
+        in.readInts(freeRows, 0, freeCount);
+        brands.readSnapshot(in);
+        usageTypes.readSnapshot(in);
+        currencies.readSnapshot(in);
+
+        chunkCount = (rowLimit + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        chunks = new Chunk[Math.max(1, chunkCount)];
+        owned = new boolean[chunks.length];
+        for (int c = 0; c < chunkCount; c++) {
+            chunks[c] = new Chunk();
+            Arrays.fill(chunks[c].rowVersions, version);
+            owned[c] = true;
+        }
+        for (Function<Chunk, long[]> column : BIT_COLUMNS) {
+            readBits(in, column);
+        }
+        for (Function<Chunk, String[]> column : STRING_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                in.readStrings(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, int[]> column : INT_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                in.readInts(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, double[]> column : DOUBLE_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                in.readDoubles(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+        for (Function<Chunk, long[]> column : LONG_COLUMNS) {
+            for (int c = 0; c < chunkCount; c++) {
+                in.readLongs(column.apply(chunks[c]), 0, rowsIn(c));
+            }
+        }
+
+        int[] counts = new int[rowLimit];
+        in.readInts(counts, 0, rowLimit);
+        int total = in.readInt();
+        int[] codes = new int[total];
+        in.readInts(codes, 0, total);
+        for (int row = 0, offset = 0; row < rowLimit; offset += counts[row++]) {
+            chunk(row).usageTypeCodes[row & CHUNK_MASK] =
+                    counts[row] == 0 ? NO_CODES : Arrays.copyOfRange(codes, offset, offset + counts[row]);
+        }
+        rowsById.readSnapshot(in);
+    }
+
+    public Phone toPhone(int row) {
+        Phone phone = new Phone();
+        phone.setId(id(row));
+        phone.setName(name(row));
+        phone.setBrand(brand(row));
+        phone.setDescription(description(row));
+        phone.setPrice(boxed(price(row)));
+        phone.setCurrency(currency(row));
+        phone.setUsageTypes(usageTypes(row));
+        phone.setImageUrl(imageUrl(row));
+        phone.setReleaseDate(toDateTime(releaseDate(row)));
+        phone.setStorageGB(boxed(storageGB(row)));
+        phone.setRamGB(boxed(ramGB(row)));
+        phone.setBatteryCapacity(boxed(batteryCapacity(row)));
+        phone.setScreenSize(boxed(screenSize(row)));
+        phone.setCameraCount(boxed(cameraCount(row)));
+        phone.setIs5G(is5G(row));
+        phone.setIsWaterResistant(isWaterResistant(row));
+        phone.setHasWirelessCharging(hasWirelessCharging(row));
+        phone.setRating(boxed(rating(row)));
+        phone.setReviewCount(boxed(reviewCount(row)));
+        phone.setCreatedAt(toDateTime(createdAt(row)));
+        phone.setUpdatedAt(toDateTime(updatedAt(row)));
+        return phone;
+    }
+
+    public static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    public static Integer boxed(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    public static long toEpochNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL_TIME;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    public static LocalDateTime toDateTime(long epochNanos) {
+        if (epochNanos == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private Chunk chunk(int row) {
+        return chunks[row >>> CHUNK_BITS];
+    }
+
+    /** The row's chunk, copied first unless this version already owns it. */
+    private Chunk writableChunk(int row) {
+        int c = row >>> CHUNK_BITS;
+        if (!owned[c]) {
+            chunks[c] = new Chunk(chunks[c]);
+            owned[c] = true;
+        }
+        return chunks[c];
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new IllegalStateException("Catalog version " + version + " is read-only; fork it to make changes");
+        }
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowLimit == chunkCount << CHUNK_BITS) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                owned = Arrays.copyOf(owned, chunkCount * 2);
+            }
+            chunks[chunkCount] = new Chunk();
+            owned[chunkCount++] = true;
+        }
+        return rowLimit++;
+    }
+
+    private void writeRow(int row, Phone phone) {
+        Chunk chunk = writableChunk(row);
+        int i = row & CHUNK_MASK;
+        chunk.payloads[i] = null;
+        chunk.rowVersions[i] = version + 1;
+        chunk.ids[i] = phone.getId();
+        chunk.names[i] = phone.getName();
+        chunk.descriptions[i] = phone.getDescription();
+        chunk.imageUrls[i] = phone.getImageUrl();
+        chunk.brandCodes[i] = brands.encode(phone.getBrand());
+        chunk.currencyCodes[i] = currencies.encode(phone.getCurrency());
+        chunk.usageTypeCodes[i] = encodeUsageTypes(phone.getUsageTypes());
+        chunk.prices[i] = unboxed(phone.getPrice());
+        chunk.screenSizes[i] = unboxed(phone.getScreenSize());
+        chunk.ratings[i] = unboxed(phone.getRating());
+        chunk.storageGBs[i] = unboxed(phone.getStorageGB());
+        chunk.ramGBs[i] = unboxed(phone.getRamGB());
+        chunk.batteryCapacities[i] = unboxed(phone.getBatteryCapacity());
+        chunk.cameraCounts[i] = unboxed(phone.getCameraCount());
+        chunk.reviewCounts[i] = unboxed(phone.getReviewCount());
+        chunk.releaseDates[i] = toEpochNanos(phone.getReleaseDate());
+        chunk.createdAts[i] = toEpochNanos(phone.getCreatedAt());
+        chunk.updatedAts[i] = toEpochNanos(phone.getUpdatedAt());
+        setBit(chunk.fiveG, row, Boolean.TRUE.equals(phone.getIs5G()));
+        setBit(chunk.waterResistant, row, Boolean.TRUE.equals(phone.getIsWaterResistant()));
+        setBit(chunk.wirelessCharging, row, Boolean.TRUE.equals(phone.getHasWirelessCharging()));
+    }
+
+    private void clearRow(int row) {
+        Chunk chunk = writableChunk(row);
+        int i = row & CHUNK_MASK;
+        chunk.payloads[i] = null;
+        chunk.ids[i] = null;
+        chunk.names[i] = null;
+        chunk.descriptions[i] = null;
+        chunk.imageUrls[i] = null;
+        chunk.usageTypeCodes[i] = NO_CODES;
+        chunk.brandCodes[i] = -1;
+        setBit(chunk.live, row, false);
+        setBit(chunk.fiveG, row, false);
+        setBit(chunk.waterResistant, row, false);
+        setBit(chunk.wirelessCharging, row, false);
+    }
+
+    private int[] encodeUsageTypes(List<String> types) {
+        if (types == null || types.isEmpty()) {
+            return NO_CODES;
+        }
+        int[] codes = new int[types.size()];
+        int count = 0;
+        for (String type : types) {
+            if (type != null) {
+                codes[count++] = usageTypes.encode(type);
+            }
+        }
+        return count == codes.length ? codes : Arrays.copyOf(codes, count);
+    }
+
+    private int rowsIn(int chunk) {
+        return Math.min(CHUNK_SIZE, rowLimit - (chunk << CHUNK_BITS));
+    }
+
+    private static boolean bit(long[] words, int row) {
+        return (words[(row & CHUNK_MASK) >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void setBit(long[] words, int row, boolean value) {
+        if (value) {
+            words[(row & CHUNK_MASK) >>> 6] |= 1L << row;
+        } else {
+            words[(row & CHUNK_MASK) >>> 6] &= ~(1L << row);
+        }
+    }
+
+    /** Writes a flag column as one word array without trailing zero words, like {@link java.util.BitSet#toLongArray()}. */
+    private void writeBits(SnapshotWriter out, Function<Chunk, long[]> column) throws IOException {
+        int length = chunkCount * CHUNK_WORDS;
+        while (length > 0 && column.apply(chunks[(length - 1) / CHUNK_WORDS])[(length - 1) % CHUNK_WORDS] == 0) {
+            length--;
+        }
+        out.writeInt(length);
+        for (int c = 0; c * CHUNK_WORDS < length; c++) {
+            out.writeLongs(column.apply(chunks[c]), 0, Math.min(CHUNK_WORDS, length - c * CHUNK_WORDS));
+        }
+    }
+
+    private void readBits(SnapshotReader in, Function<Chunk, long[]> column) throws IOException {
+        int length = in.readInt();
+        if (length > chunkCount * CHUNK_WORDS) {
+            throw new IOException("Snapshot flag column extends past row " + rowLimit);
+        }
+        for (int c = 0; c * CHUNK_WORDS < length; c++) {
+            in.readLongs(column.apply(chunks[c]), 0, Math.min(CHUNK_WORDS, length - c * CHUNK_WORDS));
+        }
+    }
+
+    private static double unboxed(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static int unboxed(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    /** Every column for {@value #CHUNK_SIZE} consecutive rows. */
+    private static final class Chunk {
+        final String[] ids;
+        final String[] names;
+        final String[] descriptions;
+        final String[] imageUrls;
+        final int[] brandCodes;
+        final int[] currencyCodes;
+        final int[][] usageTypeCodes;
+        final double[] prices;
+        final double[] screenSizes;
+        final double[] ratings;
+        final int[] storageGBs;
+        final int[] ramGBs;
+        final int[] batteryCapacities;
+        final int[] cameraCounts;
+        final int[] reviewCounts;
+        final long[] releaseDates;
+        final long[] createdAts;
+        final long[] updatedAts;
+        final long[] live;
+        final long[] fiveG;
+        final long[] waterResistant;
+        final long[] wirelessCharging;
+        final long[] rowVersions;
+        final byte[][] payloads;
+
+        Chunk() {
+            ids = new String[CHUNK_SIZE];
+            names = new String[CHUNK_SIZE];
+            descriptions = new String[CHUNK_SIZE];
+            imageUrls = new String[CHUNK_SIZE];
+            brandCodes = new int[CHUNK_SIZE];
+            currencyCodes = new int[CHUNK_SIZE];
+            usageTypeCodes = new int[CHUNK_SIZE][];
+            prices = new double[CHUNK_SIZE];
+            screenSizes = new double[CHUNK_SIZE];
+            ratings = new double[CHUNK_SIZE];
+            storageGBs = new int[CHUNK_SIZE];
+            ramGBs = new int[CHUNK_SIZE];
+            batteryCapacities = new int[CHUNK_SIZE];
+            cameraCounts = new int[CHUNK_SIZE];
+            reviewCounts = new int[CHUNK_SIZE];
+            releaseDates = new long[CHUNK_SIZE];
+            createdAts = new long[CHUNK_SIZE];
+            updatedAts = new long[CHUNK_SIZE];
+            live = new long[CHUNK_WORDS];
+            fiveG = new long[CHUNK_WORDS];
+            waterResistant = new long[CHUNK_WORDS];
+            wirelessCharging = new long[CHUNK_WORDS];
+            rowVersions = new long[CHUNK_SIZE];
+            payloads = new byte[CHUNK_SIZE][];
+        }
+
+        Chunk(Chunk source) {
+            ids = source.ids.clone();
+            names = source.names.clone();
+            descriptions = source.descriptions.clone();
+            imageUrls = source.imageUrls.clone();
+            brandCodes = source.brandCodes.clone();
+            currencyCodes = source.currencyCodes.clone();
+            usageTypeCodes = source.usageTypeCodes.clone();
+            prices = source.prices.clone();
+            screenSizes = source.screenSizes.clone();
+            ratings = source.ratings.clone();
+            storageGBs = source.storageGBs.clone();
+            ramGBs = source.ramGBs.clone();
+            batteryCapacities = source.batteryCapacities.clone();
+            cameraCounts = source.cameraCounts.clone();
+            reviewCounts = source.reviewCounts.clone();
+            releaseDates = source.releaseDates.clone();
+            createdAts = source.createdAts.clone();
+            updatedAts = source.updatedAts.clone();
+            live = source.live.clone();
+            fiveG = source.fiveG.clone();
+            waterResistant = source.waterResistant.clone();
+            wirelessCharging = source.wirelessCharging.clone();
+            rowVersions = source.rowVersions.clone();
+            payloads = source.payloads.clone();
+        }
+    }
+}
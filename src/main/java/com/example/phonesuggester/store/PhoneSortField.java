@@ -0,0 +1,157 @@
+package com.example.phonesuggester.store;
+
+import java.util.Comparator;
+
+/**
+ * Phone attributes a listing can be ordered by. Every ordering breaks ties on the phone id,
+ * so it is total and stable across requests.
+ */
+public enum PhoneSortField {
+    ID("id"),
+    NAME("name"),
+    BRAND("brand"),
+    DESCRIPTION("description"),
+    CURRENCY("currency"),
+    IMAGE_URL("imageUrl"),
+    PRICE("price"),
+    SCREEN_SIZE("screenSize"),
+    RATING("rating"),
+    STORAGE_GB("storageGB"),
+    RAM_GB("ramGB"),
+    BATTERY_CAPACITY("batteryCapacity"),
+    CAMERA_COUNT("cameraCount"),
+    REVIEW_COUNT("reviewCount"),
+    IS_5G("is5G"),
+    IS_WATER_RESISTANT("isWaterResistant"),
+    HAS_WIRELESS_CHARGING("hasWirelessCharging"),
+    RELEASE_DATE("releaseDate"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt");
+
+    private static final Comparator<String> TEXT_ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    private final String property;
+
+    PhoneSortField(String property) {
+        this.property = property;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public static PhoneSortField fromProperty(String property) {
+        for (PhoneSortField field : values()) {
+            if (field.property.equalsIgnoreCase(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + property);
+    }
+
+    public SortedRowIndex.RowComparator comparator(PhoneColumnStore store) {
+        SortedRowIndex.RowComparator byKey = keyComparator(store);
+        return (left, right) -> {
+            int result = byKey.compare(left, right);
+            return result != 0 ? result : store.id(left).compareTo(store.id(right));
+        };
+    }
+
+    /**
+     * The sort key of a row as a String, Double, Integer, Long or Boolean, using the store's raw
+     * encoding for missing values so it compares exactly like the row itself.
+     */
+    public Object key(PhoneColumnStore store, int row) {
+        return switch (this) {
+            case ID -> null;
+            case NAME -> store.name(row);
+            case BRAND -> store.brand(row);
+            case DESCRIPTION -> store.description(row);
+            case CURRENCY -> store.currency(row);
+            case IMAGE_URL -> store.imageUrl(row);
+            case PRICE -> store.price(row);
+            case SCREEN_SIZE -> store.screenSize(row);
+            case RATING -> store.rating(row);
+            case STORAGE_GB -> store.storageGB(row);
+            case RAM_GB -> store.ramGB(row);
+            case BATTERY_CAPACITY -> store.batteryCapacity(row);
+            case CAMERA_COUNT -> store.cameraCount(row);
+            case REVIEW_COUNT -> store.reviewCount(row);
+            case IS_5G -> store.is5G(row);
+            case IS_WATER_RESISTANT -> store.isWaterResistant(row);
+            case HAS_WIRELESS_CHARGING -> store.hasWirelessCharging(row);
+            case RELEASE_DATE -> store.releaseDate(row);
+            case CREATED_AT -> store.createdAt(row);
+            case UPDATED_AT -> store.updatedAt(row);
+        };
+    }
+
+    /**
+     * Class of this field's {@link #key sort keys}, or {@link Void} for {@link #ID}, whose key is
+     * always null.
+     */
+    public Class<?> keyType() {
+        return switch (this) {
+            case ID -> Void.class;
+            case NAME, BRAND, DESCRIPTION, CURRENCY, IMAGE_URL -> String.class;
+            case PRICE, SCREEN_SIZE, RATING -> Double.class;
+            case STORAGE_GB, RAM_GB, BATTERY_CAPACITY, CAMERA_COUNT, REVIEW_COUNT -> Integer.class;
+            case IS_5G, IS_WATER_RESISTANT, HAS_WIRELESS_CHARGING -> Boolean.class;
+            case RELEASE_DATE, CREATED_AT, UPDATED_AT -> Long.class;
+        };
+    }
+
+    /**
+     * Compares rows against the position of a phone with the given sort key and id, in the same
+     * order as {@link #comparator(PhoneColumnStore)}.
+     *
+     * @throws IllegalArgumentException if the key is not of this field's {@link #keyType()}; only
+     *         text keys may be null, since the store encodes other missing values
+     */
+    public SortedRowIndex.RowProbe probe(PhoneColumnStore store, Object key, String id) {
+        if (this != ID && (key == null ? keyType() != String.class : !keyType().isInstance(key))) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return row -> {
+            int result = compareKey(store, row, key);
+            return result != 0 ? result : store.id(row).compareTo(id);
+        };
+    }
+
+    private int compareKey(PhoneColumnStore store, int row, Object key) {
+        return switch (this) {
+            case ID -> 0;
+            case NAME, BRAND, DESCRIPTION, CURRENCY, IMAGE_URL -> TEXT_ORDER.compare((String) key(store, row), (String) key);
+            case PRICE, SCREEN_SIZE, RATING -> Double.compare((Double) key(store, row), (Double) key);
+            case STORAGE_GB, RAM_GB, BATTERY_CAPACITY, CAMERA_COUNT, REVIEW_COUNT -> Integer.compare((Integer) key(store, row), (Integer) key);
+            case IS_5G, IS_WATER_RESISTANT, HAS_WIRELESS_CHARGING -> Boolean.compare((Boolean) key(store, row), (Boolean) key);
+            case RELEASE_DATE, CREATED_AT, UPDATED_AT -> Long.compare((Long) key(store, row), (Long) key);
+        };
+    }
+
+    /** Compares rows by this field alone, without the id tie-break, for orderings on several fields. */
+    public SortedRowIndex.RowComparator keyComparator(PhoneColumnStore store) {
+        return switch (this) {
+            case ID -> (left, right) -> store.id(left).compareTo(store.id(right));
+            case NAME -> (left, right) -> TEXT_ORDER.compare(store.name(left), store.name(right));
+            case BRAND -> (left, right) -> TEXT_ORDER.compare(store.brand(left), store.brand(right));
+            case DESCRIPTION -> (left, right) -> TEXT_ORDER.compare(store.description(left), store.description(right));
+            case CURRENCY -> (left, right) -> TEXT_ORDER.compare(store.currency(left), store.currency(right));
+            case IMAGE_URL -> (left, right) -> TEXT_ORDER.compare(store.imageUrl(left), store.imageUrl(right));
+            case PRICE -> (left, right) -> Double.compare(store.price(left), store.price(right));
+            case SCREEN_SIZE -> (left, right) -> Double.compare(store.screenSize(left), store.screenSize(right));
+            case RATING -> (left, right) -> Double.compare(store.rating(left), store.rating(right));
+            case STORAGE_GB -> (left, right) -> Integer.compare(store.storageGB(left), store.storageGB(right));
+            case RAM_GB -> (left, right) -> Integer.compare(store.ramGB(left), store.ramGB(right));
+            case BATTERY_CAPACITY -> (left, right) -> Integer.compare(store.batteryCapacity(left), store.batteryCapacity(right));
+            case CAMERA_COUNT -> (left, right) -> Integer.compare(store.cameraCount(left), store.cameraCount(right));
+            case REVIEW_COUNT -> (left, right) -> Integer.compare(store.reviewCount(left), store.reviewCount(right));
+            case IS_5G -> (left, right) -> Boolean.compare(store.is5G(left), store.is5G(right));
+            case IS_WATER_RESISTANT -> (left, right) -> Boolean.compare(store.isWaterResistant(left), store.isWaterResistant(right));
+            case HAS_WIRELESS_CHARGING -> (left, right) -> Boolean.compare(store.hasWirelessCharging(left), store.hasWirelessCharging(right));
+            case RELEASE_DATE -> (left, right) -> Long.compare(store.releaseDate(left), store.releaseDate(right));
+            case CREATED_AT -> (left, right) -> Long.compare(store.createdAt(left), store.createdAt(right));
+            case UPDATED_AT -> (left, right) -> Long.compare(store.updatedAt(left), store.updatedAt(right));
+        };
+    }
+}
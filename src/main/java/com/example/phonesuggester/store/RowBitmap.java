@@ -0,0 +1,466 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of row ids in the style of a roaring bitmap: rows are split by their high 16 bits
+ * into chunks, and each chunk is a sorted {@code char[]} while sparse or a 1024-word bitmap once it
+ * holds more than {@value #ARRAY_LIMIT} rows. A {@link #fork()} shares containers with the
+ * original and copies each one only the first time it changes it.
+ */
+public class RowBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private boolean[] owned = new boolean[4];
+    private int containerCount;
+    private int cardinality;
+
+    public RowBitmap() {
+    }
+
+    private RowBitmap(RowBitmap source) {
+        keys = source.keys.clone();
+        containers = source.containers.clone();
+        owned = new boolean[containers.length];
+        containerCount = source.containerCount;
+        cardinality = source.cardinality;
+    }
+
+    /** A bitmap with the same rows; neither bitmap sees later changes to the other. */
+    RowBitmap fork() {
+        Arrays.fill(owned, false);
+        return new RowBitmap(this);
+    }
+
+    public boolean add(int row) {
+        char key = (char) (row >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        } else if (containers[index].contains((char) row)) {
+            return false;
+        }
+        containers[index] = writable(index).add((char) row);
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(int row) {
+        int index = indexOf((char) (row >>> 16));
+        if (index < 0 || !containers[index].contains((char) row)) {
+            return false;
+        }
+        containers[index] = writable(index).remove((char) row);
+        cardinality--;
+        if (containers[index].cardinality() == 0) {
+            removeContainer(index);
+        }
+        return true;
+    }
+
+    public boolean contains(int row) {
+        int index = indexOf((char) (row >>> 16));
+        return index >= 0 && containers[index].contains((char) row);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        owned = new boolean[4];
+        containerCount = 0;
+        cardinality = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns a new bitmap holding every row present in at least one of the given bitmaps.
+     */
+    public static RowBitmap union(List<RowBitmap> bitmaps) {
+        RowBitmap result = new RowBitmap();
+        long[] words = new long[WORDS];
+        for (RowBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.containerCount; i++) {
+                char key = bitmap.keys[i];
+                int index = result.indexOf(key);
+                if (index < 0) {
+                    result.insertContainer(-index - 1, key, bitmap.containers[i].copy());
+                    result.cardinality += bitmap.containers[i].cardinality();
+                    continue;
+                }
+                Container existing = result.containers[index];
+                Arrays.fill(words, 0L);
+                existing.orInto(words);
+                bitmap.containers[i].orInto(words);
+                Container merged = Container.fromWords(words);
+                result.cardinality += merged.cardinality() - existing.cardinality();
+                result.containers[index] = merged;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visits the rows present in every given bitmap, chunk by chunk, without building intermediate
+     * bitmaps. Chunks are driven by the smallest bitmap so most of the larger ones are never read.
+     */
+    public static void forEachIntersection(List<RowBitmap> bitmaps, IntConsumer action) {
+        if (bitmaps.isEmpty()) {
+            return;
+        }
+        RowBitmap smallest = bitmaps.get(0);
+        for (RowBitmap bitmap : bitmaps) {
+            if (bitmap.cardinality < smallest.cardinality) {
+                smallest = bitmap;
+            }
+        }
+        Container[] chunk = new Container[bitmaps.size()];
+        long[] words = new long[WORDS];
+        for (int i = 0; i < smallest.containerCount; i++) {
+            char key = smallest.keys[i];
+            if (!collectChunk(bitmaps, key, chunk)) {
+                continue;
+            }
+            int base = key << 16;
+            Container driver = chunk[0];
+            for (Container container : chunk) {
+                if (container.cardinality() < driver.cardinality()) {
+                    driver = container;
+                }
+            }
+            if (driver instanceof ArrayContainer array) {
+                for (int j = 0; j < array.size; j++) {
+                    char low = array.values[j];
+                    if (allContain(chunk, low)) {
+                        action.accept(base | low);
+                    }
+                }
+            } else {
+                Arrays.fill(words, -1L);
+                for (Container container : chunk) {
+                    container.andInto(words);
+                }
+                forEachWordBit(words, base, action);
+            }
+        }
+    }
+
+    public static int intersectionCardinality(List<RowBitmap> bitmaps) {
+        int[] count = new int[1];
+        forEachIntersection(bitmaps, row -> count[0]++);
+        return count[0];
+    }
+
+    void writeSnapshot(SnapshotWriter out) throws IOException {
+        out.writeInt(containerCount);
+        out.writeInt(cardinality);
+        out.writeChars(keys, 0, containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            if (containers[i] instanceof BitmapContainer bitmap) {
+                out.writeInt(-bitmap.cardinality);
+                out.writeLongs(bitmap.words, 0, WORDS);
+            } else {
+                ArrayContainer array = (ArrayContainer) containers[i];
+                out.writeInt(array.size);
+                out.writeChars(array.values, 0, array.size);
+            }
+        }
+    }
+
+    void readSnapshot(SnapshotReader in) throws IOException {
+        containerCount = in.readInt();
+        cardinality = in.readInt();
+        int capacity = Math.max(4, containerCount);
+        keys = new char[capacity];
+        containers = new Container[capacity];
+        owned = new boolean[capacity];
+        Arrays.fill(owned, true);
+        in.readChars(keys, 0, containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            int count = in.readInt();
+            if (count < 0) {
+                long[] words = new long[WORDS];
+                in.readLongs(words, 0, WORDS);
+                containers[i] = new BitmapContainer(words, -count);
+            } else {
+                ArrayContainer array = new ArrayContainer(Math.max(count, 4));
+                in.readChars(array.values, 0, count);
+                array.size = count;
+                containers[i] = array;
+            }
+        }
+    }
+
+    private static boolean collectChunk(List<RowBitmap> bitmaps, char key, Container[] chunk) {
+        for (int b = 0; b < chunk.length; b++) {
+            RowBitmap bitmap = bitmaps.get(b);
+            int index = bitmap.indexOf(key);
+            if (index < 0) {
+                return false;
+            }
+            chunk[b] = bitmap.containers[index];
+        }
+        return true;
+    }
+
+    private static boolean allContain(Container[] chunk, char low) {
+        for (Container container : chunk) {
+            if (!container.contains(low)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void forEachWordBit(long[] words, int base, IntConsumer action) {
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private Container writable(int index) {
+        if (!owned[index]) {
+            containers[index] = containers[index].copy();
+            owned[index] = true;
+        }
+        return containers[index];
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, containerCount * 2);
+            containers = Arrays.copyOf(containers, containerCount * 2);
+            owned = Arrays.copyOf(owned, containerCount * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        System.arraycopy(owned, index, owned, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        owned[index] = true;
+        containerCount++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        System.arraycopy(owned, index + 1, owned, index, containerCount - index - 1);
+        containers[--containerCount] = null;
+    }
+
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract void andInto(long[] words);
+
+        abstract void orInto(long[] words);
+
+        abstract Container copy();
+
+        static Container fromWords(long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            if (count > ARRAY_LIMIT) {
+                return new BitmapContainer(words.clone(), count);
+            }
+            ArrayContainer array = new ArrayContainer(Math.max(count, 4));
+            forEachWordBit(words, 0, row -> array.values[array.size++] = (char) row);
+            return array;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(4);
+        }
+
+        ArrayContainer(int capacity) {
+            values = new char[capacity];
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_LIMIT) {
+                long[] words = new long[WORDS];
+                orInto(words);
+                BitmapContainer bitmap = new BitmapContainer(words, size);
+                return bitmap.add(value);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, size * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        void andInto(long[] words) {
+            int i = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long mask = 0L;
+                while (i < size && values[i] >>> 6 == w) {
+                    mask |= 1L << values[i++];
+                }
+                words[w] &= mask;
+            }
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer(Math.max(size, 4));
+            System.arraycopy(values, 0, copy.values, 0, size);
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT / 2) {
+                    return Container.fromWords(words);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            forEachWordBit(words, base, action);
+        }
+
+        @Override
+        void andInto(long[] target) {
+            for (int w = 0; w < WORDS; w++) {
+                target[w] &= words[w];
+            }
+        }
+
+        @Override
+        void orInto(long[] target) {
+            for (int w = 0; w < WORDS; w++) {
+                target[w] |= words[w];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+    }
+}
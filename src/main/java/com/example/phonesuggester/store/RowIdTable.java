@@ -0,0 +1,161 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Open-addressing hash table from phone id to row. Slots hold only row numbers and keys are read
+ * back from the store's id column, so the table is a single {@code int[]} with no per-entry
+ * objects, and since {@link String#hashCode()} is fixed by the spec it can be saved in a snapshot
+ * and mapped back as is. Uses linear probing with backward-shift deletion, so there are no
+ * tombstones.
+ * <p>
+ * Slots are split into chunks of {@value #CHUNK_SLOTS}; a {@link #fork()} shares them with the
+ * original and copies a chunk the first time it writes to it.
+ */
+final class RowIdTable {
+
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    private final IntFunction<String> idOf;
+    private int[][] chunks;
+    private boolean[] owned;
+    private int capacity;
+    private int size;
+
+    RowIdTable(IntFunction<String> idOf) {
+        this.idOf = idOf;
+        allocate(MIN_CAPACITY);
+    }
+
+    private RowIdTable(RowIdTable source, IntFunction<String> idOf) {
+        this.idOf = idOf;
+        chunks = source.chunks.clone();
+        owned = new boolean[chunks.length];
+        capacity = source.capacity;
+        size = source.size;
+    }
+
+    /** A table with the same entries that reads ids through {@code idOf}; neither table sees later changes to the other. */
+    RowIdTable fork(IntFunction<String> idOf) {
+        Arrays.fill(owned, false);
+        return new RowIdTable(this, idOf);
+    }
+
+    int get(String id) {
+        int mask = capacity - 1;
+        for (int slot = slotOf(id, mask); slot(slot) != EMPTY; slot = (slot + 1) & mask) {
+            if (idOf.apply(slot(slot)).equals(id)) {
+                return slot(slot);
+            }
+        }
+        return -1;
+    }
+
+    /** Adds a row whose id is not in the table yet; the id must already be readable through {@code idOf}. */
+    void put(String id, int row) {
+        if ((size + 1) * 2 > capacity) {
+            rehash(capacity * 2);
+        }
+        insert(id, row);
+        size++;
+    }
+
+    /** Removes the id and returns its row, or -1 when it is not in the table. */
+    int remove(String id) {
+        int mask = capacity - 1;
+        int slot = slotOf(id, mask);
+        while (slot(slot) != EMPTY && !idOf.apply(slot(slot)).equals(id)) {
+            slot = (slot + 1) & mask;
+        }
+        int row = slot(slot);
+        if (row == EMPTY) {
+            return -1;
+        }
+        // Shift later entries of the probe run back so lookups never stop at the hole
+        int hole = slot;
+        for (int next = (slot + 1) & mask; slot(next) != EMPTY; next = (next + 1) & mask) {
+            int home = slotOf(idOf.apply(slot(next)), mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setSlot(hole, slot(next));
+                hole = next;
+            }
+        }
+        setSlot(hole, EMPTY);
+        size--;
+        return row;
+    }
+
+    void writeSnapshot(SnapshotWriter out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(capacity);
+        for (int[] chunk : chunks) {
+            out.writeInts(chunk, 0, chunk.length);
+        }
+    }
+
+    void readSnapshot(SnapshotReader in) throws IOException {
+        size = in.readInt();
+        allocate(in.readInt());
+        for (int[] chunk : chunks) {
+            in.readInts(chunk, 0, chunk.length);
+        }
+    }
+
+    private int slot(int slot) {
+        return chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+    }
+
+    private void setSlot(int slot, int row) {
+        int chunk = slot >>> CHUNK_BITS;
+        if (!owned[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            owned[chunk] = true;
+        }
+        chunks[chunk][slot & CHUNK_MASK] = row;
+    }
+
+    private void insert(String id, int row) {
+        int mask = capacity - 1;
+        int slot = slotOf(id, mask);
+        while (slot(slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, row);
+    }
+
+    private void rehash(int newCapacity) {
+        int[][] old = chunks;
+        allocate(newCapacity);
+        for (int[] chunk : old) {
+            for (int row : chunk) {
+                if (row != EMPTY) {
+                    insert(idOf.apply(row), row);
+                }
+            }
+        }
+    }
+
+    /** Replaces the slots with {@code capacity} empty ones, owned by this table. */
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        int chunkSlots = Math.min(capacity, CHUNK_SLOTS);
+        chunks = new int[capacity / chunkSlots][];
+        owned = new boolean[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new int[chunkSlots];
+            Arrays.fill(chunks[c], EMPTY);
+            owned[c] = true;
+        }
+    }
+
+    private static int slotOf(String id, int mask) {
+        int hash = id.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
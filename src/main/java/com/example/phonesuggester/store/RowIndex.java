@@ -0,0 +1,41 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+
+/**
+ * Secondary index kept in step with {@link PhoneColumnStore}. The store calls {@link #remove}
+ * while the row still holds its old values and {@link #add} once the new values are written.
+ * <p>
+ * Each version of the store has its own copy of every index, made by {@link #fork()} when the
+ * store is forked. An index must never be modified once it has been forked, and the fork must
+ * share as much of its state as it can, since a fork is taken for every write.
+ * <p>
+ * Indexes that are expensive to rebuild can also persist themselves in a {@link CatalogSnapshot};
+ * the others are cleared and rebuilt from the restored rows when a snapshot is loaded.
+ */
+public interface RowIndex {
+
+    void add(PhoneColumnStore store, int row);
+
+    void remove(PhoneColumnStore store, int row);
+
+    void clear();
+
+    /** An independent copy of the index for a forked store. */
+    RowIndex fork();
+
+    /** Identifies this index's section in a snapshot; must be unique among the store's indexes. */
+    default String snapshotName() {
+        return getClass().getSimpleName();
+    }
+
+    /** Writes the index to a snapshot and returns true, or returns false to be rebuilt on load instead. */
+    default boolean writeSnapshot(SnapshotWriter out) throws IOException {
+        return false;
+    }
+
+    /** Replaces the index with the state written by {@link #writeSnapshot}. */
+    default void readSnapshot(SnapshotReader in) throws IOException {
+        throw new UnsupportedOperationException(snapshotName() + " is not persisted in snapshots");
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Ordered list of rows, optionally with a weight per row, split into chunks of at most
+ * {@value #MAX_CHUNK} entries. A {@link #fork()} shares every chunk with the original and copies
+ * a chunk only the first time it changes it, so a write to a long list copies a few kilobytes
+ * rather than the whole list, and the original stays readable while the fork is modified.
+ */
+final class RowList {
+
+    private static final int MAX_CHUNK = 512;
+    private static final int MIN_CHUNK = 4;
+
+    private final boolean weighted;
+    private int[][] rows;
+    private float[][] weights;
+    private int[] counts;
+    private int[] starts;
+    private boolean[] owned;
+    private int chunkCount;
+    private int size;
+
+    RowList(boolean weighted) {
+        this.weighted = weighted;
+        rows = new int[1][];
+        weights = weighted ? new float[1][] : null;
+        counts = new int[1];
+        starts = new int[1];
+        owned = new boolean[1];
+    }
+
+    private RowList(RowList source) {
+        weighted = source.weighted;
+        rows = source.rows.clone();
+        weights = weighted ? source.weights.clone() : null;
+        counts = source.counts.clone();
+        starts = source.starts.clone();
+        owned = new boolean[rows.length];
+        chunkCount = source.chunkCount;
+        size = source.size;
+    }
+
+    /** A list with the same entries; neither list sees later changes to the other. */
+    RowList fork() {
+        Arrays.fill(owned, false);
+        return new RowList(this);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int position) {
+        int chunk = chunkOf(position);
+        return rows[chunk][position - starts[chunk]];
+    }
+
+    /** First position whose row does not sort before the probe target. */
+    int lowerBound(SortedRowIndex.RowProbe probe) {
+        return firstPosition(probe, 0);
+    }
+
+    /** First position whose row sorts after the probe target. */
+    int upperBound(SortedRowIndex.RowProbe probe) {
+        return firstPosition(probe, 1);
+    }
+
+    /** Position of the row in a list kept in row order, or {@code -(insertion point) - 1} when absent. */
+    int positionOf(int row) {
+        int position = lowerBound(candidate -> Integer.compare(candidate, row));
+        return position < size && get(position) == row ? position : -position - 1;
+    }
+
+    void insert(int position, int row, float weight) {
+        if (chunkCount == 0) {
+            insertChunk(0, new int[MIN_CHUNK], weighted ? new float[MIN_CHUNK] : null, 0, 0);
+        }
+        int chunk = chunkOf(position);
+        if (counts[chunk] == MAX_CHUNK) {
+            split(chunk);
+            if (position - starts[chunk] > counts[chunk]) {
+                chunk++;
+            }
+        }
+        int offset = position - starts[chunk];
+        int count = counts[chunk];
+        writable(chunk, count + 1);
+        System.arraycopy(rows[chunk], offset, rows[chunk], offset + 1, count - offset);
+        rows[chunk][offset] = row;
+        if (weighted) {
+            System.arraycopy(weights[chunk], offset, weights[chunk], offset + 1, count - offset);
+            weights[chunk][offset] = weight;
+        }
+        counts[chunk]++;
+        for (int c = chunk + 1; c < chunkCount; c++) {
+            starts[c]++;
+        }
+        size++;
+    }
+
+    void remove(int position) {
+        int chunk = chunkOf(position);
+        int count = counts[chunk];
+        if (count == 1) {
+            removeChunk(chunk);
+        } else {
+            int offset = position - starts[chunk];
+            writable(chunk, count);
+            System.arraycopy(rows[chunk], offset + 1, rows[chunk], offset, count - offset - 1);
+            if (weighted) {
+                System.arraycopy(weights[chunk], offset + 1, weights[chunk], offset, count - offset - 1);
+            }
+            counts[chunk]--;
+            chunk++;
+        }
+        for (int c = chunk; c < chunkCount; c++) {
+            starts[c]--;
+        }
+        size--;
+    }
+
+    void setWeight(int position, float weight) {
+        int chunk = chunkOf(position);
+        writable(chunk, counts[chunk]);
+        weights[chunk][position - starts[chunk]] = weight;
+    }
+
+    void forEach(int fromPosition, int toPosition, IntConsumer action) {
+        if (fromPosition >= toPosition) {
+            return;
+        }
+        for (int chunk = chunkOf(fromPosition); chunk < chunkCount && starts[chunk] < toPosition; chunk++) {
+            int[] values = rows[chunk];
+            int from = Math.max(0, fromPosition - starts[chunk]);
+            int to = Math.min(counts[chunk], toPosition - starts[chunk]);
+            for (int i = from; i < to; i++) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    int chunkSize(int chunk) {
+        return counts[chunk];
+    }
+
+    /** Rows of a chunk; only the first {@link #chunkSize} entries are valid and the array must not be modified. */
+    int[] chunkRows(int chunk) {
+        return rows[chunk];
+    }
+
+    float[] chunkWeights(int chunk) {
+        return weights[chunk];
+    }
+
+    void writeSnapshot(SnapshotWriter out) throws IOException {
+        out.writeInt(size);
+        for (int c = 0; c < chunkCount; c++) {
+            out.writeInts(rows[c], 0, counts[c]);
+        }
+        if (weighted) {
+            for (int c = 0; c < chunkCount; c++) {
+                out.writeFloats(weights[c], 0, counts[c]);
+            }
+        }
+    }
+
+    /** Reads a list written by {@link #writeSnapshot}, packing entries into full chunks. */
+    static RowList readSnapshot(SnapshotReader in, boolean weighted) throws IOException {
+        RowList list = new RowList(weighted);
+        int size = in.readInt();
+        int chunks = (size + MAX_CHUNK - 1) / MAX_CHUNK;
+        for (int c = 0; c < chunks; c++) {
+            int count = Math.min(MAX_CHUNK, size - c * MAX_CHUNK);
+            int capacity = Math.max(MIN_CHUNK, count);
+            list.insertChunk(c, new int[capacity], weighted ? new float[capacity] : null, count, c * MAX_CHUNK);
+            in.readInts(list.rows[c], 0, count);
+        }
+        if (weighted) {
+            for (int c = 0; c < chunks; c++) {
+                in.readFloats(list.weights[c], 0, list.counts[c]);
+            }
+        }
+        list.size = size;
+        return list;
+    }
+
+    /** Index of the chunk holding the position; {@code size} maps to the last chunk. */
+    private int chunkOf(int position) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /** First position whose row compares at or above {@code limit} against the probe. */
+    private int firstPosition(SortedRowIndex.RowProbe probe, int limit) {
+        int low = 0;
+        int high = chunkCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (probe.compareRow(rows[mid][counts[mid] - 1]) < limit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == chunkCount) {
+            return size;
+        }
+        int[] values = rows[low];
+        int from = 0;
+        int to = counts[low];
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (probe.compareRow(values[mid]) < limit) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return starts[low] + from;
+    }
+
+    /** Makes the chunk private to this list with room for {@code capacity} entries. */
+    private void writable(int chunk, int capacity) {
+        int length = rows[chunk].length;
+        if (owned[chunk] && length >= capacity) {
+            return;
+        }
+        if (length < capacity) {
+            length = Math.min(MAX_CHUNK, Math.max(capacity, length * 2));
+        }
+        rows[chunk] = Arrays.copyOf(rows[chunk], length);
+        if (weighted) {
+            weights[chunk] = Arrays.copyOf(weights[chunk], length);
+        }
+        owned[chunk] = true;
+    }
+
+    /** Moves the upper half of a full chunk into a new chunk right after it. */
+    private void split(int chunk) {
+        int count = counts[chunk];
+        int half = count >>> 1;
+        insertChunk(chunk + 1,
+                Arrays.copyOfRange(rows[chunk], half, half + MAX_CHUNK),
+                weighted ? Arrays.copyOfRange(weights[chunk], half, half + MAX_CHUNK) : null,
+                count - half, starts[chunk] + half);
+        counts[chunk] = half;
+    }
+
+    private void insertChunk(int chunk, int[] chunkRows, float[] chunkWeights, int count, int start) {
+        if (chunkCount == rows.length) {
+            int capacity = chunkCount * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            if (weighted) {
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            counts = Arrays.copyOf(counts, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            owned = Arrays.copyOf(owned, capacity);
+        }
+        int moved = chunkCount - chunk;
+        System.arraycopy(rows, chunk, rows, chunk + 1, moved);
+        if (weighted) {
+            System.arraycopy(weights, chunk, weights, chunk + 1, moved);
+        }
+        System.arraycopy(counts, chunk, counts, chunk + 1, moved);
+        System.arraycopy(starts, chunk, starts, chunk + 1, moved);
+        System.arraycopy(owned, chunk, owned, chunk + 1, moved);
+        rows[chunk] = chunkRows;
+        if (weighted) {
+            weights[chunk] = chunkWeights;
+        }
+        counts[chunk] = count;
+        starts[chunk] = start;
+        owned[chunk] = true;
+        chunkCount++;
+    }
+
+    private void removeChunk(int chunk) {
+        int moved = chunkCount - chunk - 1;
+        System.arraycopy(rows, chunk + 1, rows, chunk, moved);
+        if (weighted) {
+            System.arraycopy(weights, chunk + 1, weights, chunk, moved);
+        }
+        System.arraycopy(counts, chunk + 1, counts, chunk, moved);
+        System.arraycopy(starts, chunk + 1, starts, chunk, moved);
+        System.arraycopy(owned, chunk + 1, owned, chunk, moved);
+        chunkCount--;
+        rows[chunkCount] = null;
+        if (weighted) {
+            weights[chunkCount] = null;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.phonesuggester.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter} through memory-mapped windows of the file, so
+ * columns are bulk-copied straight from the page cache into arrays without intermediate buffers or
+ * parsing. Windows are remapped as reading advances, which keeps files larger than 2 GB readable.
+ */
+public class SnapshotReader {
+
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    public SnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+    }
+
+    public byte readByte() throws IOException {
+        ensure(1);
+        return window.get();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readInt() throws IOException {
+        ensure(4);
+        return window.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(8);
+        return window.getLong();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        readBytes(bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Reads strings written by {@link SnapshotWriter#writeStrings}. */
+    public void readStrings(String[] target, int from, int count) throws IOException {
+        int[] lengths = new int[Math.min(count, SnapshotWriter.STRING_BLOCK)];
+        byte[] bytes = new byte[0];
+        for (int start = from, end = from + count; start < end; start += SnapshotWriter.STRING_BLOCK) {
+            int blockSize = Math.min(SnapshotWriter.STRING_BLOCK, end - start);
+            readInts(lengths, 0, blockSize);
+            int total = 0;
+            for (int i = 0; i < blockSize; i++) {
+                total += Math.max(0, lengths[i]);
+            }
+            if (bytes.length < total) {
+                bytes = new byte[Math.max(total, bytes.length * 2)];
+            }
+            readBytes(bytes, 0, total);
+            for (int i = 0, offset = 0; i < blockSize; i++) {
+                if (lengths[i] < 0) {
+                    target[start + i] = null;
+                } else {
+                    target[start + i] = new String(bytes, offset, lengths[i], StandardCharsets.UTF_8);
+                    offset += lengths[i];
+                }
+            }
+        }
+    }
+
+    public void readBytes(byte[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(1);
+            int chunk = Math.min(count, window.remaining());
+            window.get(target, from, chunk);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void readInts(int[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(4);
+            int chunk = Math.min(count, window.remaining() / 4);
+            window.asIntBuffer().get(target, from, chunk);
+            window.position(window.position() + chunk * 4);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void readChars(char[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(2);
+            int chunk = Math.min(count, window.remaining() / 2);
+            window.asCharBuffer().get(target, from, chunk);
+            window.position(window.position() + chunk * 2);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void readLongs(long[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(8);
+            int chunk = Math.min(count, window.remaining() / 8);
+            window.asLongBuffer().get(target, from, chunk);
+            window.position(window.position() + chunk * 8);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void readFloats(float[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(4);
+            int chunk = Math.min(count, window.remaining() / 4);
+            window.asFloatBuffer().get(target, from, chunk);
+            window.position(window.position() + chunk * 4);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void readDoubles(double[] target, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(8);
+            int chunk = Math.min(count, window.remaining() / 8);
+            window.asDoubleBuffer().get(target, from, chunk);
+            window.position(window.position() + chunk * 8);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public long position() {
+        return windowStart + window.position();
+    }
+
+    public void skip(long bytes) throws IOException {
+        long target = position() + bytes;
+        if (target > size) {
+            throw new EOFException("Snapshot is truncated");
+        }
+        map(target);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (window.remaining() < bytes) {
+            map(position());
+            if (window.remaining() < bytes) {
+                throw new EOFException("Snapshot is truncated");
+            }
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Big-endian binary output for catalog snapshots. Values are staged in a direct buffer and primitive
+ * arrays are copied in bulk, so writing a column costs a few memory copies rather than one call per value.
+ */
+public class SnapshotWriter {
+
+    static final int STRING_BLOCK = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public SnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /** Writes a length-prefixed UTF-8 string; null is written as length -1. */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes a run of strings as blocks of lengths followed by their concatenated UTF-8 bytes, which
+     * {@link SnapshotReader#readStrings} decodes with one bulk copy per block instead of one per value.
+     */
+    public void writeStrings(String[] values, int from, int count) throws IOException {
+        int[] lengths = new int[Math.min(count, STRING_BLOCK)];
+        byte[][] encoded = new byte[lengths.length][];
+        for (int start = from, end = from + count; start < end; start += STRING_BLOCK) {
+            int blockSize = Math.min(STRING_BLOCK, end - start);
+            for (int i = 0; i < blockSize; i++) {
+                String value = values[start + i];
+                encoded[i] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                lengths[i] = value == null ? -1 : encoded[i].length;
+            }
+            writeInts(lengths, 0, blockSize);
+            for (int i = 0; i < blockSize; i++) {
+                if (encoded[i] != null) {
+                    writeBytes(encoded[i], 0, encoded[i].length);
+                }
+            }
+        }
+    }
+
+    public void writeBytes(byte[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(1);
+            int chunk = Math.min(count, buffer.remaining());
+            buffer.put(values, from, chunk);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void writeInts(int[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(4);
+            int chunk = Math.min(count, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, from, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void writeChars(char[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(2);
+            int chunk = Math.min(count, buffer.remaining() / 2);
+            buffer.asCharBuffer().put(values, from, chunk);
+            buffer.position(buffer.position() + chunk * 2);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void writeLongs(long[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(8);
+            int chunk = Math.min(count, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(values, from, chunk);
+            buffer.position(buffer.position() + chunk * 8);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void writeFloats(float[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(4);
+            int chunk = Math.min(count, buffer.remaining() / 4);
+            buffer.asFloatBuffer().put(values, from, chunk);
+            buffer.position(buffer.position() + chunk * 4);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    public void writeDoubles(double[] values, int from, int count) throws IOException {
+        while (count > 0) {
+            ensure(8);
+            int chunk = Math.min(count, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, from, chunk);
+            buffer.position(buffer.position() + chunk * 8);
+            from += chunk;
+            count -= chunk;
+        }
+    }
+
+    /** Absolute file offset of the next byte to be written. */
+    public long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    /** Overwrites a long written earlier, e.g. a section length that was not known up front. */
+    public void patchLong(long position, long value) throws IOException {
+        flush();
+        ByteBuffer patch = ByteBuffer.allocate(8).putLong(value).flip();
+        while (patch.hasRemaining()) {
+            channel.write(patch, position + patch.position());
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Keeps live rows ordered by one column, with the phone id as tie-breaker so the order is total.
+ * Range lookups are two binary searches followed by a walk over consecutive positions. Rows are
+ * held in a chunked {@link RowList}, so a write shifts one small chunk and a {@link #fork()}
+ * shares the rest with the version it was taken from.
+ */
+public class SortedRowIndex implements RowIndex {
+
+    @FunctionalInterface
+    public interface RowComparator {
+        int compare(int left, int right);
+    }
+
+    /** Compares a row against a search target: negative when the row sorts before it. */
+    @FunctionalInterface
+    public interface RowProbe {
+        int compareRow(int row);
+    }
+
+    private final String name;
+    private final Function<PhoneColumnStore, RowComparator> ordering;
+    private RowList rows = new RowList(false);
+
+    /**
+     * The ordering is given per store because every version of the catalog compares rows by its own
+     * columns. The name identifies the index in snapshots and must change whenever the ordering does.
+     */
+    public SortedRowIndex(String name, Function<PhoneColumnStore, RowComparator> ordering) {
+        this.name = name;
+        this.ordering = ordering;
+    }
+
+    private SortedRowIndex(SortedRowIndex source) {
+        this(source.name, source.ordering);
+        rows = source.rows.fork();
+    }
+
+    @Override
+    public SortedRowIndex fork() {
+        return new SortedRowIndex(this);
+    }
+
+    @Override
+    public void add(PhoneColumnStore store, int row) {
+        rows.insert(-search(store, row) - 1, row, 0f);
+    }
+
+    @Override
+    public void remove(PhoneColumnStore store, int row) {
+        int index = search(store, row);
+        if (index >= 0) {
+            rows.remove(index);
+        }
+    }
+
+    @Override
+    public void clear() {
+        rows = new RowList(false);
+    }
+
+    @Override
+    public String snapshotName() {
+        return "SortedRowIndex:" + name;
+    }
+
+    @Override
+    public boolean writeSnapshot(SnapshotWriter out) throws IOException {
+        rows.writeSnapshot(out);
+        return true;
+    }
+
+    @Override
+    public void readSnapshot(SnapshotReader in) throws IOException {
+        rows = RowList.readSnapshot(in, false);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public int rowAt(int position) {
+        return rows.get(position);
+    }
+
+    /** First position whose row does not sort before the probe target. */
+    public int lowerBound(RowProbe probe) {
+        return rows.lowerBound(probe);
+    }
+
+    /** First position whose row sorts after the probe target. */
+    public int upperBound(RowProbe probe) {
+        return rows.upperBound(probe);
+    }
+
+    public void forEachInRange(int fromPosition, int toPosition, IntConsumer action) {
+        rows.forEach(fromPosition, toPosition, action);
+    }
+
+    private int search(PhoneColumnStore store, int row) {
+        RowComparator comparator = ordering.apply(store);
+        int position = rows.lowerBound(candidate -> comparator.compare(candidate, row));
+        return position < rows.size() && comparator.compare(rows.get(position), row) == 0 ? position : -position - 1;
+    }
+}
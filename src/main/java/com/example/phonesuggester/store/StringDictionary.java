@@ -0,0 +1,94 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps repeated string values (brands, usage types, currencies) to dense int codes
+ * so the column store can keep them in primitive arrays. Codes are never reused.
+ * A {@link #fork()} shares the original's tables until it encodes a new value.
+ */
+public class StringDictionary {
+
+    private Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+    private boolean shared;
+
+    /** A dictionary with the same codes; neither dictionary sees values encoded later by the other. */
+    StringDictionary fork() {
+        StringDictionary fork = new StringDictionary();
+        fork.codes = codes;
+        fork.values = values;
+        fork.size = size;
+        fork.shared = true;
+        shared = true;
+        return fork;
+    }
+
+    public int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (shared) {
+            codes = new HashMap<>(codes);
+            values = values.clone();
+            shared = false;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    public int codeOf(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return code < 0 ? null : values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    void writeSnapshot(SnapshotWriter out) throws IOException {
+        out.writeInt(size);
+        for (int code = 0; code < size; code++) {
+            out.writeString(values[code]);
+        }
+    }
+
+    void readSnapshot(SnapshotReader in) throws IOException {
+        shared = false;
+        size = in.readInt();
+        values = new String[Math.max(16, size)];
+        codes = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int code = 0; code < size; code++) {
+            values[code] = in.readString();
+            codes.put(values[code], code);
+        }
+    }
+
+    /**
+     * Evaluates a case-insensitive substring match once per distinct value instead of once per row.
+     */
+    public boolean[] matchingCodes(String fragment) {
+        String lowerFragment = fragment.toLowerCase();
+        boolean[] matches = new boolean[size];
+        for (int code = 0; code < size; code++) {
+            matches[code] = values[code].toLowerCase().contains(lowerFragment);
+        }
+        return matches;
+    }
+}
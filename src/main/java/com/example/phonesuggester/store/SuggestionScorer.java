@@ -0,0 +1,192 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.dto.SuggestionRequest;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scores every phone within budget against weighted preferences and keeps the top K.
+ * Each spec is normalized to [0, 1] against the catalog maximum (price against the budget, where
+ * cheaper scores higher) and the weighted sum is divided by the total weight.
+ * Catalogs above {@value #PARALLEL_THRESHOLD} rows are split into row ranges scored on the
+ * fork-join pool, each with its own bounded heap, and the heaps are merged.
+ * Must be given a published store, since partitions read it from several threads.
+ */
+public class SuggestionScorer {
+
+    private static final int PARALLEL_THRESHOLD = 50_000;
+    private static final int PARTITION_SIZE = 16_384;
+
+    private final PhoneColumnStore store;
+    private final double budget;
+    private final boolean[][] preferredUsageTypes;
+    private final double cameraWeight;
+    private final double batteryWeight;
+    private final double ramWeight;
+    private final double ratingWeight;
+    private final double priceWeight;
+    private final double usageTypeWeight;
+    private final double totalWeight;
+    private final int limit;
+
+    private double maxCameraCount = 1;
+    private double maxBatteryCapacity = 1;
+    private double maxRamGB = 1;
+    private boolean maximaGiven;
+
+    public SuggestionScorer(PhoneColumnStore store, SuggestionRequest request) {
+        this.store = store;
+        this.budget = request.getBudget();
+        List<String> usageTypes = request.getUsageTypes() == null ? List.of() : request.getUsageTypes();
+        this.preferredUsageTypes = new boolean[usageTypes.size()][];
+        for (int i = 0; i < usageTypes.size(); i++) {
+            preferredUsageTypes[i] = store.usageTypeDictionary().matchingCodes(usageTypes.get(i));
+        }
+        this.cameraWeight = weight(request.getCameraWeight());
+        this.batteryWeight = weight(request.getBatteryWeight());
+        this.ramWeight = weight(request.getRamWeight());
+        this.ratingWeight = weight(request.getRatingWeight());
+        this.priceWeight = weight(request.getPriceWeight());
+        this.usageTypeWeight = preferredUsageTypes.length == 0 ? 0 : weight(request.getUsageTypeWeight());
+        double sum = cameraWeight + batteryWeight + ramWeight + ratingWeight + priceWeight + usageTypeWeight;
+        this.totalWeight = sum > 0 ? sum : 1;
+        this.limit = request.getLimit() == null ? 10 : request.getLimit();
+    }
+
+    /**
+     * Normalizes specs against maxima of the whole catalog rather than of this store, for a store
+     * that holds only the phones within budget.
+     */
+    public SuggestionScorer withCatalogMaxima(double maxCameraCount, double maxBatteryCapacity, double maxRamGB) {
+        this.maxCameraCount = Math.max(1, maxCameraCount);
+        this.maxBatteryCapacity = Math.max(1, maxBatteryCapacity);
+        this.maxRamGB = Math.max(1, maxRamGB);
+        this.maximaGiven = true;
+        return this;
+    }
+
+    public Result score() {
+        int rowLimit = store.rowLimit();
+        if (!maximaGiven) {
+            computeMaxima(rowLimit);
+        }
+        Partition root = new Partition(0, rowLimit);
+        if (rowLimit < PARALLEL_THRESHOLD) {
+            root.scan();
+        } else {
+            ForkJoinPool.commonPool().invoke(root);
+        }
+        root.topK.sortDescending();
+        return new Result(root.topK, root.candidates);
+    }
+
+    private void computeMaxima(int rowLimit) {
+        for (int row = 0; row < rowLimit; row++) {
+            if (store.isLive(row)) {
+                maxCameraCount = Math.max(maxCameraCount, store.cameraCount(row));
+                maxBatteryCapacity = Math.max(maxBatteryCapacity, store.batteryCapacity(row));
+                maxRamGB = Math.max(maxRamGB, store.ramGB(row));
+            }
+        }
+    }
+
+    private double scoreRow(int row) {
+        double score = cameraWeight * normalized(store.cameraCount(row), maxCameraCount)
+                + batteryWeight * normalized(store.batteryCapacity(row), maxBatteryCapacity)
+                + ramWeight * normalized(store.ramGB(row), maxRamGB)
+                + priceWeight * (1 - store.price(row) / budget);
+        double rating = store.rating(row);
+        if (!Double.isNaN(rating)) {
+            score += ratingWeight * rating / 5.0;
+        }
+        if (usageTypeWeight > 0) {
+            score += usageTypeWeight * usageTypeMatch(row);
+        }
+        return score / totalWeight;
+    }
+
+    private double usageTypeMatch(int row) {
+        int[] codes = store.usageTypeCodes(row);
+        int matched = 0;
+        for (boolean[] preferred : preferredUsageTypes) {
+            for (int code : codes) {
+                if (code < preferred.length && preferred[code]) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return (double) matched / preferredUsageTypes.length;
+    }
+
+    private static double normalized(int value, double max) {
+        return value == PhoneColumnStore.NULL_INT ? 0 : Math.min(1.0, value / max);
+    }
+
+    private static double weight(Double weight) {
+        return weight == null ? 1.0 : weight;
+    }
+
+    private final class Partition extends RecursiveTask<Partition> {
+        // Never serialized; declared only because ForkJoinTask is Serializable
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+        private final int toRow;
+        private transient TopKScores topK;
+        private int candidates;
+
+        Partition(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected Partition compute() {
+            if (toRow - fromRow > PARTITION_SIZE) {
+                int middle = (fromRow + toRow) >>> 1;
+                Partition left = new Partition(fromRow, middle);
+                Partition right = new Partition(middle, toRow);
+                left.fork();
+                right.compute();
+                left.join();
+                topK = right.topK.merge(left.topK);
+                candidates = left.candidates + right.candidates;
+            } else {
+                scan();
+            }
+            return this;
+        }
+
+        void scan() {
+            topK = new TopKScores(limit);
+            for (int row = fromRow; row < toRow; row++) {
+                double price = store.price(row);
+                if (store.isLive(row) && price <= budget) {
+                    topK.offer(row, scoreRow(row));
+                    candidates++;
+                }
+            }
+        }
+    }
+
+    public static final class Result {
+        private final TopKScores topK;
+        private final int candidates;
+
+        Result(TopKScores topK, int candidates) {
+            this.topK = topK;
+            this.candidates = candidates;
+        }
+
+        public TopKScores topK() {
+            return topK;
+        }
+
+        public int candidates() {
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.phonesuggester.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over phone name, brand and description. Each term keeps a row-sorted postings
+ * list with a field-weighted term frequency, so a query only touches the postings of its terms.
+ * <p>
+ * Queries are tokenized the same way as documents and every query term must match (AND). A query
+ * term matches index terms it is a prefix of; exact term matches score higher than prefix matches.
+ * <p>
+ * Terms are grouped into small sorted partitions by their first {@value #PARTITION_PREFIX}
+ * characters. A {@link #fork()} shares partitions and postings with the original; a write copies
+ * only the partitions and postings chunks of the terms it touches.
+ */
+public class TextIndex implements RowIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private static final int PARTITION_PREFIX = 2;
+
+    private TreeMap<String, TreeMap<String, RowList>> partitions = new TreeMap<>();
+    private boolean partitionsShared;
+    private Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int documentCount;
+
+    @Override
+    public TextIndex fork() {
+        TextIndex fork = new TextIndex();
+        fork.partitions = partitions;
+        fork.partitionsShared = true;
+        fork.documentCount = documentCount;
+        partitionsShared = true;
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        return fork;
+    }
+
+    @Override
+    public void add(PhoneColumnStore store, int row) {
+        termWeights(store, row).forEach((term, weight) -> {
+            RowList postings = writablePostings(term);
+            int position = postings.positionOf(row);
+            if (position >= 0) {
+                postings.setWeight(position, weight);
+            } else {
+                postings.insert(-position - 1, row, weight);
+            }
+        });
+        documentCount++;
+    }
+
+    @Override
+    public void remove(PhoneColumnStore store, int row) {
+        for (String term : termWeights(store, row).keySet()) {
+            TreeMap<String, RowList> terms = partitions.get(partitionKey(term));
+            RowList postings = terms == null ? null : terms.get(term);
+            if (postings == null || postings.positionOf(row) < 0) {
+                continue;
+            }
+            if (postings.size() == 1) {
+                terms = writableTerms(partitionKey(term));
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    partitions.remove(partitionKey(term));
+                }
+            } else {
+                postings = writablePostings(term);
+                postings.remove(postings.positionOf(row));
+            }
+        }
+        documentCount--;
+    }
+
+    @Override
+    public void clear() {
+        partitions = new TreeMap<>();
+        partitionsShared = false;
+        owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        documentCount = 0;
+    }
+
+    @Override
+    public boolean writeSnapshot(SnapshotWriter out) throws IOException {
+        int termCount = 0;
+        for (TreeMap<String, RowList> terms : partitions.values()) {
+            termCount += terms.size();
+        }
+        out.writeInt(documentCount);
+        out.writeInt(termCount);
+        for (TreeMap<String, RowList> terms : partitions.values()) {
+            for (Map.Entry<String, RowList> entry : terms.entrySet()) {
+                out.writeString(entry.getKey());
+                entry.getValue().writeSnapshot(out);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void readSnapshot(SnapshotReader in) throws IOException {
+        clear();
+        documentCount = in.readInt();
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readString();
+            partitions.computeIfAbsent(partitionKey(term), key -> new TreeMap<>())
+                    .put(term, RowList.readSnapshot(in, true));
+        }
+    }
+
+    /**
+     * Returns the rows matching every term of the query, best match first.
+     */
+    public Hits search(String query) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return Hits.EMPTY;
+        }
+        List<Hits> perTerm = new ArrayList<>(queryTerms.size());
+        for (String queryTerm : queryTerms) {
+            Hits hits = expand(queryTerm);
+            if (hits.size == 0) {
+                return Hits.EMPTY;
+            }
+            perTerm.add(hits);
+        }
+        return intersectAll(perTerm);
+    }
+
+    /** Rows in every one of the hits, scored by the sum of their scores, best first. */
+    static Hits intersectAll(List<Hits> perTerm) {
+        perTerm.sort((a, b) -> Integer.compare(a.size, b.size));
+        Hits result = perTerm.get(0);
+        for (int i = 1; i < perTerm.size() && result.size > 0; i++) {
+            result = intersect(result, perTerm.get(i));
+        }
+        result.sortByScore();
+        return result;
+    }
+
+    /**
+     * Whether a document with the given fields would be returned by {@link #search(String)} for the query.
+     */
+    public static boolean matches(String query, String name, String brand, String description) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return false;
+        }
+        List<String> documentTerms = tokenize(name);
+        documentTerms.addAll(tokenize(brand));
+        documentTerms.addAll(tokenize(description));
+        for (String queryTerm : queryTerms) {
+            if (documentTerms.stream().noneMatch(term -> term.startsWith(queryTerm))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private Map<String, Float> termWeights(PhoneColumnStore store, int row) {
+        Map<String, Float> weights = new HashMap<>();
+        accumulate(weights, store.name(row), NAME_WEIGHT);
+        accumulate(weights, store.brand(row), BRAND_WEIGHT);
+        accumulate(weights, store.description(row), DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    private static void accumulate(Map<String, Float> weights, String text, float fieldWeight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, fieldWeight, Float::sum);
+        }
+    }
+
+    private Hits expand(String queryTerm) {
+        String end = queryTerm + Character.MAX_VALUE;
+        Collection<TreeMap<String, RowList>> candidates = queryTerm.length() >= PARTITION_PREFIX
+                ? Collections.singleton(partitions.getOrDefault(partitionKey(queryTerm), new TreeMap<>()))
+                : partitions.subMap(queryTerm, true, end, false).values();
+        List<Map.Entry<String, RowList>> matches = new ArrayList<>();
+        for (TreeMap<String, RowList> terms : candidates) {
+            matches.addAll(terms.subMap(queryTerm, true, end, false).entrySet());
+        }
+        List<RowList> postings = new ArrayList<>(matches.size());
+        float[] factors = new float[matches.size()];
+        for (Map.Entry<String, RowList> entry : matches) {
+            factors[postings.size()] = idf(entry.getValue()) * matchFactor(queryTerm, entry.getKey());
+            postings.add(entry.getValue());
+        }
+        return union(postings, factors);
+    }
+
+    /** Rows of any of the postings lists, each scored by its best weight times that list's factor. */
+    static Hits union(List<RowList> postingsLists, float[] factors) {
+        if (postingsLists.size() == 1) {
+            return score(postingsLists.get(0), factors[0]);
+        }
+        int total = 0;
+        for (RowList postings : postingsLists) {
+            total += postings.size();
+        }
+        // Pack (row, score) so a single primitive sort groups every expansion by row.
+        long[] packed = new long[total];
+        int count = 0;
+        for (int list = 0; list < postingsLists.size(); list++) {
+            RowList postings = postingsLists.get(list);
+            float factor = factors[list];
+            for (int chunk = 0; chunk < postings.chunkCount(); chunk++) {
+                int[] rows = postings.chunkRows(chunk);
+                float[] weights = postings.chunkWeights(chunk);
+                for (int i = 0; i < postings.chunkSize(chunk); i++) {
+                    packed[count++] = ((long) rows[i] << 32) | Float.floatToRawIntBits(weights[i] * factor);
+                }
+            }
+        }
+        Arrays.sort(packed);
+        Hits hits = new Hits(new int[total], new float[total], 0);
+        for (long entry : packed) {
+            int row = (int) (entry >>> 32);
+            float score = Float.intBitsToFloat((int) entry);
+            if (hits.size > 0 && hits.rows[hits.size - 1] == row) {
+                hits.scores[hits.size - 1] = Math.max(hits.scores[hits.size - 1], score);
+            } else {
+                hits.rows[hits.size] = row;
+                hits.scores[hits.size++] = score;
+            }
+        }
+        return hits;
+    }
+
+    private static Hits score(RowList postings, float factor) {
+        Hits hits = new Hits(new int[postings.size()], new float[postings.size()], 0);
+        for (int chunk = 0; chunk < postings.chunkCount(); chunk++) {
+            int[] rows = postings.chunkRows(chunk);
+            float[] weights = postings.chunkWeights(chunk);
+            for (int i = 0; i < postings.chunkSize(chunk); i++) {
+                hits.rows[hits.size] = rows[i];
+                hits.scores[hits.size++] = weights[i] * factor;
+            }
+        }
+        return hits;
+    }
+
+    private static String partitionKey(String term) {
+        return term.length() > PARTITION_PREFIX ? term.substring(0, PARTITION_PREFIX) : term;
+    }
+
+    /** The term's partition, copied first unless this version already owns it. */
+    private TreeMap<String, RowList> writableTerms(String key) {
+        if (partitionsShared) {
+            partitions = new TreeMap<>(partitions);
+            partitionsShared = false;
+        }
+        TreeMap<String, RowList> terms = partitions.get(key);
+        if (terms == null || !owned.contains(terms)) {
+            terms = terms == null ? new TreeMap<>() : new TreeMap<>(terms);
+            partitions.put(key, terms);
+            owned.add(terms);
+        }
+        return terms;
+    }
+
+    /** The term's postings, created or forked first unless this version already owns them. */
+    private RowList writablePostings(String term) {
+        TreeMap<String, RowList> terms = writableTerms(partitionKey(term));
+        RowList postings = terms.get(term);
+        if (postings == null || !owned.contains(postings)) {
+            postings = postings == null ? new RowList(true) : postings.fork();
+            terms.put(term, postings);
+            owned.add(postings);
+        }
+        return postings;
+    }
+
+    private float idf(RowList postings) {
+        return (float) Math.log(1.0 + (double) documentCount / postings.size());
+    }
+
+    private static float matchFactor(String queryTerm, String indexTerm) {
+        return queryTerm.length() == indexTerm.length() ? 1f : PREFIX_MATCH_FACTOR;
+    }
+
+    private static Hits intersect(Hits smaller, Hits larger) {
+        Hits result = new Hits(new int[smaller.size], new float[smaller.size], 0);
+        int j = 0;
+        for (int i = 0; i < smaller.size && j < larger.size; i++) {
+            int row = smaller.rows[i];
+            j = lowerBound(larger.rows, j, larger.size, row);
+            if (j < larger.size && larger.rows[j] == row) {
+                result.rows[result.size] = row;
+                result.scores[result.size++] = smaller.scores[i] + larger.scores[j];
+            }
+        }
+        return result;
+    }
+
+    /** Galloping search, so intersecting a short list with a long one skips most of the long one. */
+    private static int lowerBound(int[] rows, int from, int to, int row) {
+        int step = 1;
+        int high = from;
+        while (high < to && rows[high] < row) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int index = Arrays.binarySearch(rows, from, Math.min(high + 1, to), row);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Matching rows with their relevance scores. Row-ordered while a query is evaluated and
+     * score-ordered once returned from {@link #search(String)}.
+     */
+    public static final class Hits {
+        static final Hits EMPTY = new Hits(new int[0], new float[0], 0);
+
+        private final int[] rows;
+        private final float[] scores;
+        private int size;
+
+        Hits(int[] rows, float[] scores, int size) {
+            this.rows = rows;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int row(int index) {
+            return rows[index];
+        }
+
+        public float score(int index) {
+            return scores[index];
+        }
+
+        void sortByScore() {
+            if (size < 2) {
+                return;
+            }
+            // Higher score first, lower row first on ties; both fit into one sortable long.
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) ~Float.floatToRawIntBits(scores[i]) << 32) | rows[i];
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < size; i++) {
+                rows[i] = (int) packed[i];
+                scores[i] = Float.intBitsToFloat(~(int) (packed[i] >>> 32));
+            }
+        }
+    }
+}
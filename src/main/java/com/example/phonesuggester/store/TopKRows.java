@@ -0,0 +1,81 @@
+package com.example.phonesuggester.store;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Bounded selection of the first {@code k} rows under an ordering. Rows are offered one at a time
+ * and only the best {@code k} are retained in a binary heap whose root is the worst retained row,
+ * so selecting from N rows costs O(N log k) time and O(k) memory.
+ */
+public class TopKRows implements IntConsumer {
+
+    private final SortedRowIndex.RowComparator comparator;
+    private final int[] heap;
+    private int size;
+
+    public TopKRows(SortedRowIndex.RowComparator comparator, int k) {
+        this.comparator = comparator;
+        this.heap = new int[Math.max(0, k)];
+    }
+
+    @Override
+    public void accept(int row) {
+        if (heap.length == 0) {
+            return;
+        }
+        if (size < heap.length) {
+            heap[size] = row;
+            siftUp(size++);
+        } else if (comparator.compare(row, heap[0]) < 0) {
+            heap[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    /** Retained rows in order, best first. Consumes the heap. */
+    public int[] drainSorted() {
+        int count = size;
+        while (size > 1) {
+            int worst = heap[0];
+            heap[0] = heap[--size];
+            heap[size] = worst;
+            siftDown(0, size);
+        }
+        size = 0;
+        int[] rows = new int[count];
+        System.arraycopy(heap, 0, rows, 0, count);
+        return rows;
+    }
+
+    private void siftUp(int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare(row, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int index, int limit) {
+        int row = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= limit) {
+                break;
+            }
+            if (child + 1 < limit && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(heap[child], row) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
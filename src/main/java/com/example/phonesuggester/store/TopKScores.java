@@ -0,0 +1,102 @@
+package com.example.phonesuggester.store;
+
+/**
+ * Keeps the {@code k} highest-scoring rows seen so far in a min-heap of primitive (score, row)
+ * pairs. Ties are broken towards the lower row id so results are deterministic. Partial results
+ * from parallel partitions are combined with {@link #merge(TopKScores)}.
+ */
+public class TopKScores {
+
+    private final double[] scores;
+    private final int[] rows;
+    private int size;
+
+    public TopKScores(int k) {
+        this.scores = new double[k];
+        this.rows = new int[k];
+    }
+
+    public void offer(int row, double score) {
+        if (scores.length == 0) {
+            return;
+        }
+        if (size < scores.length) {
+            scores[size] = score;
+            rows[size] = row;
+            siftUp(size++);
+        } else if (better(score, row, scores[0], rows[0])) {
+            scores[0] = score;
+            rows[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    public TopKScores merge(TopKScores other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.rows[i], other.scores[i]);
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Sorts the retained entries best first; {@link #row(int)} and {@link #score(int)} then follow that order. */
+    public void sortDescending() {
+        int remaining = size;
+        while (remaining > 1) {
+            swap(0, --remaining);
+            siftDown(0, remaining);
+        }
+    }
+
+    public int row(int index) {
+        return rows[index];
+    }
+
+    public double score(int index) {
+        return scores[index];
+    }
+
+    private static boolean better(double score, int row, double otherScore, int otherRow) {
+        return score > otherScore || (score == otherScore && row < otherRow);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(scores[parent], rows[parent], scores[index], rows[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int limit) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= limit) {
+                break;
+            }
+            if (child + 1 < limit && better(scores[child], rows[child], scores[child + 1], rows[child + 1])) {
+                child++;
+            }
+            if (!better(scores[index], rows[index], scores[child], rows[child])) {
+                break;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.phonesuggester.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTests {
+
+    @Test
+    void everyRegionIsBoundedAsConfigured() {
+        PhoneCacheProperties properties = new PhoneCacheProperties();
+        properties.setById(new PhoneCacheProperties.Region(3, null, Duration.ofMinutes(1)));
+        properties.setLists(new PhoneCacheProperties.Region(null, 100L, null));
+
+        CacheManager cacheManager = localCacheManager(properties);
+
+        assertThat(cacheManager.getCacheNames())
+                .containsExactlyInAnyOrder(CacheConfig.PHONE_BY_ID, CacheConfig.PHONE_LISTS, CacheConfig.PHONE_SEARCH);
+        Cache<Object, Object> byId = nativeCache(cacheManager, CacheConfig.PHONE_BY_ID);
+        assertThat(byId.policy().eviction()).hasValueSatisfying(eviction -> {
+            assertThat(eviction.isWeighted()).isFalse();
+            assertThat(eviction.getMaximum()).isEqualTo(3);
+        });
+        assertThat(byId.policy().expireAfterWrite()).hasValueSatisfying(expiry ->
+                assertThat(expiry.getExpiresAfter()).isEqualTo(Duration.ofMinutes(1)));
+        assertThat(nativeCache(cacheManager, CacheConfig.PHONE_LISTS).policy().expireAfterWrite()).isEmpty();
+    }
+
+    @Test
+    void cachedListsWeighOneUnitPerPhone() {
+        PhoneCacheProperties properties = new PhoneCacheProperties();
+        properties.setLists(new PhoneCacheProperties.Region(null, 100L, null));
+        CacheManager cacheManager = localCacheManager(properties);
+        Cache<Object, Object> lists = nativeCache(cacheManager, CacheConfig.PHONE_LISTS);
+
+        cacheManager.getCache(CacheConfig.PHONE_LISTS).put("all", Collections.nCopies(40, "phone"));
+        cacheManager.getCache(CacheConfig.PHONE_LISTS).put("brand:acme", List.of());
+        lists.cleanUp();
+
+        assertThat(lists.policy().eviction()).hasValueSatisfying(eviction ->
+                assertThat(eviction.weightedSize()).hasValue(41));
+    }
+
+    @Test
+    void statisticsAreRecordedForTheMetrics() {
+        CacheManager cacheManager = localCacheManager(new PhoneCacheProperties());
+        org.springframework.cache.Cache byId = cacheManager.getCache(CacheConfig.PHONE_BY_ID);
+
+        byId.get("p1");
+        byId.put("p1", "phone");
+        byId.get("p1");
+
+        assertThat(nativeCache(cacheManager, CacheConfig.PHONE_BY_ID).stats().hitCount()).isEqualTo(1);
+        assertThat(nativeCache(cacheManager, CacheConfig.PHONE_BY_ID).stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void everyRegionGetsASharedTierWhenRedisIsConfigured() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("redisCacheTier", new RedisCacheTier(new LettuceConnectionFactory(), null, "phones", "invalidations"));
+
+        CacheManager cacheManager = new CacheConfig().cacheManager(new PhoneCacheProperties(), beans.getBeanProvider(RedisCacheTier.class));
+
+        assertThat(cacheManager.getCacheNames()).allSatisfy(name -> {
+            assertThat(cacheManager.getCache(name)).isInstanceOf(TwoTierCache.class);
+            assertThat(cacheManager.getCache(name).getNativeCache()).isInstanceOf(Cache.class);
+        });
+    }
+
+    /** The cache manager of an instance without Redis. */
+    private static CacheManager localCacheManager(PhoneCacheProperties properties) {
+        return new CacheConfig().cacheManager(properties, new StaticListableBeanFactory().getBeanProvider(RedisCacheTier.class));
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.phonesuggester.config;
+
+import com.example.phonesuggester.PhoneSuggesterApplication;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.service.PhoneService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs two instances against one Redis and one MongoDB container: this test's context and a second
+ * one started next to it, as two nodes behind a load balancer would.
+ */
+@SpringBootTest(properties = "app.cache.redis.enabled=true")
+@ActiveProfiles("mongo")
+@Testcontainers(disabledWithoutDocker = true)
+class TwoTierCacheTests {
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine"))
+            .withExposedPorts(6379);
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    private static ConfigurableApplicationContext otherNode;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @BeforeAll
+    static void startOtherNode() {
+        otherNode = new SpringApplicationBuilder(PhoneSuggesterApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=mongo",
+                        "--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl(),
+                        "--app.cache.redis.enabled=true",
+                        "--spring.data.redis.host=" + redis.getHost(),
+                        "--spring.data.redis.port=" + redis.getMappedPort(6379));
+    }
+
+    @AfterAll
+    static void stopOtherNode() {
+        if (otherNode != null) {
+            otherNode.close();
+        }
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PhoneService phoneService;
+
+    @Autowired
+    private RedisCacheTier sharedTier;
+
+    @Test
+    void regionsAreTwoTier() {
+        assertThat(cacheManager.getCache(CacheConfig.PHONE_BY_ID)).isInstanceOf(TwoTierCache.class);
+        assertThat(cacheManager.getCache(CacheConfig.PHONE_LISTS)).isInstanceOf(TwoTierCache.class);
+        assertThat(cacheManager.getCache(CacheConfig.PHONE_SEARCH)).isInstanceOf(TwoTierCache.class);
+    }
+
+    @Test
+    void entryCachedOnOneNodeIsReadOnAnother() {
+        String id = UUID.randomUUID().toString();
+        byte[] json = ("{\"id\":\"" + id + "\"}").getBytes();
+        cacheManager.getCache(CacheConfig.PHONE_BY_ID).put(id, new PhoneJson(json));
+
+        Cache.ValueWrapper shared = otherNodeCache(CacheConfig.PHONE_BY_ID).get(id);
+        assertThat(shared).isNotNull();
+        assertThat(((PhoneJson) shared.get()).getBytes()).isEqualTo(json);
+
+        List<PhoneJson> list = List.of(new PhoneJson(json), new PhoneJson("{}".getBytes()));
+        cacheManager.getCache(CacheConfig.PHONE_LISTS).put("type:" + id, list);
+        Object sharedList = otherNodeCache(CacheConfig.PHONE_LISTS).get("type:" + id).get();
+        assertThat((List<?>) sharedList).hasSize(2);
+    }
+
+    @Test
+    void writeOnOneNodeEvictsAffectedEntriesEverywhere() {
+        String brand = "Brand" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        String otherBrand = "Brand" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        Cache otherLists = otherNodeCache(CacheConfig.PHONE_LISTS);
+        otherLists.put("brand:" + brand.toLowerCase(), List.of());
+        otherLists.put("brand:" + otherBrand, List.of());
+        assertThat(cacheManager.getCache(CacheConfig.PHONE_LISTS).get("brand:" + brand.toLowerCase())).isNotNull();
+
+        phoneService.createPhone(request(brand));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(otherLists.get("brand:" + brand.toLowerCase())).isNull();
+            assertThat(localTier(otherLists).getIfPresent("brand:" + brand.toLowerCase())).isNull();
+        });
+        assertThat(cacheManager.getCache(CacheConfig.PHONE_LISTS).get("brand:" + brand.toLowerCase())).isNull();
+        assertThat(otherLists.get("brand:" + otherBrand)).isNotNull();
+    }
+
+    @Test
+    void loadOverlappingAnEvictionIsNotStoredInRedis() {
+        String key = "type:" + UUID.randomUUID();
+        Cache lists = cacheManager.getCache(CacheConfig.PHONE_LISTS);
+
+        // A write evicts the region while the value is being loaded, so the value may already be stale
+        lists.get(key, () -> {
+            sharedTier.evict(CacheConfig.PHONE_LISTS, key);
+            return List.of();
+        });
+
+        assertThat(sharedTier.get(CacheConfig.PHONE_LISTS, key)).isNull();
+        lists.evict(key);
+        lists.get(key, List::of);
+        assertThat(sharedTier.get(CacheConfig.PHONE_LISTS, key)).isNotNull();
+    }
+
+    private static Cache otherNodeCache(String name) {
+        return otherNode.getBean(CacheManager.class).getCache(name);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> localTier(Cache cache) {
+        return ((TwoTierCache) cache).getNativeCache();
+    }
+
+    private static PhoneRequest request(String brand) {
+        PhoneRequest request = new PhoneRequest();
+        request.setName("Kite");
+        request.setBrand(brand);
+        request.setDescription("Kite by " + brand + " for everyday use");
+        request.setPrice(499.0);
+        request.setCurrency("USD");
+        request.setUsageTypes(List.of("Business"));
+        request.setImageUrl("https://example.com/phone.jpg");
+        request.setReleaseDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        request.setStorageGB(128);
+        request.setRamGB(8);
+        request.setBatteryCapacity(4500);
+        request.setScreenSize(6.1);
+        request.setCameraCount(3);
+        request.setIs5G(true);
+        request.setIsWaterResistant(false);
+        request.setHasWirelessCharging(false);
+        request.setRating(4.0);
+        return request;
+    }
+}
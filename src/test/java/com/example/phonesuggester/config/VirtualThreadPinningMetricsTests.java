@@ -0,0 +1,75 @@
+package com.example.phonesuggester.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMetricsTests {
+
+    private final Object monitor = new Object();
+
+    @Test
+    void pinsLongerThanTheThresholdAreTimed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMetrics metrics = metrics(registry, Duration.ofMillis(5));
+        metrics.start();
+        try {
+            Timer pinned = registry.get("jvm.threads.virtual.pinned").timer();
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (pinned.count() == 0 && System.nanoTime() < deadline) {
+                // Sleeping inside a monitor pins the virtual thread to its carrier
+                Thread.ofVirtual().start(() -> {
+                    synchronized (monitor) {
+                        sleep(Duration.ofMillis(50));
+                    }
+                }).join();
+                sleep(Duration.ofMillis(200));
+            }
+
+            assertThat(pinned.count()).isPositive();
+            assertThat(pinned.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    @Test
+    void shortPinsAreIgnored() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMetrics metrics = metrics(registry, Duration.ofSeconds(10));
+        metrics.start();
+        try {
+            Thread.ofVirtual().start(() -> {
+                synchronized (monitor) {
+                    sleep(Duration.ofMillis(20));
+                }
+            }).join();
+            sleep(Duration.ofSeconds(2));
+
+            assertThat(registry.get("jvm.threads.virtual.pinned").timer().count()).isZero();
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    private static VirtualThreadPinningMetrics metrics(SimpleMeterRegistry registry, Duration threshold) {
+        VirtualThreadPinningMetrics metrics = new VirtualThreadPinningMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        ReflectionTestUtils.setField(metrics, "threshold", threshold);
+        return metrics;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.phonesuggester.controller;
+
+import com.example.phonesuggester.model.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("mongo")
+@Testcontainers(disabledWithoutDocker = true)
+class CategoryControllerTests {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private CategoryController controller;
+
+    @Test
+    void listingTagIsAnsweredWithNotModifiedUntilACategoryIsWritten() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(controller.getAllCategories(webRequest(null, first)).getStatusCode().value()).isEqualTo(200);
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        assertThat(controller.getAllCategories(webRequest(eTag, unchanged))).isNull();
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+
+        controller.createCategory(new Category(uniqueName(), "Written after the tag was handed out"));
+
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertThat(controller.getAllCategories(webRequest(eTag, changed)).getStatusCode().value()).isEqualTo(200);
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotNull().isNotEqualTo(eTag);
+    }
+
+    @Test
+    void writingACategoryChangesItsTagButNotOtherCategories() throws InterruptedException {
+        Category category = controller.createCategory(new Category(uniqueName(), "Tagged")).getBody();
+        Category other = controller.createCategory(new Category(uniqueName(), "Left alone")).getBody();
+        String eTag = tagOf(category.getId());
+        String otherETag = tagOf(other.getId());
+
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        assertThat(controller.getCategoryById(category.getId(), webRequest(eTag, unchanged))).isNull();
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+
+        // Tags have millisecond resolution, like the stored update time
+        Thread.sleep(5);
+        category.setDescription("Rewritten");
+        controller.createCategory(category);
+
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertThat(controller.getCategoryById(category.getId(), webRequest(eTag, changed)).getBody().getDescription()).isEqualTo("Rewritten");
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotNull().isNotEqualTo(eTag);
+        assertThat(controller.getCategoryById(other.getId(), webRequest(otherETag, new MockHttpServletResponse()))).isNull();
+    }
+
+    @Test
+    void missingCategoriesAreNotTagged() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(controller.getCategoryById("missing", webRequest("*", response)).getStatusCode().value()).isEqualTo(404);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    }
+
+    private String tagOf(String id) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getCategoryById(id, webRequest(null, response));
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/categories");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private static String uniqueName() {
+        return "Category " + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.phonesuggester.controller;
+
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.service.InMemoryPhoneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneControllerETagTests {
+
+    private InMemoryPhoneService phoneService;
+    private PhoneController controller;
+
+    @BeforeEach
+    void createController() {
+        phoneService = new InMemoryPhoneService();
+        controller = new PhoneController();
+        ReflectionTestUtils.setField(controller, "phoneService", phoneService);
+    }
+
+    @Test
+    void matchingPhoneTagIsAnsweredWithNotModified() {
+        String id = phoneService.createPhone(request("Pixel 8")).getId();
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(controller.getPhoneById(id, webRequest(null, first)).getStatusCode().value()).isEqualTo(200);
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        assertThat(eTag).isEqualTo(phoneService.phoneETag(id));
+        assertThat(controller.getPhoneById(id, webRequest(eTag, second))).isNull();
+        assertThat(second.getStatus()).isEqualTo(304);
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(eTag);
+    }
+
+    @Test
+    void writingAPhoneChangesItsTagButNotOtherPhones() {
+        String id = phoneService.createPhone(request("Pixel 8")).getId();
+        String otherId = phoneService.createPhone(request("Pixel 8a")).getId();
+        String eTag = phoneService.phoneETag(id);
+        String otherETag = phoneService.phoneETag(otherId);
+
+        phoneService.updatePhone(id, request("Pixel 8 Pro"));
+
+        assertThat(phoneService.phoneETag(id)).isNotEqualTo(eTag);
+        assertThat(phoneService.phoneETag(otherId)).isEqualTo(otherETag);
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertThat(controller.getPhoneById(id, webRequest(eTag, changed))).isNotNull();
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isEqualTo(phoneService.phoneETag(id));
+        assertThat(controller.getPhoneById(otherId, webRequest(otherETag, new MockHttpServletResponse()))).isNull();
+    }
+
+    @Test
+    void listingTagChangesWithEveryWrite() {
+        String eTag = phoneService.catalogETag();
+        assertThat(controller.searchPhones("pixel", null, 20, false, webRequest(eTag, new MockHttpServletResponse()))).isNull();
+
+        phoneService.createPhone(request("Galaxy S24"));
+
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertThat(controller.searchPhones("pixel", null, 20, false, webRequest(eTag, changed))).isNotNull();
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isEqualTo(phoneService.catalogETag()).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void missingPhonesAreNotTagged() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(phoneService.phoneETag("missing")).isNull();
+        assertThat(controller.getPhoneById("missing", webRequest("*", response)).getStatusCode().value()).isEqualTo(404);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/phones");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private static PhoneRequest request(String name) {
+        PhoneRequest request = new PhoneRequest();
+        request.setName(name);
+        request.setBrand("Google");
+        request.setDescription(name + " with a tagged response");
+        request.setPrice(699.0);
+        request.setCurrency("USD");
+        request.setUsageTypes(List.of("Everyday"));
+        request.setImageUrl("https://example.com/pixel.jpg");
+        request.setReleaseDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        request.setStorageGB(128);
+        request.setRamGB(8);
+        request.setBatteryCapacity(4500);
+        request.setScreenSize(6.1);
+        request.setCameraCount(3);
+        request.setRating(4.5);
+        return request;
+    }
+}
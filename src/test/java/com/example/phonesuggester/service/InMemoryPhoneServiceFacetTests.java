@@ -0,0 +1,117 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.FacetCount;
+import com.example.phonesuggester.dto.FacetCounts;
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PriceRangeCount;
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InMemoryPhoneServiceFacetTests {
+
+    private final InMemoryPhoneService service = new InMemoryPhoneService();
+
+    @Test
+    void unfilteredCountsCoverTheWholeCatalog() {
+        service.createPhone(request("Solo", "Acme", 450.0, "Gaming"));
+
+        FacetCounts counts = service.facetCounts(new PhoneQuery());
+        int catalog = service.queryPhones(new PhoneQuery()).size();
+
+        assertThat(counts.getTotal()).isEqualTo(catalog);
+        assertThat(counts.getBrands()).extracting(FacetCount::getValue, FacetCount::getCount).contains(tuple("Acme", 1));
+        assertThat(counts.getBrands().stream().mapToInt(FacetCount::getCount).sum()).isEqualTo(catalog);
+        assertThat(counts.getPriceRanges().stream().mapToInt(PriceRangeCount::getCount).sum()).isEqualTo(catalog);
+    }
+
+    @Test
+    void filterMatchingEveryPhoneCountsLikeNoFilter() {
+        service.createPhone(request("Duo", "Acme", 450.0, "Gaming", "Gaming", "Photography"));
+        PhoneQuery everyPhone = new PhoneQuery();
+        everyPhone.setMinPrice(0.0);
+
+        FacetCounts unfiltered = service.facetCounts(new PhoneQuery());
+        FacetCounts filtered = service.facetCounts(everyPhone);
+
+        assertThat(unfiltered.getTotal()).isPositive();
+        assertThat(filtered).usingRecursiveComparison().isEqualTo(unfiltered);
+    }
+
+    @Test
+    void usageTypeListedTwiceOnAPhoneCountsOnce() {
+        service.createPhone(request("Duo", "Acme", 450.0, "Gaming", "Gaming", "Photography"));
+        PhoneQuery acme = new PhoneQuery();
+        acme.setBrands(List.of("Acme"));
+
+        FacetCounts counts = service.facetCounts(acme);
+
+        assertThat(counts.getTotal()).isEqualTo(1);
+        assertThat(counts.getUsageTypes()).extracting(FacetCount::getValue, FacetCount::getCount)
+                .containsExactlyInAnyOrder(tuple("Gaming", 1), tuple("Photography", 1));
+    }
+
+    @Test
+    void filteredCountsDescribeTheMatchingPhones() {
+        PhoneQuery query = new PhoneQuery();
+        query.setMaxPrice(999.0);
+        query.setIsWaterResistant(true);
+
+        FacetCounts counts = service.facetCounts(query);
+        int matching = service.queryPhones(query).size();
+
+        assertThat(matching).isPositive();
+        assertThat(counts.getTotal()).isEqualTo(matching);
+        assertThat(counts.getBrands().stream().mapToInt(FacetCount::getCount).sum()).isEqualTo(matching);
+        assertThat(counts.getPriceRanges().stream().mapToInt(PriceRangeCount::getCount).sum()).isEqualTo(matching);
+        assertThat(counts.getPriceRanges()).extracting(PriceRangeCount::getMinPrice).containsExactly(null, 200.0, 400.0, 700.0, 1000.0);
+        assertThat(counts.getPriceRanges().get(4).getCount()).isZero();
+        assertThat(counts.getFeatures()).filteredOn(feature -> feature.getValue().equals("isWaterResistant"))
+                .extracting(FacetCount::getCount).containsExactly(matching);
+    }
+
+    @Test
+    void boundaryAndMissingPricesAreBucketedAlikeWithAndWithoutFilters() {
+        service.createPhone(request("On The Boundary", "Acme", 400.0, "Gaming"));
+        service.createPhone(request("Just Below", "Acme", 399.99, "Gaming"));
+        Phone unpriced = PhoneMapper.newPhone(request("Unpriced", "Acme", 1.0, "Gaming"));
+        unpriced.setPrice(null);
+        service.createPhones(List.of(unpriced));
+        FacetCounts unfiltered = service.facetCounts(new PhoneQuery());
+        PhoneQuery everyBrand = new PhoneQuery();
+        everyBrand.setBrands(unfiltered.getBrands().stream().map(FacetCount::getValue).toList());
+        PhoneQuery acme = new PhoneQuery();
+        acme.setBrands(List.of("Acme"));
+
+        FacetCounts filtered = service.facetCounts(everyBrand);
+        FacetCounts acmeCounts = service.facetCounts(acme);
+
+        assertThat(filtered).usingRecursiveComparison().isEqualTo(unfiltered);
+        assertThat(unfiltered.getPriceRanges().stream().mapToInt(PriceRangeCount::getCount).sum()).isEqualTo(unfiltered.getTotal() - 1);
+        assertThat(acmeCounts.getTotal()).isEqualTo(3);
+        assertThat(acmeCounts.getPriceRanges()).extracting(PriceRangeCount::getMinPrice, PriceRangeCount::getCount)
+                .containsExactly(tuple(null, 0), tuple(200.0, 1), tuple(400.0, 1), tuple(700.0, 0), tuple(1000.0, 0));
+    }
+
+    private static PhoneRequest request(String name, String brand, double price, String... usageTypes) {
+        PhoneRequest request = new PhoneRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setDescription(name + " by " + brand);
+        request.setPrice(price);
+        request.setCurrency("USD");
+        request.setUsageTypes(List.of(usageTypes));
+        request.setReleaseDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        request.setIs5G(false);
+        request.setIsWaterResistant(true);
+        request.setHasWirelessCharging(false);
+        request.setRating(4.0);
+        return request;
+    }
+}
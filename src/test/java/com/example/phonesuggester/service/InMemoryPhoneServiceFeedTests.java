@@ -0,0 +1,108 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.store.MutationLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.phonesuggester.service.PhoneExportServiceTests.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryPhoneServiceFeedTests {
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryPhoneService service = new InMemoryPhoneService();
+    private final RecordingFeed feed = new RecordingFeed();
+    private MutationLog log;
+
+    @BeforeEach
+    void attachFeed() {
+        ReflectionTestUtils.setField(service, "changeFeed", feed);
+    }
+
+    @AfterEach
+    void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Test
+    void concurrentWritesAreFedOnceEachInCommitOrder() throws Exception {
+        log = MutationLog.open(directory.resolve("wal"), 1 << 20, MutationLog.Durability.FSYNC, Duration.ofMillis(5));
+        service.attachMutationLog(log);
+        List<Callable<String>> writers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String name = "Phone " + i;
+            writers.add(() -> service.createPhone(request(name, "Acme", "Fed in order", List.of("Everyday"))).getId());
+        }
+
+        List<String> ids = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<String> id : executor.invokeAll(writers)) {
+                ids.add(id.get());
+            }
+        }
+
+        assertThat(feed.ids()).containsExactlyInAnyOrderElementsOf(ids);
+        // A phone's tag carries the catalog version it was written at, which is commit order
+        assertThat(feed.ids()).extracting(this::writtenAt).isSorted();
+    }
+
+    @Test
+    void aWriteThatNeverBecomesDurableIsNotFed() throws IOException {
+        Path wal = directory.resolve("wal");
+        // One-byte segments, so every write after the first opens a new segment file
+        log = MutationLog.open(wal, 1, MutationLog.Durability.FSYNC, Duration.ofMillis(5));
+        service.attachMutationLog(log);
+        String durable = service.createPhone(request("Durable", "Acme", "Logged before the failure", List.of("Everyday"))).getId();
+
+        FileSystemUtils.deleteRecursively(wal);
+        Files.createFile(wal);
+
+        assertThatThrownBy(() -> service.createPhone(request("Lost", "Acme", "Logged after the failure", List.of("Everyday"))))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(feed.ids()).containsExactly(durable);
+        assertThatThrownBy(log::close).isInstanceOf(IOException.class);
+        log = null;
+    }
+
+    private long writtenAt(String id) {
+        String eTag = service.phoneETag(id);
+        return Long.parseLong(eTag.substring(eTag.indexOf('-') + 1, eTag.length() - 1), 16);
+    }
+
+    /** Records what is appended instead of sending it to subscribers. */
+    private static final class RecordingFeed extends PhoneChangeFeed {
+
+        private final List<PhoneChange> changes = new ArrayList<>();
+
+        @Override
+        public synchronized void append(Collection<PhoneChange> appended) {
+            changes.addAll(appended);
+        }
+
+        synchronized List<String> ids() {
+            return changes.stream().map(change -> change.getAfter().getId()).toList();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.ApiResponse;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.example.phonesuggester.service.InMemoryPhoneServicePagingTests.response;
+import static com.example.phonesuggester.service.PhoneExportServiceTests.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryPhoneServiceJsonTests {
+
+    private final InMemoryPhoneService service = new InMemoryPhoneService();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void repeatedReadsReuseTheSerializedBytes() {
+        PhoneResponse created = service.createPhone(request("Pixel 8", "Google", "Cached phone", List.of("Everyday")));
+
+        PhoneJson first = service.findById(created.getId()).orElseThrow();
+        PhoneJson second = service.findById(created.getId()).orElseThrow();
+
+        assertThat(second.getBytes()).isSameAs(first.getBytes());
+        assertThat(response(first)).usingRecursiveComparison().isEqualTo(created);
+        assertThat(service.findAll()).filteredOn(phone -> phone.getBytes() == first.getBytes()).hasSize(1);
+    }
+
+    @Test
+    void aWriteReplacesTheCachedBytes() {
+        PhoneResponse created = service.createPhone(request("Pixel 8", "Google", "Cached phone", List.of("Everyday")));
+        byte[] before = service.findById(created.getId()).orElseThrow().getBytes();
+
+        PhoneRequest update = request("Pixel 8a", "Google", "Cached phone", List.of("Budget"));
+        service.updatePhone(created.getId(), update);
+        PhoneJson after = service.findById(created.getId()).orElseThrow();
+
+        assertThat(after.getBytes()).isNotSameAs(before);
+        assertThat(response(after).getName()).isEqualTo("Pixel 8a");
+        assertThat(response(after).getUsageTypes()).containsExactly("Budget");
+    }
+
+    @Test
+    void envelopesEmbedTheBytesAsObjects() throws IOException {
+        List<PhoneJson> phones = service.findByBrand("Google");
+
+        JsonNode envelope = objectMapper.readTree(objectMapper.writeValueAsBytes(ApiResponse.success(phones)));
+
+        assertThat(envelope.get("data").isArray()).isTrue();
+        assertThat(envelope.get("data")).hasSameSizeAs(phones);
+        assertThat(envelope.get("data").get(0)).isEqualTo(objectMapper.readTree(phones.get(0).getBytes()));
+    }
+}
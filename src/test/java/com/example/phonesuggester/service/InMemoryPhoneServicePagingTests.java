@@ -0,0 +1,151 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.store.PhoneSortField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryPhoneServicePagingTests {
+
+    private static final String[] BRANDS = {"Samsung", "google", "Apple", "OnePlus", "Sony"};
+    private static final int PAGE_SIZE = 7;
+    private static final ObjectMapper JSON = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void everyPageMatchesSortingTheWholeCatalogThenSlicing() {
+        InMemoryPhoneService service = catalog();
+        for (PhoneSortField field : PhoneSortField.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                List<String> expected = sortedIds(responses(service.findAll()), field, direction);
+                assertThat(expected.size() % PAGE_SIZE).as("a partial last page").isNotZero();
+                List<String> paged = new ArrayList<>();
+                for (int page = 0; page * PAGE_SIZE <= expected.size(); page++) {
+                    Page<PhoneJson> result = service.findAllPaginated(
+                            PageRequest.of(page, PAGE_SIZE, Sort.by(direction, field.property())));
+                    assertThat(result.getTotalElements()).isEqualTo(expected.size());
+                    responses(result.getContent()).forEach(phone -> paged.add(phone.getId()));
+                }
+                assertThat(paged).as("%s %s", field, direction).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void laterSortFieldsOrderPhonesTiedOnEarlierOnes() {
+        InMemoryPhoneService service = catalog();
+        Sort sort = Sort.by(Sort.Order.asc("brand"), Sort.Order.desc("price"));
+        Comparator<PhoneResponse> order = Comparator.comparing(PhoneResponse::getBrand, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(PhoneResponse::getPrice, Comparator.reverseOrder())
+                .thenComparing(PhoneResponse::getId, Comparator.reverseOrder());
+        List<String> expected = responses(service.findAll()).stream().sorted(order).map(PhoneResponse::getId).toList();
+
+        List<String> paged = new ArrayList<>();
+        for (int page = 0; page * PAGE_SIZE <= expected.size(); page++) {
+            responses(service.findAllPaginated(PageRequest.of(page, PAGE_SIZE, sort)).getContent())
+                    .forEach(phone -> paged.add(phone.getId()));
+        }
+
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    @Test
+    void unsortedRequestsAreOrderedByName() {
+        InMemoryPhoneService service = catalog();
+
+        Page<PhoneJson> first = service.findAllPaginated(PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(responses(first.getContent())).extracting(PhoneResponse::getId)
+                .isEqualTo(sortedIds(responses(service.findAll()), PhoneSortField.NAME, Sort.Direction.ASC).subList(0, PAGE_SIZE));
+    }
+
+    @Test
+    void unknownSortFieldsAreRejected() {
+        InMemoryPhoneService service = new InMemoryPhoneService();
+
+        assertThatThrownBy(() -> service.findAllPaginated(PageRequest.of(0, PAGE_SIZE, Sort.by("color"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InMemoryPhoneService catalog() {
+        Random random = new Random(41);
+        InMemoryPhoneService service = new InMemoryPhoneService();
+        for (int i = 0; i < 31; i++) {
+            PhoneRequest request = new PhoneRequest();
+            // Few distinct values, so most orderings fall back to the id
+            request.setName((i % 2 == 0 ? "Model " : "model ") + random.nextInt(6));
+            request.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+            request.setDescription("Phone number " + random.nextInt(4));
+            request.setPrice(100.0 * (1 + random.nextInt(5)));
+            request.setCurrency(random.nextBoolean() ? "USD" : "EUR");
+            request.setUsageTypes(List.of("Everyday"));
+            request.setImageUrl("https://example.com/" + random.nextInt(3) + ".jpg");
+            request.setReleaseDate(LocalDateTime.of(2024, 1 + random.nextInt(3), 1, 12, 0));
+            request.setStorageGB(128 * (1 + random.nextInt(2)));
+            request.setRamGB(8 + 4 * random.nextInt(2));
+            request.setBatteryCapacity(4000 + 500 * random.nextInt(3));
+            request.setScreenSize(6.0 + 0.1 * random.nextInt(3));
+            request.setCameraCount(1 + random.nextInt(3));
+            request.setIs5G(random.nextBoolean());
+            request.setIsWaterResistant(random.nextBoolean());
+            request.setHasWirelessCharging(random.nextBoolean());
+            request.setRating(random.nextInt(5) == 0 ? null : 3.0 + random.nextInt(3) * 0.5);
+            service.createPhone(request);
+        }
+        return service;
+    }
+
+    static List<PhoneResponse> responses(List<PhoneJson> phones) {
+        return phones.stream().map(InMemoryPhoneServicePagingTests::response).toList();
+    }
+
+    static PhoneResponse response(PhoneJson phone) {
+        try {
+            return JSON.readValue(phone.getBytes(), PhoneResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The ids of every phone sorted by the field, ties broken by id, as a listing had to be before it was indexed. */
+    private static List<String> sortedIds(List<PhoneResponse> phones, PhoneSortField field, Sort.Direction direction) {
+        Comparator<PhoneResponse> byKey = (left, right) -> compareKeys(key(left, field), key(right, field));
+        Comparator<PhoneResponse> order = byKey.thenComparing(PhoneResponse::getId);
+        List<PhoneResponse> sorted = new ArrayList<>(phones);
+        sorted.sort(direction.isAscending() ? order : order.reversed());
+        return sorted.stream().map(PhoneResponse::getId).toList();
+    }
+
+    private static Object key(PhoneResponse phone, PhoneSortField field) {
+        Object value = field == PhoneSortField.ID ? null : new BeanWrapperImpl(phone).getPropertyValue(field.property());
+        // Unrated phones are stored as NaN, which sorts above every rating
+        return field == PhoneSortField.RATING && value == null ? Double.NaN : value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof String leftText) {
+            return String.CASE_INSENSITIVE_ORDER.compare(leftText, (String) right);
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.model.Phone;
+import com.example.phonesuggester.store.MutationLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.phonesuggester.service.PhoneExportServiceTests.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryPhoneServiceWriteTests {
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryPhoneService service = new InMemoryPhoneService();
+
+    @Test
+    void aWriterThatFailsPartWayPublishesNothing() {
+        long version = service.catalogVersion();
+        String eTag = service.catalogETag();
+        Phone stored = phone("Stored First");
+
+        assertThatThrownBy(() -> service.createPhones(List.of(stored, unreadablePhone())))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.findById(stored.getId())).isEmpty();
+        assertThat(service.catalogVersion()).isEqualTo(version);
+        assertThat(service.catalogETag()).isEqualTo(eTag);
+    }
+
+    @Test
+    void aFailedWriteLeavesNothingInTheLogAndLaterWritesReplay() throws IOException {
+        MutationLog log = open();
+        service.attachMutationLog(log);
+        Phone dropped = phone("Dropped");
+
+        assertThatThrownBy(() -> service.createPhones(List.of(dropped, unreadablePhone())))
+                .isInstanceOf(IllegalStateException.class);
+        String kept = service.createPhone(request("Kept", "Acme", "Written after the failure", List.of("Everyday"))).getId();
+        log.close();
+
+        // Starts from the same sample catalog, so the log continues its version
+        InMemoryPhoneService restarted = new InMemoryPhoneService();
+        MutationLog reopened = open();
+        assertThat(restarted.attachMutationLog(reopened)).isEqualTo(1);
+        reopened.close();
+        assertThat(restarted.findById(kept)).isPresent();
+        assertThat(restarted.findById(dropped.getId())).isEmpty();
+    }
+
+    private MutationLog open() throws IOException {
+        return MutationLog.open(directory, 1 << 20, MutationLog.Durability.FSYNC, Duration.ofMillis(5));
+    }
+
+    private static Phone phone(String name) {
+        Phone phone = PhoneMapper.newPhone(request(name, "Acme", "Part of a failing batch", List.of("Everyday")));
+        phone.setId(name.toLowerCase().replace(' ', '-'));
+        return phone;
+    }
+
+    /** A phone that fails while the store reads it, after the rest of its batch was written. */
+    private static Phone unreadablePhone() {
+        Phone phone = new Phone() {
+            @Override
+            public String getName() {
+                throw new IllegalStateException("Unreadable phone");
+            }
+        };
+        phone.setId("unreadable");
+        return phone;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.AutocompleteSuggestion;
+import com.example.phonesuggester.dto.CursorPage;
+import com.example.phonesuggester.dto.PhoneJson;
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.dto.PhoneSuggestion;
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.dto.SuggestionResponse;
+import com.example.phonesuggester.model.Phone;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@SpringBootTest
+@ActiveProfiles("mongo")
+@Testcontainers(disabledWithoutDocker = true)
+class MongoPhoneServiceTests {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private PhoneService phoneService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoPhoneTerms phoneTerms;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void mongoProfileSelectsMongoCatalog() {
+        assertThat(phoneService).isInstanceOf(MongoPhoneService.class);
+    }
+
+    @Test
+    void declaredIndexesAreCreated() {
+        List<String> names = mongoTemplate.indexOps(Phone.class).getIndexInfo().stream().map(IndexInfo::getName).toList();
+        assertThat(names).contains("brand_price", "usageTypes_rating", "terms");
+    }
+
+    @Test
+    void filtersSortsAndPagesInTheDatabase() {
+        String brand = uniqueBrand();
+        for (int i = 1; i <= 25; i++) {
+            phoneService.createPhone(request(brand, "Model " + i, 100.0 + i * 10, i % 2 == 0 ? "Gaming" : "Business", i % 3 == 0));
+        }
+
+        List<JsonNode> byBrand = parse(phoneService.findByBrand(brand.toLowerCase()));
+        assertThat(byBrand).hasSize(25);
+
+        List<JsonNode> priced = parse(phoneService.findByPriceRange(150.0, 200.0));
+        assertThat(priced).extracting(phone -> phone.get("price").asDouble()).isSorted().allMatch(price -> price >= 150.0 && price <= 200.0);
+
+        Page<PhoneJson> cheapest = phoneService.findAllPaginated(PageRequest.of(0, 5, Sort.by("price")));
+        assertThat(parse(cheapest.getContent())).extracting(phone -> phone.get("price").asDouble()).isSorted();
+
+        List<Double> pagedPrices = new ArrayList<>();
+        List<String> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<PhoneJson> page = phoneService.findByBrandPage(brand, Sort.by(Sort.Direction.DESC, "price"), cursor, 7);
+            for (JsonNode phone : parse(page.getContent())) {
+                pagedPrices.add(phone.get("price").asDouble());
+                pagedIds.add(phone.get("id").asText());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertThat(pagedIds).hasSize(25).doesNotHaveDuplicates();
+        assertThat(pagedPrices).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void queryCombinesFiltersAndSearchMatchesEveryTerm() {
+        String brand = uniqueBrand();
+        phoneService.createPhone(request(brand, "Falcon Pro", 300.0, "Gaming", true));
+        phoneService.createPhone(request(brand, "Falcon Lite", 200.0, "Gaming", false));
+        phoneService.createPhone(request(brand, "Heron Pro", 250.0, "Business", true));
+
+        PhoneQuery query = new PhoneQuery(null, List.of(brand), List.of("gam"), 150.0, 350.0, true, null, null);
+        assertThat(parse(phoneService.queryPhones(query))).extracting(phone -> phone.get("name").asText())
+                .containsExactly("Falcon Pro");
+
+        assertThat(parse(phoneService.searchPhones("falcon " + brand))).extracting(phone -> phone.get("name").asText())
+                .containsExactlyInAnyOrder("Falcon Pro", "Falcon Lite");
+
+        List<String> exported = new ArrayList<>();
+        phoneService.forEachMatchingPhone(new PhoneQuery(null, List.of(brand), null, null, null, false, null, null),
+                phone -> exported.add(phone.getName()));
+        assertThat(exported).containsExactly("Falcon Lite");
+    }
+
+    @Test
+    void searchPagesFollowRelevanceWithoutRepeats() {
+        String brand = uniqueBrand();
+        for (int i = 0; i < 12; i++) {
+            phoneService.createPhone(request(brand, "Sparrow " + i, 400.0 + i, "Camera", false));
+        }
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<PhoneJson> page = phoneService.searchPhonesPage("sparrow " + brand, cursor, 5);
+            parse(page.getContent()).forEach(phone -> ids.add(phone.get("id").asText()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertThat(ids).hasSize(12);
+        assertThat(new HashSet<>(ids)).hasSize(12);
+    }
+
+    @Test
+    void writesMoveEntityTags() {
+        String brand = uniqueBrand();
+        PhoneResponse created = phoneService.createPhone(request(brand, "Kestrel", 500.0, "Business", false));
+        String catalogTag = phoneService.catalogETag();
+        String phoneTag = phoneService.phoneETag(created.getId());
+
+        PhoneResponse updated = phoneService.updatePhone(created.getId(), request(brand, "Kestrel II", 550.0, "Business", true)).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Kestrel II");
+        assertThat(phoneService.catalogETag()).isNotEqualTo(catalogTag);
+        assertThat(phoneService.phoneETag(created.getId())).isNotEqualTo(phoneTag);
+        assertThat(parse(phoneService.findById(created.getId()).orElseThrow()).get("price").asDouble()).isEqualTo(550.0);
+
+        assertThat(phoneService.deletePhone(created.getId())).isTrue();
+        assertThat(phoneService.phoneETag(created.getId())).isNull();
+        assertThat(phoneService.findById(created.getId())).isEmpty();
+    }
+
+    @Test
+    void suggestionsStayWithinBudget() {
+        String brand = uniqueBrand();
+        for (int i = 0; i < 10; i++) {
+            phoneService.createPhone(request(brand, "Wren " + i, 600.0 + i * 100, "Camera", false));
+        }
+        SuggestionRequest request = new SuggestionRequest();
+        request.setBudget(1000.0);
+        request.setUsageTypes(List.of("Camera"));
+        request.setLimit(3);
+
+        SuggestionResponse response = phoneService.suggestPhones(request);
+        assertThat(response.getSuggestions()).hasSize(3)
+                .allMatch(suggestion -> suggestion.getPhone().getPrice() <= 1000.0);
+        assertThat(response.getSuggestions()).extracting(PhoneSuggestion::getScore).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void fuzzySearchCorrectsTermsFromTheTermCollection() {
+        String brand = uniqueBrand();
+        PhoneResponse phone = phoneService.createPhone(request(brand, "Kestrel", 300.0, "Business", false));
+        String typo = brand.substring(0, 7) + brand.substring(8);
+
+        List<JsonNode> found = parse(phoneService.fuzzySearchPhones(typo + " kestrl"));
+        assertThat(found).extracting(node -> node.get("id").asText()).containsExactly(phone.getId());
+
+        phoneService.deletePhone(phone.getId());
+        assertThat(mongoTemplate.findById(brand.toLowerCase(), Document.class, MongoPhoneTerms.COLLECTION)).isNull();
+        assertThat(phoneService.fuzzySearchPhones(typo)).isEmpty();
+    }
+
+    @Test
+    void phonesKeepTheirTermsForIndexedFuzzyLookups() {
+        String brand = uniqueBrand();
+        PhoneResponse phone = phoneService.createPhone(request(brand, "Kestrel Mini", 300.0, "Business", false));
+        assertThat(mongoTemplate.findById(phone.getId(), Phone.class).getTerms())
+                .containsExactly("kestrel", "mini", brand.toLowerCase());
+
+        phoneService.updatePhone(phone.getId(), request(brand, "Osprey", 320.0, "Business", false));
+        assertThat(mongoTemplate.findById(phone.getId(), Phone.class).getTerms()).containsExactly("osprey", brand.toLowerCase());
+        assertThat(parse(phoneService.fuzzySearchPhones("ospry " + brand))).extracting(node -> node.get("id").asText())
+                .containsExactly(phone.getId());
+        assertThat(phoneService.fuzzySearchPhones("kestrel " + brand)).isEmpty();
+    }
+
+    @Test
+    void phonesStoredWithoutTermsGetThemAtStartup() {
+        String brand = uniqueBrand();
+        PhoneResponse phone = phoneService.createPhone(request(brand, "Kestrel", 300.0, "Business", false));
+        mongoTemplate.updateFirst(query(where("id").is(phone.getId())), new Update().unset("terms"), Phone.class);
+
+        phoneTerms.storeMissingPhoneTerms();
+
+        assertThat(mongoTemplate.findById(phone.getId(), Phone.class).getTerms()).containsExactly("kestrel", brand.toLowerCase());
+    }
+
+    @Test
+    void autocompleteMatchesWordStartsAndBrandFollowedByName() {
+        String brand = uniqueBrand();
+        PhoneResponse phone = phoneService.createPhone(request(brand, "Kestrel Mini-5", 300.0, "Business", false));
+
+        for (String prefix : List.of(brand.substring(0, 12), brand + " kes", brand + " kestrel mi", "kestrel mini 5", "mini-5")) {
+            assertThat(phoneService.autocomplete(prefix, 10)).as(prefix)
+                    .extracting(AutocompleteSuggestion::getId).contains(phone.getId());
+        }
+        for (String prefix : List.of(brand + " mini x", brand.substring(1), "kestrel " + brand)) {
+            assertThat(phoneService.autocomplete(prefix, 10)).as(prefix)
+                    .extracting(AutocompleteSuggestion::getId).doesNotContain(phone.getId());
+        }
+    }
+
+    private static String uniqueBrand() {
+        return "Brand" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+
+    private static PhoneRequest request(String brand, String name, double price, String usageType, boolean is5G) {
+        PhoneRequest request = new PhoneRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setDescription(name + " by " + brand + " for everyday use");
+        request.setPrice(price);
+        request.setCurrency("USD");
+        request.setUsageTypes(List.of(usageType));
+        request.setImageUrl("https://example.com/phone.jpg");
+        request.setReleaseDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        request.setStorageGB(128);
+        request.setRamGB(8);
+        request.setBatteryCapacity(4500);
+        request.setScreenSize(6.1);
+        request.setCameraCount(3);
+        request.setIs5G(is5G);
+        request.setIsWaterResistant(false);
+        request.setHasWirelessCharging(false);
+        request.setRating(4.0);
+        return request;
+    }
+
+    private List<JsonNode> parse(List<PhoneJson> phones) {
+        return phones.stream().map(this::parse).toList();
+    }
+
+    private JsonNode parse(PhoneJson phone) {
+        try {
+            return objectMapper.readTree(phone.getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.config.CacheConfig;
+import com.example.phonesuggester.config.PhoneCacheProperties;
+import com.example.phonesuggester.config.RedisCacheTier;
+import com.example.phonesuggester.model.Phone;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneCacheInvalidatorTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private CacheManager cacheManager;
+    private PhoneCacheInvalidator invalidator;
+
+    @BeforeEach
+    void createCaches() {
+        cacheManager = new CacheConfig().cacheManager(new PhoneCacheProperties(),
+                new StaticListableBeanFactory().getBeanProvider(RedisCacheTier.class));
+        invalidator = invalidator(cacheManager);
+    }
+
+    @Test
+    void brandChangeEvictsTheOldAndTheNewBrandLists() {
+        cache(CacheConfig.PHONE_LISTS, "all", "brand:sam", "brand:GOOG", "brand:apple", "type:business");
+
+        invalidator.invalidate(PhoneChange.updated(
+                phone("p1", "Galaxy S24", "Samsung", "Gaming"),
+                phone("p1", "Galaxy S24", "Google", "Gaming")));
+
+        assertThat(keys(CacheConfig.PHONE_LISTS)).containsExactlyInAnyOrder("brand:apple", "type:business");
+    }
+
+    @Test
+    void usageTypeChangeEvictsTheOldAndTheNewTypeLists() {
+        cache(CacheConfig.PHONE_LISTS, "type:gam", "type:Photography", "type:business", "brand:apple");
+
+        invalidator.invalidate(PhoneChange.updated(
+                phone("p1", "Pixel 8", "Google", "Gaming"),
+                phone("p1", "Pixel 8", "Google", "Photography", "Everyday")));
+
+        assertThat(keys(CacheConfig.PHONE_LISTS)).containsExactlyInAnyOrder("type:business", "brand:apple");
+    }
+
+    @Test
+    void allAndUnknownListKeysAreAlwaysEvicted() {
+        cache(CacheConfig.PHONE_LISTS, "all", "page:0", "brand:apple");
+
+        invalidator.invalidate(PhoneChange.created(phone("p1", "Pixel 8", "Google", "Gaming")));
+
+        assertThat(keys(CacheConfig.PHONE_LISTS)).containsExactly("brand:apple");
+    }
+
+    @Test
+    void searchesMatchingThePhoneBeforeOrAfterAreEvicted() {
+        cache(CacheConfig.PHONE_SEARCH, "galaxy", "pix", "google pixel", "apple", "galaxy apple");
+
+        invalidator.invalidate(PhoneChange.updated(
+                phone("p1", "Galaxy S24", "Samsung", "Gaming"),
+                phone("p1", "Pixel 8", "Google", "Gaming")));
+
+        assertThat(keys(CacheConfig.PHONE_SEARCH)).containsExactlyInAnyOrder("apple", "galaxy apple");
+    }
+
+    @Test
+    void onlyTheChangedPhonesAreEvictedById() {
+        cache(CacheConfig.PHONE_BY_ID, "p1", "p2", "p3");
+
+        invalidator.invalidate(List.of(
+                PhoneChange.deleted(phone("p1", "Pixel 8", "Google", "Gaming")),
+                PhoneChange.created(phone("p3", "Nord 3", "OnePlus", "Budget"))));
+
+        assertThat(keys(CacheConfig.PHONE_BY_ID)).containsExactly("p2");
+    }
+
+    @Test
+    void regionsThatCannotBeScannedAreCleared() {
+        SimpleCacheManager simple = new SimpleCacheManager();
+        simple.setCaches(List.of(new ConcurrentMapCache(CacheConfig.PHONE_LISTS)));
+        simple.afterPropertiesSet();
+        Cache lists = simple.getCache(CacheConfig.PHONE_LISTS);
+        lists.put("brand:apple", List.of());
+
+        invalidator(simple).invalidate(PhoneChange.created(phone("p1", "Pixel 8", "Google", "Gaming")));
+
+        assertThat(lists.get("brand:apple")).isNull();
+    }
+
+    @Test
+    void sharedTierIsEvictedBeforeTheLocalOneAndTheChangeIsPublished() throws IOException {
+        RecordingTier shared = new RecordingTier();
+        ReflectionTestUtils.setField(invalidator, "sharedTier", shared);
+        cache(CacheConfig.PHONE_BY_ID, "p1");
+        cache(CacheConfig.PHONE_LISTS, "brand:sam", "brand:goo", "brand:apple");
+        cache(CacheConfig.PHONE_SEARCH, "galaxy");
+
+        invalidator.invalidate(PhoneChange.updated(
+                phone("p1", "Galaxy S24", "Samsung", "Gaming"),
+                phone("p1", "Pixel 8", "Google", "Gaming")));
+
+        assertThat(shared.evicted).containsOnly(CacheConfig.PHONE_BY_ID + ":p1");
+        assertThat(shared.localByIdWhenEvicted).isTrue();
+        assertThat(shared.matchedLists).containsExactlyInAnyOrder("brand:sam", "brand:goo");
+        assertThat(shared.matchedSearches).containsExactly("galaxy");
+        assertThat(shared.localByIdWhenPublished).isFalse();
+        PhoneCacheInvalidator.Invalidation published =
+                OBJECT_MAPPER.readValue(shared.published.get(0), PhoneCacheInvalidator.Invalidation.class);
+        assertThat(published.isAll()).isFalse();
+        assertThat(published.getOrigin()).isNotBlank();
+        assertThat(published.getPhones()).extracting(Phone::getBrand).containsExactly("Samsung", "Google");
+        assertThat(published.getPhones()).allSatisfy(phone -> assertThat(phone.getPrice()).isNull());
+    }
+
+    @Test
+    void invalidationsFromOtherInstancesEvictOnlyTheLocalTier() throws IOException {
+        RecordingTier shared = new RecordingTier();
+        ReflectionTestUtils.setField(invalidator, "sharedTier", shared);
+        invalidator.subscribe();
+        cache(CacheConfig.PHONE_BY_ID, "p1", "p2");
+        cache(CacheConfig.PHONE_LISTS, "brand:goo", "brand:apple");
+
+        shared.listener.accept(OBJECT_MAPPER.writeValueAsBytes(new PhoneCacheInvalidator.Invalidation(
+                "other-instance", false, List.of(phone("p1", "Pixel 8", "Google", "Gaming")))));
+
+        assertThat(keys(CacheConfig.PHONE_BY_ID)).containsExactly("p2");
+        assertThat(keys(CacheConfig.PHONE_LISTS)).containsExactly("brand:apple");
+        assertThat(shared.evicted).isEmpty();
+        assertThat(shared.published).isEmpty();
+
+        shared.listener.accept(OBJECT_MAPPER.writeValueAsBytes(
+                new PhoneCacheInvalidator.Invalidation("other-instance", true, List.of())));
+        assertThat(keys(CacheConfig.PHONE_BY_ID)).isEmpty();
+    }
+
+    @Test
+    void ownInvalidationsComingBackAreIgnored() {
+        RecordingTier shared = new RecordingTier();
+        ReflectionTestUtils.setField(invalidator, "sharedTier", shared);
+        invalidator.subscribe();
+        invalidator.invalidate(PhoneChange.created(phone("p1", "Pixel 8", "Google", "Gaming")));
+        cache(CacheConfig.PHONE_BY_ID, "p1");
+
+        shared.listener.accept(shared.published.get(0));
+
+        assertThat(keys(CacheConfig.PHONE_BY_ID)).containsExactly("p1");
+    }
+
+    private void cache(String region, String... keys) {
+        for (String key : keys) {
+            cacheManager.getCache(region).put(key, List.of());
+        }
+    }
+
+    private List<String> keys(String region) {
+        com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(region).getNativeCache();
+        return nativeCache.asMap().keySet().stream().map(String::valueOf).toList();
+    }
+
+    private static PhoneCacheInvalidator invalidator(CacheManager cacheManager) {
+        PhoneCacheInvalidator invalidator = new PhoneCacheInvalidator();
+        ReflectionTestUtils.setField(invalidator, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(invalidator, "objectMapper", OBJECT_MAPPER);
+        return invalidator;
+    }
+
+    private static Phone phone(String id, String name, String brand, String... usageTypes) {
+        Phone phone = new Phone();
+        phone.setId(id);
+        phone.setName(name);
+        phone.setBrand(brand);
+        phone.setDescription(name + " by " + brand);
+        phone.setUsageTypes(List.of(usageTypes));
+        return phone;
+    }
+
+    /** Records what the invalidator does to the shared tier, and how the local tier looked at the time. */
+    private final class RecordingTier extends RedisCacheTier {
+        private final List<String> evicted = new ArrayList<>();
+        private final List<String> matchedLists = new ArrayList<>();
+        private final List<String> matchedSearches = new ArrayList<>();
+        private final List<byte[]> published = new ArrayList<>();
+        private Boolean localByIdWhenEvicted;
+        private Boolean localByIdWhenPublished;
+        private Consumer<byte[]> listener;
+
+        RecordingTier() {
+            super(new LettuceConnectionFactory(), null, "phones", "invalidations");
+        }
+
+        @Override
+        public void evict(String cacheName, Object key) {
+            evicted.add(cacheName + ":" + key);
+            localByIdWhenEvicted = keys(CacheConfig.PHONE_BY_ID).contains(String.valueOf(key));
+        }
+
+        @Override
+        public void evictMatching(String cacheName, Predicate<String> affected) {
+            List<String> matched = cacheName.equals(CacheConfig.PHONE_LISTS) ? matchedLists : matchedSearches;
+            keys(cacheName).stream().filter(affected).forEach(matched::add);
+        }
+
+        @Override
+        public void publish(byte[] message) {
+            published.add(message);
+            localByIdWhenPublished = !keys(CacheConfig.PHONE_BY_ID).isEmpty();
+        }
+
+        @Override
+        public void subscribe(Consumer<byte[]> listener) {
+            this.listener = listener;
+        }
+    }
+}
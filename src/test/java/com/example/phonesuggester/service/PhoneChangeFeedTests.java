@@ -0,0 +1,175 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneChangeEvent;
+import com.example.phonesuggester.model.Phone;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneChangeFeedTests {
+
+    private static final int RETAINED_EVENTS = 4;
+
+    private PhoneChangeFeed feed;
+
+    @BeforeEach
+    void startFeed() {
+        feed = new PhoneChangeFeed();
+        ReflectionTestUtils.setField(feed, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(feed, "retainedEvents", RETAINED_EVENTS);
+        feed.start();
+    }
+
+    @AfterEach
+    void stopFeed() {
+        feed.stop();
+    }
+
+    @Test
+    void newSubscriberIsGreetedWithTheCurrentSequenceAndGetsLaterChanges() throws InterruptedException {
+        deleted("p1", "p2");
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+
+        Event greeting = emitter.next();
+        assertThat(greeting.name()).isEqualTo("subscribed");
+        assertThat(greeting.id()).isEqualTo(feed.eventId(2));
+        assertThat(greeting.data().getSequence()).isEqualTo(2);
+
+        deleted("p3");
+        Event change = emitter.next();
+        assertThat(change.name()).isEqualTo("deleted");
+        assertThat(change.id()).isEqualTo(feed.eventId(3));
+        assertThat(change.data().getPhoneId()).isEqualTo("p3");
+    }
+
+    @Test
+    void subscriberResumingFromARetainedIdGetsEverythingAfterIt() throws InterruptedException {
+        deleted("p1", "p2", "p3");
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(feed.eventId(1), emitter);
+
+        assertThat(emitter.next().data().getPhoneId()).isEqualTo("p2");
+        assertThat(emitter.next().data().getPhoneId()).isEqualTo("p3");
+        assertThat(emitter.poll()).isNull();
+    }
+
+    @Test
+    void idsFromAnotherEpochOrNoLongerRetainedGetAReset() throws InterruptedException {
+        deleted("p1", "p2", "p3", "p4", "p5", "p6");
+
+        for (String lastEventId : List.of("0123456789abcdef:5", feed.eventId(1), feed.eventId(99))) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            feed.subscribe(lastEventId, emitter);
+
+            Event reset = emitter.next();
+            assertThat(reset.name()).as(lastEventId).isEqualTo("reset");
+            assertThat(reset.id()).isEqualTo(feed.eventId(6));
+        }
+    }
+
+    @Test
+    void malformedIdsAreRejected() {
+        for (String lastEventId : List.of("12", "abc:def", feed.eventId(1) + "x")) {
+            assertThatThrownBy(() -> feed.subscribe(lastEventId, new RecordingEmitter()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining(lastEventId);
+        }
+    }
+
+    @Test
+    void aStalledSubscriberDoesNotHoldUpTheOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        feed.subscribe(null, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+        assertThat(emitter.next().name()).isEqualTo("subscribed");
+
+        deleted("p1");
+
+        assertThat(emitter.next().data().getPhoneId()).isEqualTo("p1");
+        release.countDown();
+    }
+
+    private void deleted(String... ids) {
+        List<PhoneChange> changes = new ArrayList<>();
+        for (String id : ids) {
+            Phone phone = new Phone();
+            phone.setId(id);
+            changes.add(PhoneChange.deleted(phone));
+        }
+        feed.append(changes);
+    }
+
+    private record Event(String id, String name, PhoneChangeEvent data) {
+    }
+
+    /** Records the events sent to it instead of writing them to a response. */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private static final Pattern FIELD = Pattern.compile("^(id|event):(.*)$", Pattern.MULTILINE);
+
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            PhoneChangeEvent data = null;
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof PhoneChangeEvent event) {
+                    data = event;
+                } else {
+                    text.append(part.getData());
+                }
+            }
+            if (data == null) {
+                return; // A heartbeat comment
+            }
+            String id = null;
+            String name = null;
+            Matcher field = FIELD.matcher(text);
+            while (field.find()) {
+                if (field.group(1).equals("id")) {
+                    id = field.group(2);
+                } else {
+                    name = field.group(2);
+                }
+            }
+            events.add(new Event(id, name, data));
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("event").isNotNull();
+            return event;
+        }
+
+        Event poll() throws InterruptedException {
+            return events.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+}
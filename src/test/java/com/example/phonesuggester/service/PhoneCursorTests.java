@@ -0,0 +1,87 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.store.PhoneColumnStore;
+import com.example.phonesuggester.store.PhoneSortField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneCursorTests {
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        assertRoundTrip(new PhoneCursor("price", true, 899.0, "p1", 42));
+        assertRoundTrip(new PhoneCursor("name", false, "Galaxy S24", "p2", 7));
+        assertRoundTrip(new PhoneCursor("ramGB", true, 8, "p3", 0));
+        assertRoundTrip(new PhoneCursor("releaseDate", true, 1_700_000_000_000_000_000L, "p4", 1));
+        assertRoundTrip(new PhoneCursor("is5G", false, true, "p5", 1));
+        assertRoundTrip(new PhoneCursor("rating", true, null, "p6", 1));
+        assertRoundTrip(new PhoneCursor("id", true, null, "p7", 1));
+        assertRoundTrip(new PhoneCursor(PhoneCursor.RELEVANCE, false, 2.5f, "p8", 3));
+    }
+
+    @Test
+    void tokensThatAreNotCursorsAreRejected() {
+        assertInvalid("not a cursor!");
+        assertInvalid("");
+        assertInvalid(Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] {2, 0, 5}));
+        String valid = new PhoneCursor("price", true, 899.0, "p1", 42).encode();
+        assertInvalid(valid.substring(0, valid.length() - 4));
+    }
+
+    @Test
+    void keysOfAnotherTypeThanTheSortUsesAreRejected() {
+        assertInvalid(new PhoneCursor("price", true, "cheap", "p1", 1).encode());
+        assertInvalid(new PhoneCursor("ramGB", true, 8.0, "p1", 1).encode());
+        assertInvalid(new PhoneCursor("id", true, "p0", "p1", 1).encode());
+        assertInvalid(new PhoneCursor(PhoneCursor.RELEVANCE, true, null, "p1", 1).encode());
+        assertInvalid(new PhoneCursor("price; drop", true, 1.0, "p1", 1).encode());
+    }
+
+    @Test
+    void cursorsWithoutACatalogVersionStillDecode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeUTF("name");
+            out.writeBoolean(true);
+            out.writeByte(1);
+            out.writeUTF("Pixel");
+            out.writeUTF("p1");
+        }
+
+        PhoneCursor cursor = PhoneCursor.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray()));
+
+        assertThat(cursor.getKey()).isEqualTo("Pixel");
+        assertThat(cursor.getId()).isEqualTo("p1");
+        assertThat(cursor.getCatalogVersion()).isNegative();
+    }
+
+    @Test
+    void probeRejectsMissingKeysOnlyForNonTextFields() {
+        PhoneColumnStore store = new PhoneColumnStore();
+
+        assertThat(PhoneSortField.NAME.probe(store, null, "p1")).isNotNull();
+        assertThat(PhoneSortField.ID.probe(store, null, "p1")).isNotNull();
+        assertThatThrownBy(() -> PhoneSortField.PRICE.probe(store, null, "p1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PhoneSortField.PRICE.probe(store, 5, "p1")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertRoundTrip(PhoneCursor cursor) {
+        PhoneCursor decoded = PhoneCursor.decode(cursor.encode());
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(cursor);
+    }
+
+    private static void assertInvalid(String token) {
+        assertThatThrownBy(() -> PhoneCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneQuery;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneExportServiceTests {
+
+    private final InMemoryPhoneService phoneService = new InMemoryPhoneService();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void csvQuotesCommasQuotesAndNewlinesAndLeavesNullsEmpty() throws IOException {
+        PhoneResponse phone = phoneService.createPhone(request("Edge, 2024 \"Pro\"", "Acme",
+                "First line\nsecond line", List.of("Gaming", "Photography")));
+
+        List<List<String>> records = parseCsv(export(query("Acme"), PhoneExportService.Format.CSV, 2));
+
+        assertThat(records).hasSize(2);
+        List<String> header = records.get(0);
+        List<String> record = records.get(1);
+        assertThat(record).hasSameSizeAs(header);
+        assertThat(record.get(header.indexOf("id"))).isEqualTo(phone.getId());
+        assertThat(record.get(header.indexOf("name"))).isEqualTo("Edge, 2024 \"Pro\"");
+        assertThat(record.get(header.indexOf("description"))).isEqualTo("First line\nsecond line");
+        assertThat(record.get(header.indexOf("usageTypes"))).isEqualTo("Gaming|Photography");
+        assertThat(record.get(header.indexOf("rating"))).isEmpty();
+        assertThat(record.get(header.indexOf("price"))).isEqualTo("499.0");
+    }
+
+    @Test
+    void csvFieldsAreQuotedOnlyWhenNeeded() throws IOException {
+        phoneService.createPhone(request("Edge, 2024 \"Pro\"", "Acme", "Plain description", List.of("Gaming")));
+
+        String csv = export(query("Acme"), PhoneExportService.Format.CSV, 2);
+
+        assertThat(csv).contains(",\"Edge, 2024 \"\"Pro\"\"\",Acme,Plain description,499.0,USD,Gaming,");
+    }
+
+    @Test
+    void csvTextThatStartsLikeAFormulaIsPrefixedWithAQuote() throws IOException {
+        PhoneRequest formula = request("=HYPERLINK(\"https://evil.example\",\"Edge\")", "Acme", "+1 camera", List.of("@Work", "Gaming"));
+        formula.setImageUrl("-image.jpg");
+        phoneService.createPhone(formula);
+
+        List<List<String>> records = parseCsv(export(query("Acme"), PhoneExportService.Format.CSV, 2));
+
+        List<String> header = records.get(0);
+        List<String> record = records.get(1);
+        assertThat(record.get(header.indexOf("name"))).isEqualTo("'=HYPERLINK(\"https://evil.example\",\"Edge\")");
+        assertThat(record.get(header.indexOf("description"))).isEqualTo("'+1 camera");
+        assertThat(record.get(header.indexOf("usageTypes"))).isEqualTo("'@Work|Gaming");
+        assertThat(record.get(header.indexOf("imageUrl"))).isEqualTo("'-image.jpg");
+        assertThat(record.get(header.indexOf("brand"))).isEqualTo("Acme");
+        assertThat(record.get(header.indexOf("price"))).isEqualTo("499.0");
+    }
+
+    @Test
+    void onlyTheFirstCharacterMakesAFormula() {
+        assertThat(PhoneExportService.defuseFormula("")).isEmpty();
+        assertThat(PhoneExportService.defuseFormula("Edge = Pro - Max")).isEqualTo("Edge = Pro - Max");
+        assertThat(PhoneExportService.defuseFormula("\tEdge")).isEqualTo("'\tEdge");
+        assertThat(PhoneExportService.defuseFormula("-1")).isEqualTo("'-1");
+    }
+
+    @Test
+    void everyMatchingPhoneIsExportedOnceAcrossChunks() throws IOException {
+        for (int i = 0; i < 9; i++) {
+            phoneService.createPhone(request("Export " + i, i % 3 == 0 ? "Other" : "Acme",
+                    "Exported phone " + i, List.of("Everyday")));
+        }
+
+        String ndjson = export(query("Acme"), PhoneExportService.Format.NDJSON, 2);
+
+        List<String> names = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            names.add(objectMapper.readValue(line, PhoneResponse.class).getName());
+        }
+        assertThat(names).containsExactlyInAnyOrder("Export 1", "Export 2", "Export 4", "Export 5", "Export 7", "Export 8");
+        assertThat(parseCsv(export(new PhoneQuery(), PhoneExportService.Format.CSV, 3)))
+                .hasSize(1 + phoneService.findAll().size());
+    }
+
+    private String export(PhoneQuery query, PhoneExportService.Format format, int chunkRows) throws IOException {
+        PhoneExportService exporter = new PhoneExportService();
+        ReflectionTestUtils.setField(exporter, "phoneService", phoneService);
+        ReflectionTestUtils.setField(exporter, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(exporter, "chunkRows", chunkRows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(query, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static PhoneQuery query(String brand) {
+        PhoneQuery query = new PhoneQuery();
+        query.setBrands(List.of(brand));
+        return query;
+    }
+
+    static PhoneRequest request(String name, String brand, String description, List<String> usageTypes) {
+        PhoneRequest request = new PhoneRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setDescription(description);
+        request.setPrice(499.0);
+        request.setCurrency("USD");
+        request.setUsageTypes(usageTypes);
+        request.setImageUrl("https://example.com/export.jpg");
+        request.setReleaseDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        request.setStorageGB(128);
+        request.setRamGB(8);
+        request.setBatteryCapacity(4500);
+        request.setScreenSize(6.1);
+        request.setCameraCount(3);
+        return request;
+    }
+
+    /** Reads RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks. */
+    private static List<List<String>> parseCsv(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        return records;
+    }
+}
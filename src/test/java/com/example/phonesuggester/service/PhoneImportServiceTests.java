@@ -0,0 +1,134 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.ImportError;
+import com.example.phonesuggester.dto.ImportResult;
+import com.example.phonesuggester.dto.PhoneRequest;
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.phonesuggester.service.InMemoryPhoneServicePagingTests.responses;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneImportServiceTests {
+
+    private final RecordingPhoneService phoneService = new RecordingPhoneService();
+
+    @Test
+    void validLinesAreStoredInBatchesAndInvalidOnesReported() {
+        PhoneImportService importer = importer(2, 2);
+        String body = String.join("\n",
+                line("Alpha One", 199),
+                "{\"name\": ",
+                line("Alpha Two", 299),
+                "",
+                line("Alpha Three", -1),
+                "null",
+                line("Alpha Four", 399),
+                line("Alpha Five", 499));
+
+        ImportResult result = importer.importNdjson(stream(body));
+
+        assertThat(result.getLinesRead()).isEqualTo(8);
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ImportError::getLine).containsExactly(2L, 5L);
+        assertThat(result.getErrors().get(0).getMessages()).singleElement().asString().startsWith("Malformed JSON");
+        assertThat(result.getErrors().get(1).getMessages()).singleElement().asString().startsWith("price");
+        assertThat(result.isErrorsTruncated()).isTrue();
+        assertThat(phoneService.batches).containsExactly(
+                List.of("Alpha One", "Alpha Two"), List.of("Alpha Four", "Alpha Five"));
+    }
+
+    @Test
+    void errorsAreNotTruncatedWithinTheCap() {
+        ImportResult result = importer(10, 5).importNdjson(stream(line("Alpha One", 199) + "\n[1, 2]\n"));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.isErrorsTruncated()).isFalse();
+    }
+
+    @Test
+    void aReadFailureStillStoresThePendingBatchOnce() {
+        PhoneImportService importer = importer(2, 10);
+        int before = phoneService.findAll().size();
+        String lines = line("Alpha One", 199) + "\n" + line("Alpha Two", 299) + "\n" + line("Alpha Three", 399) + "\n";
+        InputStream body = new SequenceInputStream(stream(lines), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> importer.importNdjson(body))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("line 4");
+
+        assertThat(phoneService.batches).containsExactly(List.of("Alpha One", "Alpha Two"), List.of("Alpha Three"));
+        assertThat(responses(phoneService.findAll())).extracting(PhoneResponse::getName)
+                .hasSize(before + 3)
+                .containsOnlyOnce("Alpha One", "Alpha Two", "Alpha Three");
+    }
+
+    @Test
+    void aBatchThatFailsToStoreIsNotStoredAgain() {
+        PhoneImportService importer = importer(2, 10);
+        phoneService.failingBatch = 2;
+        String body = line("Alpha One", 199) + "\n" + line("Alpha Two", 299) + "\n" + line("Alpha Three", 399) + "\n";
+
+        assertThatThrownBy(() -> importer.importNdjson(stream(body)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("store unavailable");
+
+        assertThat(phoneService.batches).containsExactly(List.of("Alpha One", "Alpha Two"), List.of("Alpha Three"));
+    }
+
+    private PhoneImportService importer(int batchSize, int maxReportedErrors) {
+        PhoneImportService importer = new PhoneImportService();
+        ReflectionTestUtils.setField(importer, "phoneService", phoneService);
+        ReflectionTestUtils.setField(importer, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(importer, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(importer, "maxReportedErrors", maxReportedErrors);
+        return importer;
+    }
+
+    private static String line(String name, double price) {
+        return "{\"name\":\"" + name + "\",\"brand\":\"Acme\",\"description\":\"A phone for the import test\","
+                + "\"price\":" + price + ",\"currency\":\"USD\",\"usageTypes\":[\"Everyday\"],"
+                + "\"imageUrl\":\"https://example.com/a.jpg\",\"releaseDate\":\"2024-01-01T12:00:00\","
+                + "\"storageGB\":128,\"ramGB\":8,\"batteryCapacity\":4500,\"screenSize\":6.1,"
+                + "\"cameraCount\":3,\"rating\":4.2}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class RecordingPhoneService extends InMemoryPhoneService {
+        private final List<List<String>> batches = new ArrayList<>();
+        private int failingBatch;
+
+        @Override
+        public int importPhones(List<PhoneRequest> phoneRequests) {
+            batches.add(phoneRequests.stream().map(PhoneRequest::getName).toList());
+            if (batches.size() == failingBatch) {
+                throw new IllegalStateException("store unavailable");
+            }
+            return super.importPhones(phoneRequests);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.phonesuggester.service;
+
+import com.example.phonesuggester.dto.PhoneResponse;
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.example.phonesuggester.service.InMemoryPhoneServicePagingTests.response;
+import static com.example.phonesuggester.service.InMemoryPhoneServicePagingTests.responses;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticCatalogGeneratorTests {
+
+    @Test
+    void theSameSeedGeneratesTheSameCatalog() {
+        List<Phone> first = new SyntheticCatalogGenerator(42).phones(500).toList();
+        List<Phone> second = new SyntheticCatalogGenerator(42).phones(500).toList();
+
+        assertThat(second).usingRecursiveFieldByFieldElementComparator().isEqualTo(first);
+        assertThat(new SyntheticCatalogGenerator(43).next().getId()).isNotEqualTo(first.get(0).getId());
+    }
+
+    @Test
+    void generatedPhonesAreCompleteAndPlausible() {
+        List<Phone> phones = new SyntheticCatalogGenerator(7).phones(5_000).toList();
+
+        assertThat(phones.stream().map(Phone::getId).collect(Collectors.toSet())).hasSize(phones.size());
+        assertThat(phones).allSatisfy(phone -> {
+            assertThat(phone.getName()).isNotBlank();
+            assertThat(phone.getDescription()).isNotBlank();
+            assertThat(phone.getPrice()).isGreaterThan(0);
+            assertThat(phone.getUsageTypes()).isNotEmpty().doesNotHaveDuplicates();
+            assertThat(phone.getRating()).isBetween(1.0, 5.0);
+            assertThat(phone.getCameraCount()).isBetween(1, 5);
+            assertThat(phone.getBatteryCapacity()).isGreaterThanOrEqualTo(2000);
+            assertThat(phone.getCreatedAt()).isAfterOrEqualTo(phone.getReleaseDate());
+        });
+    }
+
+    @Test
+    void brandsAreSkewedTowardsTheMostPopular() {
+        Map<String, Long> perBrand = new SyntheticCatalogGenerator(1).phones(20_000)
+                .collect(Collectors.groupingBy(Phone::getBrand, Collectors.counting()));
+
+        List<Long> counts = perBrand.values().stream().sorted().toList();
+        assertThat(counts.get(counts.size() - 1)).isGreaterThan(5 * counts.get(0));
+    }
+
+    @Test
+    void batchesLoadIntoTheServiceAndReplaceExistingIds() {
+        InMemoryPhoneService service = new InMemoryPhoneService();
+        int before = service.findAll().size();
+        List<Phone> phones = new SyntheticCatalogGenerator(3).phones(1_000).toList();
+
+        assertThat(service.createPhones(phones)).isEqualTo(1_000);
+        Phone replacement = new SyntheticCatalogGenerator(3).next();
+        replacement.setName("Replaced");
+        assertThat(service.createPhones(List.of(replacement))).isEqualTo(1);
+
+        assertThat(service.findAll()).hasSize(before + 1_000);
+        assertThat(service.findById(replacement.getId())).get()
+                .extracting(phone -> response(phone).getName()).isEqualTo("Replaced");
+        assertThat(responses(service.findAll()).stream().map(PhoneResponse::getId).collect(Collectors.toSet()))
+                .containsAll(phones.stream().map(Phone::getId).toList());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTests {
+
+    @Test
+    void keysIgnoreCaseAndPunctuation() {
+        assertThat(AutocompleteIndex.keyOf("  Galaxy-S24   ULTRA!")).isEqualTo("galaxy s24 ultra");
+        assertThat(AutocompleteIndex.keyOf("?!")).isEmpty();
+    }
+
+    @Test
+    void completesFromTheNameItsLaterWordsAndTheBrand() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        AutocompleteIndex index = store.register(new AutocompleteIndex());
+        int ultra = store.put(phone("p1", "Galaxy S24 Ultra", "Samsung", 1299.0, "Photography"));
+        int a15 = store.put(phone("p2", "Galaxy A15", "Samsung", 199.0, "Budget"));
+
+        assertThat(rows(index.complete("Galaxy S2", 10))).containsExactly(ultra);
+        assertThat(rows(index.complete("s24 ul", 10))).containsExactly(ultra);
+        assertThat(rows(index.complete("SAMSUNG galaxy a", 10))).containsExactly(a15);
+        // "gala" ends inside the label shared by both names, "galaxy " at the node it was split into
+        assertThat(rows(index.complete("gala", 10))).containsExactlyInAnyOrder(ultra, a15);
+        assertThat(rows(index.complete("galaxy ", 10))).containsExactlyInAnyOrder(ultra, a15);
+        assertThat(rows(index.complete("galaxy x", 10))).isEmpty();
+        assertThat(rows(index.complete("ultra s24", 10))).isEmpty();
+        assertThat(rows(index.complete("", 10))).isEmpty();
+    }
+
+    @Test
+    void ranksByRatingThenReviewsThenIdAndKeepsTheBestTen() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        AutocompleteIndex index = store.register(new AutocompleteIndex());
+        for (int i = 0; i < 15; i++) {
+            Phone phone = phone("p" + (char) ('a' + i), "Pixel " + i, "Google", 500.0, "Everyday");
+            phone.setRating(i == 14 ? null : (double) (i % 5));
+            phone.setReviewCount(i % 3);
+            store.put(phone);
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (int row : index.complete("pixel", 20)) {
+            ids.add(store.id(row));
+        }
+
+        assertThat(ids).containsExactly("pe", "pj", "pi", "pn", "pd", "pc", "ph", "pm", "pl", "pb");
+        assertThat(index.complete("pixel", 3)).hasSize(3);
+        assertThat(store.id(index.complete("pixel 14", 1)[0])).isEqualTo("po");
+    }
+
+    @Test
+    void forkedIndexDoesNotChangeTheParent() {
+        PhoneColumnStore parent = new PhoneColumnStore();
+        AutocompleteIndex parentIndex = parent.register(new AutocompleteIndex());
+        int ultra = parent.put(phone("p1", "Galaxy S24 Ultra", "Samsung", 1299.0, "Photography"));
+
+        PhoneColumnStore fork = parent.fork();
+        AutocompleteIndex forkIndex = (AutocompleteIndex) fork.index(parentIndex.snapshotName());
+        fork.remove("p1");
+        int flip = fork.put(phone("p2", "Galaxy Z Flip", "Samsung", 999.0, "Gaming"));
+
+        assertThat(rows(parentIndex.complete("galaxy", 10))).containsExactly(ultra);
+        assertThat(rows(forkIndex.complete("galaxy", 10))).containsExactly(flip);
+    }
+
+    @Test
+    void completionsAgreeWithRankingEveryMatchingPhone() {
+        String[] words = {"galaxy", "gala", "pixel", "pro", "max", "mini", "note", "nord", "s24", "s23"};
+        String[] brands = {"Samsung", "Google", "Galaxy", "Nokia"};
+        Random random = new Random(23);
+        PhoneColumnStore store = new PhoneColumnStore();
+        AutocompleteIndex index = store.register(new AutocompleteIndex());
+        for (int i = 0; i < 1500; i++) {
+            List<String> name = new ArrayList<>();
+            for (int w = 0; w < 1 + random.nextInt(3); w++) {
+                name.add(words[random.nextInt(words.length)]);
+            }
+            Phone phone = phone("p" + random.nextInt(400), String.join(" ", name), brands[random.nextInt(brands.length)], 100.0,
+                    "Everyday");
+            phone.setRating(random.nextInt(8) == 0 ? null : (double) random.nextInt(4));
+            phone.setReviewCount(random.nextInt(3));
+            store.put(phone);
+            if (random.nextInt(4) == 0) {
+                store.remove("p" + random.nextInt(400));
+            }
+        }
+
+        Comparator<Integer> ranking = Comparator
+                .comparingDouble((Integer row) -> Double.isNaN(store.rating(row)) ? Double.NEGATIVE_INFINITY : store.rating(row))
+                .reversed()
+                .thenComparing(row -> -store.reviewCount(row))
+                .thenComparing(store::id);
+        for (String prefix : List.of("g", "gal", "gala", "galaxy", "galaxy g", "s2", "s24 p", "pro m", "google", "samsung s",
+                "no", "nokia n", "max max", "x")) {
+            List<Integer> matching = new ArrayList<>();
+            store.forEachLiveRow(row -> {
+                if (completions(store, row).stream().anyMatch(key -> key.startsWith(prefix))) {
+                    matching.add(row);
+                }
+            });
+            matching.sort(ranking);
+            List<Integer> expected = matching.subList(0, Math.min(AutocompleteIndex.TOP_K, matching.size()));
+
+            assertThat(rows(index.complete(prefix, AutocompleteIndex.TOP_K))).as(prefix).isEqualTo(expected);
+        }
+    }
+
+    /** Every text the phone completes: its name from each word on, and its brand followed by its name unless the name starts with it. */
+    private static List<String> completions(PhoneColumnStore store, int row) {
+        List<String> name = TextIndex.tokenize(store.name(row));
+        List<String> completions = new ArrayList<>();
+        for (int i = 0; i < name.size(); i++) {
+            completions.add(String.join(" ", name.subList(i, name.size())));
+        }
+        String brand = AutocompleteIndex.keyOf(store.brand(row));
+        String fullName = String.join(" ", name);
+        if (!(fullName + " ").startsWith(brand + " ")) {
+            completions.add(brand + " " + fullName);
+        }
+        return completions;
+    }
+
+    private static List<Integer> rows(int[] rows) {
+        return Arrays.stream(rows).boxed().toList();
+    }
+}
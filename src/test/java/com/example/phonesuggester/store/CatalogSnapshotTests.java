@@ -0,0 +1,160 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static com.example.phonesuggester.store.RowBitmapTests.rows;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTests {
+
+    private static final String[] BRANDS = {"Samsung", "Google", "Apple", "OnePlus", "Sony"};
+    private static final String[] USAGE_TYPES = {"Gaming", "Photography", "Business", "Budget"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredStoreHasTheSameRowsAndIndexes() throws IOException {
+        PhoneColumnStore original = catalog();
+        TextIndex originalText = (TextIndex) original.index(TextIndex.class.getSimpleName());
+        Path path = directory.resolve("catalog.snapshot");
+
+        long written = CatalogSnapshot.write(original.freeze(), path);
+        PhoneColumnStore restored = new PhoneColumnStore();
+        TextIndex restoredText = restored.register(new TextIndex());
+        FacetIndex restoredFacets = restored.register(new FacetIndex());
+        SortedRowIndex restoredPrices = restored.register(byPrice());
+        long read = CatalogSnapshot.read(restored, path);
+
+        assertThat(read).isEqualTo(written);
+        assertThat(restored.size()).isEqualTo(original.size());
+        original.forEachLiveRow(row -> {
+            assertThat(restored.id(row)).isEqualTo(original.id(row));
+            assertThat(restored.toPhone(row)).usingRecursiveComparison().isEqualTo(original.toPhone(row));
+        });
+        assertThat(restored.rowOf("p-missing")).isNegative();
+        assertThat(TextIndexTests.rows(restoredText.search("model 1"))).isEqualTo(TextIndexTests.rows(originalText.search("model 1")));
+        FacetIndex originalFacets = (FacetIndex) original.index(restoredFacets.snapshotName());
+        int google = original.brandDictionary().codeOf("Google");
+        assertThat(rows(restoredFacets.brand(google))).isEqualTo(rows(originalFacets.brand(google)));
+        assertThat(rows(restoredFacets.fiveG())).isEqualTo(rows(originalFacets.fiveG()));
+        SortedRowIndex originalPrices = (SortedRowIndex) original.index(restoredPrices.snapshotName());
+        assertThat(positions(restoredPrices)).isEqualTo(positions(originalPrices));
+    }
+
+    @Test
+    void indexesMissingFromTheSnapshotAreRebuiltAndUnknownOnesSkipped() throws IOException {
+        PhoneColumnStore original = catalog();
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(original.freeze(), path);
+
+        PhoneColumnStore restored = new PhoneColumnStore();
+        FuzzyIndex fuzzy = restored.register(new FuzzyIndex());
+        CatalogSnapshot.read(restored, path);
+
+        List<Integer> expected = new ArrayList<>();
+        original.forEachLiveRow(row -> {
+            if (original.brand(row).equals("Samsung")) {
+                expected.add(row);
+            }
+        });
+        assertThat(TextIndexTests.rows(fuzzy.search("samsnug"))).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void filesThatAreNotSnapshotsAreRejectedBeforeTheStoreIsTouched() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        Files.write(path, new byte[] {1, 2, 3, 4, 0, 0, 0, 1});
+        PhoneColumnStore store = new PhoneColumnStore();
+        store.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+
+        assertThatThrownBy(() -> CatalogSnapshot.read(store, path)).isInstanceOf(IOException.class);
+        assertThat(store.rowOf("p1")).isZero();
+    }
+
+    @Test
+    void failedWriteKeepsThePreviousSnapshot() throws IOException {
+        PhoneColumnStore original = catalog();
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(original.freeze(), path);
+        byte[] before = Files.readAllBytes(path);
+
+        PhoneColumnStore broken = new PhoneColumnStore();
+        broken.register(new UnwritableIndex());
+        broken.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+
+        assertThatThrownBy(() -> CatalogSnapshot.write(broken.freeze(), path)).isInstanceOf(IOException.class);
+        assertThat(Files.readAllBytes(path)).isEqualTo(before);
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    private static PhoneColumnStore catalog() {
+        Random random = new Random(5);
+        PhoneColumnStore store = new PhoneColumnStore();
+        store.register(new TextIndex());
+        store.register(new FacetIndex());
+        store.register(new AutocompleteIndex());
+        store.register(byPrice());
+        for (int i = 0; i < 3000; i++) {
+            Phone phone = phone("p" + i, "Model " + i, BRANDS[random.nextInt(BRANDS.length)], 100.0 + random.nextInt(900),
+                    USAGE_TYPES[random.nextInt(USAGE_TYPES.length)], USAGE_TYPES[random.nextInt(USAGE_TYPES.length)]);
+            phone.setIs5G(random.nextBoolean());
+            phone.setRating(random.nextInt(10) == 0 ? null : random.nextDouble() * 5);
+            store.put(phone);
+        }
+        for (int i = 0; i < 3000; i += 7) {
+            store.remove("p" + i);
+        }
+        return store;
+    }
+
+    private static SortedRowIndex byPrice() {
+        return new SortedRowIndex(PhoneSortField.PRICE.property(), PhoneSortField.PRICE::comparator);
+    }
+
+    private static List<Integer> positions(SortedRowIndex index) {
+        List<Integer> rows = new ArrayList<>(index.size());
+        for (int position = 0; position < index.size(); position++) {
+            rows.add(index.rowAt(position));
+        }
+        return rows;
+    }
+
+    /** An index whose payload cannot be written, to fail a snapshot midway. */
+    private static final class UnwritableIndex implements RowIndex {
+        @Override
+        public RowIndex fork() {
+            return this;
+        }
+
+        @Override
+        public void add(PhoneColumnStore store, int row) {
+        }
+
+        @Override
+        public void remove(PhoneColumnStore store, int row) {
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public boolean writeSnapshot(SnapshotWriter out) throws IOException {
+            throw new IOException("Disk full");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static com.example.phonesuggester.store.RowBitmapTests.rows;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacetIndexTests {
+
+    @Test
+    void bitmapsListTheRowsOfEachFacetValue() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        FacetIndex index = store.register(new FacetIndex());
+        int galaxy = store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming", "Photography"));
+        int pixel = store.put(featuredPhone("p2", "Pixel 8", "Google", "Photography"));
+        int a15 = store.put(phone("p3", "Galaxy A15", "Samsung", 199.0, "Budget"));
+
+        assertThat(rows(index.brand(brandCode(store, "Samsung")))).containsExactly(galaxy, a15);
+        assertThat(rows(index.brand(brandCode(store, "Google")))).containsExactly(pixel);
+        assertThat(rows(index.usageType(usageTypeCode(store, "Photography")))).containsExactly(galaxy, pixel);
+        assertThat(rows(index.fiveG())).containsExactly(galaxy, a15);
+        assertThat(rows(index.waterResistant())).containsExactly(pixel);
+        assertThat(rows(index.wirelessCharging())).containsExactly(pixel);
+        assertThat(index.brand(1_000).isEmpty()).isTrue();
+    }
+
+    @Test
+    void overwrittenAndRemovedPhonesLeaveTheirBitmaps() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        FacetIndex index = store.register(new FacetIndex());
+        int row = store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        int other = store.put(phone("p2", "Galaxy A15", "Samsung", 199.0, "Budget"));
+
+        store.put(featuredPhone("p1", "Pixel 8", "Google", "Photography"));
+        assertThat(rows(index.brand(brandCode(store, "Samsung")))).containsExactly(other);
+        assertThat(rows(index.usageType(usageTypeCode(store, "Gaming")))).isEmpty();
+        assertThat(rows(index.brand(brandCode(store, "Google")))).containsExactly(row);
+        assertThat(rows(index.fiveG())).containsExactly(other);
+
+        store.remove("p1");
+        assertThat(rows(index.brand(brandCode(store, "Google")))).isEmpty();
+        assertThat(rows(index.waterResistant())).isEmpty();
+    }
+
+    @Test
+    void forkedIndexDoesNotChangeTheParent() {
+        PhoneColumnStore parent = new PhoneColumnStore();
+        FacetIndex parentIndex = parent.register(new FacetIndex());
+        int galaxy = parent.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        int pixel = parent.put(featuredPhone("p2", "Pixel 8", "Google", "Photography"));
+
+        PhoneColumnStore fork = parent.fork();
+        FacetIndex forkIndex = (FacetIndex) fork.index(parentIndex.snapshotName());
+        fork.remove("p2");
+        int a15 = fork.put(phone("p3", "Galaxy A15", "Samsung", 199.0, "Gaming"));
+
+        int samsung = brandCode(parent, "Samsung");
+        assertThat(rows(parentIndex.brand(samsung))).containsExactly(galaxy);
+        assertThat(rows(parentIndex.waterResistant())).containsExactly(pixel);
+        assertThat(rows(forkIndex.brand(samsung))).containsExactlyInAnyOrder(galaxy, a15);
+        assertThat(rows(forkIndex.waterResistant())).isEmpty();
+        assertThat(rows(forkIndex.usageType(usageTypeCode(fork, "Gaming")))).containsExactlyInAnyOrder(galaxy, a15);
+    }
+
+    private static Phone featuredPhone(String id, String name, String brand, String usageType) {
+        Phone phone = phone(id, name, brand, 699.0, usageType);
+        phone.setIs5G(false);
+        phone.setIsWaterResistant(true);
+        phone.setHasWirelessCharging(true);
+        return phone;
+    }
+
+    private static int brandCode(PhoneColumnStore store, String brand) {
+        return store.brandDictionary().codeOf(brand);
+    }
+
+    private static int usageTypeCode(PhoneColumnStore store, String usageType) {
+        return store.usageTypeDictionary().codeOf(usageType);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static com.example.phonesuggester.store.TextIndexTests.rows;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyIndexTests {
+
+    @Test
+    void longerTermsTolerateMoreEdits() {
+        assertThat(FuzzyIndex.maxEdits("ab")).isZero();
+        assertThat(FuzzyIndex.maxEdits("abc")).isEqualTo(1);
+        assertThat(FuzzyIndex.maxEdits("abcde")).isEqualTo(1);
+        assertThat(FuzzyIndex.maxEdits("abcdef")).isEqualTo(2);
+        // Only two distinct bigrams, too few to filter on with any edit allowed
+        assertThat(FuzzyIndex.maxEdits("aaaaaa")).isZero();
+    }
+
+    @Test
+    void prefixDistanceIsTheDistanceToTheClosestPrefix() {
+        assertThat(FuzzyIndex.prefixDistance("galxy", "galaxy", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.prefixDistance("gal", "galaxy", 1)).isZero();
+        assertThat(FuzzyIndex.prefixDistance("glx", "galaxy", 1)).isEqualTo(2);
+        assertThat(FuzzyIndex.prefixDistance("samsnug", "samsung", 2)).isEqualTo(2);
+        assertThat(FuzzyIndex.prefixDistance("pixel", "galaxy", 2)).isEqualTo(3);
+    }
+
+    @Test
+    void misspelledTermsMatchAndExactMatchesRankFirst() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        FuzzyIndex index = store.register(new FuzzyIndex());
+        int galaxy = store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        int galaxi = store.put(phone("p2", "Galaxi Phone", "Acme", 99.0, "Budget"));
+        int pixel = store.put(phone("p3", "Pixel 8", "Google", 699.0, "Photography"));
+
+        assertThat(rows(index.search("galaxi"))).containsExactly(galaxi, galaxy);
+        assertThat(rows(index.search("samsnug galxy"))).containsExactly(galaxy);
+        assertThat(rows(index.search("pixle"))).containsExactly(pixel);
+        assertThat(rows(index.search("pixel samsung"))).isEmpty();
+        assertThat(rows(index.search("zz"))).isEmpty();
+    }
+
+    @Test
+    void forkedIndexDoesNotChangeTheParent() {
+        PhoneColumnStore parent = new PhoneColumnStore();
+        FuzzyIndex parentIndex = parent.register(new FuzzyIndex());
+        int row = parent.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+
+        PhoneColumnStore fork = parent.fork();
+        FuzzyIndex forkIndex = (FuzzyIndex) fork.index(parentIndex.snapshotName());
+        fork.remove("p1");
+        fork.put(phone("p2", "Pixel 8", "Google", 699.0, "Photography"));
+
+        assertThat(rows(parentIndex.search("galxy"))).containsExactly(row);
+        assertThat(rows(parentIndex.search("pixle"))).isEmpty();
+        assertThat(rows(forkIndex.search("galxy"))).isEmpty();
+        assertThat(rows(forkIndex.search("pixle"))).containsExactly(fork.rowOf("p2"));
+    }
+
+    @Test
+    void bigramFilterKeepsEveryTermWithinTheEditDistance() {
+        String[] words = {"galaxy", "galaxi", "gallery", "pixel", "pixies", "nord", "note", "notebook", "ultra", "ultimate",
+                "samsung", "sansung", "mini", "maxi", "max"};
+        Random random = new Random(29);
+        PhoneColumnStore store = new PhoneColumnStore();
+        FuzzyIndex index = store.register(new FuzzyIndex());
+        for (int i = 0; i < 400; i++) {
+            store.put(phone("p" + random.nextInt(150), words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    words[random.nextInt(words.length)], 100.0, "Everyday"));
+            if (random.nextInt(5) == 0) {
+                store.remove("p" + random.nextInt(150));
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            String query = typo(words[random.nextInt(words.length)], random);
+            if (random.nextBoolean()) {
+                query += " " + typo(words[random.nextInt(words.length)], random);
+            }
+            Set<Integer> expected = new TreeSet<>();
+            String searched = query;
+            store.forEachLiveRow(row -> {
+                List<String> terms = new ArrayList<>(TextIndex.tokenize(store.name(row)));
+                terms.addAll(TextIndex.tokenize(store.brand(row)));
+                boolean all = TextIndex.tokenize(searched).stream().allMatch(queryTerm -> terms.stream().anyMatch(term ->
+                        FuzzyIndex.prefixDistance(queryTerm, term, FuzzyIndex.maxEdits(queryTerm)) <= FuzzyIndex.maxEdits(queryTerm)));
+                if (all) {
+                    expected.add(row);
+                }
+            });
+            assertThat(new TreeSet<>(rows(index.search(query)))).as(query).isEqualTo(expected);
+        }
+    }
+
+    /** The word with up to two random characters substituted, inserted or deleted, and maybe truncated. */
+    private static String typo(String word, Random random) {
+        StringBuilder typo = new StringBuilder(word);
+        for (int edit = random.nextInt(3); edit > 0 && typo.length() > 1; edit--) {
+            int position = random.nextInt(typo.length());
+            char letter = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0 -> typo.setCharAt(position, letter);
+                case 1 -> typo.insert(position, letter);
+                default -> typo.deleteCharAt(position);
+            }
+        }
+        if (random.nextInt(4) == 0 && typo.length() > 3) {
+            typo.setLength(3 + random.nextInt(typo.length() - 3));
+        }
+        return typo.toString();
+    }
+}
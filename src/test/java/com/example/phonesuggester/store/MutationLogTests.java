@@ -0,0 +1,222 @@
+package com.example.phonesuggester.store;
+
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MutationLogTests {
+
+    private static final Duration SYNC_INTERVAL = Duration.ofMillis(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoveryReplaysEveryLoggedMutation() throws IOException {
+        PhoneColumnStore original = new PhoneColumnStore();
+        MutationLog log = open(1 << 20);
+        log.recover(original);
+        original.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+        original.put(phone("p2", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        original.put(phone("p1", "Pixel 8 Pro", "Google", 999.0, "Photography"));
+        original.remove("p2");
+        log.awaitDurable();
+        log.close();
+
+        PhoneColumnStore recovered = new PhoneColumnStore();
+        MutationLog reopened = open(1 << 20);
+
+        assertThat(reopened.recover(recovered)).isEqualTo(4);
+        reopened.close();
+        assertThat(recovered.version()).isEqualTo(original.version());
+        assertThat(recovered.size()).isEqualTo(1);
+        assertThat(recovered.toPhone(recovered.rowOf("p1"))).usingRecursiveComparison()
+                .isEqualTo(original.toPhone(original.rowOf("p1")));
+        assertThat(recovered.rowOf("p2")).isNegative();
+    }
+
+    @Test
+    void tornRecordAtTheEndIsCutOffAndLaterWritesReplay() throws IOException {
+        PhoneColumnStore original = new PhoneColumnStore();
+        MutationLog log = open(1 << 20);
+        log.recover(original);
+        original.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+        original.put(phone("p2", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        log.close();
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        // Length and checksum of a record whose body never made it to disk
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 0, 0}, StandardOpenOption.APPEND);
+
+        PhoneColumnStore recovered = new PhoneColumnStore();
+        MutationLog reopened = open(1 << 20);
+        assertThat(reopened.recover(recovered)).isEqualTo(2);
+        assertThat(Files.size(segment)).isEqualTo(intact);
+        recovered.put(phone("p3", "Nord 3", "OnePlus", 399.0, "Budget"));
+        reopened.close();
+
+        PhoneColumnStore again = new PhoneColumnStore();
+        MutationLog last = open(1 << 20);
+        assertThat(last.recover(again)).isEqualTo(3);
+        last.close();
+        assertThat(again.rowOf("p3")).isNotNegative();
+    }
+
+    @Test
+    void recordWithABadChecksumInAnEarlierSegmentFailsRecovery() throws IOException {
+        PhoneColumnStore original = new PhoneColumnStore();
+        MutationLog log = open(1);
+        log.recover(original);
+        for (int i = 0; i < 3; i++) {
+            original.put(phone("p" + i, "Model " + i, "Acme", 100.0, "Budget"));
+            log.awaitDurable();
+        }
+        log.close();
+        List<Path> segments = segments();
+        assertThat(segments).hasSizeGreaterThan(1);
+        byte[] bytes = Files.readAllBytes(segments.get(0));
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segments.get(0), bytes);
+
+        MutationLog reopened = open(1);
+        assertThatThrownBy(() -> reopened.recover(new PhoneColumnStore()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("corrupt");
+    }
+
+    @Test
+    void recoveryOnASnapshotReplaysOnlyLaterMutations() throws IOException {
+        PhoneColumnStore original = new PhoneColumnStore();
+        MutationLog log = open(1);
+        log.recover(original);
+        for (int i = 0; i < 4; i++) {
+            original.put(phone("p" + i, "Model " + i, "Acme", 100.0, "Budget"));
+            log.awaitDurable();
+        }
+        PhoneColumnStore published = original.fork();
+        Path snapshot = directory.resolve("catalog.snapshot");
+        long snapshotVersion = CatalogSnapshot.write(original, snapshot);
+        published.remove("p0");
+        published.put(phone("p4", "Model 4", "Acme", 100.0, "Budget"));
+        log.awaitDurable();
+        assertThat(log.truncateThrough(snapshotVersion)).isPositive();
+        log.close();
+
+        PhoneColumnStore recovered = new PhoneColumnStore();
+        CatalogSnapshot.read(recovered, snapshot);
+        MutationLog reopened = open(1);
+
+        assertThat(reopened.recover(recovered)).isEqualTo(2);
+        reopened.close();
+        assertThat(recovered.version()).isEqualTo(published.version());
+        assertThat(recovered.rowOf("p0")).isNegative();
+        assertThat(recovered.rowOf("p4")).isNotNegative();
+    }
+
+    @Test
+    void rolledBackRecordsAreNeverWrittenAndTheirVersionsAreReused() throws IOException {
+        PhoneColumnStore original = new PhoneColumnStore();
+        MutationLog log = open(1 << 20);
+        log.recover(original);
+        original.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+
+        PhoneColumnStore discarded = original.fork();
+        log.begin();
+        discarded.put(phone("p2", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        discarded.remove("p1");
+        log.rollback();
+
+        PhoneColumnStore published = original.fork();
+        log.begin();
+        published.put(phone("p3", "Nord 3", "OnePlus", 399.0, "Budget"));
+        log.commit();
+        log.awaitDurable();
+        log.close();
+
+        PhoneColumnStore recovered = new PhoneColumnStore();
+        MutationLog reopened = open(1 << 20);
+        assertThat(reopened.recover(recovered)).isEqualTo(2);
+        reopened.close();
+        assertThat(recovered.version()).isEqualTo(published.version());
+        assertThat(recovered.rowOf("p1")).isNotNegative();
+        assertThat(recovered.rowOf("p2")).isNegative();
+        assertThat(recovered.rowOf("p3")).isNotNegative();
+    }
+
+    @Test
+    void waitingForASyncDoesNotPinVirtualThreads() throws Exception {
+        PhoneColumnStore store = new PhoneColumnStore();
+        MutationLog log = open(1 << 20);
+        log.recover(store);
+        ReentrantLock storeLock = new ReentrantLock();
+        Object monitor = new Object();
+        List<String> pinnedIn = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedIn.add(String.valueOf(event.getStackTrace())));
+            recording.startAsync();
+
+            try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 50; i++) {
+                    String id = "p" + i;
+                    writers.submit(() -> {
+                        storeLock.lock();
+                        try {
+                            store.put(phone(id, "Model " + id, "Acme", 100.0, "Budget"));
+                        } finally {
+                            storeLock.unlock();
+                        }
+                        log.awaitDurable();
+                    });
+                }
+                // A deliberate pin, so the recording is known to be working
+                writers.submit(() -> {
+                    synchronized (monitor) {
+                        Thread.sleep(20);
+                    }
+                    return null;
+                });
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (pinnedIn.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+        log.close();
+
+        assertThat(pinnedIn).isNotEmpty().noneMatch(stack -> stack.contains("store.MutationLog."));
+        assertThat(store.size()).isEqualTo(50);
+    }
+
+    private MutationLog open(long segmentBytes) throws IOException {
+        return MutationLog.open(directory, segmentBytes, MutationLog.Durability.FSYNC, SYNC_INTERVAL);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneColumnStoreTests {
+
+    @Test
+    void storedPhoneReadsBackFieldByField() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        Phone phone = phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming", "Photography");
+        phone.setRating(null);
+
+        int row = store.put(phone);
+
+        assertThat(store.rowOf("p1")).isEqualTo(row);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.name(row)).isEqualTo("Galaxy S24");
+        assertThat(store.brand(row)).isEqualTo("Samsung");
+        assertThat(store.price(row)).isEqualTo(899.0);
+        assertThat(store.usageTypes(row)).containsExactly("Gaming", "Photography");
+        assertThat(store.is5G(row)).isTrue();
+        assertThat(store.rating(row)).isNaN();
+        Phone read = store.toPhone(row);
+        assertThat(read.getRating()).isNull();
+        assertThat(read.getReleaseDate()).isEqualTo(phone.getReleaseDate());
+        assertThat(read.getUsageTypes()).isEqualTo(phone.getUsageTypes());
+    }
+
+    @Test
+    void putWithKnownIdOverwritesItsRow() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        int row = store.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+
+        Phone updated = phone("p1", "Pixel 8 Pro", "Google", 999.0, "Photography");
+        assertThat(store.put(updated)).isEqualTo(row);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.name(row)).isEqualTo("Pixel 8 Pro");
+        assertThat(store.usageTypes(row)).containsExactly("Photography");
+    }
+
+    @Test
+    void removedRowsAreReused() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        store.put(phone("p1", "Pixel 8", "Google", 699.0, "Everyday"));
+        int removedRow = store.put(phone("p2", "iPhone 15", "Apple", 799.0, "Business"));
+
+        assertThat(store.remove("p2")).isTrue();
+        assertThat(store.remove("p2")).isFalse();
+        assertThat(store.rowOf("p2")).isNegative();
+        assertThat(store.isLive(removedRow)).isFalse();
+        assertThat(store.size()).isEqualTo(1);
+
+        assertThat(store.put(phone("p3", "Nord 3", "OnePlus", 399.0, "Budget"))).isEqualTo(removedRow);
+        assertThat(liveIds(store)).containsExactlyInAnyOrder("p1", "p3");
+    }
+
+    @Test
+    void forkLeavesTheFrozenParentUnchanged() {
+        PhoneColumnStore parent = new PhoneColumnStore();
+        for (int i = 0; i < 5000; i++) {
+            parent.put(phone("p" + i, "Model " + i, i % 2 == 0 ? "Samsung" : "Apple", 100.0 + i, "Everyday"));
+        }
+
+        PhoneColumnStore fork = parent.fork();
+        fork.put(phone("p1", "Renamed", "Nokia", 1.0, "Budget"));
+        fork.remove("p4000");
+        fork.put(phone("new", "New", "Sony", 500.0, "Gaming"));
+
+        assertThat(parent.name(parent.rowOf("p1"))).isEqualTo("Model 1");
+        assertThat(parent.brand(parent.rowOf("p1"))).isEqualTo("Apple");
+        assertThat(parent.rowOf("p4000")).isNotNegative();
+        assertThat(parent.rowOf("new")).isNegative();
+        assertThat(parent.size()).isEqualTo(5000);
+        assertThat(fork.name(fork.rowOf("p1"))).isEqualTo("Renamed");
+        assertThat(fork.size()).isEqualTo(5000);
+        assertThatThrownBy(() -> parent.put(phone("x", "X", "X", 1.0, "Budget"))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void brandAndUsageTypeFragmentsMatchIgnoringCase() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        store.put(phone("p2", "Pixel 8", "Google", 699.0, "Photography", "Gaming"));
+        store.put(phone("p3", "iPhone 15", "Apple", 799.0, "Business"));
+
+        List<String> brandMatches = new ArrayList<>();
+        store.forEachRowWithBrandLike("SUNG", row -> brandMatches.add(store.id(row)));
+        List<String> typeMatches = new ArrayList<>();
+        store.forEachRowWithUsageTypeLike("gam", row -> typeMatches.add(store.id(row)));
+
+        assertThat(brandMatches).containsExactly("p1");
+        assertThat(typeMatches).containsExactlyInAnyOrder("p1", "p2");
+    }
+
+    private static List<String> liveIds(PhoneColumnStore store) {
+        List<String> ids = new ArrayList<>();
+        store.forEachLiveRow(row -> ids.add(store.id(row)));
+        return ids;
+    }
+
+    static Phone phone(String id, String name, String brand, double price, String... usageTypes) {
+        Phone phone = new Phone();
+        phone.setId(id);
+        phone.setName(name);
+        phone.setBrand(brand);
+        phone.setDescription(name + " by " + brand);
+        phone.setPrice(price);
+        phone.setCurrency("USD");
+        phone.setUsageTypes(List.of(usageTypes));
+        phone.setImageUrl("https://example.com/" + id + ".jpg");
+        phone.setReleaseDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        phone.setStorageGB(128);
+        phone.setRamGB(8);
+        phone.setBatteryCapacity(4500);
+        phone.setScreenSize(6.1);
+        phone.setCameraCount(3);
+        phone.setIs5G(true);
+        phone.setIsWaterResistant(false);
+        phone.setHasWirelessCharging(false);
+        phone.setRating(4.0);
+        phone.setReviewCount(10);
+        phone.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        phone.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return phone;
+    }
+}
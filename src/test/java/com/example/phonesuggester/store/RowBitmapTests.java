@@ -0,0 +1,113 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowBitmapTests {
+
+    @Test
+    void addAndRemoveReportChanges() {
+        RowBitmap bitmap = new RowBitmap();
+
+        assertThat(bitmap.add(5)).isTrue();
+        assertThat(bitmap.add(5)).isFalse();
+        assertThat(bitmap.add(70_000)).isTrue();
+        assertThat(bitmap.contains(5)).isTrue();
+        assertThat(bitmap.contains(6)).isFalse();
+        assertThat(bitmap.cardinality()).isEqualTo(2);
+
+        assertThat(bitmap.remove(5)).isTrue();
+        assertThat(bitmap.remove(5)).isFalse();
+        assertThat(rows(bitmap)).containsExactly(70_000);
+
+        bitmap.clear();
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void agreesWithASortedSetAcrossDenseAndSparseChunks() {
+        Random random = new Random(11);
+        RowBitmap bitmap = new RowBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 60_000; i++) {
+            // Mostly the first chunk, so it grows past the array limit and shrinks back below it
+            int row = random.nextInt(4) == 0 ? random.nextInt(300_000) : random.nextInt(9_000);
+            boolean add = i < 30_000 ? random.nextInt(4) != 0 : random.nextInt(4) == 0;
+            if (add) {
+                assertThat(bitmap.add(row)).isEqualTo(expected.add(row));
+            } else {
+                assertThat(bitmap.remove(row)).isEqualTo(expected.remove(row));
+            }
+            if (i % 10_000 == 0) {
+                assertThat(rows(bitmap)).isEqualTo(new ArrayList<>(expected));
+            }
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(rows(bitmap)).isEqualTo(new ArrayList<>(expected));
+    }
+
+    @Test
+    void unionAndIntersectionMatchSetOperations() {
+        Random random = new Random(3);
+        List<RowBitmap> bitmaps = new ArrayList<>();
+        List<TreeSet<Integer>> sets = new ArrayList<>();
+        for (int b = 0; b < 3; b++) {
+            RowBitmap bitmap = new RowBitmap();
+            TreeSet<Integer> set = new TreeSet<>();
+            // The first is dense in chunk 0, the others sparse, so both container kinds are combined
+            int count = b == 0 ? 20_000 : 3_000;
+            for (int i = 0; i < count; i++) {
+                int row = random.nextInt(b == 0 ? 40_000 : 140_000);
+                bitmap.add(row);
+                set.add(row);
+            }
+            bitmaps.add(bitmap);
+            sets.add(set);
+        }
+
+        TreeSet<Integer> union = new TreeSet<>();
+        sets.forEach(union::addAll);
+        TreeSet<Integer> intersection = new TreeSet<>(sets.get(0));
+        sets.forEach(intersection::retainAll);
+        List<Integer> intersected = new ArrayList<>();
+        RowBitmap.forEachIntersection(bitmaps, intersected::add);
+
+        assertThat(rows(RowBitmap.union(bitmaps))).isEqualTo(new ArrayList<>(union));
+        assertThat(intersected).isEqualTo(new ArrayList<>(intersection));
+        assertThat(RowBitmap.intersectionCardinality(bitmaps)).isEqualTo(intersection.size());
+        assertThat(RowBitmap.intersectionCardinality(List.of(bitmaps.get(1), new RowBitmap()))).isZero();
+    }
+
+    @Test
+    void forkDoesNotSeeLaterChangesAndNeitherDoesTheOriginal() {
+        RowBitmap original = new RowBitmap();
+        for (int row = 0; row < 5_000; row++) {
+            original.add(row * 3);
+        }
+
+        RowBitmap fork = original.fork();
+        fork.remove(0);
+        fork.add(1);
+        original.add(2);
+
+        assertThat(original.contains(0)).isTrue();
+        assertThat(original.contains(1)).isFalse();
+        assertThat(fork.contains(0)).isFalse();
+        assertThat(fork.contains(1)).isTrue();
+        assertThat(fork.contains(2)).isFalse();
+        assertThat(original.cardinality()).isEqualTo(5_001);
+        assertThat(fork.cardinality()).isEqualTo(5_000);
+    }
+
+    static List<Integer> rows(RowBitmap bitmap) {
+        List<Integer> rows = new ArrayList<>();
+        bitmap.forEach(rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowListTests {
+
+    @Test
+    void insertsAndRemovesAgreeWithAnArrayListAcrossChunks() {
+        Random random = new Random(13);
+        RowList list = new RowList(true);
+        List<Entry> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            mutate(list, expected, random, i < 12_000 ? 3 : 1);
+        }
+
+        assertThat(list.chunkCount()).isGreaterThan(1);
+        assertSame(list, expected);
+    }
+
+    @Test
+    void everyForkKeepsItsOwnEntries() {
+        Random random = new Random(17);
+        List<RowList> versions = new ArrayList<>();
+        List<List<Entry>> expectedVersions = new ArrayList<>();
+        RowList list = new RowList(true);
+        List<Entry> expected = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            mutate(list, expected, random, 1);
+        }
+        for (int generation = 0; generation < 20; generation++) {
+            versions.add(list);
+            expectedVersions.add(List.copyOf(expected));
+            list = list.fork();
+            expected = new ArrayList<>(expected);
+            // A few writes touch a few chunks; the rest stay shared with the previous version
+            for (int i = 0; i < 1 + random.nextInt(40); i++) {
+                mutate(list, expected, random, 2);
+            }
+        }
+
+        assertSame(list, expected);
+        for (int version = 0; version < versions.size(); version++) {
+            assertSame(versions.get(version), expectedVersions.get(version));
+        }
+    }
+
+    @Test
+    void rowOrderedListFindsRowsAndBounds() {
+        Random random = new Random(19);
+        RowList list = new RowList(false);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            int row = random.nextInt(10_000);
+            int position = list.positionOf(row);
+            if (position < 0) {
+                list.insert(-position - 1, row, 0f);
+                expected.add(-position - 1, row);
+            } else {
+                list.remove(position);
+                expected.remove(position);
+            }
+        }
+
+        assertThat(expected).isSorted();
+        for (int row = 0; row < 10_000; row += 37) {
+            int target = row;
+            int lower = (int) expected.stream().filter(candidate -> candidate < target).count();
+            int upper = (int) expected.stream().filter(candidate -> candidate <= target).count();
+            assertThat(list.lowerBound(candidate -> Integer.compare(candidate, target))).isEqualTo(lower);
+            assertThat(list.upperBound(candidate -> Integer.compare(candidate, target))).isEqualTo(upper);
+            assertThat(list.positionOf(target)).isEqualTo(expected.contains(target) ? lower : -lower - 1);
+        }
+        List<Integer> slice = new ArrayList<>();
+        list.forEach(100, 1_300, slice::add);
+        assertThat(slice).isEqualTo(expected.subList(100, 1_300));
+    }
+
+    /** Inserts, removes or reweighs a random position, inserting {@code insertBias} times as often as the others. */
+    private static void mutate(RowList list, List<Entry> expected, Random random, int insertBias) {
+        int action = random.nextInt(insertBias + 2);
+        if (expected.isEmpty() || action < insertBias) {
+            int position = random.nextInt(expected.size() + 1);
+            Entry entry = new Entry(random.nextInt(1_000_000), random.nextFloat());
+            list.insert(position, entry.row(), entry.weight());
+            expected.add(position, entry);
+        } else if (action == insertBias) {
+            int position = random.nextInt(expected.size());
+            list.remove(position);
+            expected.remove(position);
+        } else {
+            int position = random.nextInt(expected.size());
+            float weight = random.nextFloat();
+            list.setWeight(position, weight);
+            expected.set(position, new Entry(expected.get(position).row(), weight));
+        }
+    }
+
+    private static void assertSame(RowList list, List<Entry> expected) {
+        List<Entry> actual = new ArrayList<>(list.size());
+        for (int chunk = 0; chunk < list.chunkCount(); chunk++) {
+            assertThat(list.chunkSize(chunk)).isBetween(1, 512);
+            for (int i = 0; i < list.chunkSize(chunk); i++) {
+                actual.add(new Entry(list.chunkRows(chunk)[i], list.chunkWeights(chunk)[i]));
+            }
+        }
+        assertThat(list.size()).isEqualTo(expected.size());
+        assertThat(actual).isEqualTo(expected);
+        for (int position = 0; position < expected.size(); position += 97) {
+            assertThat(list.get(position)).isEqualTo(expected.get(position).row());
+        }
+    }
+
+    private record Entry(int row, float weight) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedRowIndexTests {
+
+    @Test
+    void rowsStaySortedByPriceThenIdThroughWrites() {
+        Random random = new Random(31);
+        PhoneColumnStore store = new PhoneColumnStore();
+        SortedRowIndex index = store.register(new SortedRowIndex(PhoneSortField.PRICE.property(), PhoneSortField.PRICE::comparator));
+        for (int i = 0; i < 2000; i++) {
+            store.put(phone("p" + random.nextInt(500), "Model", "Acme", 100 + random.nextInt(50), "Budget"));
+            if (random.nextInt(4) == 0) {
+                store.remove("p" + random.nextInt(500));
+            }
+        }
+
+        assertThat(positions(index)).isEqualTo(sortedByPrice(store));
+    }
+
+    @Test
+    void priceRangeIsTheSliceBetweenTheBounds() {
+        Random random = new Random(37);
+        PhoneColumnStore store = new PhoneColumnStore();
+        SortedRowIndex index = store.register(new SortedRowIndex(PhoneSortField.PRICE.property(), PhoneSortField.PRICE::comparator));
+        for (int i = 0; i < 500; i++) {
+            store.put(phone("p" + i, "Model", "Acme", 10 * random.nextInt(100), "Budget"));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            double min = 10 * random.nextInt(100);
+            double max = min + 10 * random.nextInt(30);
+            int from = index.lowerBound(row -> Double.compare(store.price(row), min));
+            int to = index.upperBound(row -> Double.compare(store.price(row), max));
+            List<Integer> slice = new ArrayList<>();
+            index.forEachInRange(from, to, slice::add);
+
+            List<Integer> expected = sortedByPrice(store).stream()
+                    .filter(row -> store.price(row) >= min && store.price(row) <= max)
+                    .toList();
+            assertThat(slice).as("%s..%s", min, max).isEqualTo(expected);
+        }
+    }
+
+    private static List<Integer> sortedByPrice(PhoneColumnStore store) {
+        List<Integer> rows = new ArrayList<>();
+        store.forEachLiveRow(rows::add);
+        rows.sort(Comparator.comparingDouble((Integer row) -> store.price(row)).thenComparing(store::id));
+        return rows;
+    }
+
+    private static List<Integer> positions(SortedRowIndex index) {
+        List<Integer> rows = new ArrayList<>(index.size());
+        for (int position = 0; position < index.size(); position++) {
+            rows.add(index.rowAt(position));
+        }
+        return rows;
+    }
+}
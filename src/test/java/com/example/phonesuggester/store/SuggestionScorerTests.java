@@ -0,0 +1,147 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.dto.SuggestionRequest;
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionScorerTests {
+
+    @Test
+    void ranksASmallCatalogLikeScoringEveryPhone() {
+        List<Phone> phones = new ArrayList<>();
+        phones.add(phone("cheap", "Nord", "OnePlus", 300, "Budget"));
+        phones.add(phone("gamer", "ROG", "Asus", 900, "Gaming"));
+        phones.add(phone("camera", "Pixel", "Google", 700, "Photography"));
+        phones.add(phone("over", "Fold", "Samsung", 1800, "Business"));
+        phones.get(1).setRamGB(16);
+        phones.get(1).setBatteryCapacity(6000);
+        phones.get(2).setCameraCount(4);
+        phones.get(2).setRating(null);
+
+        SuggestionRequest request = request(1000, 3, "gam", "photo");
+        PhoneColumnStore store = store(phones);
+        SuggestionScorer.Result result = new SuggestionScorer(store, request).score();
+
+        assertThat(ranked(store, result)).isEqualTo(reference(phones, request));
+        assertThat(result.candidates()).isEqualTo(3);
+    }
+
+    @Test
+    void equalScoresKeepTheEarlierPhoneFirst() {
+        List<Phone> phones = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            phones.add(phone("p" + i, "Twin " + i, "Acme", 500, "Everyday"));
+        }
+
+        SuggestionRequest request = request(800, 4);
+        PhoneColumnStore store = store(phones);
+
+        assertThat(ranked(store, new SuggestionScorer(store, request).score()))
+                .containsExactly("p0", "p1", "p2", "p3");
+    }
+
+    @Test
+    void parallelScoringMatchesScoringEveryPhone() {
+        Random random = new Random(8);
+        String[] usageTypes = {"Gaming", "Photography", "Business", "Budget"};
+        List<Phone> phones = new ArrayList<>();
+        // Above the parallel threshold, with coarse specs so many scores tie across partitions
+        for (int i = 0; i < 60_000; i++) {
+            Phone phone = phone("p" + i, "Phone " + i, "Brand" + random.nextInt(8),
+                    100 * (1 + random.nextInt(15)), usageTypes[random.nextInt(usageTypes.length)]);
+            phone.setCameraCount(1 + random.nextInt(4));
+            phone.setRamGB(4 * (1 + random.nextInt(4)));
+            phone.setBatteryCapacity(1000 * (3 + random.nextInt(4)));
+            phone.setRating(random.nextInt(5) == 0 ? null : (double) random.nextInt(6));
+            phones.add(phone);
+        }
+
+        SuggestionRequest request = request(900, 50, "gaming");
+        request.setPriceWeight(0.5);
+        request.setRatingWeight(2.0);
+        PhoneColumnStore store = store(phones);
+        SuggestionScorer.Result result = new SuggestionScorer(store, request).score();
+
+        assertThat(ranked(store, result)).isEqualTo(reference(phones, request));
+        assertThat(result.candidates()).isEqualTo((int) phones.stream().filter(p -> p.getPrice() <= 900).count());
+    }
+
+    private static SuggestionRequest request(double budget, int limit, String... usageTypes) {
+        SuggestionRequest request = new SuggestionRequest();
+        request.setBudget(budget);
+        request.setLimit(limit);
+        request.setUsageTypes(List.of(usageTypes));
+        return request;
+    }
+
+    private static PhoneColumnStore store(List<Phone> phones) {
+        PhoneColumnStore store = new PhoneColumnStore();
+        phones.forEach(store::put);
+        return store;
+    }
+
+    private static List<String> ranked(PhoneColumnStore store, SuggestionScorer.Result result) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < result.topK().size(); i++) {
+            ids.add(store.id(result.topK().row(i)));
+        }
+        return ids;
+    }
+
+    /** Scores every phone within budget the straightforward way, sorts them all and keeps the first {@code limit}. */
+    private static List<String> reference(List<Phone> phones, SuggestionRequest request) {
+        double maxCamera = 1;
+        double maxBattery = 1;
+        double maxRam = 1;
+        for (Phone phone : phones) {
+            maxCamera = Math.max(maxCamera, phone.getCameraCount());
+            maxBattery = Math.max(maxBattery, phone.getBatteryCapacity());
+            maxRam = Math.max(maxRam, phone.getRamGB());
+        }
+        List<String> preferred = request.getUsageTypes();
+        double usageWeight = preferred.isEmpty() ? 0 : weight(request.getUsageTypeWeight());
+        double total = weight(request.getCameraWeight()) + weight(request.getBatteryWeight())
+                + weight(request.getRamWeight()) + weight(request.getRatingWeight())
+                + weight(request.getPriceWeight()) + usageWeight;
+
+        List<double[]> scored = new ArrayList<>();
+        for (int i = 0; i < phones.size(); i++) {
+            Phone phone = phones.get(i);
+            if (phone.getPrice() > request.getBudget()) {
+                continue;
+            }
+            double score = weight(request.getCameraWeight()) * Math.min(1.0, phone.getCameraCount() / maxCamera)
+                    + weight(request.getBatteryWeight()) * Math.min(1.0, phone.getBatteryCapacity() / maxBattery)
+                    + weight(request.getRamWeight()) * Math.min(1.0, phone.getRamGB() / maxRam)
+                    + weight(request.getPriceWeight()) * (1 - phone.getPrice() / request.getBudget());
+            if (phone.getRating() != null) {
+                score += weight(request.getRatingWeight()) * phone.getRating() / 5.0;
+            }
+            if (usageWeight > 0) {
+                long matched = preferred.stream()
+                        .filter(type -> phone.getUsageTypes().stream()
+                                .anyMatch(own -> own.toLowerCase().contains(type.toLowerCase())))
+                        .count();
+                score += usageWeight * ((double) matched / preferred.size());
+            }
+            scored.add(new double[] {score / total, i});
+        }
+        return scored.stream()
+                .sorted(Comparator.<double[]>comparingDouble(s -> -s[0]).thenComparingDouble(s -> s[1]))
+                .limit(request.getLimit())
+                .map(s -> phones.get((int) s[1]).getId())
+                .toList();
+    }
+
+    private static double weight(Double weight) {
+        return weight == null ? 1.0 : weight;
+    }
+}
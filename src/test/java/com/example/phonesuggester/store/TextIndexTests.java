@@ -0,0 +1,131 @@
+package com.example.phonesuggester.store;
+
+import com.example.phonesuggester.model.Phone;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.example.phonesuggester.store.PhoneColumnStoreTests.phone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextIndexTests {
+
+    @Test
+    void tokenizeLowerCasesAndSplitsOnPunctuation() {
+        assertThat(TextIndex.tokenize("Galaxy S24-Ultra, 5G!")).containsExactly("galaxy", "s24", "ultra", "5g");
+        assertThat(TextIndex.tokenize("  ")).isEmpty();
+        assertThat(TextIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void everyQueryTermMustMatchAsAWordPrefix() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        TextIndex index = store.register(new TextIndex());
+        int galaxy = store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        int pixel = store.put(phone("p2", "Pixel 8", "Google", 699.0, "Photography"));
+
+        assertThat(rows(index.search("gal sam"))).containsExactly(galaxy);
+        assertThat(rows(index.search("galaxy google"))).isEmpty();
+        assertThat(rows(index.search("PIX"))).containsExactly(pixel);
+        assertThat(rows(index.search("alaxy"))).isEmpty();
+        assertThat(rows(index.search(""))).isEmpty();
+    }
+
+    @Test
+    void nameMatchesScoreAboveDescriptionMatches() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        TextIndex index = store.register(new TextIndex());
+        int inName = store.put(describedPhone("p1", "Zoom Master", "Acme", "A phone"));
+        int inDescription = store.put(describedPhone("p2", "Other", "Acme", "Great zoom lens"));
+        int prefixOnly = store.put(describedPhone("p3", "Zoomer", "Acme", "A phone"));
+
+        TextIndex.Hits hits = index.search("zoom");
+
+        // A name weighs three times a description, even as a prefix match at half the score
+        assertThat(rows(hits)).containsExactly(inName, prefixOnly, inDescription);
+        assertThat(hits.score(0)).isGreaterThan(hits.score(1));
+        assertThat(hits.score(1)).isGreaterThan(hits.score(2));
+    }
+
+    @Test
+    void removedAndOverwrittenPhonesLeaveThePostings() {
+        PhoneColumnStore store = new PhoneColumnStore();
+        TextIndex index = store.register(new TextIndex());
+        int row = store.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+        store.put(phone("p2", "Galaxy A15", "Samsung", 199.0, "Budget"));
+
+        store.put(phone("p1", "Nord 3", "OnePlus", 399.0, "Budget"));
+        assertThat(rows(index.search("s24"))).isEmpty();
+        assertThat(rows(index.search("nord"))).containsExactly(row);
+
+        store.remove("p1");
+        assertThat(rows(index.search("nord"))).isEmpty();
+        assertThat(rows(index.search("galaxy"))).containsExactly(store.rowOf("p2"));
+    }
+
+    @Test
+    void forkedIndexDoesNotChangeTheParent() {
+        PhoneColumnStore parent = new PhoneColumnStore();
+        TextIndex parentIndex = parent.register(new TextIndex());
+        int row = parent.put(phone("p1", "Galaxy S24", "Samsung", 899.0, "Gaming"));
+
+        PhoneColumnStore fork = parent.fork();
+        TextIndex forkIndex = (TextIndex) fork.index(parentIndex.snapshotName());
+        fork.remove("p1");
+        fork.put(phone("p2", "Galaxy Z Flip", "Samsung", 999.0, "Gaming"));
+
+        assertThat(rows(parentIndex.search("galaxy"))).containsExactly(row);
+        assertThat(rows(forkIndex.search("galaxy"))).containsExactly(fork.rowOf("p2"));
+    }
+
+    @Test
+    void searchAgreesWithMatchingEachPhone() {
+        String[] words = {"galaxy", "gala", "pixel", "pro", "max", "mini", "ultra", "note", "nord", "zoom"};
+        Random random = new Random(7);
+        PhoneColumnStore store = new PhoneColumnStore();
+        TextIndex index = store.register(new TextIndex());
+        for (int i = 0; i < 300; i++) {
+            store.put(describedPhone("p" + random.nextInt(200), sentence(words, random, 2), words[random.nextInt(words.length)],
+                    sentence(words, random, 4)));
+            if (random.nextInt(5) == 0) {
+                store.remove("p" + random.nextInt(200));
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            String query = sentence(words, random, 1 + random.nextInt(2)).replaceAll("(\\w{2,})\\w\\b", "$1");
+            Set<Integer> expected = new TreeSet<>();
+            store.forEachLiveRow(row -> {
+                if (TextIndex.matches(query, store.name(row), store.brand(row), store.description(row))) {
+                    expected.add(row);
+                }
+            });
+            assertThat(new TreeSet<>(rows(index.search(query)))).as(query).isEqualTo(expected);
+        }
+    }
+
+    private static Phone describedPhone(String id, String name, String brand, String description) {
+        Phone phone = phone(id, name, brand, 500.0, "Everyday");
+        phone.setDescription(description);
+        return phone;
+    }
+
+    private static String sentence(String[] words, Random random, int length) {
+        List<String> picked = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            picked.add(words[random.nextInt(words.length)]);
+        }
+        return String.join(" ", picked);
+    }
+
+    static List<Integer> rows(TextIndex.Hits hits) {
+        List<Integer> rows = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            rows.add(hits.row(i));
+        }
+        return rows;
+    }
+}
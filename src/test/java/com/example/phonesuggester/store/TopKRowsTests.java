@@ -0,0 +1,45 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKRowsTests {
+
+    @Test
+    void keepsTheFirstKRowsInOrder() {
+        Random random = new Random(43);
+        int[] keys = new int[1000];
+        for (int row = 0; row < keys.length; row++) {
+            keys[row] = random.nextInt(100);
+        }
+        SortedRowIndex.RowComparator byKeyThenRow = (left, right) -> {
+            int result = Integer.compare(keys[left], keys[right]);
+            return result != 0 ? result : Integer.compare(left, right);
+        };
+
+        for (int k : new int[] {1, 10, 999, 1000, 2000}) {
+            TopKRows topK = new TopKRows(byKeyThenRow, k);
+            for (int row = 0; row < keys.length; row++) {
+                topK.accept(row);
+            }
+            int[] expected = IntStream.range(0, keys.length).boxed()
+                    .sorted(byKeyThenRow::compare)
+                    .limit(k)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            assertThat(topK.drainSorted()).as("k = %d", k).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void emptyInputDrainsToNothing() {
+        TopKRows topK = new TopKRows(Integer::compare, 5);
+
+        assertThat(topK.drainSorted()).isEmpty();
+    }
+}
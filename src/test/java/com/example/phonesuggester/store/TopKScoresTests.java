@@ -0,0 +1,73 @@
+package com.example.phonesuggester.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKScoresTests {
+
+    @Test
+    void keepsTheHighestScoresWithTiesOnTheLowerRow() {
+        Random random = new Random(4);
+        double[] scores = new double[5_000];
+        for (int row = 0; row < scores.length; row++) {
+            scores[row] = random.nextInt(50) / 10.0;
+        }
+
+        for (int k : new int[] {1, 7, 100, 5_000, 6_000}) {
+            TopKScores topK = new TopKScores(k);
+            // Offered in reverse so ties cannot be resolved by arrival order
+            for (int row = scores.length - 1; row >= 0; row--) {
+                topK.offer(row, scores[row]);
+            }
+            topK.sortDescending();
+
+            assertThat(rows(topK)).isEqualTo(expected(scores, k));
+        }
+    }
+
+    @Test
+    void mergedPartitionsMatchASingleHeap() {
+        double[] scores = {0.5, 0.9, 0.5, 0.1, 0.9, 0.7, 0.5, 0.3};
+        TopKScores left = new TopKScores(4);
+        TopKScores right = new TopKScores(4);
+        for (int row = 0; row < scores.length; row++) {
+            (row < 4 ? left : right).offer(row, scores[row]);
+        }
+
+        TopKScores merged = right.merge(left);
+        merged.sortDescending();
+
+        assertThat(rows(merged)).containsExactly(1, 4, 5, 0);
+        assertThat(merged.score(0)).isEqualTo(0.9);
+    }
+
+    @Test
+    void zeroCapacityKeepsNothing() {
+        TopKScores topK = new TopKScores(0);
+        topK.offer(1, 1.0);
+
+        assertThat(topK.size()).isZero();
+    }
+
+    private static List<Integer> expected(double[] scores, int k) {
+        return IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.<Integer>comparingDouble(row -> -scores[row]).thenComparing(row -> row))
+                .limit(k)
+                .toList();
+    }
+
+    private static List<Integer> rows(TopKScores topK) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < topK.size(); i++) {
+            rows.add(topK.row(i));
+        }
+        return rows;
+    }
+}